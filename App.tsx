@@ -21,13 +21,13 @@ import {
   Wifi,
   WifiOff
 } from 'lucide-react';
-import { Role, Ticket, ServiceCategory, Teller, TicketStatus, AdminAccount } from './types';
+import { Role, Ticket, ServiceCategory, Teller, TicketStatus, AdminAccount, WaitEstimates } from './types';
 import AdminDashboard from './pages/AdminDashboard';
 import ReceptionDashboard from './pages/ReceptionDashboard';
 import TellerDashboard from './pages/TellerDashboard';
 import MonitorDisplay from './pages/MonitorDisplay';
 import { realtimeService } from './services/RealtimeService';
-import { broadcastAnnouncement } from './services/geminiService';
+import { broadcastAnnouncement, announceTicket } from './services/geminiService';
 
 // Enhanced localStorage service with offline queue
 class LocalStorageService {
@@ -208,6 +208,9 @@ const App: React.FC = () => {
     return localStorageService.loadData<Record<string, number>>('q_category_counters', {});
   });
 
+  // Measured service times and predicted waits; only the embedded server sends them
+  const [waitEstimates, setWaitEstimates] = useState<WaitEstimates | null>(null);
+
   // Admin accounts - ONLY load from localStorage, NO default admin
   const [adminAccounts, setAdminAccounts] = useState<AdminAccount[]>(() => {
     const saved = localStorageService.loadData<AdminAccount[]>('q_admin_accounts', []);
@@ -271,6 +274,11 @@ const App: React.FC = () => {
     offlineModeRef.current = offlineMode;
   }, [connectionStatus, tickets, categories, categoryCounters, lastIssuedTicket, offlineMode]);
 
+  // Tell the server which role this device is in, for its clients-by-role metrics
+  useEffect(() => {
+    realtimeService.setRole(currentRole);
+  }, [currentRole]);
+
   // Save auth state
   useEffect(() => {
     if (!isInitialLoad) {
@@ -477,6 +485,36 @@ const App: React.FC = () => {
       setClientCount(data.clientCount || 0);
     };
 
+    // Server-side call next: the ticket and teller updates arrive as normal broadcasts, and
+    // the server announces to everyone else, so only the local beep is left to do here
+    const handleCallNextResult = (data: any) => {
+      if (data.error) {
+        console.warn('Call next failed:', data.error);
+      } else if (data.ticket) {
+        announceTicket(data.ticket.number, data.ticket.counterNumber);
+      }
+    };
+
+    // Server-side numbering: the ticket itself arrives as a ticket_update broadcast
+    const handleIssueTicketResult = (data: any) => {
+      if (data.error) {
+        console.warn('Issue ticket failed:', data.error);
+      } else if (data.ticket) {
+        setLastIssuedTicket(data.ticket);
+      }
+    };
+
+    // The server owns the counters (and their daily reset); mirror them for display
+    const handleCounterUpdate = (data: any) => {
+      if (data.categoryId && typeof data.count === 'number') {
+        setCategoryCounters(prev => ({ ...prev, [data.categoryId]: data.count }));
+      }
+    };
+
+    const handleWaitEstimates = (data: WaitEstimates) => {
+      setWaitEstimates(data);
+    };
+
     const handleTicketUpdate = (ticket: Ticket) => {
       setTickets(prev => {
         const exists = prev.find(t => t.id === ticket.id);
@@ -624,6 +662,10 @@ const App: React.FC = () => {
     realtimeService.on('disconnected', handleDisconnected);
     realtimeService.on('connecting', handleConnecting);
     realtimeService.on('welcome', handleWelcome);
+    realtimeService.on('call_next_result', handleCallNextResult);
+    realtimeService.on('issue_ticket_result', handleIssueTicketResult);
+    realtimeService.on('counter_update', handleCounterUpdate);
+    realtimeService.on('wait_estimates', handleWaitEstimates);
     realtimeService.on('ticket_update', handleTicketUpdate);
     realtimeService.on('teller_update', handleTellerUpdate);
     realtimeService.on('category_update', handleCategoryUpdate);
@@ -639,6 +681,10 @@ const App: React.FC = () => {
       realtimeService.off('disconnected', handleDisconnected);
       realtimeService.off('connecting', handleConnecting);
       realtimeService.off('welcome', handleWelcome);
+      realtimeService.off('call_next_result', handleCallNextResult);
+      realtimeService.off('issue_ticket_result', handleIssueTicketResult);
+      realtimeService.off('counter_update', handleCounterUpdate);
+      realtimeService.off('wait_estimates', handleWaitEstimates);
       realtimeService.off('ticket_update', handleTicketUpdate);
       realtimeService.off('teller_update', handleTellerUpdate);
       realtimeService.off('category_update', handleCategoryUpdate);
@@ -910,6 +956,12 @@ const App: React.FC = () => {
   };
 
   const handleIssueTicket = (categoryId: string) => {
+    // The embedded launcher server numbers tickets itself, so reception desks cannot collide
+    if (realtimeService.supportsFeature('issue_ticket')) {
+      realtimeService.send({ type: 'issue_ticket', categoryId });
+      return;
+    }
+
     const category = categories.find(c => c.id === categoryId);
     if (!category) return;
     
@@ -929,6 +981,13 @@ const App: React.FC = () => {
   };
 
   const handleCallNext = (tellerId: string) => {
+    // The embedded launcher server picks and claims the ticket atomically, so tellers pressing
+    // "next" at the same moment never get the same one
+    if (realtimeService.supportsFeature('call_next')) {
+      realtimeService.send({ type: 'call_next', tellerId });
+      return;
+    }
+
     const teller = tellers.find(t => t.id === tellerId);
     if (!teller) return;
 
@@ -1396,6 +1455,7 @@ const App: React.FC = () => {
             onDailyReset={handleManualDailyReset}
             dailyResetTime={dailyResetTime}
             categoryCounters={categoryCounters}
+            waitEstimates={waitEstimates}
             offlineMode={offlineMode}
             pendingChangesCount={pendingChangesCount}
             onSync={handleManualSync}
@@ -1411,6 +1471,7 @@ const App: React.FC = () => {
             onUpdateCategory={handleUpdateCategory}
             onDeleteCategory={handleDeleteCategory}
             dailyResetTime={dailyResetTime}
+            waitEstimates={waitEstimates}
             offlineMode={offlineMode}
           />
         )}
@@ -1431,6 +1492,7 @@ const App: React.FC = () => {
             categories={categories}
             tellers={tellers}
             dailyResetTime={dailyResetTime}
+            waitEstimates={waitEstimates}
             offlineMode={offlineMode}
           />
         )}
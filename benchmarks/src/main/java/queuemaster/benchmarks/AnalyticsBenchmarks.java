@@ -0,0 +1,74 @@
+package queuemaster.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import queuemaster.engine.QueueEngine;
+import queuemaster.engine.Ticket;
+import queuemaster.engine.TicketStatus;
+import queuemaster.stats.AnalyticsRollups;
+import queuemaster.stats.AnalyticsRollups.Granularity;
+
+/**
+ * Analytics rollups: the per-transition update on the relay's publish path, and the queries
+ * the admin dashboard makes, which should cost the same however many tickets the day had.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AnalyticsBenchmarks {
+    @Param({"1000", "20000"})
+    public int tickets;
+
+    private AnalyticsRollups rollups;
+    private Ticket serving;
+    private Ticket completed;
+    private long dayStart;
+    private long now;
+
+    @Setup
+    public void setUp() {
+        QueueEngine engine = Fixtures.populate(Fixtures.engine("indexed"), tickets, tickets / 10);
+        rollups = new AnalyticsRollups();
+        // Move the fixture day to today so nothing falls outside the retention
+        long shift = System.currentTimeMillis() - (Fixtures.START + tickets * 3_000L);
+        for (Ticket ticket : engine.tickets()) rollups.observe(null, shifted(ticket, shift));
+        now = System.currentTimeMillis();
+        dayStart = rollups.bucketStart(Granularity.DAY, now);
+        Ticket ticket = Fixtures.ticket(tickets);
+        serving = shifted(ticket, shift).withStatus(TicketStatus.SERVING, now - 300_000);
+        completed = serving.withStatus(TicketStatus.COMPLETED, now);
+    }
+
+    /** One completion added to its minute, hour and day buckets. */
+    @Benchmark
+    public void observeCompletion() {
+        rollups.observe(serving, completed);
+    }
+
+    /** The Daily chart: today's hourly buckets with their category and teller breakdowns. */
+    @Benchmark
+    public List<AnalyticsRollups.Rollup> queryHoursOfDay() {
+        return rollups.query(Granularity.HOUR, dayStart, now + 1);
+    }
+
+    @Benchmark
+    public AnalyticsRollups.Rollup summarizeLastHourByMinute() {
+        return rollups.summarize(Granularity.MINUTE, now - Granularity.HOUR.getMillis(), now + 1);
+    }
+
+    private static Ticket shifted(Ticket ticket, long shift) {
+        Ticket moved = Ticket.create(ticket.getId(), ticket.getNumber(), ticket.getCategoryId(), ticket.getCreatedAt() + shift);
+        if (ticket.getStatus() != TicketStatus.COMPLETED) return moved;
+        return moved.withStatus(TicketStatus.CALLING, ticket.getCalledAt() + shift)
+                .withStatus(TicketStatus.SERVING, ticket.getServedAt() + shift)
+                .withStatus(TicketStatus.COMPLETED, ticket.getCompletedAt() + shift);
+    }
+}
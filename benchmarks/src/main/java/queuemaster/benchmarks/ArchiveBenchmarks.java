@@ -0,0 +1,135 @@
+package queuemaster.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import queuemaster.engine.Ticket;
+import queuemaster.engine.TicketStatus;
+import queuemaster.json.Json;
+import queuemaster.store.ColumnarArchive;
+import queuemaster.store.JsonLinesArchive;
+
+/**
+ * Month and year reports over a year of synthetic branch history (365 days of about 800
+ * tickets) in the columnar archive, against the same month read back from the JSON-lines
+ * archive it replaces. The history is generated once per fork into a temp directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ArchiveBenchmarks {
+    static final int DAYS = 365;
+    static final int TICKETS_PER_DAY = 800;
+    static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    static final LocalDate MARCH = LocalDate.of(2024, 3, 1);
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private Path directory;
+    private ColumnarArchive columnar;
+    private JsonLinesArchive jsonLines;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("qm-archive-bench");
+        columnar = new ColumnarArchive(directory.resolve("history"), zone);
+        columnar.setLogger(null);
+        jsonLines = new JsonLinesArchive(directory.resolve("archive"), zone);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int d = 0; d < DAYS; d++) {
+            LocalDate day = FIRST_DAY.plusDays(d);
+            List<Ticket> tickets = day(day, random);
+            // Expiry hands each day over in batches; the next day's first batch compacts it
+            int batch = tickets.size() / 4 + 1;
+            for (int i = 0; i < tickets.size(); i += batch) {
+                columnar.archive(tickets.subList(i, Math.min(tickets.size(), i + batch)));
+            }
+            if (day.getMonth() == MARCH.getMonth()) jsonLines.archive(tickets);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) Files.deleteIfExists(path);
+        }
+    }
+
+    /** "Average wait for category X in March" from the columnar files. */
+    @Benchmark
+    public double monthReportColumnar() throws IOException {
+        return columnar.stats(MARCH, MARCH.plusMonths(1).minusDays(1), "cat-3", null).averageWaitMillis();
+    }
+
+    /** The same report by parsing March's JSON-lines files. */
+    @Benchmark
+    public double monthReportJsonLines() throws IOException {
+        long waits = 0;
+        long total = 0;
+        for (LocalDate day = MARCH; day.getMonth() == MARCH.getMonth(); day = day.plusDays(1)) {
+            Path file = jsonLines.getDirectory().resolve("tickets-" + day + ".jsonl");
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                for (String line = in.readLine(); line != null; line = in.readLine()) {
+                    Ticket ticket = new Ticket(Json.parseObject(line));
+                    if (!"cat-3".equals(ticket.getCategoryId()) || ticket.getCalledAt() == null) continue;
+                    waits++;
+                    total += ticket.getCalledAt() - ticket.getCreatedAt();
+                }
+            }
+        }
+        return waits > 0 ? (double) total / waits : Double.NaN;
+    }
+
+    /** Every category and teller for the whole year. */
+    @Benchmark
+    public ColumnarArchive.RangeStats yearReportColumnar() throws IOException {
+        return columnar.stats(FIRST_DAY, FIRST_DAY.plusDays(DAYS - 1), null, null);
+    }
+
+    /** One teller over the year: days the teller did not work are skipped by their dictionary. */
+    @Benchmark
+    public ColumnarArchive.RangeStats yearReportOneTeller() throws IOException {
+        return columnar.stats(FIRST_DAY, FIRST_DAY.plusDays(DAYS - 1), null, "teller-7");
+    }
+
+    /** A day's tickets with the mix of outcomes the tools use: mostly served, some no-shows. */
+    private List<Ticket> day(LocalDate day, SplittableRandom random) {
+        long open = day.atStartOfDay(zone).plusHours(8).toInstant().toEpochMilli();
+        List<Ticket> tickets = new ArrayList<>(TICKETS_PER_DAY);
+        for (int i = 0; i < TICKETS_PER_DAY; i++) {
+            int category = random.nextInt(Fixtures.CATEGORIES);
+            long createdAt = open + i * 40_000L + random.nextInt(30_000);
+            Ticket ticket = new Ticket(Map.of("id", "h-" + day + "-" + i, "number", (char) ('A' + category) + "-" + i,
+                    "categoryId", "cat-" + category, "status", "WAITING", "createdAt", createdAt,
+                    "tellerId", "teller-" + random.nextInt(20), "counterNumber", (long) random.nextInt(1, 11)));
+            long calledAt = createdAt + random.nextInt(60_000, 1_800_000);
+            if (random.nextInt(20) == 0) {
+                ticket = ticket.withStatus(TicketStatus.CALLING, calledAt).withStatus(TicketStatus.NOSHOW, calledAt + 120_000);
+            } else {
+                long servedAt = calledAt + random.nextInt(10_000, 60_000);
+                ticket = ticket.withStatus(TicketStatus.CALLING, calledAt).withStatus(TicketStatus.SERVING, servedAt)
+                        .withStatus(TicketStatus.COMPLETED, servedAt + random.nextInt(120_000, 900_000));
+            }
+            tickets.add(ticket);
+        }
+        return tickets;
+    }
+}
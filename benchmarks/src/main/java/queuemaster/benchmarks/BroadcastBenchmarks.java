@@ -0,0 +1,55 @@
+package queuemaster.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import queuemaster.engine.Ticket;
+import queuemaster.engine.TicketStatus;
+import queuemaster.json.Json;
+import queuemaster.realtime.Frames;
+
+/**
+ * Broadcast encoding as the relay does it for every published event: the message to JSON,
+ * the {@code seq} suffix, UTF-8 and the WebSocket frame. Parsing an incoming message is
+ * measured alongside, since every mutation is decoded once before it is re-encoded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BroadcastBenchmarks {
+    private Map<String, Object> ticketUpdate;
+    private String incoming;
+    private long seq;
+
+    @Setup
+    public void setUp() {
+        Ticket ticket = Fixtures.ticket(42).withStatus(TicketStatus.CALLING, Fixtures.START + 60_000);
+        ticketUpdate = new LinkedHashMap<>();
+        ticketUpdate.put("type", "ticket_update");
+        ticketUpdate.put("ticket", ticket.toJson());
+        incoming = Json.write(ticketUpdate);
+    }
+
+    /** The relay's publish path up to the frame handed to every client queue. */
+    @Benchmark
+    public ByteBuffer encodeTicketUpdate() {
+        String body = Json.write(ticketUpdate);
+        StringBuilder text = new StringBuilder(body.length() + 24);
+        text.append(body, 0, body.length() - 1).append(",\"seq\":").append(++seq).append('}');
+        return Frames.frame(Frames.OP_TEXT, text.toString().getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    @Benchmark
+    public Map<String, Object> decodeTicketUpdate() {
+        return Json.parseObject(incoming);
+    }
+}
@@ -0,0 +1,71 @@
+package queuemaster.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import queuemaster.engine.Dispatcher;
+import queuemaster.engine.QueueEngine;
+import queuemaster.engine.Ticket;
+
+/**
+ * Server-side "call next" through {@link Dispatcher#claim}. Each operation claims the best
+ * ticket across a teller's categories and puts it straight back, so the queues never drain
+ * and every claim works against the same depth. The threaded variant has tellers racing for
+ * the same heads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DispatchBenchmarks {
+    @Param({"1000", "50000"})
+    public int waiting;
+
+    private QueueEngine engine;
+    private Dispatcher dispatcher;
+
+    @State(Scope.Thread)
+    public static class Teller {
+        List<String> categories;
+
+        @Setup
+        public void setUp() {
+            int first = (int) (Thread.currentThread().getId() % Fixtures.CATEGORIES);
+            categories = List.of("cat-" + first, "cat-" + (first + 3) % Fixtures.CATEGORIES);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        engine = Fixtures.populate(Fixtures.engine("striped"), waiting, waiting);
+        dispatcher = new Dispatcher();
+        dispatcher.rebuild(engine);
+    }
+
+    private Dispatcher.Claim claimAndRequeue(Teller teller) {
+        Dispatcher.Claim claim = dispatcher.claim(teller.categories);
+        if (claim != null) {
+            Ticket ticket = engine.getTicket(claim.ticketId());
+            dispatcher.track(ticket);
+        }
+        return claim;
+    }
+
+    @Benchmark
+    public Dispatcher.Claim claim(Teller teller) {
+        return claimAndRequeue(teller);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Dispatcher.Claim claimContended(Teller teller) {
+        return claimAndRequeue(teller);
+    }
+}
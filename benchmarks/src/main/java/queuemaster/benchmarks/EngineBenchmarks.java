@@ -0,0 +1,70 @@
+package queuemaster.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import queuemaster.engine.QueueEngine;
+import queuemaster.engine.Ticket;
+import queuemaster.engine.TicketStatus;
+
+/**
+ * Ticket upsert and next-ticket lookup on both engines, over a day of finished tickets with
+ * a live waiting tail. Upserts cycle the waiting tickets through CALLING and back, so the
+ * engine size stays constant and every write moves a ticket between status indexes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EngineBenchmarks {
+    @Param({"indexed", "striped"})
+    public String engine;
+
+    @Param({"10000", "100000"})
+    public int tickets;
+
+    private static final int WAITING = 1_000;
+
+    private QueueEngine queue;
+    private Ticket[] waiting;
+    private Ticket[] calling;
+    private List<String> tellerCategories;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        queue = Fixtures.populate(Fixtures.engine(engine), tickets, WAITING);
+        waiting = new Ticket[WAITING];
+        calling = new Ticket[WAITING];
+        for (int i = 0; i < WAITING; i++) {
+            waiting[i] = queue.getTicket(Fixtures.ticket(tickets - WAITING + i).getId());
+            calling[i] = waiting[i].withStatus(TicketStatus.CALLING, waiting[i].getCreatedAt() + 60_000);
+        }
+        tellerCategories = List.of("cat-1", "cat-4", "cat-6");
+    }
+
+    /** One upsert; alternates a ticket between WAITING and CALLING. */
+    @Benchmark
+    public Ticket upsert() {
+        int i = next++ & Integer.MAX_VALUE;
+        int slot = (i >> 1) % WAITING;
+        return queue.upsertTicket((i & 1) == 0 ? calling[slot] : waiting[slot]);
+    }
+
+    @Benchmark
+    public Ticket peekNextWaiting() {
+        return queue.peekNextWaiting("cat-3");
+    }
+
+    /** A teller serving three categories, as the dashboards ask before a call. */
+    @Benchmark
+    public Ticket peekNextWaitingAcrossCategories() {
+        return queue.peekNextWaiting(tellerCategories);
+    }
+}
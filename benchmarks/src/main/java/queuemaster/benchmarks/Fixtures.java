@@ -0,0 +1,59 @@
+package queuemaster.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import queuemaster.engine.IndexedQueueEngine;
+import queuemaster.engine.QueueEngine;
+import queuemaster.engine.ServiceCategory;
+import queuemaster.engine.StripedQueueEngine;
+import queuemaster.engine.Teller;
+import queuemaster.engine.Ticket;
+import queuemaster.engine.TicketStatus;
+
+/** Branch data shared by the benchmarks, shaped like the tools' day mix. */
+final class Fixtures {
+    static final int CATEGORIES = 8;
+    static final long START = 1_700_000_000_000L;
+
+    private Fixtures() {}
+
+    static QueueEngine engine(String kind) {
+        switch (kind) {
+            case "indexed": return new IndexedQueueEngine();
+            case "striped": return new StripedQueueEngine(StripedQueueEngine.DEFAULT_STRIPES);
+            default: throw new IllegalArgumentException("Unknown engine: " + kind);
+        }
+    }
+
+    /** Categories, 20 tellers and {@code tickets} tickets: all but the last {@code waiting} are finished. */
+    static QueueEngine populate(QueueEngine engine, int tickets, int waiting) {
+        for (int c = 0; c < CATEGORIES; c++) {
+            engine.upsertCategory(new ServiceCategory(Map.of("id", "cat-" + c, "name", "Service " + c,
+                    "prefix", String.valueOf((char) ('A' + c)), "estimatedTime", 5L)));
+        }
+        for (int t = 0; t < 20; t++) {
+            engine.upsertTeller(new Teller(Map.of("id", "teller-" + t, "name", "Teller " + t,
+                    "counterNumber", (long) t + 1, "assignedCategoryIds", List.of("cat-" + (t % CATEGORIES)))));
+        }
+        for (int i = 0; i < tickets; i++) {
+            Ticket ticket = ticket(i);
+            if (i < tickets - waiting) ticket = finished(ticket);
+            engine.upsertTicket(ticket);
+        }
+        return engine;
+    }
+
+    static Ticket ticket(int i) {
+        int category = i % CATEGORIES;
+        long createdAt = START + i * 3_000L;
+        return Ticket.create("t-" + Long.toString(createdAt, 36) + "-" + i,
+                (char) ('A' + category) + "-" + (i % 1000), "cat-" + category, createdAt);
+    }
+
+    static Ticket finished(Ticket ticket) {
+        long createdAt = ticket.getCreatedAt();
+        return ticket.withStatus(TicketStatus.CALLING, createdAt + 60_000)
+                .withStatus(TicketStatus.SERVING, createdAt + 90_000)
+                .withStatus(TicketStatus.COMPLETED, createdAt + 400_000);
+    }
+}
@@ -0,0 +1,76 @@
+package queuemaster.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import queuemaster.engine.TicketStatus;
+import queuemaster.json.Json;
+import queuemaster.store.FsyncPolicy;
+import queuemaster.store.Journal;
+
+/**
+ * Journal append of a typical {@code ticket_update} record under each {@link FsyncPolicy}.
+ * Segments the run has moved past are deleted after every iteration, as snapshots do in the
+ * server, so a long run does not fill the disk. Run it on the disk the launcher will use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JournalBenchmarks {
+    private static final long SEGMENT_BYTES = 16L * 1024 * 1024;
+
+    @Param({"OS", "BATCH", "ALWAYS"})
+    public String policy;
+
+    private Path directory;
+    private Journal journal;
+    private byte[] payload;
+    private long seq;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("qm-jmh-journal");
+        journal = Journal.open(directory, FsyncPolicy.valueOf(policy), SEGMENT_BYTES);
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", "ticket_update");
+        message.put("ticket", Fixtures.ticket(42).withStatus(TicketStatus.CALLING, Fixtures.START + 60_000).toJson());
+        message.put("seq", 1L);
+        payload = Json.write(message).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Iteration)
+    public void compact() throws IOException {
+        journal.deleteSegmentsThrough(seq);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public void append() throws IOException {
+        journal.append(++seq, payload);
+    }
+}
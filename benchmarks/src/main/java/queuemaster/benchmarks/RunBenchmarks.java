@@ -0,0 +1,53 @@
+package queuemaster.benchmarks;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import queuemaster.tools.ConnectionLoadTest;
+
+/**
+ * Runs the JMH suite and writes the results as JSON, named after the release and the time
+ * of the run so files from different releases can be compared side by side.
+ *
+ * <pre>
+ * mvn -B package
+ * java -jar benchmarks/target/benchmarks.jar --include Engine --results results/engine.json
+ * </pre>
+ *
+ * Options: {@code --include} (regex over benchmark names, default all), {@code --results},
+ * {@code --forks} (1), {@code --warmup} (3), {@code --iterations} (5), {@code --seconds} per
+ * iteration (2), {@code --prof} (a JMH profiler such as {@code gc}). The usual JMH command
+ * line is still available through {@code java -cp benchmarks/target/benchmarks.jar org.openjdk.jmh.Main}.
+ */
+public final class RunBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = ConnectionLoadTest.parseArgs(args);
+        String version = RunBenchmarks.class.getPackage().getImplementationVersion();
+        String results = options.getOrDefault("results", String.format("results/jmh-%s-%s.json",
+                version != null ? version : "dev", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))));
+        File resultsFile = new File(results).getAbsoluteFile();
+        if (resultsFile.getParentFile() != null) resultsFile.getParentFile().mkdirs();
+        TimeValue iterationTime = TimeValue.seconds(Long.parseLong(options.getOrDefault("seconds", "2")));
+
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+                .include(RunBenchmarks.class.getPackageName() + "\\..*(" + options.getOrDefault("include", "") + ").*")
+                .forks(Integer.parseInt(options.getOrDefault("forks", "1")))
+                .warmupIterations(Integer.parseInt(options.getOrDefault("warmup", "3")))
+                .warmupTime(iterationTime)
+                .measurementIterations(Integer.parseInt(options.getOrDefault("iterations", "5")))
+                .measurementTime(iterationTime)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultsFile.getPath());
+        if (options.containsKey("prof")) builder.addProfiler(options.get("prof"));
+
+        new Runner(builder.build()).run();
+        System.out.printf("%nResults written to %s%n", resultsFile);
+    }
+}
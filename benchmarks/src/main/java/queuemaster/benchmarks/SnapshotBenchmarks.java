@@ -0,0 +1,69 @@
+package queuemaster.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import queuemaster.engine.QueueEngine;
+import queuemaster.store.Snapshot;
+import queuemaster.store.SnapshotStore;
+
+/**
+ * Snapshot serialization: capturing the engine, writing the file (including its fsync) and
+ * reading it back with checksum verification. Files go to a temporary directory that is
+ * removed after the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SnapshotBenchmarks {
+    @Param({"10000", "100000"})
+    public int tickets;
+
+    private QueueEngine engine;
+    private Snapshot snapshot;
+    private SnapshotStore store;
+    private Path written;
+
+    @Setup
+    public void setUp() throws IOException {
+        engine = Fixtures.populate(Fixtures.engine("striped"), tickets, 200);
+        snapshot = Snapshot.of(tickets, engine);
+        store = new SnapshotStore(Files.createTempDirectory("qm-jmh-snapshots"));
+        store.setLogger(null);
+        written = store.write(snapshot);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.prune(0);
+        Files.deleteIfExists(store.getDirectory());
+    }
+
+    /** Cheap while the engine's merged view is current, which is the common case between writes. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Snapshot capture() {
+        return Snapshot.of(tickets, engine);
+    }
+
+    @Benchmark
+    public Path write() throws IOException {
+        return store.write(snapshot);
+    }
+
+    @Benchmark
+    public Snapshot read() throws IOException {
+        return SnapshotStore.read(written);
+    }
+}
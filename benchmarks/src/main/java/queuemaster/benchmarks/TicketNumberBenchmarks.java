@@ -0,0 +1,67 @@
+package queuemaster.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import queuemaster.engine.TicketNumberAllocator;
+
+/**
+ * Ticket numbers per millisecond from {@link TicketNumberAllocator}: allocate and format into
+ * a buffer each desk keeps, which should stay above 1,000 (a million a second) and allocate
+ * nothing; run with {@code --prof gc} to check the latter. Desks cycle through a few shared
+ * prefixes, so the threaded variant contends on the same counters as real reception desks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TicketNumberBenchmarks {
+    static final String[] PREFIXES = {"A", "B", "C", "D", "VIP", "PAY"};
+
+    private TicketNumberAllocator allocator;
+
+    @State(Scope.Thread)
+    public static class Desk {
+        final char[] buffer = new char[3 + 1 + TicketNumberAllocator.MAX_DIGITS];
+        int next;
+
+        @Setup
+        public void setUp() {
+            next = (int) (Thread.currentThread().getId() % PREFIXES.length);
+        }
+
+        String prefix() {
+            String prefix = PREFIXES[next];
+            next = next + 1 == PREFIXES.length ? 0 : next + 1;
+            return prefix;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        allocator = new TicketNumberAllocator();
+    }
+
+    /** The counter alone: one compare-and-set plus the cached day check. */
+    @Benchmark
+    public long allocate(Desk desk) {
+        return allocator.allocateOnDay(desk.prefix());
+    }
+
+    /** What issuing a ticket costs before the ticket itself: a number written into the desk's buffer. */
+    @Benchmark
+    public int allocateAndFormat(Desk desk) {
+        return allocator.next(desk.prefix(), desk.buffer);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int allocateAndFormatContended(Desk desk) {
+        return allocator.next(desk.prefix(), desk.buffer);
+    }
+}
@@ -0,0 +1,65 @@
+package queuemaster.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import queuemaster.engine.QueueEngine;
+import queuemaster.engine.Ticket;
+import queuemaster.engine.TicketStatus;
+import queuemaster.stats.ServiceTimeStats;
+import queuemaster.stats.WaitTimeEstimator;
+
+/**
+ * The wait-time estimator on a branch day: the prediction attached to every issued ticket,
+ * which must not grow with the day's ticket count, and the per-completion update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WaitTimeBenchmarks {
+    @Param({"1000", "20000"})
+    public int tickets;
+
+    private WaitTimeEstimator estimator;
+    private ServiceTimeStats stats;
+    private Ticket serving;
+    private Ticket completed;
+    private final String[] categoryIds = new String[Fixtures.CATEGORIES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        QueueEngine engine = Fixtures.populate(Fixtures.engine("striped"), tickets, tickets / 10);
+        estimator = new WaitTimeEstimator(engine);
+        estimator.rebuild();
+        stats = new ServiceTimeStats();
+        for (int c = 0; c < categoryIds.length; c++) categoryIds[c] = "cat-" + c;
+        Ticket ticket = Fixtures.ticket(tickets);
+        serving = ticket.withStatus(TicketStatus.SERVING, ticket.getCreatedAt() + 90_000);
+        completed = Fixtures.finished(ticket);
+    }
+
+    /** What issue_ticket adds to each ticket. */
+    @Benchmark
+    public long expectedWait() {
+        return estimator.expectedWaitMillis(categoryIds[next++ % categoryIds.length]);
+    }
+
+    /** One completion folded into a category's EWMA and t-digest. */
+    @Benchmark
+    public void recordServiceTime() {
+        stats.record(240_000 + (next++ & 0xFFFF));
+    }
+
+    /** A full ticket_update through observe, including the status check. */
+    @Benchmark
+    public void observeCompletion() {
+        estimator.observe(serving, completed);
+    }
+}
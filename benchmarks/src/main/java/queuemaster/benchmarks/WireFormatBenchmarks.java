@@ -0,0 +1,95 @@
+package queuemaster.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import queuemaster.engine.QueueEngine;
+import queuemaster.engine.ServiceCategory;
+import queuemaster.engine.Teller;
+import queuemaster.engine.Ticket;
+import queuemaster.engine.TicketStatus;
+import queuemaster.json.Json;
+import queuemaster.realtime.BinaryCodec;
+
+/**
+ * JSON against the {@link BinaryCodec} format for the messages monitors receive most: a
+ * called ticket, a busy teller, and the {@code sync} of a 500-ticket day. The encoded size of
+ * each is printed once per fork as "wire bytes". Decoding is what the client pays per event;
+ * the Java decoder stands in for the browser's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WireFormatBenchmarks {
+    @Param({"ticket_update", "teller_update", "sync"})
+    public String message;
+
+    private Map<String, Object> data;
+    private long seq;
+    private final BinaryCodec codec = new BinaryCodec();
+    private final BinaryCodec.Decoder decoder = new BinaryCodec.Decoder();
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() {
+        QueueEngine engine = Fixtures.populate(Fixtures.engine("indexed"), 500, 50);
+        data = new LinkedHashMap<>();
+        data.put("type", message);
+        Ticket ticket = Fixtures.ticket(420).withStatus(TicketStatus.CALLING, Fixtures.START + 1_320_000);
+        switch (message) {
+            case "ticket_update":
+                data.put("ticket", ticket.toJson());
+                break;
+            case "teller_update":
+                data.put("teller", engine.getTeller("teller-4").busyWith(ticket.getId(), Fixtures.START + 1_320_000).toJson());
+                break;
+            default:
+                data.put("tickets", engine.tickets().stream().map(Ticket::toJson).toList());
+                data.put("categories", engine.categories().stream().map(ServiceCategory::toJson).toList());
+                data.put("tellers", engine.tellers().stream().map(Teller::toJson).toList());
+                data.put("adminAccounts", engine.adminAccounts());
+                data.put("epoch", "lzq3k2");
+                data.put("timestamp", Fixtures.START + 1_500_000);
+        }
+        seq = 1234;
+        boolean snapshot = message.equals("sync");
+        json = encodeJson().getBytes(StandardCharsets.UTF_8);
+        binary = codec.encode(data, seq, snapshot);
+        // Events are decoded by clients that already hold the table from their last snapshot
+        if (!snapshot) decoder.decode(codec.strings(0));
+        System.out.printf("wire bytes %s: json %d, binary %d%n", message, json.length, binary.length);
+    }
+
+    @Benchmark
+    public String encodeJson() {
+        String body = Json.write(data);
+        return new StringBuilder(body.length() + 24).append(body, 0, body.length() - 1)
+                .append(",\"seq\":").append(seq).append('}').toString();
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return codec.encode(data, seq, message.equals("sync"));
+    }
+
+    /** As the browser does: UTF-8 to a string, then the parse. */
+    @Benchmark
+    public Map<String, Object> decodeJson() {
+        return Json.parseObject(new String(json, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public Map<String, Object> decodeBinary() {
+        return decoder.decode(binary);
+    }
+}
@@ -6,33 +6,29 @@ echo Building QueueMaster Launcher...
 echo Current folder: %CD%
 echo.
 
-:: Check for JDK
-where javac >nul 2>&1
+:: Check for Maven (it needs a JDK 17+ on PATH or in JAVA_HOME)
+where mvn >nul 2>&1
 if errorlevel 1 (
-    echo ERROR: javac not found. Install JDK and add it to PATH.
-    echo Download: https://adoptium.net/ or https://www.oracle.com/java/technologies/downloads/
+    echo ERROR: mvn not found. Install Maven and a JDK 17 or newer and add them to PATH.
+    echo Download: https://maven.apache.org/download.cgi and https://adoptium.net/
     goto :end
 )
 
-:: Compile Java
-if not exist "out" mkdir out
-echo Compiling Java...
-javac -encoding UTF-8 -d out QueueMasterLauncher.java
+:: Compile and package (launcher jar and JMH benchmarks jar)
+echo Running Maven...
+call mvn -B -q package
 if errorlevel 1 (
-    echo ERROR: javac failed.
+    echo ERROR: Maven build failed.
     goto :end
 )
 
-:: Create JAR (Main-Class in manifest via -e)
-echo Creating JAR...
-jar cfe QueueMasterLauncher.jar QueueMasterLauncher -C out .
+copy /y launcher\target\QueueMasterLauncher.jar QueueMasterLauncher.jar >nul
 if errorlevel 1 (
-    echo ERROR: jar failed.
+    echo ERROR: could not copy QueueMasterLauncher.jar.
     goto :end
 )
-
-rd /s /q out 2>nul
 echo JAR created: QueueMasterLauncher.jar
+echo Benchmarks: java -jar benchmarks\target\benchmarks.jar
 echo.
 
 :: Build EXE with Launch4j if available
@@ -0,0 +1,1895 @@
+import java.awt.*;
+import java.awt.datatransfer.Clipboard;
+import java.awt.datatransfer.StringSelection;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.event.*;
+import java.util.prefs.Preferences;
+import queuemaster.console.LogBuffer;
+import queuemaster.console.LogListModel;
+import queuemaster.console.SparklineCard;
+import queuemaster.engine.QueueEngine;
+import queuemaster.json.Json;
+import queuemaster.metrics.JvmMetrics;
+import queuemaster.metrics.LatencyHistogram;
+import queuemaster.engine.StripedQueueEngine;
+import queuemaster.engine.TicketArchive;
+import queuemaster.realtime.ClientStats;
+import queuemaster.realtime.CoalescingStats;
+import queuemaster.realtime.RealtimeMetrics;
+import queuemaster.runtime.BackgroundTasks;
+import queuemaster.runtime.ChildProcess;
+import queuemaster.runtime.HealthProbe;
+import queuemaster.runtime.NetworkDiscovery;
+import queuemaster.runtime.ProcessSupervisor;
+import queuemaster.runtime.StartupTimeline;
+import queuemaster.runtime.TaskInfo;
+import queuemaster.runtime.ToolchainResolver;
+import queuemaster.server.EmbeddedServer;
+import queuemaster.server.StaticSiteServer;
+import queuemaster.store.FsyncPolicy;
+import queuemaster.store.ColumnarArchive;
+import queuemaster.store.JsonLinesArchive;
+import queuemaster.tools.BranchDayLoadTest;
+
+public class QueueMasterLauncher {
+    private JFrame frame;
+    private JList<LogBuffer.Line> consoleOutput;
+    private LogListModel consoleModel;
+    private JLabel consoleStats;
+    private javax.swing.Timer consoleDrain;
+    
+    // Console lines from any thread are staged here and moved to the UI in batches
+    private static final int CONSOLE_MAX_LINES = 20000;
+    private static final int CONSOLE_MAX_PENDING = 5000;
+    private static final int CONSOLE_DRAIN_MS = 50;
+    private final LogBuffer logBuffer = new LogBuffer(CONSOLE_MAX_PENDING);
+    private JButton startButton;
+    private JButton stopButton;
+    private JButton installButton;
+    private JButton settingsButton;
+    private JButton clearHistoryButton;
+    private JButton clientsButton;
+    private JButton diagnosticsButton;
+    private JButton loadTestButton;
+    private JLabel statusLabel;
+    private JPanel urlPanel;
+    private JProgressBar progressBar;
+    private JLabel supervisorLabel;
+    // Live metrics under the header, sampled once a second; rates are deltas between samples
+    private static final int METRICS_SAMPLE_MS = 1000;
+    private static final int METRICS_HISTORY = 60;
+    private SparklineCard clientsCard;
+    private SparklineCard receivedCard;
+    private SparklineCard broadcastCard;
+    private SparklineCard fanOutCard;
+    private SparklineCard rttCard;
+    private SparklineCard heapCard;
+    private javax.swing.Timer metricsSampler;
+    private RealtimeMetrics sampledMetrics;
+    private long sampledReceived;
+    private long sampledBroadcast;
+    private LatencyHistogram.Snapshot sampledFanOut;
+    private long sampledGcMillis = -1;
+    private long sampledAtNanos;
+    // Keeps npm run dev/ui up while the server is running; null before the first start
+    private volatile ProcessSupervisor serverSupervisor;
+    // The built web app on port 3000 when "Serve built web app" is on; null otherwise
+    private volatile StaticSiteServer staticSite;
+    // Released by Stop when nothing was spawned (embedded engine serving dist/ itself)
+    private volatile CountDownLatch inProcessStop;
+    // Phases of the current or last server start, for the Diagnostics dialog's Startup tab
+    private volatile StartupTimeline startupTimeline;
+    private static final int STARTUP_HISTORY_SHOWN = 50;
+    // Claimed by the start that wins, released when its server task ends
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    // All background work (npm commands, output pumps, delayed kills) runs here
+    private final BackgroundTasks tasks = new BackgroundTasks();
+    // npm location, revalidated by PATH and file times instead of re-probed on every use
+    private final ToolchainResolver toolchainResolver = new ToolchainResolver(tasks);
+    // LAN addresses, refreshed in the background; the URL cards and the header read its cache
+    private final NetworkDiscovery networkDiscovery = new NetworkDiscovery(tasks);
+    private static final int MAX_NETWORK_URL_CARDS = 3;
+    private static final int REACHABILITY_TIMEOUT_MS = 1500;
+    private JLabel networkStatValue;
+    // Set once the server answers, cleared when it stops; URL cards check reachability only then
+    private volatile boolean serverReady;
+    private static final long STOP_GRACE_MS = 3000;
+    // The branch-day load test started from the Load Test dialog, while it runs
+    private volatile BranchDayLoadTest loadTest;
+    
+    // In-process queue state, used instead of server.ts when the embedded engine is enabled;
+    // partitioned by category so work on different categories does not share one lock
+    private final QueueEngine queueEngine = new StripedQueueEngine(StripedQueueEngine.DEFAULT_STRIPES);
+    private final EmbeddedServer embeddedServer =
+        new EmbeddedServer(queueEngine, EmbeddedServer.DEFAULT_PORT, getAppDirectory().toPath().resolve("data"));
+    
+    // MODERN COLOR PALETTE
+    private Color primaryColor = new Color(59, 130, 246);
+    private Color successColor = new Color(34, 197, 94);
+    private Color dangerColor = new Color(239, 68, 68);
+    private Color secondaryColor = new Color(100, 116, 139);
+    
+    // Dark theme colors
+    private Color darkBg = new Color(17, 24, 39);
+    private Color darkerBg = new Color(11, 15, 25);
+    private Color cardBg = new Color(31, 41, 55);
+    private Color borderColor = new Color(55, 65, 81);
+    private Color textSecondary = new Color(209, 213, 219);
+    private Color textMuted = new Color(156, 163, 175);
+    private Color hoverBg = new Color(55, 65, 81);
+    
+    // Preferences for localStorage
+    private Preferences prefs;
+    private static final String PREF_LAST_SESSION = "lastSession";
+    private static final String PREF_LAST_NPM_PATH = "lastNpmPath";
+    private static final String PREF_TOOLCHAIN = "toolchain";
+    private static final String PREF_LAST_NETWORK_IP = "lastNetworkIP";
+    private static final String PREF_LAUNCH_COUNT = "launchCount";
+    private static final String PREF_AUDIO_ENABLED = "audioEnabled";
+    private static final String PREF_AUTO_START = "autoStart";
+    private static final String PREF_EMBEDDED_ENGINE = "embeddedEngine";
+    private static final String PREF_JOURNAL_FSYNC = "journalFsync";
+    private static final String PREF_RETENTION_HOURS = "retentionHours";
+    private static final String PREF_ARCHIVE_TARGET = "archiveTarget";
+    private static final String PREF_COALESCE_WINDOW = "coalesceWindowMillis";
+    private static final String PREF_SERVE_DIST = "serveDist";
+    private static final String[] ARCHIVE_TARGETS = {"discard", "jsonl", "columnar"};
+    private static final String[] ARCHIVE_TARGET_LABELS = {"Discard", "JSON lines (data/archive)", "Columnar history (data/history)"};
+    
+    public static void main(String[] args) {
+        SwingUtilities.invokeLater(() -> {
+            try {
+                UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            new QueueMasterLauncher().createAndShowGUI();
+        });
+    }
+    
+    public QueueMasterLauncher() {
+        prefs = Preferences.userNodeForPackage(QueueMasterLauncher.class);
+        toolchainResolver.seed(prefs.get(PREF_TOOLCHAIN, null), prefs.get(PREF_LAST_NPM_PATH, null));
+        toolchainResolver.setLogger(line -> logBuffer.append(line, false));
+        networkDiscovery.setLogger(line -> logBuffer.append(line, false));
+        networkDiscovery.setListener(candidates -> SwingUtilities.invokeLater(this::showURLCards));
+    }
+    
+    private void createAndShowGUI() {
+        frame = new JFrame("QueueMaster Pro Enterprise v3.0");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.addWindowListener(new WindowAdapter() {
+            public void windowClosing(WindowEvent e) {
+                ProcessSupervisor supervisor = serverSupervisor;
+                if (supervisor != null) supervisor.stop(0);
+                BranchDayLoadTest test = loadTest;
+                if (test != null) test.cancel();
+                metricsSampler.stop();
+                StaticSiteServer site = staticSite;
+                if (site != null) site.stop();
+                embeddedServer.stop();
+                tasks.shutdownNow();
+            }
+        });
+        frame.setSize(1000, 700);
+        frame.setLayout(new BorderLayout());
+        frame.setMinimumSize(new Dimension(900, 600));
+        
+        // USE STANDARD JFRAME DECORATIONS - NO CUSTOM TITLE BAR
+        frame.setUndecorated(false);
+        frame.setBackground(darkBg);
+        
+        // Set icon (optional; skip if not found to avoid NPE)
+        try {
+            java.net.URL iconUrl = getClass().getResource("/javax/swing/plaf/metal/icons/ocean/menu.gif");
+            if (iconUrl != null) {
+                ArrayList<Image> icons = new ArrayList<>();
+                icons.add(new ImageIcon(iconUrl).getImage());
+                frame.setIconImages(icons);
+            }
+        } catch (Exception e) {
+            // Ignore icon errors
+        }
+        
+        // Main content
+        JPanel mainContent = new JPanel(new BorderLayout());
+        mainContent.setBackground(darkBg);
+        mainContent.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        
+        // Header section
+        mainContent.add(createHeader(), BorderLayout.NORTH);
+        
+        // Center panel
+        JPanel centerPanel = new JPanel(new BorderLayout(10, 10));
+        centerPanel.setBackground(darkBg);
+        centerPanel.add(createConsolePanel(), BorderLayout.CENTER);
+        centerPanel.add(createURLPanel(), BorderLayout.SOUTH);
+        
+        mainContent.add(centerPanel, BorderLayout.CENTER);
+        mainContent.add(createStatusBar(), BorderLayout.SOUTH);
+        
+        frame.add(mainContent, BorderLayout.CENTER);
+        
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+        
+        SwingUtilities.invokeLater(() -> {
+            loadSavedData();
+            checkAndInstallDependencies();
+            incrementLaunchCount();
+            warmUpToolchain();
+            networkDiscovery.start();
+        });
+    }
+    
+    private JPanel createHeader() {
+        JPanel header = new JPanel(new BorderLayout());
+        header.setBackground(darkBg);
+        header.setBorder(BorderFactory.createEmptyBorder(0, 0, 20, 0));
+        
+        JPanel titlePanel = new JPanel(new GridBagLayout());
+        titlePanel.setBackground(darkBg);
+        
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.gridx = 0; gbc.gridy = 0; gbc.anchor = GridBagConstraints.WEST;
+        
+        JLabel mainTitle = new JLabel("QueueMaster Pro");
+        mainTitle.setFont(new Font("Segoe UI", Font.BOLD, 32));
+        mainTitle.setForeground(Color.WHITE);
+        titlePanel.add(mainTitle, gbc);
+        
+        gbc.gridy = 1;
+        JLabel subtitle = new JLabel("Enterprise Queuing System Launcher");
+        subtitle.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        subtitle.setForeground(textSecondary);
+        titlePanel.add(subtitle, gbc);
+        
+        JPanel statsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 0));
+        statsPanel.setBackground(darkBg);
+        
+        int launchCount = prefs.getInt(PREF_LAUNCH_COUNT, 0);
+        statsPanel.add(createStatCard("Launches", String.valueOf(launchCount)));
+        networkStatValue = new JLabel(prefs.get(PREF_LAST_NETWORK_IP, "Detecting..."));
+        statsPanel.add(createStatCard("Network", networkStatValue));
+        
+        header.add(titlePanel, BorderLayout.WEST);
+        header.add(statsPanel, BorderLayout.EAST);
+        header.add(createMetricsPanel(), BorderLayout.SOUTH);
+        
+        return header;
+    }
+    
+    /**
+     * A row of cards with the embedded server's live numbers and the last minute of each:
+     * clients, messages in and out per second, broadcast fan-out p99, ping round trip, and the
+     * heap. The server cards read "—" while it is stopped or running as the dev server.
+     */
+    private JPanel createMetricsPanel() {
+        JPanel panel = new JPanel(new GridLayout(1, 6, 10, 0));
+        panel.setBackground(darkBg);
+        panel.setBorder(BorderFactory.createEmptyBorder(15, 0, 0, 0));
+        
+        clientsCard = createSparklineCard("Clients", primaryColor);
+        receivedCard = createSparklineCard("Received /s", successColor);
+        broadcastCard = createSparklineCard("Broadcast /s", successColor);
+        fanOutCard = createSparklineCard("Fan-out p99", new Color(234, 179, 8));
+        rttCard = createSparklineCard("Ping RTT", new Color(234, 179, 8));
+        heapCard = createSparklineCard("Heap", secondaryColor);
+        panel.add(clientsCard);
+        panel.add(receivedCard);
+        panel.add(broadcastCard);
+        panel.add(fanOutCard);
+        panel.add(rttCard);
+        panel.add(heapCard);
+        
+        metricsSampler = new javax.swing.Timer(METRICS_SAMPLE_MS, e -> sampleMetrics());
+        metricsSampler.setInitialDelay(0);
+        metricsSampler.start();
+        return panel;
+    }
+    
+    private SparklineCard createSparklineCard(String label, Color lineColor) {
+        return new SparklineCard(label, METRICS_HISTORY, cardBg, borderColor, textSecondary, lineColor);
+    }
+    
+    private void sampleMetrics() {
+        long now = System.nanoTime();
+        double seconds = sampledAtNanos != 0 ? (now - sampledAtNanos) / 1e9 : 0;
+        sampledAtNanos = now;
+        
+        JvmMetrics jvm = JvmMetrics.read();
+        long gcMillis = jvm.totalGcMillis();
+        double gcPerSecond = sampledGcMillis >= 0 && seconds > 0 ? (gcMillis - sampledGcMillis) / seconds : 0;
+        sampledGcMillis = gcMillis;
+        long heapMb = jvm.heapUsed() / (1024 * 1024);
+        heapCard.update(heapMb + " MB" + String.format(" • GC %.0f ms/s", gcPerSecond), heapMb);
+        heapCard.setToolTipText(String.format("%d MB used of %d MB committed, %s max; %d collections",
+            heapMb, jvm.heapCommitted() / (1024 * 1024),
+            jvm.heapMax() < 0 ? "no" : jvm.heapMax() / (1024 * 1024) + " MB", jvm.totalGcCount()));
+        
+        RealtimeMetrics metrics = embeddedServer.getMetrics();
+        if (metrics == null) {
+            sampledMetrics = null;
+            for (SparklineCard card : new SparklineCard[]{clientsCard, receivedCard, broadcastCard, fanOutCard, rttCard}) {
+                card.update("—", Double.NaN);
+                card.setToolTipText(null);
+            }
+            return;
+        }
+        
+        // A new relay per server start means fresh counters; take a baseline before rating them
+        long received = total(metrics.receivedByType());
+        long broadcast = total(metrics.broadcastByType());
+        LatencyHistogram.Snapshot fanOut = metrics.fanOut();
+        boolean baseline = metrics == sampledMetrics && seconds > 0;
+        double receivedRate = baseline ? (received - sampledReceived) / seconds : 0;
+        double broadcastRate = baseline ? (broadcast - sampledBroadcast) / seconds : 0;
+        double fanOutP99 = baseline ? fanOut.since(sampledFanOut).percentileNanos(0.99) : Double.NaN;
+        sampledMetrics = metrics;
+        sampledReceived = received;
+        sampledBroadcast = broadcast;
+        sampledFanOut = fanOut;
+        
+        Map<String, Integer> byRole = embeddedServer.getClientsByRole();
+        int clients = 0;
+        StringBuilder roles = new StringBuilder();
+        for (Map.Entry<String, Integer> role : byRole.entrySet()) {
+            clients += role.getValue();
+            if (roles.length() > 0) roles.append(", ");
+            roles.append(role.getKey().toLowerCase()).append(' ').append(role.getValue());
+        }
+        clientsCard.update(String.valueOf(clients), clients);
+        clientsCard.setToolTipText(roles.toString());
+        
+        receivedCard.update(String.format("%.1f", receivedRate), receivedRate);
+        receivedCard.setToolTipText(received + " since start: " + metrics.receivedByType());
+        broadcastCard.update(String.format("%.1f", broadcastRate), broadcastRate);
+        broadcastCard.setToolTipText(broadcast + " since start: " + metrics.broadcastByType());
+        
+        fanOutCard.update(Double.isNaN(fanOutP99) ? "—" : formatNanos(fanOutP99), Double.isNaN(fanOutP99) ? 0 : fanOutP99);
+        fanOutCard.setToolTipText(String.format("All time: p50 %s, p99 %s, max %s over %d broadcasts",
+            formatNanos(fanOut.percentileNanos(0.5)), formatNanos(fanOut.percentileNanos(0.99)),
+            formatNanos(fanOut.maxNanos()), fanOut.count()));
+        
+        // Each client's latest ping; the median says how the floor feels, the max who is struggling
+        java.util.List<Long> rtts = new ArrayList<>();
+        for (ClientStats c : embeddedServer.getClientStats()) {
+            if (c.rttNanos() > 0) rtts.add(c.rttNanos());
+        }
+        Collections.sort(rtts);
+        if (rtts.isEmpty()) {
+            rttCard.update("—", Double.NaN);
+            rttCard.setToolTipText(null);
+        } else {
+            long median = rtts.get(rtts.size() / 2);
+            rttCard.update(formatNanos(median) + " • max " + formatNanos(rtts.get(rtts.size() - 1)), median);
+            rttCard.setToolTipText("Median and slowest of each client's last ping, " + rtts.size() + " clients");
+        }
+    }
+    
+    private static long total(Map<String, Long> counts) {
+        long total = 0;
+        for (long count : counts.values()) total += count;
+        return total;
+    }
+    
+    private static String formatNanos(double nanos) {
+        if (Double.isNaN(nanos)) return "—";
+        if (nanos < 1_000_000) return String.format("%.0f µs", nanos / 1000);
+        return String.format("%.1f ms", nanos / 1_000_000);
+    }
+    
+    private JPanel createStatCard(String label, String value) {
+        return createStatCard(label, new JLabel(value));
+    }
+    
+    private JPanel createStatCard(String label, JLabel valueLabel) {
+        JPanel card = new JPanel(new BorderLayout());
+        card.setBackground(cardBg);
+        card.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(borderColor, 1),
+            BorderFactory.createEmptyBorder(10, 15, 10, 15)
+        ));
+        
+        JPanel textPanel = new JPanel(new GridLayout(2, 1));
+        textPanel.setOpaque(false);
+        
+        JLabel labelLabel = new JLabel(label);
+        labelLabel.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        labelLabel.setForeground(textSecondary);
+        
+        valueLabel.setFont(new Font("Segoe UI", Font.BOLD, 13));
+        valueLabel.setForeground(Color.WHITE);
+        
+        textPanel.add(labelLabel);
+        textPanel.add(valueLabel);
+        card.add(textPanel, BorderLayout.CENTER);
+        
+        return card;
+    }
+    
+    private JPanel createConsolePanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(cardBg);
+        panel.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(borderColor, 1),
+            BorderFactory.createEmptyBorder(20, 20, 20, 20)
+        ));
+        
+        JPanel headerPanel = new JPanel(new BorderLayout());
+        headerPanel.setOpaque(false);
+        headerPanel.setBorder(BorderFactory.createEmptyBorder(0, 0, 15, 0));
+        
+        JLabel headerLabel = new JLabel("Console Output");
+        headerLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
+        headerLabel.setForeground(Color.WHITE);
+        
+        JPanel buttonGroup = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0));
+        buttonGroup.setOpaque(false);
+        
+        // ========== STANDARD JAVA BUTTONS ==========
+        installButton = new JButton("Install");
+        installButton.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        installButton.setForeground(Color.BLACK);
+        installButton.setBackground(new Color(240, 240, 240));
+        installButton.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(200, 200, 200), 1),
+            BorderFactory.createEmptyBorder(8, 20, 8, 20)
+        ));
+        installButton.setFocusPainted(false);
+        installButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        installButton.addActionListener(e -> installDependencies());
+        
+        startButton = new JButton("Start");
+        startButton.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        startButton.setForeground(Color.BLACK);
+        startButton.setBackground(new Color(240, 240, 240));
+        startButton.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(200, 200, 200), 1),
+            BorderFactory.createEmptyBorder(8, 20, 8, 20)
+        ));
+        startButton.setFocusPainted(false);
+        startButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        startButton.addActionListener(e -> startServer());
+        
+        stopButton = new JButton("Stop");
+        stopButton.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        stopButton.setForeground(Color.BLACK);
+        stopButton.setBackground(new Color(240, 240, 240));
+        stopButton.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(200, 200, 200), 1),
+            BorderFactory.createEmptyBorder(8, 20, 8, 20)
+        ));
+        stopButton.setFocusPainted(false);
+        stopButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        stopButton.setEnabled(false);
+        stopButton.addActionListener(e -> stopServer());
+        
+        clearHistoryButton = new JButton("Clear");
+        clearHistoryButton.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        clearHistoryButton.setForeground(Color.BLACK);
+        clearHistoryButton.setBackground(new Color(240, 240, 240));
+        clearHistoryButton.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(200, 200, 200), 1),
+            BorderFactory.createEmptyBorder(8, 20, 8, 20)
+        ));
+        clearHistoryButton.setFocusPainted(false);
+        clearHistoryButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        clearHistoryButton.addActionListener(e -> clearConsole());
+        
+        clientsButton = new JButton("Clients");
+        clientsButton.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        clientsButton.setForeground(Color.BLACK);
+        clientsButton.setBackground(new Color(240, 240, 240));
+        clientsButton.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(200, 200, 200), 1),
+            BorderFactory.createEmptyBorder(8, 20, 8, 20)
+        ));
+        clientsButton.setFocusPainted(false);
+        clientsButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        clientsButton.addActionListener(e -> showClientsDialog());
+        
+        diagnosticsButton = new JButton("Diagnostics");
+        diagnosticsButton.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        diagnosticsButton.setForeground(Color.BLACK);
+        diagnosticsButton.setBackground(new Color(240, 240, 240));
+        diagnosticsButton.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(200, 200, 200), 1),
+            BorderFactory.createEmptyBorder(8, 20, 8, 20)
+        ));
+        diagnosticsButton.setFocusPainted(false);
+        diagnosticsButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        diagnosticsButton.addActionListener(e -> showDiagnosticsDialog());
+        
+        loadTestButton = new JButton("Load Test");
+        loadTestButton.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        loadTestButton.setForeground(Color.BLACK);
+        loadTestButton.setBackground(new Color(240, 240, 240));
+        loadTestButton.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(200, 200, 200), 1),
+            BorderFactory.createEmptyBorder(8, 20, 8, 20)
+        ));
+        loadTestButton.setFocusPainted(false);
+        loadTestButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        loadTestButton.addActionListener(e -> showLoadTestDialog());
+        
+        settingsButton = new JButton("Settings");
+        settingsButton.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        settingsButton.setForeground(Color.BLACK);
+        settingsButton.setBackground(new Color(240, 240, 240));
+        settingsButton.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(200, 200, 200), 1),
+            BorderFactory.createEmptyBorder(8, 12, 8, 12)
+        ));
+        settingsButton.setFocusPainted(false);
+        settingsButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        settingsButton.addActionListener(e -> showSettingsDialog());
+        
+        buttonGroup.add(installButton);
+        buttonGroup.add(startButton);
+        buttonGroup.add(stopButton);
+        buttonGroup.add(clearHistoryButton);
+        buttonGroup.add(clientsButton);
+        buttonGroup.add(diagnosticsButton);
+        buttonGroup.add(loadTestButton);
+        buttonGroup.add(settingsButton);
+        
+        headerPanel.add(headerLabel, BorderLayout.WEST);
+        headerPanel.add(buttonGroup, BorderLayout.EAST);
+        
+        consoleModel = new LogListModel(CONSOLE_MAX_LINES);
+        consoleOutput = new JList<>(consoleModel);
+        consoleOutput.setFont(new Font("Consolas", Font.PLAIN, 12));
+        consoleOutput.setBackground(darkerBg);
+        consoleOutput.setForeground(textSecondary);
+        consoleOutput.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+        // Fixed cell size: JList then lays out and paints only the visible rows
+        consoleOutput.setFixedCellHeight(consoleOutput.getFontMetrics(consoleOutput.getFont()).getHeight() + 2);
+        consoleOutput.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                LogBuffer.Line line = (LogBuffer.Line) value;
+                String text = line.getRepeats() > 1 ? line.getText() + "  (x" + line.getRepeats() + ")" : line.getText();
+                super.getListCellRendererComponent(list, text.isEmpty() ? " " : text, index, isSelected, false);
+                setBorder(BorderFactory.createEmptyBorder(0, 2, 0, 2));
+                if (!isSelected) {
+                    setBackground(darkerBg);
+                    setForeground(line.isError() ? dangerColor : textSecondary);
+                }
+                setToolTipText(text.length() > 120 ? text : null);
+                return this;
+            }
+        });
+        
+        JScrollPane scrollPane = new JScrollPane(consoleOutput);
+        scrollPane.setBorder(null);
+        scrollPane.getViewport().setBackground(darkerBg);
+        scrollPane.getViewport().addChangeListener(e ->
+            consoleOutput.setFixedCellWidth(Math.max(100, scrollPane.getViewport().getWidth() - 30)));
+        
+        consoleStats = new JLabel(" ");
+        consoleStats.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        consoleStats.setForeground(textMuted);
+        consoleStats.setBorder(BorderFactory.createEmptyBorder(6, 2, 0, 0));
+        
+        panel.add(headerPanel, BorderLayout.NORTH);
+        panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(consoleStats, BorderLayout.SOUTH);
+        
+        consoleDrain = new javax.swing.Timer(CONSOLE_DRAIN_MS, e -> drainConsole());
+        consoleDrain.start();
+        
+        return panel;
+    }
+    
+    private void drainConsole() {
+        LogBuffer.Batch batch = logBuffer.drain();
+        if (batch.isEmpty()) return;
+        // Follow the tail only if the user has not scrolled up to read something
+        JScrollBar bar = ((JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, consoleOutput)).getVerticalScrollBar();
+        boolean following = bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum() - consoleOutput.getFixedCellHeight();
+        consoleModel.addBatch(batch);
+        if (following && consoleModel.getSize() > 0) consoleOutput.ensureIndexIsVisible(consoleModel.getSize() - 1);
+        consoleStats.setText(String.format("%,d lines shown (last %,d kept)  |  %,d repeats folded  |  %,d dropped under load",
+            consoleModel.getSize(), consoleModel.getCapacity(), logBuffer.getCoalesced(), logBuffer.getDropped()));
+    }
+    
+    private JPanel createURLPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(cardBg);
+        panel.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(borderColor, 1),
+            BorderFactory.createEmptyBorder(20, 20, 20, 20)
+        ));
+        
+        JPanel headerPanel = new JPanel(new BorderLayout());
+        headerPanel.setOpaque(false);
+        headerPanel.setBorder(BorderFactory.createEmptyBorder(0, 0, 15, 0));
+        
+        JLabel headerLabel = new JLabel("Access URLs (Click to Open)");
+        headerLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
+        headerLabel.setForeground(Color.WHITE);
+        
+        JLabel storageLabel = new JLabel("Local Storage Active");
+        storageLabel.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        storageLabel.setForeground(successColor);
+        
+        headerPanel.add(headerLabel, BorderLayout.WEST);
+        headerPanel.add(storageLabel, BorderLayout.EAST);
+        
+        urlPanel = new JPanel(new GridLayout(1, 0, 20, 0));
+        urlPanel.setBackground(cardBg);
+        urlPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        
+        String savedNetworkIP = prefs.get(PREF_LAST_NETWORK_IP, null);
+        if (savedNetworkIP != null) {
+            String savedURL = "http://" + savedNetworkIP + ":3000";
+            addURLCard(urlPanel, "Localhost", "http://localhost:3000");
+            addURLCard(urlPanel, "Network", savedURL);
+        } else {
+            addURLPlaceholder("Localhost", "Click Start to generate URL");
+            addURLPlaceholder("Network", "Click Start to generate URL");
+        }
+        
+        panel.add(headerPanel, BorderLayout.NORTH);
+        panel.add(urlPanel, BorderLayout.CENTER);
+        
+        return panel;
+    }
+    
+    private void addURLCard(JPanel parent, String title, String url) {
+        addURLCard(parent, title, url, null);
+    }
+    
+    /** A clickable URL card; {@code footer}, if given, goes under the URL (the reachability line). */
+    private void addURLCard(JPanel parent, String title, String url, JLabel footer) {
+        JPanel container = new JPanel(new BorderLayout());
+        container.setBackground(cardBg);
+        container.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(borderColor, 1),
+            BorderFactory.createEmptyBorder(15, 15, 15, 15)
+        ));
+        
+        JPanel headerPanel = new JPanel(new BorderLayout());
+        headerPanel.setBackground(cardBg);
+        
+        JLabel titleLabel = new JLabel(title);
+        titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 13));
+        titleLabel.setForeground(Color.WHITE);
+        
+        JLabel actionLabel = new JLabel("Click to open • Double-click to copy");
+        actionLabel.setFont(new Font("Segoe UI", Font.PLAIN, 10));
+        actionLabel.setForeground(textSecondary);
+        
+        headerPanel.add(titleLabel, BorderLayout.WEST);
+        headerPanel.add(actionLabel, BorderLayout.EAST);
+        
+        JTextArea urlField = new JTextArea(url);
+        urlField.setEditable(false);
+        urlField.setFont(new Font("Consolas", Font.PLAIN, 12));
+        urlField.setBackground(cardBg);
+        urlField.setForeground(primaryColor);
+        urlField.setBorder(BorderFactory.createEmptyBorder(5, 0, 0, 0));
+        urlField.setLineWrap(true);
+        urlField.setWrapStyleWord(true);
+        
+        container.add(headerPanel, BorderLayout.NORTH);
+        container.add(urlField, BorderLayout.CENTER);
+        if (footer != null) {
+            footer.setFont(new Font("Segoe UI", Font.PLAIN, 10));
+            footer.setBorder(BorderFactory.createEmptyBorder(5, 0, 0, 0));
+            container.add(footer, BorderLayout.SOUTH);
+        }
+        
+        container.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        container.addMouseListener(new MouseAdapter() {
+            public void mouseClicked(MouseEvent evt) {
+                if (evt.getClickCount() == 2) {
+                    copyToClipboard(url);
+                    JOptionPane.showMessageDialog(frame,
+                        "URL copied to clipboard:\n" + url,
+                        "Copied",
+                        JOptionPane.INFORMATION_MESSAGE);
+                    return;
+                }
+                openBrowser(url);
+                JOptionPane.showMessageDialog(frame,
+                    "Opening in browser:\n" + url,
+                    "Opening Browser",
+                    JOptionPane.INFORMATION_MESSAGE);
+            }
+            public void mousePressed(MouseEvent evt) {
+                // Double-click handled in mouseClicked
+            }
+            public void mouseEntered(MouseEvent evt) {
+                container.setBackground(hoverBg);
+                urlField.setBackground(hoverBg);
+                headerPanel.setBackground(hoverBg);
+            }
+            public void mouseExited(MouseEvent evt) {
+                container.setBackground(cardBg);
+                urlField.setBackground(cardBg);
+                headerPanel.setBackground(cardBg);
+            }
+        });
+        
+        parent.add(container);
+    }
+    
+    private void openBrowser(String url) {
+        try {
+            if (Desktop.isDesktopSupported()) {
+                Desktop desktop = Desktop.getDesktop();
+                if (desktop.isSupported(Desktop.Action.BROWSE)) {
+                    desktop.browse(new URI(url));
+                    return;
+                }
+            }
+            String os = System.getProperty("os.name").toLowerCase();
+            if (os.contains("win")) {
+                Runtime.getRuntime().exec("rundll32 url.dll,FileProtocolHandler " + url);
+            } else if (os.contains("mac")) {
+                Runtime.getRuntime().exec("open " + url);
+            } else {
+                Runtime.getRuntime().exec("xdg-open " + url);
+            }
+        } catch (Exception e) {
+            appendToConsole("Cannot open browser: " + e.getMessage() + "\n");
+            copyToClipboard(url);
+        }
+    }
+    
+    private JPanel createStatusBar() {
+        JPanel statusBar = new JPanel(new BorderLayout());
+        statusBar.setBackground(cardBg);
+        statusBar.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createMatteBorder(1, 0, 0, 0, borderColor),
+            BorderFactory.createEmptyBorder(12, 15, 12, 15)
+        ));
+        
+        JPanel statusIndicator = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        statusIndicator.setOpaque(false);
+        
+        statusLabel = new JLabel("Starting...");
+        statusLabel.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        statusLabel.setForeground(textSecondary);
+        statusIndicator.add(statusLabel);
+        
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(false);
+        progressBar.setPreferredSize(new Dimension(120, 4));
+        progressBar.setBorderPainted(false);
+        progressBar.setForeground(primaryColor);
+        progressBar.setBackground(borderColor);
+        statusIndicator.add(progressBar);
+        
+        JPanel infoPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 0));
+        infoPanel.setOpaque(false);
+        
+        supervisorLabel = new JLabel("");
+        supervisorLabel.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        supervisorLabel.setForeground(textSecondary);
+        
+        JLabel storageLabel = new JLabel("Session data saved");
+        storageLabel.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        storageLabel.setForeground(successColor);
+        
+        JLabel lastSessionLabel = new JLabel(getLastSessionInfo());
+        lastSessionLabel.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        lastSessionLabel.setForeground(textSecondary);
+        
+        infoPanel.add(supervisorLabel);
+        infoPanel.add(storageLabel);
+        infoPanel.add(lastSessionLabel);
+        
+        statusBar.add(statusIndicator, BorderLayout.WEST);
+        statusBar.add(infoPanel, BorderLayout.EAST);
+        
+        return statusBar;
+    }
+    
+    // ============== LOCAL STORAGE METHODS ==============
+    
+    private void saveSessionData() {
+        try {
+            prefs.put(PREF_LAST_SESSION, new Date().toString());
+            String networkIP = networkDiscovery.primaryAddress();
+            if (networkIP != null) prefs.put(PREF_LAST_NETWORK_IP, networkIP);
+            ToolchainResolver.Toolchain toolchain = toolchainResolver.current();
+            if (toolchain != null) prefs.put(PREF_LAST_NPM_PATH, toolchain.npmPath());
+            appendToConsole("Session data saved to local storage\n");
+        } catch (Exception e) {
+            appendToConsole("Failed to save session data: " + e.getMessage() + "\n");
+        }
+    }
+    
+    private void loadSavedData() {
+        try {
+            String lastSession = prefs.get(PREF_LAST_SESSION, null);
+            if (lastSession != null) appendToConsole("Last session: " + lastSession + "\n");
+            String lastNetworkIP = prefs.get(PREF_LAST_NETWORK_IP, null);
+            if (lastNetworkIP != null) appendToConsole("Saved network IP: " + lastNetworkIP + "\n");
+            boolean autoStart = prefs.getBoolean(PREF_AUTO_START, false);
+            if (autoStart) {
+                appendToConsole("Auto-start enabled. Starting server...\n");
+                SwingUtilities.invokeLater(() -> startServer());
+            }
+        } catch (Exception e) {
+            appendToConsole("Failed to load session data: " + e.getMessage() + "\n");
+        }
+    }
+    
+    private void incrementLaunchCount() {
+        int count = prefs.getInt(PREF_LAUNCH_COUNT, 0);
+        count++;
+        prefs.putInt(PREF_LAUNCH_COUNT, count);
+        appendToConsole("Launch count: " + count + "\n");
+    }
+    
+    /**
+     * Resolves npm in the background right after launch, so Start and Install find it cached,
+     * then reports how long it took from JVM start until the launcher was ready.
+     */
+    private void warmUpToolchain() {
+        tasks.submit("resolve toolchain", () -> {
+            long started = System.nanoTime();
+            String npmPath = findNpmPath();
+            double resolveMs = (System.nanoTime() - started) / 1e6;
+            long launchMs = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+            ToolchainResolver.Toolchain toolchain = toolchainResolver.current();
+            SwingUtilities.invokeLater(() -> {
+                appendToConsole(npmPath != null
+                    ? String.format("npm: %s (%s, %.1f ms)%n", npmPath, toolchain != null ? toolchain.source() : "?", resolveMs)
+                    : "npm not found. Install Node.js from: https://nodejs.org/\n");
+                appendToConsole("Ready in " + launchMs + " ms since launch\n");
+                // Start or Install may already own the status bar
+                if ("Starting...".equals(statusLabel.getText())) {
+                    statusLabel.setText(npmPath != null ? "Ready (" + launchMs + " ms)" : "npm not found");
+                    statusLabel.setForeground(npmPath != null ? textSecondary : dangerColor);
+                }
+            });
+        });
+    }
+    
+    private String getLastSessionInfo() {
+        String lastSession = prefs.get(PREF_LAST_SESSION, null);
+        if (lastSession != null) {
+            try {
+                String timePart = lastSession.split(" ")[3];
+                return "Last: " + timePart;
+            } catch (Exception e) {
+                return "Last session saved";
+            }
+        }
+        return "First launch";
+    }
+    
+    private void showSettingsDialog() {
+        JDialog dialog = new JDialog(frame, "Settings", true);
+        dialog.setSize(420, 600);
+        dialog.setLocationRelativeTo(frame);
+        dialog.setLayout(new BorderLayout());
+        
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        panel.setBackground(cardBg);
+        
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.gridx = 0; gbc.gridy = 0;
+        gbc.anchor = GridBagConstraints.WEST;
+        gbc.insets = new Insets(5, 5, 5, 5);
+        
+        JCheckBox autoStartCheck = new JCheckBox("Auto-start server on launch");
+        autoStartCheck.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        autoStartCheck.setBackground(cardBg);
+        autoStartCheck.setForeground(Color.WHITE);
+        autoStartCheck.setSelected(prefs.getBoolean(PREF_AUTO_START, false));
+        autoStartCheck.addActionListener(e -> prefs.putBoolean(PREF_AUTO_START, autoStartCheck.isSelected()));
+        panel.add(autoStartCheck, gbc);
+        
+        gbc.gridy = 1;
+        JCheckBox audioEnabledCheck = new JCheckBox("Enable announcement sounds");
+        audioEnabledCheck.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        audioEnabledCheck.setBackground(cardBg);
+        audioEnabledCheck.setForeground(Color.WHITE);
+        audioEnabledCheck.setSelected(prefs.getBoolean(PREF_AUDIO_ENABLED, true));
+        audioEnabledCheck.addActionListener(e -> prefs.putBoolean(PREF_AUDIO_ENABLED, audioEnabledCheck.isSelected()));
+        panel.add(audioEnabledCheck, gbc);
+        
+        gbc.gridy = 2;
+        JCheckBox embeddedEngineCheck = new JCheckBox("Host queue engine in launcher (no Node server)");
+        embeddedEngineCheck.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        embeddedEngineCheck.setBackground(cardBg);
+        embeddedEngineCheck.setForeground(Color.WHITE);
+        embeddedEngineCheck.setSelected(prefs.getBoolean(PREF_EMBEDDED_ENGINE, false));
+        embeddedEngineCheck.addActionListener(e -> prefs.putBoolean(PREF_EMBEDDED_ENGINE, embeddedEngineCheck.isSelected()));
+        panel.add(embeddedEngineCheck, gbc);
+        
+        gbc.gridy = 3;
+        JCheckBox serveDistCheck = new JCheckBox("Serve built web app from dist/ (no Vite)");
+        serveDistCheck.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        serveDistCheck.setBackground(cardBg);
+        serveDistCheck.setForeground(Color.WHITE);
+        serveDistCheck.setToolTipText("Monitors load the npm run build output, cached and compressed, instead of Vite's dev server");
+        serveDistCheck.setSelected(prefs.getBoolean(PREF_SERVE_DIST, false));
+        serveDistCheck.addActionListener(e -> prefs.putBoolean(PREF_SERVE_DIST, serveDistCheck.isSelected()));
+        panel.add(serveDistCheck, gbc);
+        
+        gbc.gridy = 4;
+        JPanel fsyncRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        fsyncRow.setBackground(cardBg);
+        JLabel fsyncLabel = new JLabel("Journal durability:  ");
+        fsyncLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        fsyncLabel.setForeground(Color.WHITE);
+        JComboBox<FsyncPolicy> fsyncCombo = new JComboBox<>(FsyncPolicy.values());
+        fsyncCombo.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        fsyncCombo.setSelectedItem(FsyncPolicy.parse(prefs.get(PREF_JOURNAL_FSYNC, null)));
+        fsyncCombo.addActionListener(e -> prefs.put(PREF_JOURNAL_FSYNC, ((FsyncPolicy) fsyncCombo.getSelectedItem()).name()));
+        fsyncRow.add(fsyncLabel);
+        fsyncRow.add(fsyncCombo);
+        panel.add(fsyncRow, gbc);
+        
+        gbc.gridy = 5;
+        JPanel retentionRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        retentionRow.setBackground(cardBg);
+        JLabel retentionLabel = new JLabel("Keep tickets for (hours):  ");
+        retentionLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        retentionLabel.setForeground(Color.WHITE);
+        JSpinner retentionSpinner = new JSpinner(new SpinnerNumberModel(
+            prefs.getInt(PREF_RETENTION_HOURS, EmbeddedServer.DEFAULT_RETENTION_HOURS), 1, 24 * 31, 1));
+        retentionSpinner.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        retentionSpinner.addChangeListener(e -> prefs.putInt(PREF_RETENTION_HOURS, (Integer) retentionSpinner.getValue()));
+        retentionRow.add(retentionLabel);
+        retentionRow.add(retentionSpinner);
+        panel.add(retentionRow, gbc);
+        
+        gbc.gridy = 6;
+        JPanel archiveRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        archiveRow.setBackground(cardBg);
+        JLabel archiveLabel = new JLabel("Expired tickets:  ");
+        archiveLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        archiveLabel.setForeground(Color.WHITE);
+        JComboBox<String> archiveCombo = new JComboBox<>(ARCHIVE_TARGET_LABELS);
+        archiveCombo.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        archiveCombo.setSelectedIndex(Math.max(0, Arrays.asList(ARCHIVE_TARGETS).indexOf(prefs.get(PREF_ARCHIVE_TARGET, ARCHIVE_TARGETS[0]))));
+        archiveCombo.addActionListener(e -> prefs.put(PREF_ARCHIVE_TARGET, ARCHIVE_TARGETS[archiveCombo.getSelectedIndex()]));
+        archiveRow.add(archiveLabel);
+        archiveRow.add(archiveCombo);
+        panel.add(archiveRow, gbc);
+        
+        gbc.gridy = 7;
+        JPanel coalesceRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        coalesceRow.setBackground(cardBg);
+        JLabel coalesceLabel = new JLabel("Coalesce updates within (ms):  ");
+        coalesceLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        coalesceLabel.setForeground(Color.WHITE);
+        coalesceLabel.setToolTipText("A ticket or teller changing again within this window is sent to clients once; 0 sends every change");
+        JSpinner coalesceSpinner = new JSpinner(new SpinnerNumberModel(
+            prefs.getInt(PREF_COALESCE_WINDOW, EmbeddedServer.DEFAULT_COALESCE_WINDOW_MILLIS), 0, 200, 5));
+        coalesceSpinner.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        coalesceSpinner.addChangeListener(e -> prefs.putInt(PREF_COALESCE_WINDOW, (Integer) coalesceSpinner.getValue()));
+        coalesceRow.add(coalesceLabel);
+        coalesceRow.add(coalesceSpinner);
+        panel.add(coalesceRow, gbc);
+        
+        gbc.gridy = 8;
+        gbc.insets = new Insets(20, 5, 5, 5);
+        JButton clearDataBtn = new JButton("Clear Saved Data");
+        clearDataBtn.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        clearDataBtn.setForeground(Color.BLACK);
+        clearDataBtn.setBackground(new Color(240, 240, 240));
+        clearDataBtn.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(200, 200, 200), 1),
+            BorderFactory.createEmptyBorder(8, 20, 8, 20)
+        ));
+        clearDataBtn.setFocusPainted(false);
+        clearDataBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        clearDataBtn.addActionListener(e -> {
+            int confirm = JOptionPane.showConfirmDialog(dialog,
+                "Clear all saved data?", "Confirm", JOptionPane.YES_NO_OPTION);
+            if (confirm == JOptionPane.YES_OPTION) {
+                try {
+                    prefs.clear();
+                    toolchainResolver.invalidate();
+                    appendToConsole("Local storage cleared\n");
+                    dialog.dispose();
+                } catch (Exception ex) {
+                    appendToConsole("Failed to clear: " + ex.getMessage() + "\n");
+                }
+            }
+        });
+        panel.add(clearDataBtn, gbc);
+        
+        gbc.gridy = 9;
+        gbc.insets = new Insets(10, 5, 5, 5);
+        JButton closeBtn = new JButton("Close");
+        closeBtn.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        closeBtn.setForeground(Color.BLACK);
+        closeBtn.setBackground(new Color(240, 240, 240));
+        closeBtn.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(200, 200, 200), 1),
+            BorderFactory.createEmptyBorder(8, 20, 8, 20)
+        ));
+        closeBtn.setFocusPainted(false);
+        closeBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        closeBtn.addActionListener(e -> dialog.dispose());
+        panel.add(closeBtn, gbc);
+        
+        dialog.add(panel, BorderLayout.CENTER);
+        dialog.setVisible(true);
+    }
+    
+    /** Live per-client outbound queue depth and drop counters of the embedded realtime server. */
+    private void showClientsDialog() {
+        JDialog dialog = new JDialog(frame, "Connected Clients", false);
+        dialog.setSize(860, 400);
+        dialog.setLocationRelativeTo(frame);
+        dialog.setLayout(new BorderLayout());
+        
+        String[] columns = {"Client", "Address", "Role", "RTT ms", "Queue", "Queued KB", "Sent", "Dropped", "Resyncs"};
+        DefaultTableModel model = new DefaultTableModel(columns, 0) {
+            public boolean isCellEditable(int row, int column) { return false; }
+        };
+        JTable table = new JTable(model);
+        table.setFont(new Font("Consolas", Font.PLAIN, 12));
+        table.setBackground(darkerBg);
+        table.setForeground(textSecondary);
+        table.setGridColor(borderColor);
+        table.setFillsViewportHeight(true);
+        
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setBorder(null);
+        scrollPane.getViewport().setBackground(darkerBg);
+        
+        JLabel summaryLabel = new JLabel(" ");
+        summaryLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        summaryLabel.setForeground(textSecondary);
+        summaryLabel.setBorder(BorderFactory.createEmptyBorder(10, 15, 10, 15));
+        
+        javax.swing.Timer refresh = new javax.swing.Timer(1000, e -> {
+            java.util.List<ClientStats> stats = embeddedServer.getClientStats();
+            model.setRowCount(0);
+            long dropped = 0;
+            for (ClientStats c : stats) {
+                model.addRow(new Object[]{"#" + c.id(), c.address(), c.role().toLowerCase(),
+                    c.rttNanos() > 0 ? String.format("%.1f", c.rttNanos() / 1e6) : "—", c.queueDepth(), c.queuedBytes() / 1024,
+                    c.sent(), c.dropped(), c.resyncs()});
+                dropped += c.dropped();
+            }
+            CoalescingStats coalescing = embeddedServer.getCoalescingStats();
+            summaryLabel.setText(coalescing != null
+                ? stats.size() + " clients connected • " + dropped + " messages dropped • " + coalescingSummary(coalescing)
+                : "Embedded server is not running");
+        });
+        refresh.setInitialDelay(0);
+        refresh.start();
+        dialog.addWindowListener(new WindowAdapter() {
+            public void windowClosed(WindowEvent e) { refresh.stop(); }
+        });
+        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        
+        dialog.getContentPane().setBackground(cardBg);
+        dialog.add(scrollPane, BorderLayout.CENTER);
+        dialog.add(summaryLabel, BorderLayout.SOUTH);
+        dialog.setVisible(true);
+    }
+    
+    private static String coalescingSummary(CoalescingStats stats) {
+        if (stats.windowMillis() == 0) return "coalescing off";
+        return String.format("%d of %d updates coalesced (%.0f%%, %d ms window)",
+            stats.coalesced(), stats.updates(), stats.ratio() * 100, stats.windowMillis());
+    }
+    
+    /**
+     * Launcher background tasks with their queue and run times, and the thread counts behind
+     * them; the Startup tab shows the phases of server starts.
+     */
+    private void showDiagnosticsDialog() {
+        JDialog dialog = new JDialog(frame, "Diagnostics", false);
+        dialog.setSize(820, 480);
+        dialog.setLocationRelativeTo(frame);
+        dialog.setLayout(new BorderLayout());
+        
+        String[] columns = {"Task", "State", "Thread", "Queued ms", "Run ms", "Failure"};
+        DefaultTableModel model = new DefaultTableModel(columns, 0) {
+            public boolean isCellEditable(int row, int column) { return false; }
+        };
+        JTable table = new JTable(model);
+        table.setFont(new Font("Consolas", Font.PLAIN, 12));
+        table.setBackground(darkerBg);
+        table.setForeground(textSecondary);
+        table.setGridColor(borderColor);
+        table.setFillsViewportHeight(true);
+        table.getColumnModel().getColumn(0).setPreferredWidth(220);
+        
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setBorder(null);
+        scrollPane.getViewport().setBackground(darkerBg);
+        
+        JLabel summaryLabel = new JLabel(" ");
+        summaryLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        summaryLabel.setForeground(textSecondary);
+        summaryLabel.setBorder(BorderFactory.createEmptyBorder(10, 15, 10, 15));
+        
+        javax.swing.Timer refresh = new javax.swing.Timer(1000, e -> {
+            model.setRowCount(0);
+            for (TaskInfo task : tasks.snapshot()) {
+                model.addRow(new Object[]{task.name(), task.state(), task.thread() != null ? task.thread() : "",
+                    task.queuedMillis(), task.runMillis(), task.failure() != null ? task.failure() : ""});
+            }
+            summaryLabel.setText("JVM threads: " + BackgroundTasks.jvmThreadCount() + " (peak "
+                + BackgroundTasks.jvmPeakThreadCount() + ") • Pool: " + tasks.getActiveCount() + " busy / "
+                + tasks.getPoolSize() + " threads (largest " + tasks.getLargestPoolSize() + ", max "
+                + tasks.getMaxThreads() + ")");
+        });
+        refresh.setInitialDelay(0);
+        refresh.start();
+        dialog.addWindowListener(new WindowAdapter() {
+            public void windowClosed(WindowEvent e) { refresh.stop(); }
+        });
+        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        
+        JPanel tasksPanel = new JPanel(new BorderLayout());
+        tasksPanel.setBackground(cardBg);
+        tasksPanel.add(scrollPane, BorderLayout.CENTER);
+        tasksPanel.add(summaryLabel, BorderLayout.SOUTH);
+        
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab("Tasks", tasksPanel);
+        tabs.addTab("Startup", createStartupPanel(dialog));
+        
+        dialog.getContentPane().setBackground(cardBg);
+        dialog.add(tabs, BorderLayout.CENTER);
+        dialog.setVisible(true);
+    }
+    
+    /**
+     * The current (or last saved) server start drawn as one bar per phase, over the saved
+     * history of starts, one row each, so a slower phase after an upgrade stands out.
+     */
+    private JPanel createStartupPanel(JDialog dialog) {
+        java.util.List<StartupTimeline> history = new ArrayList<>();
+        JPanel chart = new JPanel() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                StartupTimeline timeline = startupTimeline != null ? startupTimeline
+                    : history.isEmpty() ? null : history.get(history.size() - 1);
+                Graphics2D g2 = (Graphics2D) g;
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+                if (timeline == null) {
+                    g2.setColor(textMuted);
+                    g2.drawString("No server start recorded yet", 15, 25);
+                    return;
+                }
+                Map<StartupTimeline.Phase, StartupTimeline.Span> spans = new EnumMap<>(StartupTimeline.Phase.class);
+                for (StartupTimeline.Span span : timeline.spans()) spans.put(span.phase(), span);
+                long scale = Math.max(1, timeline.totalMillis());
+                int labelWidth = 150;
+                int barWidth = Math.max(1, getWidth() - labelWidth - 90);
+                int y = 15;
+                for (StartupTimeline.Phase phase : StartupTimeline.Phase.values()) {
+                    StartupTimeline.Span span = spans.get(phase);
+                    g2.setColor(textSecondary);
+                    g2.drawString(phase.label(), 15, y + 13);
+                    if (span == null) {
+                        g2.setColor(textMuted);
+                        g2.drawString("…", labelWidth, y + 13);
+                    } else {
+                        int x = labelWidth + (int) (barWidth * span.startMillis() / scale);
+                        int w = Math.max(2, (int) (barWidth * span.durationMillis() / scale));
+                        g2.setColor(primaryColor);
+                        g2.fillRoundRect(x, y + 2, w, 14, 4, 4);
+                        g2.setColor(textSecondary);
+                        g2.drawString(span.durationMillis() + " ms", x + w + 6, y + 13);
+                    }
+                    y += 24;
+                }
+                g2.setColor(textMuted);
+                g2.drawString(String.format("%s %s, %s • %d ms from Start to last phase", timeline.getMode(),
+                    timeline.getVersion(), new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(timeline.getStartedAt())),
+                    timeline.totalMillis()), 15, y + 13);
+            }
+        };
+        chart.setBackground(darkerBg);
+        chart.setPreferredSize(new Dimension(780, 165));
+        
+        String[] columns = new String[StartupTimeline.Phase.values().length + 4];
+        columns[0] = "Started";
+        columns[1] = "Version";
+        columns[2] = "Mode";
+        for (StartupTimeline.Phase phase : StartupTimeline.Phase.values()) columns[3 + phase.ordinal()] = phase.label() + " ms";
+        columns[columns.length - 1] = "Total ms";
+        DefaultTableModel model = new DefaultTableModel(columns, 0) {
+            public boolean isCellEditable(int row, int column) { return false; }
+        };
+        JTable table = new JTable(model);
+        table.setFont(new Font("Consolas", Font.PLAIN, 12));
+        table.setBackground(darkerBg);
+        table.setForeground(textSecondary);
+        table.setGridColor(borderColor);
+        table.setFillsViewportHeight(true);
+        table.getColumnModel().getColumn(0).setPreferredWidth(140);
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setBorder(null);
+        scrollPane.getViewport().setBackground(darkerBg);
+        
+        // The history file changes once per start, so it is only reread when it has
+        long[] loadedModified = {-1};
+        javax.swing.Timer refresh = new javax.swing.Timer(1000, e -> {
+            chart.repaint();
+            Path file = startupHistoryFile();
+            long modified = file.toFile().lastModified();
+            if (modified == loadedModified[0]) return;
+            loadedModified[0] = modified;
+            try {
+                history.clear();
+                history.addAll(StartupTimeline.readHistory(file, STARTUP_HISTORY_SHOWN));
+            } catch (IOException ex) {
+                logBuffer.append("Could not read startup history: " + ex.getMessage(), true);
+            }
+            model.setRowCount(0);
+            java.text.SimpleDateFormat format = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm");
+            // Newest first
+            for (int i = history.size() - 1; i >= 0; i--) {
+                StartupTimeline timeline = history.get(i);
+                Object[] row = new Object[columns.length];
+                Arrays.fill(row, "—");
+                row[0] = format.format(new Date(timeline.getStartedAt()));
+                row[1] = timeline.getVersion();
+                row[2] = timeline.getMode();
+                for (StartupTimeline.Span span : timeline.spans()) row[3 + span.phase().ordinal()] = span.durationMillis();
+                if (timeline.isComplete()) row[columns.length - 1] = timeline.totalMillis();
+                model.addRow(row);
+            }
+        });
+        refresh.setInitialDelay(0);
+        refresh.start();
+        dialog.addWindowListener(new WindowAdapter() {
+            public void windowClosed(WindowEvent e) { refresh.stop(); }
+        });
+        
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(cardBg);
+        panel.add(chart, BorderLayout.NORTH);
+        panel.add(scrollPane, BorderLayout.CENTER);
+        return panel;
+    }
+    
+    /**
+     * Replays a synthetic branch day (see {@link BranchDayLoadTest}) against a scratch in-memory
+     * server or the running embedded server; progress and the report go to the console.
+     */
+    private void showLoadTestDialog() {
+        JDialog dialog = new JDialog(frame, "Branch-Day Load Test", false);
+        dialog.setSize(460, 400);
+        dialog.setLocationRelativeTo(frame);
+        dialog.setLayout(new BorderLayout());
+        
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        panel.setBackground(cardBg);
+        
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.gridx = 0; gbc.gridy = 0;
+        gbc.anchor = GridBagConstraints.WEST;
+        gbc.insets = new Insets(5, 5, 5, 5);
+        
+        String[] labels = {"Tickets per day:", "Tellers:", "Monitors:", "Day replayed in (seconds):", "Server:"};
+        JSpinner ticketsSpinner = new JSpinner(new SpinnerNumberModel(600, 10, 1_000_000, 50));
+        JSpinner tellersSpinner = new JSpinner(new SpinnerNumberModel(12, 1, 1000, 1));
+        JSpinner monitorsSpinner = new JSpinner(new SpinnerNumberModel(25, 0, 20_000, 5));
+        JSpinner secondsSpinner = new JSpinner(new SpinnerNumberModel(180, 10, 24 * 3600, 30));
+        JComboBox<String> targetCombo = new JComboBox<>(new String[]{
+            "Scratch server (in memory, discarded)", "Running server (port " + EmbeddedServer.DEFAULT_PORT + ")"});
+        JComponent[] fields = {ticketsSpinner, tellersSpinner, monitorsSpinner, secondsSpinner, targetCombo};
+        for (int i = 0; i < labels.length; i++) {
+            JLabel label = new JLabel(labels[i]);
+            label.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+            label.setForeground(Color.WHITE);
+            fields[i].setFont(new Font("Segoe UI", Font.PLAIN, 12));
+            gbc.gridy = i;
+            gbc.gridx = 0;
+            panel.add(label, gbc);
+            gbc.gridx = 1;
+            panel.add(fields[i], gbc);
+        }
+        
+        gbc.gridy = labels.length;
+        gbc.gridx = 0;
+        gbc.gridwidth = 2;
+        JLabel hintLabel = new JLabel("<html>The running server must be the embedded engine. Its load-test "
+            + "categories and tellers are named \"Load\" and stay in the queue data.</html>");
+        hintLabel.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        hintLabel.setForeground(textMuted);
+        hintLabel.setPreferredSize(new Dimension(380, 36));
+        panel.add(hintLabel, gbc);
+        
+        gbc.gridy = labels.length + 1;
+        gbc.insets = new Insets(20, 5, 5, 5);
+        JPanel buttonRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        buttonRow.setBackground(cardBg);
+        JButton runBtn = new JButton("Run");
+        runBtn.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        runBtn.setForeground(Color.BLACK);
+        runBtn.setBackground(new Color(240, 240, 240));
+        runBtn.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(200, 200, 200), 1),
+            BorderFactory.createEmptyBorder(8, 20, 8, 20)
+        ));
+        runBtn.setFocusPainted(false);
+        runBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        JButton cancelBtn = new JButton("Stop");
+        cancelBtn.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        cancelBtn.setForeground(Color.BLACK);
+        cancelBtn.setBackground(new Color(240, 240, 240));
+        cancelBtn.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(200, 200, 200), 1),
+            BorderFactory.createEmptyBorder(8, 20, 8, 20)
+        ));
+        cancelBtn.setFocusPainted(false);
+        cancelBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        buttonRow.add(runBtn);
+        buttonRow.add(Box.createHorizontalStrut(10));
+        buttonRow.add(cancelBtn);
+        panel.add(buttonRow, gbc);
+        
+        runBtn.addActionListener(e -> {
+            Map<String, String> options = new LinkedHashMap<>();
+            options.put("tickets", ticketsSpinner.getValue().toString());
+            options.put("tellers", tellersSpinner.getValue().toString());
+            options.put("monitors", monitorsSpinner.getValue().toString());
+            options.put("seconds", secondsSpinner.getValue().toString());
+            if (targetCombo.getSelectedIndex() == 0) {
+                try (java.net.ServerSocket probe = new java.net.ServerSocket(0)) {
+                    options.put("port", String.valueOf(probe.getLocalPort()));
+                } catch (IOException ex) {
+                    appendToConsole("Load test: no free port: " + ex.getMessage() + "\n");
+                    return;
+                }
+                options.put("embedded", "true");
+            } else if (embeddedServer.isRunning()) {
+                options.put("port", String.valueOf(embeddedServer.getPort()));
+                options.put("in-process", "true");
+            } else {
+                JOptionPane.showMessageDialog(dialog, "Start the server with the embedded engine first.",
+                    "Load Test", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            BranchDayLoadTest test = new BranchDayLoadTest(options);
+            test.setLogger(line -> logBuffer.append(line, false));
+            loadTest = test;
+            runBtn.setEnabled(false);
+            tasks.submit("Branch-day load test", () -> {
+                try {
+                    test.run();
+                } catch (Exception ex) {
+                    logBuffer.append("Load test failed: " + ex.getMessage(), true);
+                } finally {
+                    loadTest = null;
+                }
+            });
+        });
+        cancelBtn.addActionListener(e -> {
+            BranchDayLoadTest test = loadTest;
+            if (test != null) test.cancel();
+        });
+        
+        javax.swing.Timer refresh = new javax.swing.Timer(1000, e -> {
+            runBtn.setEnabled(loadTest == null);
+            cancelBtn.setEnabled(loadTest != null);
+        });
+        refresh.setInitialDelay(0);
+        refresh.start();
+        dialog.addWindowListener(new WindowAdapter() {
+            public void windowClosed(WindowEvent e) { refresh.stop(); }
+        });
+        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        
+        dialog.add(panel, BorderLayout.CENTER);
+        dialog.setVisible(true);
+    }
+    
+    private void clearConsole() {
+        consoleModel.clear();
+        appendToConsole("Console cleared\n");
+    }
+    
+    // ============== EXISTING FUNCTIONAL METHODS ==============
+    
+    private void checkAndInstallDependencies() {
+        Path nodeModules = Paths.get("node_modules");
+        if (!Files.exists(nodeModules)) {
+            appendToConsole("node_modules not found. Installing dependencies...\n");
+            installDependencies();
+        } else {
+            appendToConsole("node_modules found. Ready to start server.\n");
+        }
+    }
+    
+    private void installDependencies() {
+        executeCommand("install", "Installing dependencies...");
+    }
+    
+    /**
+     * Cached: a valid earlier answer costs a few file stats. Probes (in parallel) only when PATH
+     * or the npm install changed; the result is persisted for the next launch.
+     */
+    private String findNpmPath() {
+        ToolchainResolver.Toolchain toolchain = toolchainResolver.resolve();
+        if (toolchain == null) return null;
+        String encoded = toolchain.encode();
+        if (!encoded.equals(prefs.get(PREF_TOOLCHAIN, null))) {
+            prefs.put(PREF_TOOLCHAIN, encoded);
+            prefs.put(PREF_LAST_NPM_PATH, toolchain.npmPath());
+        }
+        return toolchain.npmPath();
+    }
+    
+    /** Get Node.js install directory from npm path, so we can add it to PATH for child processes. */
+    private String getNodeDirectory(String npmPath) {
+        if (npmPath == null) return null;
+        ToolchainResolver.Toolchain toolchain = toolchainResolver.current();
+        if (toolchain != null && npmPath.equals(toolchain.npmPath()) && toolchain.nodeDirectory() != null) {
+            return toolchain.nodeDirectory();
+        }
+        File f = new File(npmPath);
+        if (f.isAbsolute() && f.exists()) return f.getParent();
+        try {
+            ProcessBuilder pb = new ProcessBuilder("cmd", "/c", "where node");
+            pb.redirectErrorStream(true);
+            Process p = pb.start();
+            try (BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+                String line = r.readLine();
+                if (line != null && !line.isEmpty() && line.contains("node")) {
+                    File nodeExe = new File(line.trim());
+                    if (nodeExe.exists()) return nodeExe.getParent();
+                }
+            }
+            p.waitFor();
+        } catch (Exception e) {}
+        return null;
+    }
+    
+    /** Add Node.js directory to PATH in ProcessBuilder so install scripts can find 'node'. */
+    private void addNodeToPath(ProcessBuilder pb, String npmPath) {
+        String nodeDir = getNodeDirectory(npmPath);
+        if (nodeDir == null) return;
+        java.util.Map<String, String> env = pb.environment();
+        String path = env.get("PATH");
+        env.put("PATH", nodeDir + File.pathSeparator + (path != null ? path : ""));
+    }
+    
+    /** The embedded server's destination for expired tickets, per the "Expired tickets" setting. */
+    private TicketArchive createArchive(String target) {
+        Path data = getAppDirectory().toPath().resolve("data");
+        if ("jsonl".equals(target)) return new JsonLinesArchive(data.resolve("archive"));
+        if ("columnar".equals(target)) {
+            ColumnarArchive archive = new ColumnarArchive(data.resolve("history"));
+            archive.setLogger(line -> logBuffer.append(line, true));
+            return archive;
+        }
+        return TicketArchive.DISCARD;
+    }
+    
+    /** Get the directory where the app (JAR or exe) lives, for use as working directory. */
+    private File getAppDirectory() {
+        try {
+            java.security.ProtectionDomain pd = getClass().getProtectionDomain();
+            if (pd != null && pd.getCodeSource() != null && pd.getCodeSource().getLocation() != null) {
+                java.net.URI uri = pd.getCodeSource().getLocation().toURI();
+                Path path = Paths.get(uri);
+                if (Files.isRegularFile(path)) path = path.getParent();
+                if (path != null) return path.toAbsolutePath().toFile();
+            }
+        } catch (Exception e) {}
+        return new File(System.getProperty("user.dir"));
+    }
+    
+    private void addURLPlaceholder(String title, String url) {
+        JPanel container = new JPanel(new BorderLayout());
+        container.setBackground(cardBg);
+        container.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(borderColor, 1),
+            BorderFactory.createEmptyBorder(15, 15, 15, 15)
+        ));
+        
+        JLabel titleLabel = new JLabel(title);
+        titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        titleLabel.setForeground(textSecondary);
+        
+        JTextArea urlField = new JTextArea(url);
+        urlField.setEditable(false);
+        urlField.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        urlField.setBackground(cardBg);
+        urlField.setForeground(textMuted);
+        urlField.setBorder(BorderFactory.createEmptyBorder(5, 0, 0, 0));
+        urlField.setLineWrap(true);
+        urlField.setWrapStyleWord(true);
+        
+        container.add(titleLabel, BorderLayout.NORTH);
+        container.add(urlField, BorderLayout.CENTER);
+        urlPanel.add(container);
+    }
+    
+    /**
+     * One URL card per discovered LAN address, best first, from the discovery cache. While
+     * the server is up each card checks that the UI answers on its address; that catches a
+     * firewall or a server bound to one interface, though not a monitor on another subnet.
+     * Runs on the EDT; safe to call again whenever the addresses or the server change.
+     */
+    private void showURLCards() {
+        java.util.List<NetworkDiscovery.Candidate> candidates = networkDiscovery.candidates();
+        if (!networkDiscovery.isDiscovered()) return; // keep the saved URL until there is an answer
+        String primary = networkDiscovery.primaryAddress();
+        networkStatValue.setText(primary != null ? primary : "Offline");
+        if (primary != null) prefs.put(PREF_LAST_NETWORK_IP, primary);
+        
+        urlPanel.removeAll();
+        addURLCard(urlPanel, "Localhost", "http://localhost:3000", reachabilityLabel("http://localhost:3000/"));
+        if (candidates.isEmpty()) addURLPlaceholder("Network", "No LAN connection found. Monitors cannot reach this PC.");
+        for (NetworkDiscovery.Candidate candidate : candidates.subList(0, Math.min(MAX_NETWORK_URL_CARDS, candidates.size()))) {
+            String url = "http://" + candidate.address() + ":3000";
+            String title = candidate.title() + (candidate.defaultRoute() ? " • default" : "");
+            addURLCard(urlPanel, title, url, reachabilityLabel(url + "/"));
+        }
+        urlPanel.revalidate();
+        urlPanel.repaint();
+    }
+    
+    private JLabel reachabilityLabel(String url) {
+        JLabel label = new JLabel(serverReady ? "Checking..." : "Server not running");
+        label.setForeground(textMuted);
+        if (!serverReady) return label;
+        tasks.submit("reachability " + url, () -> {
+            long started = System.nanoTime();
+            boolean answered = HealthProbe.http(url).check(REACHABILITY_TIMEOUT_MS);
+            long millis = (System.nanoTime() - started) / 1_000_000;
+            SwingUtilities.invokeLater(() -> {
+                label.setText(answered ? "Reachable (" + millis + " ms)" : "No answer on this address");
+                label.setForeground(answered ? successColor : dangerColor);
+            });
+        });
+        return label;
+    }
+    
+    /** Marks the server up or down and refreshes the URL cards' reachability; any thread. */
+    private void setServerReady(boolean ready) {
+        serverReady = ready;
+        SwingUtilities.invokeLater(this::showURLCards);
+    }
+    
+    private void startServer() {
+        // PREVENT MULTIPLE SERVER INSTANCES
+        if (!running.compareAndSet(false, true)) {
+            appendToConsole("Server is already running\n");
+            return;
+        }
+        
+        tasks.submit("start server", () -> {
+            boolean inProcess = false;
+            try {
+                SwingUtilities.invokeLater(() -> {
+                    startButton.setEnabled(false);
+                    stopButton.setEnabled(true);
+                    statusLabel.setText("Starting server");
+                    statusLabel.setForeground(textSecondary);
+                    progressBar.setIndeterminate(true);
+                    appendToConsole("Starting server...\n");
+                });
+                
+                // Embedded mode: the launcher holds the queue state, so only the Vite UI is spawned.
+                // Serving dist/ replaces Vite, so with both nothing is spawned at all
+                boolean embedded = prefs.getBoolean(PREF_EMBEDDED_ENGINE, false);
+                boolean serveDist = prefs.getBoolean(PREF_SERVE_DIST, false);
+                if (serveDist && !StaticSiteServer.hasBuild(getAppDirectory().toPath())) {
+                    logBuffer.append("No build in dist/, serving the web app with Vite instead. Run npm run build first.", true);
+                    serveDist = false;
+                }
+                String script = serveDist ? (embedded ? null : "server") : (embedded ? "ui" : "dev");
+                StartupTimeline timeline = new StartupTimeline(readAppVersion(), script != null ? script : "dist");
+                timeline.setListener(span -> logBuffer.append(String.format("Startup: %s in %d ms (%s, %d ms since Start)",
+                    span.phase().label(), span.durationMillis(), span.source(), span.endMillis()), false));
+                startupTimeline = timeline;
+                
+                String npmPath = script != null ? findNpmPath() : null;
+                if (script != null && npmPath == null) {
+                    SwingUtilities.invokeLater(() -> {
+                        appendToConsole("Cannot start server: npm not found\n");
+                        appendToConsole("Please install Node.js from: https://nodejs.org/\n");
+                        startButton.setEnabled(true);
+                        stopButton.setEnabled(false);
+                        statusLabel.setText("Error");
+                        statusLabel.setForeground(dangerColor);
+                        progressBar.setIndeterminate(false);
+                    });
+                    return;
+                }
+                if (script != null) {
+                    ToolchainResolver.Toolchain toolchain = toolchainResolver.current();
+                    timeline.complete(StartupTimeline.Phase.NPM_RESOLVE, toolchain != null ? toolchain.source() : "resolved");
+                } else {
+                    timeline.complete(StartupTimeline.Phase.NPM_RESOLVE, "not needed");
+                    timeline.complete(StartupTimeline.Phase.SPAWN, "in-process");
+                }
+                
+                // The last start's process tree must be gone before this one binds the ports
+                ProcessSupervisor previous = serverSupervisor;
+                if (previous != null) previous.stop(STOP_GRACE_MS).get(STOP_GRACE_MS + 1000, TimeUnit.MILLISECONDS);
+                
+                if (embedded) {
+                    embeddedServer.setLogger(line -> logBuffer.append(line, false));
+                    embeddedServer.setFsyncPolicy(FsyncPolicy.parse(prefs.get(PREF_JOURNAL_FSYNC, null)));
+                    embeddedServer.setRetentionHours(prefs.getInt(PREF_RETENTION_HOURS, EmbeddedServer.DEFAULT_RETENTION_HOURS));
+                    embeddedServer.setArchive(createArchive(prefs.get(PREF_ARCHIVE_TARGET, null)));
+                    embeddedServer.setCoalesceWindowMillis(prefs.getInt(PREF_COALESCE_WINDOW, EmbeddedServer.DEFAULT_COALESCE_WINDOW_MILLIS));
+                    embeddedServer.start();
+                    timeline.complete(StartupTimeline.Phase.WEBSOCKET_ACCEPTING, "embedded");
+                }
+                if (serveDist) {
+                    StaticSiteServer site = new StaticSiteServer(getAppDirectory().toPath(), StaticSiteServer.DEFAULT_PORT, tasks);
+                    site.setLogger(line -> logBuffer.append(line, false));
+                    staticSite = site;
+                    site.start();
+                    timeline.complete(StartupTimeline.Phase.VITE_READY, "dist");
+                }
+                if (script == null) {
+                    inProcess = true;
+                    runInProcess(timeline);
+                    return;
+                }
+                
+                ProcessBuilder pb = new ProcessBuilder(npmPath, "run", script);
+                pb.directory(getAppDirectory());
+                addNodeToPath(pb, npmPath);
+                pb.redirectErrorStream(false);
+                
+                // Ready once Vite (and in dev mode server.ts's WebSocket port) answers; an exit or
+                // a hang restarts the whole tree with backoff until Stop is pressed
+                java.util.List<HealthProbe> probes = embedded
+                    ? java.util.List.of(HealthProbe.http("http://localhost:3000/"))
+                    : serveDist
+                    ? java.util.List.of(HealthProbe.http("http://localhost:8080/"))
+                    : java.util.List.of(HealthProbe.http("http://localhost:8080/"), HealthProbe.http("http://localhost:3000/"));
+                ProcessSupervisor supervisor = new ProcessSupervisor("npm run " + script, () -> {
+                    ChildProcess process = startChild("npm run " + script, pb, timeline::onOutput);
+                    timeline.complete(StartupTimeline.Phase.SPAWN, "pid " + process.pid());
+                    return process;
+                }, probes, STOP_GRACE_MS);
+                supervisor.setLogger(line -> logBuffer.append(line, false));
+                supervisor.setListener(status -> {
+                    // Monitors are only pointed at the server once it answers
+                    if (status.state() == ProcessSupervisor.State.READY) setServerReady(true);
+                    else if (status.state() == ProcessSupervisor.State.RESTARTING) setServerReady(false);
+                    SwingUtilities.invokeLater(() -> showSupervisorStatus(status));
+                });
+                serverSupervisor = supervisor;
+                tasks.submit("startup timeline", () -> recordStartup(timeline, () -> supervisor.isStopping() || supervisor.isFinished()));
+                supervisor.run();
+                
+            } catch (Exception e) {
+                appendToConsole("Error: " + e.getMessage() + "\n");
+                e.printStackTrace();
+            } finally {
+                StaticSiteServer site = staticSite;
+                if (site != null) site.stop();
+                staticSite = null;
+                embeddedServer.stop();
+                // Nothing to wait for but the stops above; the supervisor reports its own
+                if (inProcess) appendToConsole("Server stopped\n");
+                running.set(false);
+                setServerReady(false);
+                SwingUtilities.invokeLater(() -> {
+                    startButton.setEnabled(true);
+                    stopButton.setEnabled(false);
+                    statusLabel.setText("Stopped");
+                    statusLabel.setForeground(textSecondary);
+                    progressBar.setIndeterminate(false);
+                });
+                saveSessionData();
+                
+                // KEEP URLs VISIBLE - DON'T REMOVE THEM
+                // The web app will auto-reconnect via WebSocket
+            }
+        });
+    }
+    
+    /**
+     * Embedded engine and dist/ both live in this JVM, so there is no child to supervise:
+     * the server is ready as soon as both ports are open, and runs until Stop.
+     */
+    private void runInProcess(StartupTimeline timeline) throws InterruptedException {
+        CountDownLatch stop = new CountDownLatch(1);
+        inProcessStop = stop;
+        long readyMillis = System.currentTimeMillis() - timeline.getStartedAt();
+        setServerReady(true);
+        SwingUtilities.invokeLater(() -> {
+            statusLabel.setText("Running");
+            statusLabel.setForeground(successColor);
+            supervisorLabel.setText("Ready in " + readyMillis + " ms");
+        });
+        tasks.submit("startup timeline", () -> recordStartup(timeline, () -> stop.getCount() == 0));
+        try {
+            stop.await();
+        } finally {
+            inProcessStop = null;
+        }
+    }
+    
+    /**
+     * Probes the ports for the phases the child's output has not already reported, then
+     * appends the launch to the startup history, complete or not.
+     */
+    private void recordStartup(StartupTimeline timeline, java.util.function.BooleanSupplier cancelled) {
+        try {
+            timeline.probe(HealthProbe.http("http://localhost:3000/"), HealthProbe.tcp("localhost", 8080),
+                HealthProbe.welcome("ws://localhost:8080/"), cancelled);
+            timeline.appendTo(startupHistoryFile());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logBuffer.append("Could not save startup timeline: " + e.getMessage(), true);
+        }
+    }
+    
+    private Path startupHistoryFile() {
+        return getAppDirectory().toPath().resolve("data").resolve("startup-timeline.jsonl");
+    }
+    
+    /** The web app's version from package.json, so startup history can be compared across upgrades. */
+    private String readAppVersion() {
+        try {
+            Object version = Json.parseObject(Files.readString(getAppDirectory().toPath().resolve("package.json"))).get("version");
+            return version != null ? version.toString() : "unknown";
+        } catch (IOException | RuntimeException e) {
+            return "unknown";
+        }
+    }
+    
+    private void stopServer() {
+        CountDownLatch inProcess = inProcessStop;
+        if (inProcess != null) {
+            appendToConsole("Stopping server...\n");
+            // "Server stopped" comes from the start task once both servers are down
+            inProcess.countDown();
+            saveSessionData();
+            return;
+        }
+        ProcessSupervisor supervisor = serverSupervisor;
+        if (supervisor != null && !supervisor.isStopping()) {
+            appendToConsole("Stopping server...\n");
+            
+            // Graceful shutdown of npm and the node processes under it; whatever is still
+            // alive after the grace period is killed from the scheduler, and "stopped" is
+            // reported when the tree's exit futures complete, not after a fixed sleep
+            supervisor.stop(STOP_GRACE_MS).thenRun(() -> appendToConsole("Server stopped\n"));
+            saveSessionData();
+            
+            // DON'T REMOVE URLs - Keep them visible for reconnection
+            // The web app's WebSocket will automatically reconnect when server starts again
+        }
+    }
+    
+    /** Status bar text for the server supervisor's state; runs on the EDT. */
+    private void showSupervisorStatus(ProcessSupervisor.Status status) {
+        switch (status.state()) {
+            case STARTING:
+                statusLabel.setText(status.restarts() > 0 ? "Restarting" : "Starting server");
+                statusLabel.setForeground(textSecondary);
+                break;
+            case READY:
+                statusLabel.setText("Running");
+                statusLabel.setForeground(successColor);
+                break;
+            case UNRESPONSIVE:
+                statusLabel.setText("Not responding");
+                statusLabel.setForeground(dangerColor);
+                break;
+            case RESTARTING:
+                statusLabel.setText("Server " + status.detail() + ", restarting");
+                statusLabel.setForeground(dangerColor);
+                break;
+            case FAILED:
+                statusLabel.setText("Error");
+                statusLabel.setForeground(dangerColor);
+                break;
+            default:
+                return;
+        }
+        if (status.readyMillis() >= 0) {
+            supervisorLabel.setText(status.restarts() > 0
+                ? "Restarted " + status.restarts() + "x, last ready in " + status.readyMillis() + " ms"
+                : "Ready in " + status.readyMillis() + " ms");
+        }
+    }
+    
+    private void executeCommand(String command, String message) {
+        tasks.submit("npm " + command, () -> {
+            try {
+                SwingUtilities.invokeLater(() -> {
+                    appendToConsole(message + "\n");
+                    statusLabel.setText(" " + message);
+                    progressBar.setIndeterminate(true);
+                });
+                
+                String npmPath = findNpmPath();
+                if (npmPath == null) {
+                    SwingUtilities.invokeLater(() -> {
+                        appendToConsole("npm not found. Install Node.js\n");
+                        statusLabel.setText("Error");
+                        statusLabel.setForeground(dangerColor);
+                        progressBar.setIndeterminate(false);
+                    });
+                    return;
+                }
+                
+                ProcessBuilder pb = new ProcessBuilder(npmPath, command);
+                pb.directory(getAppDirectory());
+                addNodeToPath(pb, npmPath);
+                ChildProcess process = startChild("npm " + command, pb);
+                
+                int exitCode = process.waitFor();
+                
+                SwingUtilities.invokeLater(() -> {
+                    if (exitCode == 0) {
+                        appendToConsole(message + " completed!\n");
+                        statusLabel.setText("Ready");
+                        statusLabel.setForeground(textSecondary);
+                        if (command.equals("install")) prefs.put(PREF_LAST_NPM_PATH, npmPath);
+                    } else {
+                        appendToConsole(message + " failed: " + exitCode + "\n");
+                        statusLabel.setText("Error");
+                        statusLabel.setForeground(dangerColor);
+                    }
+                    progressBar.setIndeterminate(false);
+                });
+                
+            } catch (Exception e) {
+                appendToConsole("Error: " + e.getMessage() + "\n");
+            }
+        });
+    }
+    
+    /** Starts a child process whose stdout and stderr are pumped into the console. */
+    private ChildProcess startChild(String name, ProcessBuilder pb) throws IOException {
+        return startChild(name, pb, line -> {});
+    }
+    
+    /** As above, also handing every output line to {@code observer}. */
+    private ChildProcess startChild(String name, ProcessBuilder pb, Consumer<String> observer) throws IOException {
+        return ChildProcess.start(name, pb, tasks,
+            line -> {
+                logBuffer.append(line, false);
+                observer.accept(line);
+            },
+            line -> {
+                logBuffer.append("x" + line, true);
+                observer.accept(line);
+            });
+    }
+    
+    /** Safe from any thread; the text shows up on the next console drain. */
+    private void appendToConsole(String text) {
+        logBuffer.append(text, false);
+    }
+    
+    private void copyToClipboard(String text) {
+        StringSelection selection = new StringSelection(text);
+        Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
+        clipboard.setContents(selection, selection);
+    }
+}
+
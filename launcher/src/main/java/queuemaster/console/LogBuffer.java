@@ -0,0 +1,112 @@
+package queuemaster.console;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thread-safe staging area between the threads producing console output (child process
+ * readers, the embedded server) and the UI, which drains it on a timer instead of being
+ * handed one task per line.
+ *
+ * <p>At most {@code capacity} lines wait between drains; under a flood the oldest waiting
+ * lines are dropped. A line identical to the one before it is folded into it as a repeat
+ * count rather than stored again. Both are counted.
+ */
+public final class LogBuffer {
+
+    /** One console line. {@code repeats} grows while identical lines keep arriving. */
+    public static final class Line {
+        private final String text;
+        private final boolean error;
+        private volatile int repeats = 1;
+
+        Line(String text, boolean error) {
+            this.text = text;
+            this.error = error;
+        }
+
+        public String getText() { return text; }
+        public boolean isError() { return error; }
+        public int getRepeats() { return repeats; }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /** Lines appended since the last drain, and whether the last line already drained got more repeats. */
+    public record Batch(List<Line> lines, boolean lastRepeated) {
+        public boolean isEmpty() {
+            return lines.isEmpty() && !lastRepeated;
+        }
+    }
+
+    private final int capacity;
+    // Guarded by this
+    private final ArrayDeque<Line> pending = new ArrayDeque<>();
+    private Line last;
+    private boolean lastRepeated;
+    private long appended;
+    private long dropped;
+    private long coalesced;
+
+    public LogBuffer(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /** Appends text that may hold several newline-separated lines; a trailing newline is optional. */
+    public void append(String text, boolean error) {
+        if (text == null) return;
+        int end = text.endsWith("\n") ? text.length() - 1 : text.length();
+        int start = 0;
+        synchronized (this) {
+            while (true) {
+                int newline = text.indexOf('\n', start);
+                if (newline < 0 || newline > end) newline = end;
+                int lineEnd = newline > start && text.charAt(newline - 1) == '\r' ? newline - 1 : newline;
+                appendLine(text.substring(start, lineEnd), error);
+                if (newline >= end) break;
+                start = newline + 1;
+            }
+        }
+    }
+
+    /** Takes everything appended since the previous call. */
+    public synchronized Batch drain() {
+        Batch batch = new Batch(new ArrayList<>(pending), lastRepeated);
+        pending.clear();
+        lastRepeated = false;
+        return batch;
+    }
+
+    public synchronized long getAppended() {
+        return appended;
+    }
+
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+
+    private void appendLine(String text, boolean error) {
+        appended++;
+        if (last != null && last.error == error && last.text.equals(text)) {
+            last.repeats++;
+            coalesced++;
+            // Already on screen: the UI must repaint that row
+            if (pending.peekLast() != last) lastRepeated = true;
+            return;
+        }
+        if (pending.size() == capacity) {
+            pending.pollFirst();
+            dropped++;
+        }
+        last = new Line(text, error);
+        pending.addLast(last);
+    }
+}
@@ -0,0 +1,72 @@
+package queuemaster.console;
+
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.AbstractListModel;
+
+/**
+ * Fixed-capacity ring of console lines for a {@link javax.swing.JList}, which only renders
+ * the rows in view. Once full, each new line evicts the oldest. EDT only.
+ */
+public final class LogListModel extends AbstractListModel<LogBuffer.Line> {
+    private static final long serialVersionUID = 1L;
+
+    private final LogBuffer.Line[] ring;
+    private int head;
+    private int size;
+    private long trimmed;
+
+    public LogListModel(int capacity) {
+        ring = new LogBuffer.Line[capacity];
+    }
+
+    /** Adds a drained batch with one removal and one insertion event. */
+    public void addBatch(LogBuffer.Batch batch) {
+        if (batch.lastRepeated() && size > 0) fireContentsChanged(this, size - 1, size - 1);
+        List<LogBuffer.Line> lines = batch.lines();
+        if (lines.isEmpty()) return;
+        int skip = Math.max(0, lines.size() - ring.length);
+        int incoming = lines.size() - skip;
+        int evict = Math.max(0, size + incoming - ring.length);
+        trimmed += skip + evict;
+        if (evict > 0) {
+            head = (head + evict) % ring.length;
+            size -= evict;
+            fireIntervalRemoved(this, 0, evict - 1);
+        }
+        int first = size;
+        for (int i = skip; i < lines.size(); i++) {
+            ring[(head + size) % ring.length] = lines.get(i);
+            size++;
+        }
+        fireIntervalAdded(this, first, size - 1);
+    }
+
+    public void clear() {
+        if (size == 0) return;
+        int last = size - 1;
+        Arrays.fill(ring, null);
+        head = 0;
+        size = 0;
+        fireIntervalRemoved(this, 0, last);
+    }
+
+    /** Lines that scrolled out of the ring since start. */
+    public long getTrimmed() {
+        return trimmed;
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public LogBuffer.Line getElementAt(int index) {
+        return ring[(head + index) % ring.length];
+    }
+}
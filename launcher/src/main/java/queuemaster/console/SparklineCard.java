@@ -0,0 +1,98 @@
+package queuemaster.console;
+
+import java.awt.BasicStroke;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GridLayout;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import javax.swing.BorderFactory;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+
+/**
+ * A stat card with a live line: a label, the current value, and the last {@code capacity}
+ * samples drawn underneath, newest at the right. Samples are added from the EDT; NaN leaves a
+ * gap (no data, e.g. the server was stopped).
+ */
+public final class SparklineCard extends JPanel {
+    private static final long serialVersionUID = 1L;
+
+    private final JLabel valueLabel = new JLabel("—");
+    private final double[] samples;
+    private int count;
+    private int next;
+
+    public SparklineCard(String label, int capacity, Color background, Color border, Color labelColor, Color lineColor) {
+        super(new BorderLayout(0, 4));
+        this.samples = new double[capacity];
+        setBackground(background);
+        setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(border, 1),
+                BorderFactory.createEmptyBorder(8, 12, 8, 12)));
+
+        JPanel text = new JPanel(new GridLayout(2, 1));
+        text.setOpaque(false);
+        JLabel labelLabel = new JLabel(label);
+        labelLabel.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        labelLabel.setForeground(labelColor);
+        valueLabel.setFont(new Font("Segoe UI", Font.BOLD, 13));
+        valueLabel.setForeground(Color.WHITE);
+        text.add(labelLabel);
+        text.add(valueLabel);
+
+        JComponent line = new JComponent() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                paintLine((Graphics2D) g, getWidth(), getHeight(), lineColor);
+            }
+        };
+        line.setPreferredSize(new Dimension(110, 26));
+
+        add(text, BorderLayout.CENTER);
+        add(line, BorderLayout.SOUTH);
+    }
+
+    /** Shows {@code value} and appends {@code sample} to the line. */
+    public void update(String value, double sample) {
+        valueLabel.setText(value);
+        samples[next] = sample;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+        repaint();
+    }
+
+    private void paintLine(Graphics2D g, int width, int height, Color color) {
+        if (count < 2) return;
+        double max = 0;
+        for (int i = 0; i < count; i++) {
+            double value = samples[(next - count + i + samples.length) % samples.length];
+            if (!Double.isNaN(value)) max = Math.max(max, value);
+        }
+        if (max <= 0) max = 1;
+        double step = (double) (width - 1) / (samples.length - 1);
+        Path2D.Double path = new Path2D.Double();
+        boolean drawing = false;
+        for (int i = 0; i < count; i++) {
+            double value = samples[(next - count + i + samples.length) % samples.length];
+            if (Double.isNaN(value)) {
+                drawing = false;
+                continue;
+            }
+            double x = width - 1 - (count - 1 - i) * step;
+            double y = height - 2 - (height - 4) * value / max;
+            if (drawing) path.lineTo(x, y);
+            else path.moveTo(x, y);
+            drawing = true;
+        }
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(color);
+        g.setStroke(new BasicStroke(1.5f));
+        g.draw(path);
+    }
+}
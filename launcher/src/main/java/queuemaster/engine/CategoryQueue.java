@@ -0,0 +1,52 @@
+package queuemaster.engine;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Per-category index: ticket ids grouped by status, plus the WAITING tickets kept in
+ * arrival order. A ticket sent back to WAITING is re-inserted at its original position,
+ * so the ordered set is used instead of a plain deque. Not thread-safe; guarded by the engine.
+ */
+final class CategoryQueue {
+    static final Comparator<Ticket> ARRIVAL_ORDER =
+            Comparator.comparingLong(Ticket::getCreatedAt).thenComparing(Ticket::getId);
+
+    private final TreeSet<Ticket> waiting = new TreeSet<>(ARRIVAL_ORDER);
+    private final Map<TicketStatus, Set<String>> byStatus = new EnumMap<>(TicketStatus.class);
+
+    CategoryQueue() {
+        for (TicketStatus status : TicketStatus.values()) {
+            byStatus.put(status, new LinkedHashSet<>());
+        }
+    }
+
+    void add(Ticket ticket) {
+        byStatus.get(ticket.getStatus()).add(ticket.getId());
+        if (ticket.getStatus() == TicketStatus.WAITING) waiting.add(ticket);
+    }
+
+    void remove(Ticket ticket) {
+        byStatus.get(ticket.getStatus()).remove(ticket.getId());
+        if (ticket.getStatus() == TicketStatus.WAITING) waiting.remove(ticket);
+    }
+
+    Ticket headWaiting() {
+        return waiting.isEmpty() ? null : waiting.first();
+    }
+
+    int count(TicketStatus status) {
+        return byStatus.get(status).size();
+    }
+
+    boolean isEmpty() {
+        for (Set<String> ids : byStatus.values()) {
+            if (!ids.isEmpty()) return false;
+        }
+        return true;
+    }
+}
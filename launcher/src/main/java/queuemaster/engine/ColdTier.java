@@ -0,0 +1,103 @@
+package queuemaster.engine;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Finished (COMPLETED/NOSHOW) tickets, grouped into fixed-width buckets by creation time.
+ * Expiry drops whole buckets instead of filtering every ticket; an id index points at each
+ * ticket's bucket, so lookups and removals stay O(1) however long the retention window is.
+ * Not thread-safe; guarded by the engine.
+ */
+final class ColdTier {
+    static final long BUCKET_MS = 15 * 60 * 1000L;
+
+    private final TreeMap<Long, Bucket> buckets = new TreeMap<>();
+    private final HashMap<String, Long> bucketById = new HashMap<>();
+
+    private static final class Bucket {
+        final LinkedHashMap<String, Ticket> tickets = new LinkedHashMap<>();
+        // Per category: ticket count by status ordinal
+        final Map<String, int[]> counts = new HashMap<>();
+
+        void count(Ticket ticket, int delta) {
+            counts.computeIfAbsent(key(ticket.getCategoryId()), k -> new int[TicketStatus.values().length])
+                    [ticket.getStatus().ordinal()] += delta;
+        }
+    }
+
+    void add(Ticket ticket) {
+        long start = bucketOf(ticket.getCreatedAt());
+        Long previousStart = bucketById.put(ticket.getId(), start);
+        // createdAt changed between versions (should not happen): leave no copy in the old bucket
+        if (previousStart != null && previousStart != start) remove(buckets.get(previousStart), previousStart, ticket.getId());
+        Bucket bucket = buckets.computeIfAbsent(start, k -> new Bucket());
+        Ticket previous = bucket.tickets.put(ticket.getId(), ticket);
+        if (previous != null) bucket.count(previous, -1);
+        bucket.count(ticket, 1);
+    }
+
+    /** Removes by id; null if it is not here (a brand-new or still active ticket). */
+    Ticket remove(String id) {
+        Long start = bucketById.remove(id);
+        return start != null ? remove(buckets.get(start), start, id) : null;
+    }
+
+    Ticket get(String id) {
+        Long start = bucketById.get(id);
+        return start != null ? buckets.get(start).tickets.get(id) : null;
+    }
+
+    int count(String categoryId, TicketStatus status) {
+        String key = key(categoryId);
+        int total = 0;
+        for (Bucket bucket : buckets.values()) {
+            int[] counts = bucket.counts.get(key);
+            if (counts != null) total += counts[status.ordinal()];
+        }
+        return total;
+    }
+
+    int size() {
+        return bucketById.size();
+    }
+
+    /** Detaches every bucket whose whole time range is at or before {@code cutoff}. */
+    List<Ticket> dropCreatedBefore(long cutoff, List<Ticket> into) {
+        Iterator<Map.Entry<Long, Bucket>> it = buckets.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Bucket> entry = it.next();
+            if (entry.getKey() + BUCKET_MS - 1 > cutoff) break;
+            for (Ticket ticket : entry.getValue().tickets.values()) {
+                into.add(ticket);
+                bucketById.remove(ticket.getId());
+            }
+            it.remove();
+        }
+        return into;
+    }
+
+    void addAllTo(List<Ticket> into) {
+        for (Bucket bucket : buckets.values()) into.addAll(bucket.tickets.values());
+    }
+
+    private Ticket remove(Bucket bucket, long start, String id) {
+        Ticket removed = bucket.tickets.remove(id);
+        if (removed == null) return null;
+        bucket.count(removed, -1);
+        if (bucket.tickets.isEmpty()) buckets.remove(start);
+        return removed;
+    }
+
+    private static long bucketOf(long createdAt) {
+        return Math.floorDiv(createdAt, BUCKET_MS) * BUCKET_MS;
+    }
+
+    private static String key(String categoryId) {
+        return categoryId != null ? categoryId : "";
+    }
+}
@@ -0,0 +1,162 @@
+package queuemaster.engine;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server-side "call next": finds the ticket a teller should serve across the categories the
+ * teller is assigned to (the skill matrix) and takes it out of contention in the same step.
+ *
+ * <p>Each category has its own priority queue. The order is by effective priority: a ticket's
+ * priority plus its category's, each level worth {@code agingStepMs} of waiting. A priority 1
+ * ticket therefore goes ahead of normal tickets that arrived less than one step before it,
+ * but a normal ticket that has waited longer than that is served first. That aging is what
+ * keeps a busy or prioritized category from starving a quiet one. Since the bonus is fixed
+ * per ticket, the order never changes while tickets wait, and the head of each queue is the
+ * best candidate in it.
+ *
+ * <p>Claims are lock-free: a teller takes the best head among its categories and removes
+ * it from the skip list, and only one of several tellers racing for the same head succeeds
+ * there; the others move on to the next candidate. The queues are an index over the engine,
+ * fed through {@link #track}; a claim is only a reservation, which the caller confirms against
+ * the engine (the ticket must still be WAITING) when it stores the CALLING state.
+ */
+public final class Dispatcher {
+    public static final long DEFAULT_AGING_STEP_MS = 5 * 60_000L;
+
+    /** A reserved ticket: the caller now owns the right to call it. */
+    public record Claim(String ticketId, String categoryId) {
+    }
+
+    private record Entry(long key, String ticketId, String categoryId) {
+    }
+
+    private static final Comparator<Entry> ORDER =
+            Comparator.comparingLong(Entry::key).thenComparing(Entry::ticketId);
+
+    private final long agingStepMs;
+    private final Map<String, ConcurrentSkipListSet<Entry>> queues = new ConcurrentHashMap<>();
+    private final Map<String, Entry> byTicket = new ConcurrentHashMap<>();
+    private final Map<String, Integer> categoryPriorities = new ConcurrentHashMap<>();
+    private final LongAdder claims = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+
+    public Dispatcher() {
+        this(DEFAULT_AGING_STEP_MS);
+    }
+
+    public Dispatcher(long agingStepMs) {
+        this.agingStepMs = agingStepMs;
+    }
+
+    /** Replaces the index with the WAITING tickets and category priorities of {@code engine}. */
+    public void rebuild(QueueEngine engine) {
+        queues.clear();
+        byTicket.clear();
+        categoryPriorities.clear();
+        for (ServiceCategory category : engine.categories()) {
+            if (category.getPriority() != 0) categoryPriorities.put(category.getId(), category.getPriority());
+        }
+        for (Ticket ticket : engine.tickets()) track(ticket);
+    }
+
+    /**
+     * Follows one engine write of {@code current}. Calls for the same ticket must not overlap;
+     * the relay makes them under its publish lock.
+     */
+    public void track(Ticket current) {
+        Entry old = byTicket.remove(current.getId());
+        if (old != null) queueFor(old.categoryId()).remove(old);
+        if (current.getStatus() == TicketStatus.WAITING) {
+            Entry entry = new Entry(key(current), current.getId(), key(current.getCategoryId()));
+            byTicket.put(entry.ticketId(), entry);
+            queueFor(entry.categoryId()).add(entry);
+        }
+    }
+
+    /** Drops tickets that left the engine without a status change (retention expiry). */
+    public void forget(Collection<Ticket> tickets) {
+        for (Ticket ticket : tickets) {
+            Entry old = byTicket.remove(ticket.getId());
+            if (old != null) queueFor(old.categoryId()).remove(old);
+        }
+    }
+
+    /** A category's priority changed: its waiting tickets are re-keyed. */
+    public void updateCategory(ServiceCategory category) {
+        Integer previous = category.getPriority() != 0
+                ? categoryPriorities.put(category.getId(), category.getPriority())
+                : categoryPriorities.remove(category.getId());
+        if ((previous != null ? previous : 0) == category.getPriority()) return;
+        int delta = category.getPriority() - (previous != null ? previous : 0);
+        ConcurrentSkipListSet<Entry> queue = queueFor(category.getId());
+        for (Entry entry : queue) {
+            Entry rekeyed = new Entry(entry.key() - delta * agingStepMs, entry.ticketId(), entry.categoryId());
+            // A concurrent claim may win the old entry; then there is nothing left to re-key
+            if (byTicket.replace(entry.ticketId(), entry, rekeyed) && queue.remove(entry)) queue.add(rekeyed);
+        }
+    }
+
+    /**
+     * Reserves the best waiting ticket across {@code categoryIds}, or returns null when none of
+     * them has one. Safe to call from any number of threads at once.
+     */
+    public Claim claim(Collection<String> categoryIds) {
+        for (;;) {
+            Entry best = null;
+            ConcurrentSkipListSet<Entry> bestQueue = null;
+            for (String categoryId : categoryIds) {
+                ConcurrentSkipListSet<Entry> queue = queues.get(key(categoryId));
+                if (queue == null) continue;
+                Iterator<Entry> it = queue.iterator();
+                if (!it.hasNext()) continue;
+                Entry head = it.next();
+                if (best == null || ORDER.compare(head, best) < 0) {
+                    best = head;
+                    bestQueue = queue;
+                }
+            }
+            if (best == null) return null;
+            if (bestQueue.remove(best)) {
+                byTicket.remove(best.ticketId(), best);
+                claims.increment();
+                return new Claim(best.ticketId(), best.categoryId());
+            }
+            // Another teller took it between the peek and the remove
+            contended.increment();
+        }
+    }
+
+    /** Number of tickets currently queued for dispatch. */
+    public int waiting() {
+        return byTicket.size();
+    }
+
+    public long getClaims() {
+        return claims.sum();
+    }
+
+    /** Claims that lost a race for a head and had to look again. */
+    public long getContended() {
+        return contended.sum();
+    }
+
+    private long key(Ticket ticket) {
+        int priority = ticket.getPriority() + categoryPriorities.getOrDefault(key(ticket.getCategoryId()), 0);
+        return ticket.getCreatedAt() - priority * agingStepMs;
+    }
+
+    private ConcurrentSkipListSet<Entry> queueFor(String categoryId) {
+        return queues.computeIfAbsent(categoryId, k -> new ConcurrentSkipListSet<>(ORDER));
+    }
+
+    /** Tickets without a category are queued under the empty key, as in the engine. */
+    private static String key(String categoryId) {
+        return categoryId != null ? categoryId : "";
+    }
+}
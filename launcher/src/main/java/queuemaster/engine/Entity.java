@@ -0,0 +1,72 @@
+package queuemaster.engine;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Base for entities relayed between clients. The original JSON object is kept as-is
+ * so fields the engine does not know about (e.g. {@code dailyIdentifier}) survive a
+ * round trip; the typed accessors of subclasses are parsed from it once.
+ */
+abstract class Entity {
+    final Map<String, Object> fields;
+
+    Entity(Map<String, Object> fields) {
+        this.fields = Collections.unmodifiableMap(new LinkedHashMap<>(fields));
+    }
+
+    public String getId() {
+        return string(fields, "id");
+    }
+
+    /** The wire representation, in the same key order it was received. */
+    public Map<String, Object> toJson() {
+        return fields;
+    }
+
+    /** Copy of the fields with the given key replaced; a null value removes the key. */
+    Map<String, Object> with(Object... keyValues) {
+        Map<String, Object> copy = new LinkedHashMap<>(fields);
+        for (int i = 0; i < keyValues.length; i += 2) {
+            String key = (String) keyValues[i];
+            Object value = keyValues[i + 1];
+            if (value == null) copy.remove(key);
+            else copy.put(key, value);
+        }
+        return copy;
+    }
+
+    static String string(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value != null ? value.toString() : null;
+    }
+
+    static Long number(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        if (value instanceof Number) return ((Number) value).longValue();
+        if (value instanceof String) {
+            try {
+                return Long.parseLong((String) value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o != null && o.getClass() == getClass() && fields.equals(((Entity) o).fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return fields.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + fields;
+    }
+}
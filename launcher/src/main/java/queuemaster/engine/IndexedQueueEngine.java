@@ -0,0 +1,186 @@
+package queuemaster.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link QueueEngine} backed by an id hash index and per-category {@link CategoryQueue}s.
+ * Upserts and status changes are O(log n) (the WAITING re-index), lookups by id are O(1)
+ * and next-ticket is O(log n) per category. All access is serialized on the engine monitor.
+ *
+ * <p>Only active tickets live in that hot set. Finished ones move to a {@link ColdTier}
+ * bucketed by creation time, where they stay visible until the retention window drops
+ * their bucket.
+ */
+public class IndexedQueueEngine implements QueueEngine {
+    private final LinkedHashMap<String, Ticket> tickets = new LinkedHashMap<>();
+    private final ColdTier finished = new ColdTier();
+    private final Map<String, CategoryQueue> queues = new HashMap<>();
+    private final LinkedHashMap<String, Teller> tellers = new LinkedHashMap<>();
+    private final LinkedHashMap<String, ServiceCategory> categories = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Map<String, Object>> adminAccounts = new LinkedHashMap<>();
+
+    @Override
+    public synchronized Ticket upsertTicket(Ticket ticket) {
+        Ticket previous = ticket.getStatus().isTerminal() ? tickets.remove(ticket.getId()) : tickets.put(ticket.getId(), ticket);
+        if (previous != null) {
+            unindex(previous);
+        } else {
+            previous = finished.remove(ticket.getId());
+        }
+        if (ticket.getStatus().isTerminal()) {
+            finished.add(ticket);
+        } else {
+            queueFor(ticket.getCategoryId()).add(ticket);
+        }
+        return previous;
+    }
+
+    @Override
+    public synchronized Ticket getTicket(String ticketId) {
+        Ticket ticket = tickets.get(ticketId);
+        return ticket != null ? ticket : finished.get(ticketId);
+    }
+
+    /** Drops a ticket without archiving it (it moved to another partition). Returns it, or null. */
+    synchronized Ticket removeTicket(String ticketId) {
+        Ticket removed = tickets.remove(ticketId);
+        if (removed != null) {
+            unindex(removed);
+            return removed;
+        }
+        return finished.remove(ticketId);
+    }
+
+    @Override
+    public synchronized Ticket updateStatus(String ticketId, TicketStatus status, long timestamp) {
+        Ticket current = tickets.get(ticketId);
+        if (current == null) return null;
+        Ticket updated = current.withStatus(status, timestamp);
+        upsertTicket(updated);
+        return updated;
+    }
+
+    @Override
+    public synchronized Ticket peekNextWaiting(String categoryId) {
+        CategoryQueue queue = queues.get(key(categoryId));
+        return queue != null ? queue.headWaiting() : null;
+    }
+
+    @Override
+    public synchronized Ticket peekNextWaiting(Collection<String> categoryIds) {
+        Ticket best = null;
+        for (String categoryId : categoryIds) {
+            Ticket head = peekNextWaiting(categoryId);
+            if (head != null && (best == null || CategoryQueue.ARRIVAL_ORDER.compare(head, best) < 0)) {
+                best = head;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public synchronized int count(String categoryId, TicketStatus status) {
+        if (status.isTerminal()) return finished.count(categoryId, status);
+        CategoryQueue queue = queues.get(key(categoryId));
+        return queue != null ? queue.count(status) : 0;
+    }
+
+    @Override
+    public synchronized int size() {
+        return tickets.size() + finished.size();
+    }
+
+    @Override
+    public synchronized int activeSize() {
+        return tickets.size();
+    }
+
+    @Override
+    public synchronized List<Ticket> expireCreatedBefore(long cutoff) {
+        List<Ticket> expired = finished.dropCreatedBefore(cutoff, new ArrayList<>());
+        // Abandoned active tickets (left WAITING overnight) are few; scanning the hot set is cheap
+        Iterator<Ticket> it = tickets.values().iterator();
+        while (it.hasNext()) {
+            Ticket ticket = it.next();
+            if (ticket.getCreatedAt() <= cutoff) {
+                it.remove();
+                unindex(ticket);
+                expired.add(ticket);
+            }
+        }
+        return expired;
+    }
+
+    @Override
+    public synchronized List<Ticket> tickets() {
+        List<Ticket> all = new ArrayList<>(tickets.size() + finished.size());
+        finished.addAllTo(all);
+        all.addAll(tickets.values());
+        return all;
+    }
+
+    @Override
+    public synchronized void upsertTeller(Teller teller) {
+        tellers.put(teller.getId(), teller);
+    }
+
+    @Override
+    public synchronized Teller getTeller(String tellerId) {
+        return tellers.get(tellerId);
+    }
+
+    @Override
+    public synchronized List<Teller> tellers() {
+        return new ArrayList<>(tellers.values());
+    }
+
+    @Override
+    public synchronized void upsertCategory(ServiceCategory category) {
+        categories.put(category.getId(), category);
+    }
+
+    @Override
+    public synchronized ServiceCategory getCategory(String categoryId) {
+        return categories.get(categoryId);
+    }
+
+    @Override
+    public synchronized List<ServiceCategory> categories() {
+        return new ArrayList<>(categories.values());
+    }
+
+    @Override
+    public synchronized void upsertAdminAccount(Map<String, Object> account) {
+        Object id = account.get("id");
+        if (id == null) throw new IllegalArgumentException("Admin account without id");
+        adminAccounts.put(id.toString(), account);
+    }
+
+    @Override
+    public synchronized List<Map<String, Object>> adminAccounts() {
+        return new ArrayList<>(adminAccounts.values());
+    }
+
+    private void unindex(Ticket ticket) {
+        String key = key(ticket.getCategoryId());
+        CategoryQueue queue = queues.get(key);
+        if (queue == null) return;
+        queue.remove(ticket);
+        if (queue.isEmpty()) queues.remove(key);
+    }
+
+    private CategoryQueue queueFor(String categoryId) {
+        return queues.computeIfAbsent(key(categoryId), k -> new CategoryQueue());
+    }
+
+    /** Tickets without a category still get indexed, under the empty key. */
+    private static String key(String categoryId) {
+        return categoryId != null ? categoryId : "";
+    }
+}
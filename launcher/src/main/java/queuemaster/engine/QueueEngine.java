@@ -0,0 +1,75 @@
+package queuemaster.engine;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process queue state: the Java counterpart of {@code centralData} in server.ts.
+ *
+ * <p>Implementations index tickets by id and by category/status so upserts, status
+ * changes and next-ticket lookups do not scan the whole ticket list.
+ */
+public interface QueueEngine {
+
+    /** Inserts or replaces a ticket by id. Returns the previous version, or null if it is new. */
+    Ticket upsertTicket(Ticket ticket);
+
+    Ticket getTicket(String ticketId);
+
+    /**
+     * Moves a ticket to {@code status}, stamping the lifecycle timestamp.
+     * Returns the updated ticket, or null if the id is unknown.
+     */
+    Ticket updateStatus(String ticketId, TicketStatus status, long timestamp);
+
+    /** Oldest WAITING ticket in the category, or null. */
+    Ticket peekNextWaiting(String categoryId);
+
+    /** Oldest WAITING ticket across the given categories (a teller's assignments), or null. */
+    Ticket peekNextWaiting(Collection<String> categoryIds);
+
+    /** Number of tickets in the category with the given status. */
+    int count(String categoryId, TicketStatus status);
+
+    /** Total number of tickets held, finished ones included. */
+    int size();
+
+    /** Number of tickets still WAITING, CALLING or SERVING. */
+    int activeSize();
+
+    /**
+     * Drops tickets created at or before {@code cutoff} and returns them for archiving.
+     * Implementations may expire finished tickets at a coarser time granularity, keeping some
+     * slightly older than the cutoff until the next call.
+     */
+    List<Ticket> expireCreatedBefore(long cutoff);
+
+    /** Tickets created before {@code cutoff} are dropped; returns how many were removed. */
+    default int removeCreatedBefore(long cutoff) {
+        return expireCreatedBefore(cutoff).size();
+    }
+
+    /**
+     * All tickets as a list the caller may keep: finished ones oldest first, then active ones in
+     * first-seen order. Partitioned engines apply that order per partition.
+     */
+    List<Ticket> tickets();
+
+    void upsertTeller(Teller teller);
+
+    Teller getTeller(String tellerId);
+
+    List<Teller> tellers();
+
+    void upsertCategory(ServiceCategory category);
+
+    ServiceCategory getCategory(String categoryId);
+
+    List<ServiceCategory> categories();
+
+    /** Admin accounts are stored opaquely; the engine only keys them by id. */
+    void upsertAdminAccount(Map<String, Object> account);
+
+    List<Map<String, Object>> adminAccounts();
+}
@@ -0,0 +1,31 @@
+package queuemaster.engine;
+
+import java.util.Map;
+
+/** Immutable view of a service category as exchanged in {@code category_update} messages. */
+public final class ServiceCategory extends Entity {
+    private final String id;
+
+    public ServiceCategory(Map<String, Object> fields) {
+        super(fields);
+        this.id = string(fields, "id");
+        if (id == null) throw new IllegalArgumentException("Category without id");
+    }
+
+    @Override
+    public String getId() { return id; }
+    public String getName() { return string(fields, "name"); }
+    public String getPrefix() { return string(fields, "prefix"); }
+
+    /** Admin-entered average service time in minutes. */
+    public int getEstimatedTime() {
+        Long minutes = number(fields, "estimatedTime");
+        return minutes != null ? minutes.intValue() : 0;
+    }
+
+    /** Optional dispatch priority added to every ticket of the category; 0 when absent. */
+    public int getPriority() {
+        Long priority = number(fields, "priority");
+        return priority != null ? priority.intValue() : 0;
+    }
+}
@@ -0,0 +1,266 @@
+package queuemaster.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * {@link QueueEngine} partitioned by category: tickets live in one of N stripes, each an
+ * {@link IndexedQueueEngine} with its own lock, chosen by a hash of {@code categoryId}.
+ * Reception issuing tickets, tellers calling and completing them, and monitors counting a
+ * category touch only that category's stripe, so work on different categories proceeds in
+ * parallel instead of queuing on one engine monitor. Lookups by id go through a concurrent
+ * id-to-stripe index.
+ *
+ * <p>Reads that span everything are served from versioned views. Every stripe mutation bumps
+ * the stripe's version; {@link #tickets()} returns an immutable list cached against the
+ * versions it was built from, so repeated full syncs between writes take no lock at all and
+ * a rebuild only re-copies the stripes that changed. Tellers, categories and admin accounts
+ * change rarely and are kept copy-on-write, so reading them is wait-free.
+ *
+ * <p>Writes of the same ticket id must not race each other (the relay orders them); a ticket
+ * whose category changes moves between stripes. {@link #tickets()} orders tickets per stripe.
+ */
+public class StripedQueueEngine implements QueueEngine {
+    public static final int DEFAULT_STRIPES = 16;
+
+    private static final class Stripe {
+        final IndexedQueueEngine engine = new IndexedQueueEngine();
+        // Written under the engine monitor, after the mutation it accounts for
+        volatile long version;
+        volatile View view;
+    }
+
+    private record View(long version, List<Ticket> tickets) {
+    }
+
+    private record MergedView(long[] versions, List<Ticket> tickets) {
+    }
+
+    private final Stripe[] stripes;
+    private final Map<String, Stripe> locations = new ConcurrentHashMap<>();
+    private volatile MergedView merged;
+    private final CopyOnWriteIndex<Teller> tellers = new CopyOnWriteIndex<>(Teller::getId);
+    private final CopyOnWriteIndex<ServiceCategory> categories = new CopyOnWriteIndex<>(ServiceCategory::getId);
+    private final CopyOnWriteIndex<Map<String, Object>> adminAccounts = new CopyOnWriteIndex<>(account -> {
+        Object id = account.get("id");
+        if (id == null) throw new IllegalArgumentException("Admin account without id");
+        return id.toString();
+    });
+
+    public StripedQueueEngine() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public StripedQueueEngine(int stripeCount) {
+        if (stripeCount < 1) throw new IllegalArgumentException("stripeCount must be at least 1");
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) stripes[i] = new Stripe();
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    @Override
+    public Ticket upsertTicket(Ticket ticket) {
+        Stripe target = stripeFor(ticket.getCategoryId());
+        Stripe before = locations.put(ticket.getId(), target);
+        Ticket moved = null;
+        if (before != null && before != target) {
+            synchronized (before.engine) {
+                moved = before.engine.removeTicket(ticket.getId());
+                before.version++;
+            }
+        }
+        Ticket previous;
+        synchronized (target.engine) {
+            previous = target.engine.upsertTicket(ticket);
+            target.version++;
+        }
+        return moved != null ? moved : previous;
+    }
+
+    @Override
+    public Ticket getTicket(String ticketId) {
+        Stripe stripe = locations.get(ticketId);
+        return stripe != null ? stripe.engine.getTicket(ticketId) : null;
+    }
+
+    @Override
+    public Ticket updateStatus(String ticketId, TicketStatus status, long timestamp) {
+        Stripe stripe = locations.get(ticketId);
+        if (stripe == null) return null;
+        synchronized (stripe.engine) {
+            Ticket updated = stripe.engine.updateStatus(ticketId, status, timestamp);
+            if (updated != null) stripe.version++;
+            return updated;
+        }
+    }
+
+    @Override
+    public Ticket peekNextWaiting(String categoryId) {
+        return stripeFor(categoryId).engine.peekNextWaiting(categoryId);
+    }
+
+    @Override
+    public Ticket peekNextWaiting(Collection<String> categoryIds) {
+        Ticket best = null;
+        for (String categoryId : categoryIds) {
+            Ticket head = peekNextWaiting(categoryId);
+            if (head != null && (best == null || CategoryQueue.ARRIVAL_ORDER.compare(head, best) < 0)) {
+                best = head;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public int count(String categoryId, TicketStatus status) {
+        return stripeFor(categoryId).engine.count(categoryId, status);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) size += stripe.engine.size();
+        return size;
+    }
+
+    @Override
+    public int activeSize() {
+        int size = 0;
+        for (Stripe stripe : stripes) size += stripe.engine.activeSize();
+        return size;
+    }
+
+    @Override
+    public List<Ticket> expireCreatedBefore(long cutoff) {
+        List<Ticket> expired = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            List<Ticket> dropped;
+            synchronized (stripe.engine) {
+                dropped = stripe.engine.expireCreatedBefore(cutoff);
+                if (!dropped.isEmpty()) stripe.version++;
+            }
+            for (Ticket ticket : dropped) locations.remove(ticket.getId(), stripe);
+            expired.addAll(dropped);
+        }
+        return expired;
+    }
+
+    /** Immutable; the same list instance is returned until a stripe changes. */
+    @Override
+    public List<Ticket> tickets() {
+        MergedView current = merged;
+        if (current != null && isCurrent(current.versions())) return current.tickets();
+        long[] versions = new long[stripes.length];
+        List<List<Ticket>> parts = new ArrayList<>(stripes.length);
+        int total = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            View view = viewOf(stripes[i]);
+            versions[i] = view.version();
+            parts.add(view.tickets());
+            total += view.tickets().size();
+        }
+        List<Ticket> all = new ArrayList<>(total);
+        for (List<Ticket> part : parts) all.addAll(part);
+        MergedView rebuilt = new MergedView(versions, Collections.unmodifiableList(all));
+        merged = rebuilt;
+        return rebuilt.tickets();
+    }
+
+    @Override
+    public void upsertTeller(Teller teller) {
+        tellers.put(teller);
+    }
+
+    @Override
+    public Teller getTeller(String tellerId) {
+        return tellers.get(tellerId);
+    }
+
+    @Override
+    public List<Teller> tellers() {
+        return tellers.values();
+    }
+
+    @Override
+    public void upsertCategory(ServiceCategory category) {
+        categories.put(category);
+    }
+
+    @Override
+    public ServiceCategory getCategory(String categoryId) {
+        return categories.get(categoryId);
+    }
+
+    @Override
+    public List<ServiceCategory> categories() {
+        return categories.values();
+    }
+
+    @Override
+    public void upsertAdminAccount(Map<String, Object> account) {
+        adminAccounts.put(account);
+    }
+
+    @Override
+    public List<Map<String, Object>> adminAccounts() {
+        return adminAccounts.values();
+    }
+
+    private boolean isCurrent(long[] versions) {
+        for (int i = 0; i < stripes.length; i++) {
+            if (stripes[i].version != versions[i]) return false;
+        }
+        return true;
+    }
+
+    /** The stripe's cached ticket list, rebuilt under its lock if a write happened since. */
+    private static View viewOf(Stripe stripe) {
+        View view = stripe.view;
+        if (view != null && view.version() == stripe.version) return view;
+        synchronized (stripe.engine) {
+            view = new View(stripe.version, Collections.unmodifiableList(stripe.engine.tickets()));
+            stripe.view = view;
+            return view;
+        }
+    }
+
+    private Stripe stripeFor(String categoryId) {
+        return stripes[Math.floorMod((categoryId != null ? categoryId : "").hashCode(), stripes.length)];
+    }
+
+    /** Small keyed set replaced wholesale on write; readers see one immutable version. */
+    private static final class CopyOnWriteIndex<V> {
+        private record Contents<V>(Map<String, V> byId, List<V> values) {
+        }
+
+        private final Function<V, String> idOf;
+        private volatile Contents<V> contents = new Contents<>(Map.of(), List.of());
+
+        CopyOnWriteIndex(Function<V, String> idOf) {
+            this.idOf = idOf;
+        }
+
+        synchronized void put(V value) {
+            Map<String, V> copy = new LinkedHashMap<>(contents.byId());
+            copy.put(idOf.apply(value), value);
+            contents = new Contents<>(Collections.unmodifiableMap(copy), List.copyOf(copy.values()));
+        }
+
+        V get(String id) {
+            return contents.byId().get(id);
+        }
+
+        List<V> values() {
+            return contents.values();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package queuemaster.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/** Immutable view of a teller as exchanged in {@code teller_update} messages. */
+public final class Teller extends Entity {
+    private final String id;
+    private final List<String> assignedCategoryIds;
+
+    public Teller(Map<String, Object> fields) {
+        super(fields);
+        this.id = string(fields, "id");
+        if (id == null) throw new IllegalArgumentException("Teller without id");
+        List<String> categories = new ArrayList<>();
+        Object assigned = fields.get("assignedCategoryIds");
+        if (assigned instanceof List) {
+            for (Object categoryId : (List<?>) assigned) {
+                if (categoryId != null) categories.add(categoryId.toString());
+            }
+        }
+        this.assignedCategoryIds = Collections.unmodifiableList(categories);
+    }
+
+    @Override
+    public String getId() { return id; }
+    public String getName() { return string(fields, "name"); }
+    public String getStatus() { return string(fields, "status"); }
+    public String getCurrentTicketId() { return string(fields, "currentTicketId"); }
+    public List<String> getAssignedCategoryIds() { return assignedCategoryIds; }
+
+    public int getCounterNumber() {
+        Long counter = number(fields, "counterNumber");
+        return counter != null ? counter.intValue() : 0;
+    }
+
+    /** Marks the teller BUSY with the given ticket, as the teller dashboard does on "call next". */
+    public Teller busyWith(String ticketId, long timestamp) {
+        return new Teller(with("status", "BUSY", "currentTicketId", ticketId, "lastUpdated", timestamp));
+    }
+}
@@ -0,0 +1,83 @@
+package queuemaster.engine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Immutable view of a queue ticket as exchanged in {@code ticket_update} messages. */
+public final class Ticket extends Entity {
+    private final String id;
+    private final String number;
+    private final String categoryId;
+    private final TicketStatus status;
+    private final long createdAt;
+
+    public Ticket(Map<String, Object> fields) {
+        super(fields);
+        this.id = string(fields, "id");
+        if (id == null) throw new IllegalArgumentException("Ticket without id");
+        this.number = string(fields, "number");
+        this.categoryId = string(fields, "categoryId");
+        this.status = TicketStatus.parse(fields.get("status"));
+        Long created = number(fields, "createdAt");
+        this.createdAt = created != null ? created : 0L;
+    }
+
+    /** Convenience factory for tickets created on the Java side (tools, benchmarks). */
+    public static Ticket create(String id, String number, String categoryId, long createdAt) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("id", id);
+        fields.put("number", number);
+        fields.put("categoryId", categoryId);
+        fields.put("status", TicketStatus.WAITING.name());
+        fields.put("createdAt", createdAt);
+        fields.put("lastUpdated", createdAt);
+        return new Ticket(fields);
+    }
+
+    @Override
+    public String getId() { return id; }
+    public String getNumber() { return number; }
+    public String getCategoryId() { return categoryId; }
+    public TicketStatus getStatus() { return status; }
+    public long getCreatedAt() { return createdAt; }
+    public Long getCalledAt() { return number(fields, "calledAt"); }
+    public Long getServedAt() { return number(fields, "servedAt"); }
+    public Long getCompletedAt() { return number(fields, "completedAt"); }
+    public String getTellerId() { return string(fields, "tellerId"); }
+    public Long getLastUpdated() { return number(fields, "lastUpdated"); }
+
+    /** Optional dispatch priority (e.g. appointments); 0 when absent. See {@link Dispatcher}. */
+    public int getPriority() {
+        Long priority = number(fields, "priority");
+        return priority != null ? priority.intValue() : 0;
+    }
+
+    public Integer getCounterNumber() {
+        Long counter = number(fields, "counterNumber");
+        return counter != null ? counter.intValue() : null;
+    }
+
+    /**
+     * Moves the ticket to {@code newStatus}, stamping the matching lifecycle timestamp the
+     * same way the dashboards do (calledAt, servedAt, completedAt) plus lastUpdated.
+     */
+    public Ticket withStatus(TicketStatus newStatus, long timestamp) {
+        String stampKey = null;
+        switch (newStatus) {
+            case CALLING: stampKey = "calledAt"; break;
+            case SERVING: stampKey = "servedAt"; break;
+            case COMPLETED: stampKey = "completedAt"; break;
+            default: break;
+        }
+        if (stampKey == null) {
+            return new Ticket(with("status", newStatus.name(), "lastUpdated", timestamp));
+        }
+        return new Ticket(with("status", newStatus.name(), stampKey, timestamp, "lastUpdated", timestamp));
+    }
+
+    /** Assigns the ticket to a teller's counter and marks it CALLING. */
+    public Ticket calledBy(Teller teller, long timestamp) {
+        return new Ticket(with("status", TicketStatus.CALLING.name(), "tellerId", teller.getId(),
+                "counterNumber", teller.getCounterNumber(), "calledAt", timestamp, "lastUpdated", timestamp));
+    }
+}
@@ -0,0 +1,21 @@
+package queuemaster.engine;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/** Destination for tickets that aged out of the retention window. */
+@FunctionalInterface
+public interface TicketArchive {
+    TicketArchive DISCARD = tickets -> { };
+
+    /** Receives one eviction's worth of tickets, oldest bucket first. */
+    void archive(List<Ticket> tickets) throws IOException;
+
+    /**
+     * Feeds {@code action} the archived tickets created on or after the local day of
+     * {@code since}, oldest day first. Archives that cannot be read back feed nothing.
+     */
+    default void replay(long since, Consumer<Ticket> action) throws IOException {
+    }
+}
@@ -0,0 +1,156 @@
+package queuemaster.engine;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Issues ticket numbers such as {@code B-015}: one counter per category prefix, restarting at
+ * 1 every local day. Each counter is a single {@link AtomicLong} holding the day and the count
+ * together, so incrementing and the daily reset are one compare-and-set and concurrent
+ * reception desks never get the same number.
+ *
+ * <p>{@link #allocate} and {@link #format} allocate nothing per ticket: the counter map is
+ * only written the first time a prefix is seen, the day boundary is computed once per day,
+ * and formatting writes into a buffer owned by the caller.
+ *
+ * <p>Counters are not durable on their own; the relay journals every allocation as a
+ * {@code counter_update} event and snapshots {@link #counters()}, and both are fed back
+ * through {@link #restore} on start.
+ */
+public final class TicketNumberAllocator {
+    /** Counts are zero-padded to at least this many digits, as the dashboards did. */
+    public static final int MIN_DIGITS = 3;
+    /** Longest number {@link #format} writes for a prefix of {@code n} chars is {@code n + 1 + MAX_DIGITS}. */
+    public static final int MAX_DIGITS = 10;
+
+    /** A counter's persisted state: {@code count} numbers were issued for {@code prefix} on {@code day}. */
+    public record CounterState(String prefix, long day, long count) {
+    }
+
+    private record DayWindow(long day, long startsAt, long endsAt) {
+    }
+
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final Clock clock;
+    private volatile DayWindow today = new DayWindow(Long.MIN_VALUE, 0, 0);
+
+    public TicketNumberAllocator() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /** Days roll over at midnight in {@code clock}'s zone. */
+    public TicketNumberAllocator(Clock clock) {
+        this.clock = clock;
+    }
+
+    /** Takes the next number for {@code prefix} and returns its count (1 for the first ticket of the day). */
+    public long allocate(String prefix) {
+        return countOf(allocateOnDay(prefix));
+    }
+
+    /**
+     * Takes the next number for {@code prefix} and returns the day and count it was issued
+     * for, packed into one long (see {@link #dayOf} and {@link #countOf}). Callers that record
+     * the day need this rather than a separate {@link #currentDay()}, which may already have
+     * moved past midnight. A caller whose clock reading is older than the counter's day gets
+     * the counter's day, so the day returned is always the one stored.
+     */
+    public long allocateOnDay(String prefix) {
+        AtomicLong counter = counterFor(prefix);
+        long day = currentDay();
+        for (;;) {
+            long current = counter.get();
+            // Another desk may already have rolled the counter past midnight; never move it back
+            long d = Math.max(day, current >>> 32);
+            long next = (current >>> 32) == d ? current + 1 : (d << 32) | 1;
+            if (counter.compareAndSet(current, next)) return next;
+        }
+    }
+
+    /** The epoch day of a value from {@link #allocateOnDay}. */
+    public static long dayOf(long allocated) {
+        return allocated >>> 32;
+    }
+
+    /** The count of a value from {@link #allocateOnDay}. */
+    public static long countOf(long allocated) {
+        return allocated & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Allocates and writes the formatted number into {@code out}, returning its length.
+     * {@code out} needs room for {@code prefix.length() + 1 + MAX_DIGITS} chars.
+     */
+    public int next(String prefix, char[] out) {
+        return format(prefix, allocate(prefix), out);
+    }
+
+    /** Allocates and returns the formatted number; convenient where one String is made anyway. */
+    public String next(String prefix) {
+        char[] out = new char[prefix.length() + 1 + MAX_DIGITS];
+        return new String(out, 0, next(prefix, out));
+    }
+
+    /** Writes {@code prefix-count} with the count zero-padded to {@value #MIN_DIGITS} digits. */
+    public static int format(String prefix, long count, char[] out) {
+        int length = prefix.length();
+        prefix.getChars(0, length, out, 0);
+        out[length++] = '-';
+        int digits = MIN_DIGITS;
+        for (long rest = count / 1000; rest > 0; rest /= 10) digits++;
+        for (int i = length + digits - 1; i >= length; i--) {
+            out[i] = (char) ('0' + count % 10);
+            count /= 10;
+        }
+        return length + digits;
+    }
+
+    /** The epoch day counters currently count for. */
+    public long currentDay() {
+        long now = clock.millis();
+        DayWindow window = today;
+        if (now >= window.startsAt() && now < window.endsAt()) return window.day();
+        ZoneId zone = clock.getZone();
+        LocalDate date = LocalDate.ofInstant(clock.instant(), zone);
+        window = new DayWindow(date.toEpochDay(), date.atStartOfDay(zone).toInstant().toEpochMilli(),
+                date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+        today = window;
+        return window.day();
+    }
+
+    /**
+     * Raises a counter to a persisted state (journal replay, snapshot load). A state from an
+     * earlier day than the counter's is ignored; within the same day the higher count wins,
+     * so replaying events out of order is harmless.
+     */
+    public void restore(CounterState state) {
+        AtomicLong counter = counterFor(state.prefix());
+        for (;;) {
+            long current = counter.get();
+            long day = current >>> 32;
+            if (current != 0 && (state.day() < day || (state.day() == day && state.count() <= (current & 0xFFFFFFFFL)))) return;
+            if (counter.compareAndSet(current, (state.day() << 32) | state.count())) return;
+        }
+    }
+
+    /** Every counter's state, for snapshots. */
+    public List<CounterState> counters() {
+        List<CounterState> states = new ArrayList<>(counters.size());
+        counters.forEach((prefix, counter) -> {
+            long value = counter.get();
+            if (value != 0) states.add(new CounterState(prefix, value >>> 32, value & 0xFFFFFFFFL));
+        });
+        return states;
+    }
+
+    private AtomicLong counterFor(String prefix) {
+        AtomicLong counter = counters.get(prefix);
+        return counter != null ? counter : counters.computeIfAbsent(prefix, p -> new AtomicLong());
+    }
+}
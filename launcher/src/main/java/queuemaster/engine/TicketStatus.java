@@ -0,0 +1,25 @@
+package queuemaster.engine;
+
+/** Ticket lifecycle states, mirroring {@code TicketStatus} in types.ts. */
+public enum TicketStatus {
+    WAITING,
+    CALLING,
+    SERVING,
+    COMPLETED,
+    NOSHOW;
+
+    /** True for states a ticket never leaves on its own (served or abandoned). */
+    public boolean isTerminal() {
+        return this == COMPLETED || this == NOSHOW;
+    }
+
+    /** Lenient parse of the wire value; unknown or missing values are treated as WAITING. */
+    public static TicketStatus parse(Object value) {
+        if (value != null) {
+            for (TicketStatus status : values()) {
+                if (status.name().equals(value.toString())) return status;
+            }
+        }
+        return WAITING;
+    }
+}
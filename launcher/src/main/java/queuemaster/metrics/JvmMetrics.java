@@ -0,0 +1,33 @@
+package queuemaster.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Heap and garbage-collection readings of this JVM, which hosts the embedded server. */
+public record JvmMetrics(long heapUsed, long heapCommitted, long heapMax,
+                         Map<String, Long> gcCount, Map<String, Long> gcMillis) {
+
+    public static JvmMetrics read() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        Map<String, Long> count = new LinkedHashMap<>();
+        Map<String, Long> millis = new LinkedHashMap<>();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count.put(gc.getName(), Math.max(0, gc.getCollectionCount()));
+            millis.put(gc.getName(), Math.max(0, gc.getCollectionTime()));
+        }
+        return new JvmMetrics(heap.getUsed(), heap.getCommitted(), heap.getMax(), count, millis);
+    }
+
+    /** Collections by every collector together. */
+    public long totalGcCount() {
+        return gcCount.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /** Time spent collecting, all collectors together. */
+    public long totalGcMillis() {
+        return gcMillis.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
@@ -0,0 +1,26 @@
+package queuemaster.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts per label value (per message type, say). Each value gets its own {@link LongAdder},
+ * so threads counting different or even the same label rarely contend. Callers keep the set of
+ * labels small: every distinct value is a series forever.
+ */
+public final class LabeledCounter {
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+    public void increment(String label) {
+        counts.computeIfAbsent(label, l -> new LongAdder()).increment();
+    }
+
+    /** Current totals by label, in label order. */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> totals = new TreeMap<>();
+        counts.forEach((label, count) -> totals.put(label, count.sum()));
+        return totals;
+    }
+}
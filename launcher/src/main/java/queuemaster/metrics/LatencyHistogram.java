@@ -0,0 +1,126 @@
+package queuemaster.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies in log-linear buckets, as HdrHistogram does it: every power of two of nanoseconds
+ * is split into {@value #SUB_BUCKETS} equal buckets, so any recorded value is known to within
+ * 12.5% while memory stays fixed at {@value #BUCKETS} counters (values up to about 18
+ * minutes). Recording is a few atomic increments and never allocates or locks, so it can sit
+ * on the broadcast path.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    public static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 40;
+    public static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) return BUCKETS - 1;
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /** Smallest value that falls in bucket {@code index}. */
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = index % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+    }
+
+    /** First value past bucket {@code index}. */
+    static long upperBound(int index) {
+        return index + 1 < BUCKETS ? lowerBound(index + 1) : Long.MAX_VALUE;
+    }
+
+    /**
+     * The counts as of now. Recording continues meanwhile, so the totals may be a few
+     * samples ahead of the buckets; nothing relies on them matching exactly.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) copy[i] = counts.get(i);
+        return new Snapshot(copy, count.sum(), sum.sum(), max.get());
+    }
+
+    /** Immutable counts; subtract two to get what was recorded between them. */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long sumNanos() {
+            return sum;
+        }
+
+        /** Largest value recorded since the histogram was created, not only in this interval. */
+        public long maxNanos() {
+            return max;
+        }
+
+        public double meanNanos() {
+            return count > 0 ? (double) sum / count : Double.NaN;
+        }
+
+        /** The value below which fraction {@code q} of samples fall, at bucket midpoint; NaN if empty. */
+        public double percentileNanos(double q) {
+            long total = 0;
+            for (long c : counts) total += c;
+            if (total == 0) return Double.NaN;
+            long rank = Math.max(1, (long) Math.ceil(q * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    long upper = upperBound(i);
+                    return upper == Long.MAX_VALUE ? lowerBound(i) : (lowerBound(i) + upper) / 2.0;
+                }
+            }
+            return lowerBound(counts.length - 1);
+        }
+
+        /** Samples whose bucket ends at or below {@code nanos}. */
+        public long countAtMost(long nanos) {
+            long total = 0;
+            for (int i = 0; i < counts.length && upperBound(i) <= nanos + 1; i++) total += counts[i];
+            return total;
+        }
+
+        /** What was recorded after {@code earlier}, a snapshot of the same histogram. */
+        public Snapshot since(Snapshot earlier) {
+            long[] delta = new long[counts.length];
+            for (int i = 0; i < delta.length; i++) delta[i] = counts[i] - earlier.counts[i];
+            return new Snapshot(delta, count - earlier.count, sum - earlier.sum, max);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package queuemaster.metrics;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Writes metrics in the Prometheus text exposition format (version 0.0.4). Latencies are
+ * exported in seconds, as Prometheus convention asks.
+ */
+public final class PrometheusText {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /** Histogram {@code le} bounds in seconds, from 10 µs (a fan-out) to 10 s (a stalled client). */
+    private static final double[] BOUNDS_SECONDS = {
+        0.00001, 0.000025, 0.00005, 0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01,
+        0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    private final StringBuilder out = new StringBuilder(4096);
+
+    public PrometheusText gauge(String name, String help, double value) {
+        header(name, help, "gauge");
+        sample(name, null, null, value);
+        return this;
+    }
+
+    public PrometheusText gauge(String name, String help, String label, Map<String, ? extends Number> values) {
+        header(name, help, "gauge");
+        values.forEach((key, value) -> sample(name, label, key, value.doubleValue()));
+        return this;
+    }
+
+    /** {@code name} should end in {@code _total}. */
+    public PrometheusText counter(String name, String help, double value) {
+        header(name, help, "counter");
+        sample(name, null, null, value);
+        return this;
+    }
+
+    public PrometheusText counter(String name, String help, String label, Map<String, ? extends Number> values) {
+        header(name, help, "counter");
+        values.forEach((key, value) -> sample(name, label, key, value.doubleValue()));
+        return this;
+    }
+
+    /**
+     * A histogram from a {@link LatencyHistogram} snapshot. Each {@code le} bucket counts the
+     * samples whose log-linear bucket lies wholly below the bound, so a count may lag by the
+     * samples within 12.5% of it; {@code _count} and {@code _sum} are exact.
+     */
+    public PrometheusText histogram(String name, String help, LatencyHistogram.Snapshot snapshot) {
+        header(name, help, "histogram");
+        for (double bound : BOUNDS_SECONDS) {
+            sample(name + "_bucket", "le", format(bound), snapshot.countAtMost(Math.round(bound * 1e9)));
+        }
+        sample(name + "_bucket", "le", "+Inf", snapshot.count());
+        sample(name + "_sum", null, null, snapshot.sumNanos() / 1e9);
+        sample(name + "_count", null, null, snapshot.count());
+        return this;
+    }
+
+    private void header(String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private void sample(String name, String label, String labelValue, double value) {
+        out.append(name);
+        if (label != null) {
+            out.append('{').append(label).append("=\"");
+            escape(labelValue);
+            out.append("\"}");
+        }
+        out.append(' ').append(format(value)).append('\n');
+    }
+
+    private void escape(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') out.append('\\').append(c);
+            else if (c == '\n') out.append("\\n");
+            else out.append(c);
+        }
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) return "NaN";
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) return Long.toString((long) value);
+        if (Double.isInfinite(value)) return value > 0 ? "+Inf" : "-Inf";
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
@@ -0,0 +1,333 @@
+package queuemaster.realtime;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The binary wire format clients opt into with {@code ?format=binary}: the same messages as
+ * the JSON protocol, in binary WebSocket frames a fraction of the size that decode without
+ * a JSON parser.
+ *
+ * <p>Frame layout: {@code byte kind | varint from | varint count | count strings}, then for
+ * {@link #MESSAGE} frames one tagged value (the message map). The strings are entries of a
+ * string table the receiver keeps: a frame that carries strings replaces the table from
+ * {@code from} on. {@link #STRINGS} frames add the strings new events are about to use, and
+ * snapshot frames ({@code sync}, {@code delta_sync}) carry the whole table from 0, so a client
+ * is consistent after each snapshot. Event frames carry none and only need the receiver to
+ * hold {@code from} entries (the table size when they were encoded); they never shrink its
+ * table, so an event delayed behind later strings still decodes. The table is shared by every client, which is what lets one encoded event frame
+ * go to all of them; it only grows, up to {@value #STRING_TABLE_LIMIT} entries.
+ *
+ * <p>Map keys and the values of {@link #INTERNED_VALUES} (ids, statuses, message types) are
+ * table references of a byte or two; other strings are inline, since most are unique ticket
+ * ids that would only bloat the table. Integers are zigzag varints, and epoch-millisecond
+ * timestamps are zigzag varint deltas from the previous timestamp in the frame, so a
+ * ticket's {@code calledAt} or {@code lastUpdated} after its {@code createdAt} costs two or
+ * three bytes.
+ *
+ * <p>Not thread-safe: the relay encodes under its publish lock. {@link Decoder} is the
+ * receiving side, as RealtimeService.ts implements it.
+ */
+public final class BinaryCodec {
+    public static final byte STRINGS = 1;
+    public static final byte MESSAGE = 2;
+    static final int STRING_TABLE_LIMIT = 4096;
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte STRING = 5;
+    private static final byte MAP = 6;
+    private static final byte LIST = 7;
+    private static final byte TIME = 8;
+
+    /** Integers in this range are taken for epoch milliseconds (2000 to 2200). */
+    private static final long MIN_TIME = 946_684_800_000L;
+    private static final long MAX_TIME = 7_258_118_400_000L;
+
+    private static final Set<String> INTERNED_VALUES = Set.of("type", "status", "categoryId", "tellerId",
+            "assignedCategoryIds", "dailyIdentifier", "prefix", "role");
+
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> index = new HashMap<>();
+    private final Output body = new Output();
+    private long lastTime;
+
+    /** Entries in the string table. */
+    public int tableSize() {
+        return strings.size();
+    }
+
+    /**
+     * Encodes a message, with {@code seq} added as its last field unless negative. If
+     * {@code withTable}, the frame carries the whole string table; otherwise the strings from
+     * {@link #tableSize()} before the call must reach every client first ({@link #strings}).
+     */
+    public byte[] encode(Map<String, Object> message, long seq, boolean withTable) {
+        body.reset();
+        lastTime = 0;
+        body.write(MAP);
+        body.writeVarint(message.size() + (seq >= 0 ? 1 : 0));
+        for (Map.Entry<String, Object> entry : message.entrySet()) {
+            writeKey(entry.getKey());
+            writeValue(entry.getKey(), entry.getValue());
+        }
+        if (seq >= 0) {
+            writeKey("seq");
+            writeValue("seq", seq);
+        }
+        Output frame = header(MESSAGE, withTable ? 0 : strings.size(), body.size + 16);
+        frame.write(body.bytes, 0, body.size);
+        return frame.toByteArray();
+    }
+
+    /** A {@link #STRINGS} frame with the table entries from {@code from} on. */
+    public byte[] strings(int from) {
+        return header(STRINGS, from, 64).toByteArray();
+    }
+
+    private Output header(byte kind, int from, int capacity) {
+        Output out = new Output(capacity);
+        out.write(kind);
+        out.writeVarint(from);
+        out.writeVarint(strings.size() - from);
+        for (int i = from; i < strings.size(); i++) out.writeUtf8(strings.get(i));
+        return out;
+    }
+
+    private void writeKey(String key) {
+        writeString(key, true);
+    }
+
+    // 0: inline string; n: table entry n - 1
+    private void writeString(String value, boolean intern) {
+        Integer ref = index.get(value);
+        if (ref == null && intern && strings.size() < STRING_TABLE_LIMIT) {
+            ref = strings.size();
+            strings.add(value);
+            index.put(value, ref);
+        }
+        if (ref != null) {
+            body.writeVarint(ref + 1);
+        } else {
+            body.writeVarint(0);
+            body.writeUtf8(value);
+        }
+    }
+
+    private void writeValue(String key, Object value) {
+        if (value == null) {
+            body.write(NULL);
+        } else if (value instanceof Boolean) {
+            body.write((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            long n = ((Number) value).longValue();
+            if (n >= MIN_TIME && n < MAX_TIME) {
+                body.write(TIME);
+                body.writeVarint(zigzag(n - lastTime));
+                lastTime = n;
+            } else {
+                body.write(LONG);
+                body.writeVarint(zigzag(n));
+            }
+        } else if (value instanceof Number) {
+            body.write(DOUBLE);
+            body.writeLong(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            body.write(MAP);
+            body.writeVarint(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                String field = String.valueOf(entry.getKey());
+                writeKey(field);
+                writeValue(field, entry.getValue());
+            }
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            body.write(LIST);
+            body.writeVarint(list.size());
+            // Elements share the list's key, so assignedCategoryIds elements are interned
+            for (Object element : list) writeValue(key, element);
+        } else {
+            body.write(STRING);
+            writeString(value.toString(), INTERNED_VALUES.contains(key));
+        }
+    }
+
+    private static long zigzag(long n) {
+        return (n << 1) ^ (n >> 63);
+    }
+
+    /** The receiving side: keeps its copy of the table and turns frames back into message maps. */
+    public static final class Decoder {
+        private final List<String> strings = new ArrayList<>();
+        private byte[] in;
+        private int position;
+        private long lastTime;
+
+        /**
+         * The message in a {@link #MESSAGE} frame, or null for a {@link #STRINGS} frame. Throws
+         * IllegalStateException if the frame is damaged or refers to strings this decoder
+         * never received; the client should then ask for a full sync.
+         */
+        public Map<String, Object> decode(byte[] frame) {
+            in = frame;
+            position = 0;
+            lastTime = 0;
+            try {
+                byte kind = in[position++];
+                int from = readCount();
+                int count = readCount();
+                if (from > strings.size()) throw new IllegalStateException("missing strings before " + from);
+                // Only frames carrying strings replace entries; a plain event just needs the first from
+                if (count > 0) {
+                    strings.subList(from, strings.size()).clear();
+                    for (int i = 0; i < count; i++) strings.add(readUtf8());
+                }
+                if (kind == STRINGS) return null;
+                if (kind != MESSAGE) throw new IllegalStateException("unknown frame kind " + kind);
+                Object message = readValue();
+                if (!(message instanceof Map)) throw new IllegalStateException("message is not a map");
+                @SuppressWarnings("unchecked")
+                Map<String, Object> map = (Map<String, Object>) message;
+                return map;
+            } catch (ArrayIndexOutOfBoundsException e) {
+                throw new IllegalStateException("truncated frame", e);
+            } finally {
+                in = null;
+            }
+        }
+
+        private Object readValue() {
+            byte tag = in[position++];
+            switch (tag) {
+                case NULL: return null;
+                case FALSE: return Boolean.FALSE;
+                case TRUE: return Boolean.TRUE;
+                case LONG: return unzigzag(readVarint());
+                case TIME: return lastTime += unzigzag(readVarint());
+                case DOUBLE: {
+                    long bits = 0;
+                    for (int i = 0; i < 8; i++) bits = bits << 8 | (in[position++] & 0xFF);
+                    return Double.longBitsToDouble(bits);
+                }
+                case STRING: return readString();
+                case MAP: {
+                    int size = readCount();
+                    Map<String, Object> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+                    for (int i = 0; i < size; i++) {
+                        String key = readString();
+                        map.put(key, readValue());
+                    }
+                    return map;
+                }
+                case LIST: {
+                    int size = readCount();
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) list.add(readValue());
+                    return list;
+                }
+                default: throw new IllegalStateException("unknown tag " + tag);
+            }
+        }
+
+        private String readString() {
+            int ref = readCount();
+            if (ref == 0) return readUtf8();
+            if (ref > strings.size()) throw new IllegalStateException("unknown string " + (ref - 1));
+            return strings.get(ref - 1);
+        }
+
+        private String readUtf8() {
+            int length = readCount();
+            if (length > in.length - position) throw new IllegalStateException("bad length " + length);
+            String value = new String(in, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private int readCount() {
+            long count = readVarint();
+            if (count < 0 || count > Integer.MAX_VALUE) throw new IllegalStateException("bad count " + count);
+            return (int) count;
+        }
+
+        private long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = in[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+            throw new IllegalStateException("varint too long");
+        }
+
+        private static long unzigzag(long n) {
+            return (n >>> 1) ^ -(n & 1);
+        }
+    }
+
+    private static final class Output {
+        byte[] bytes;
+        int size;
+
+        Output() {
+            this(256);
+        }
+
+        Output(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        void write(byte b) {
+            ensure(1);
+            bytes[size++] = b;
+        }
+
+        void write(byte[] source, int offset, int length) {
+            ensure(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) bytes[size++] = (byte) (value >>> shift);
+        }
+
+        void writeUtf8(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length);
+            write(utf8, 0, utf8.length);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensure(int length) {
+            if (size + length > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+        }
+    }
+}
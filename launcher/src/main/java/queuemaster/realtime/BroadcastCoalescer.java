@@ -0,0 +1,109 @@
+package queuemaster.realtime;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The broadcast stage between the relay's sequenced events and the client queues. Events
+ * are held for a window (a few tens of milliseconds) from the first one; an event for an
+ * entity that already has one waiting replaces it, so a ticket going CALLING then SERVING,
+ * or a teller ONLINE, BUSY, ONLINE, reaches clients as one frame with the latest state.
+ *
+ * <p>Survivors go out in sequence order, all in one flush, so a client never sees a later
+ * seq before an earlier one it still needs: what a replaced event would have said is
+ * contained in the event that replaced it. The event log and journal still hold every event,
+ * so a {@code delta_sync} is unaffected. With a window of 0 events are sent as they come.
+ * Only sequenced entity updates pass through here; announcements are never delayed.
+ */
+final class BroadcastCoalescer {
+    interface Sink {
+        void send(ByteBuffer frame, ByteBuffer binaryFrame, WebSocketConnection sender);
+    }
+
+    private record Pending(ByteBuffer frame, ByteBuffer binaryFrame, WebSocketConnection sender) {
+    }
+
+    private final long windowMillis;
+    private final Sink sink;
+    private final ScheduledExecutorService timer;
+    private final Object flushLock = new Object();
+    // Keyed by entity, or by a fresh object for events that are never replaced; guarded by this
+    private final Map<Object, Pending> pending = new LinkedHashMap<>();
+    private boolean scheduled;
+    private long submitted;
+    private long replaced;
+
+    BroadcastCoalescer(long windowMillis, Sink sink) {
+        this.windowMillis = Math.max(0, windowMillis);
+        this.sink = sink;
+        this.timer = this.windowMillis > 0 ? Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "qm-coalescer");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+    }
+
+    long getWindowMillis() {
+        return windowMillis;
+    }
+
+    /**
+     * Queues an event; {@code key} names the entity it updates, or is null if it must not be
+     * replaced. Callers submit in sequence order.
+     */
+    void submit(Object key, ByteBuffer frame, ByteBuffer binaryFrame, WebSocketConnection sender) {
+        if (timer == null) {
+            synchronized (this) {
+                submitted++;
+            }
+            sink.send(frame, binaryFrame, sender);
+            return;
+        }
+        synchronized (this) {
+            submitted++;
+            // Removed first so the replacement takes the newer event's place in sequence order
+            Object slot = key != null ? key : new Object();
+            if (pending.remove(slot) != null) replaced++;
+            pending.put(slot, new Pending(frame, binaryFrame, sender));
+            if (scheduled) return;
+            scheduled = true;
+        }
+        try {
+            timer.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // Closed meanwhile: close() flushed what was there, so send this one directly
+            flush();
+        }
+    }
+
+    /** Sends everything waiting. Flushes are serialized, so batches leave in order. */
+    void flush() {
+        synchronized (flushLock) {
+            List<Pending> batch;
+            synchronized (this) {
+                scheduled = false;
+                if (pending.isEmpty()) return;
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+            }
+            for (Pending event : batch) sink.send(event.frame(), event.binaryFrame(), event.sender());
+        }
+    }
+
+    /** Flushes and stops the timer; later events are sent directly. */
+    void close() {
+        if (timer == null) return;
+        timer.shutdown();
+        flush();
+    }
+
+    synchronized CoalescingStats stats() {
+        return new CoalescingStats(windowMillis, submitted, replaced);
+    }
+}
@@ -0,0 +1,34 @@
+package queuemaster.realtime;
+
+import java.util.Locale;
+import java.util.Set;
+
+/** The relay's per-connection state, kept as the connection's attachment. */
+final class ClientSession {
+    /** The app's roles; anything else a client claims is counted as {@value #UNASSIGNED}. */
+    static final Set<String> ROLES = Set.of("ADMIN", "TELLER", "RECEPTION", "MONITOR");
+    static final String UNASSIGNED = "UNASSIGNED";
+
+    final boolean binary;
+    // Sent in the connect URL and again in client_info when the user picks a role
+    private volatile String role;
+
+    ClientSession(boolean binary, String role) {
+        this.binary = binary;
+        setRole(role);
+    }
+
+    String getRole() {
+        return role;
+    }
+
+    void setRole(String role) {
+        String normalized = role != null ? role.toUpperCase(Locale.ROOT) : UNASSIGNED;
+        this.role = ROLES.contains(normalized) ? normalized : UNASSIGNED;
+    }
+
+    static ClientSession of(WebSocketConnection connection) {
+        Object attachment = connection.getAttachment();
+        return attachment instanceof ClientSession ? (ClientSession) attachment : null;
+    }
+}
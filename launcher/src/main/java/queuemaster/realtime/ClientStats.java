@@ -0,0 +1,17 @@
+package queuemaster.realtime;
+
+/**
+ * Point-in-time counters of one connection, for display in the launcher. {@code rttNanos} is
+ * the last ping round trip, -1 before the first answer.
+ */
+public record ClientStats(long id, String address, String role, int queueDepth, long queuedBytes,
+                          long sent, long dropped, int resyncs, long rttNanos) {
+
+    static ClientStats of(WebSocketConnection connection) {
+        ClientSession session = ClientSession.of(connection);
+        return new ClientStats(connection.getId(), connection.getRemoteHost(),
+                session != null ? session.getRole() : ClientSession.UNASSIGNED, connection.getQueueDepth(),
+                connection.getQueuedBytes(), connection.getSentFrames(), connection.getDroppedFrames(),
+                connection.getResyncCount(), connection.getRttNanos());
+    }
+}
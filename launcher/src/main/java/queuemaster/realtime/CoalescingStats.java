@@ -0,0 +1,13 @@
+package queuemaster.realtime;
+
+/**
+ * Sequenced events published, and how many of them never went out because a newer update to
+ * the same entity replaced them within the window, for display in the launcher.
+ */
+public record CoalescingStats(long windowMillis, long updates, long coalesced) {
+
+    /** Fraction of updates coalesced away, 0 when there were none. */
+    public double ratio() {
+        return updates > 0 ? (double) coalesced / updates : 0;
+    }
+}
@@ -0,0 +1,50 @@
+package queuemaster.realtime;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ring buffer of the most recent sequenced events, kept as their encoded JSON so a
+ * reconnecting client can be sent exactly what it missed without re-serializing anything.
+ */
+final class EventLog {
+    private final long[] seqs;
+    private final String[] events;
+    private long newestSeq;
+    private int size;
+
+    EventLog(int capacity) {
+        this.seqs = new long[capacity];
+        this.events = new String[capacity];
+    }
+
+    /** Appends the event with the next sequence number; the oldest entry is overwritten when full. */
+    synchronized void append(long seq, String json) {
+        int slot = (int) (seq % events.length);
+        seqs[slot] = seq;
+        events[slot] = json;
+        newestSeq = seq;
+        if (size < events.length) size++;
+    }
+
+    /**
+     * Events with a sequence number greater than {@code lastSeq}, oldest first, or null if
+     * some of them have already been overwritten (the caller must fall back to a snapshot).
+     */
+    synchronized List<String> since(long lastSeq) {
+        if (lastSeq > newestSeq) return null;
+        long oldest = newestSeq - size + 1;
+        if (lastSeq + 1 < oldest) return null;
+        List<String> missed = new ArrayList<>((int) (newestSeq - lastSeq));
+        for (long seq = lastSeq + 1; seq <= newestSeq; seq++) {
+            int slot = (int) (seq % events.length);
+            if (seqs[slot] != seq) return null;
+            missed.add(events[slot]);
+        }
+        return missed;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+}
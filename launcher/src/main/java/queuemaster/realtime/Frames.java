@@ -0,0 +1,72 @@
+package queuemaster.realtime;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/** RFC 6455 frame encoding helpers shared by the server and the load tools. */
+public final class Frames {
+    public static final int OP_CONTINUATION = 0x0;
+    public static final int OP_TEXT = 0x1;
+    public static final int OP_BINARY = 0x2;
+    public static final int OP_CLOSE = 0x8;
+    public static final int OP_PING = 0x9;
+    public static final int OP_PONG = 0xA;
+
+    private static final String HANDSHAKE_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private Frames() {}
+
+    /** Unmasked (server to client) text frame. */
+    public static ByteBuffer text(String text) {
+        return frame(OP_TEXT, text.getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    public static ByteBuffer close(int code, String reason) {
+        byte[] reasonBytes = reason.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = new byte[2 + reasonBytes.length];
+        payload[0] = (byte) (code >> 8);
+        payload[1] = (byte) code;
+        System.arraycopy(reasonBytes, 0, payload, 2, reasonBytes.length);
+        return frame(OP_CLOSE, payload, null);
+    }
+
+    /** Single final frame; {@code mask} is required for client frames and must be null for server frames. */
+    public static ByteBuffer frame(int opcode, byte[] payload, byte[] mask) {
+        int length = payload.length;
+        int header = 2 + (length < 126 ? 0 : length <= 0xFFFF ? 2 : 8) + (mask != null ? 4 : 0);
+        ByteBuffer buffer = ByteBuffer.allocate(header + length);
+        buffer.put((byte) (0x80 | opcode));
+        int maskBit = mask != null ? 0x80 : 0;
+        if (length < 126) {
+            buffer.put((byte) (maskBit | length));
+        } else if (length <= 0xFFFF) {
+            buffer.put((byte) (maskBit | 126));
+            buffer.putShort((short) length);
+        } else {
+            buffer.put((byte) (maskBit | 127));
+            buffer.putLong(length);
+        }
+        if (mask != null) {
+            buffer.put(mask);
+            for (int i = 0; i < length; i++) buffer.put((byte) (payload[i] ^ mask[i & 3]));
+        } else {
+            buffer.put(payload);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /** Value of the {@code Sec-WebSocket-Accept} header for a client key. */
+    public static String acceptKey(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte[] digest = sha1.digest((key.trim() + HANDSHAKE_GUID).getBytes(StandardCharsets.ISO_8859_1));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+}
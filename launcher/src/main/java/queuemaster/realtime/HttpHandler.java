@@ -0,0 +1,8 @@
+package queuemaster.realtime;
+
+/** Serves plain (non-upgrade) HTTP requests arriving on the realtime port. */
+@FunctionalInterface
+public interface HttpHandler {
+    /** Returns the response, or null to fall through to the default handler. */
+    HttpResponse handle(HttpRequest request);
+}
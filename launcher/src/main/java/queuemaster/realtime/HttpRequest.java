@@ -0,0 +1,88 @@
+package queuemaster.realtime;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/** Parsed HTTP request head: request line, headers (lower-cased names) and query parameters. */
+public final class HttpRequest {
+    private final String method;
+    private final String target;
+    private final String version;
+    private final String path;
+    private final Map<String, String> headers;
+    private final Map<String, String> query;
+
+    HttpRequest(String method, String target, String version, Map<String, String> headers) {
+        this.method = method;
+        this.target = target;
+        this.version = version;
+        this.headers = Collections.unmodifiableMap(headers);
+        int q = target.indexOf('?');
+        this.path = q >= 0 ? target.substring(0, q) : target;
+        this.query = Collections.unmodifiableMap(parseQuery(q >= 0 ? target.substring(q + 1) : ""));
+    }
+
+    /** Parses the head (everything before the blank line); returns null if it is malformed. */
+    static HttpRequest parse(String head) {
+        String[] lines = head.split("\r\n");
+        String[] requestLine = lines[0].split(" ");
+        if (requestLine.length < 3) return null;
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon <= 0) continue;
+            headers.put(lines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                    lines[i].substring(colon + 1).trim());
+        }
+        return new HttpRequest(requestLine[0], requestLine[1], requestLine[2], headers);
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> params = new LinkedHashMap<>();
+        if (raw.isEmpty()) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq >= 0 ? pair.substring(0, eq) : pair;
+            String value = eq >= 0 ? pair.substring(eq + 1) : "";
+            try {
+                params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                // Skip malformed escapes
+            }
+        }
+        return params;
+    }
+
+    public String getMethod() { return method; }
+    public String getTarget() { return target; }
+    public String getVersion() { return version; }
+    public String getPath() { return path; }
+    public Map<String, String> getHeaders() { return headers; }
+    public Map<String, String> getQuery() { return query; }
+
+    public String header(String name) {
+        return headers.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /** Whether the client will send more requests on this socket: HTTP/1.1 unless it said close, HTTP/1.0 only if asked. */
+    boolean isKeepAlive() {
+        String connection = header("connection");
+        if ("HTTP/1.0".equals(version)) return connection != null && connection.equalsIgnoreCase("keep-alive");
+        return connection == null || !connection.toLowerCase(Locale.ROOT).contains("close");
+    }
+
+    /** Whether a body follows the head (a POST, say); nothing here reads request bodies. */
+    boolean hasBody() {
+        String length = header("content-length");
+        return header("transfer-encoding") != null || (length != null && !length.trim().equals("0"));
+    }
+
+    boolean isWebSocketUpgrade() {
+        String upgrade = header("upgrade");
+        return upgrade != null && upgrade.equalsIgnoreCase("websocket") && header("sec-websocket-key") != null;
+    }
+}
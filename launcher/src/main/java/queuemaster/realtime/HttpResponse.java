@@ -0,0 +1,89 @@
+package queuemaster.realtime;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A complete HTTP response: a buffered body, or a region of a file that is sent with
+ * {@link FileChannel#transferTo} so large assets never pass through the heap. Unless the
+ * request asked for keep-alive, the connection is closed once it has been written.
+ */
+public final class HttpResponse {
+    private final int status;
+    private final String reason;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private final byte[] body;
+    private final FileChannel file;
+    private final long filePosition;
+    private final long fileLength;
+
+    public HttpResponse(int status, String reason, String contentType, byte[] body) {
+        this(status, reason, contentType, body, null, 0, 0);
+    }
+
+    private HttpResponse(int status, String reason, String contentType, byte[] body,
+                         FileChannel file, long filePosition, long fileLength) {
+        this.status = status;
+        this.reason = reason;
+        this.body = body;
+        this.file = file;
+        this.filePosition = filePosition;
+        this.fileLength = fileLength;
+        headers.put("Content-Type", contentType);
+    }
+
+    public static HttpResponse text(int status, String reason, String body) {
+        return new HttpResponse(status, reason, "text/plain; charset=utf-8", body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * {@code length} bytes of {@code file} from {@code position}. The connection takes
+     * ownership of the channel and closes it once the body is written or the client is gone.
+     */
+    public static HttpResponse file(int status, String reason, String contentType,
+                                    FileChannel file, long position, long length) {
+        return new HttpResponse(status, reason, contentType, new byte[0], file, position, length);
+    }
+
+    public HttpResponse header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    public int getStatus() { return status; }
+
+    FileChannel getFile() { return file; }
+    long getFilePosition() { return filePosition; }
+    long getFileLength() { return fileLength; }
+
+    /** Releases the file body of a response that will not be sent, or sent without its body. */
+    void discardFile() {
+        if (file == null) return;
+        try {
+            file.close();
+        } catch (IOException e) {
+            // Nothing to do
+        }
+    }
+
+    ByteBuffer encode(boolean includeBody, boolean keepAlive) {
+        StringBuilder head = new StringBuilder(128);
+        head.append("HTTP/1.1 ").append(status).append(' ').append(reason).append("\r\n");
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+        }
+        // A 304 must not claim a length other than the full response's, so it sends none
+        if (status != 304) head.append("Content-Length: ").append(file != null ? fileLength : body.length).append("\r\n");
+        head.append(keepAlive ? "Connection: keep-alive\r\n\r\n" : "Connection: close\r\n\r\n");
+        byte[] headBytes = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer buffer = ByteBuffer.allocate(headBytes.length + (includeBody ? body.length : 0));
+        buffer.put(headBytes);
+        if (includeBody) buffer.put(body);
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,110 @@
+package queuemaster.realtime;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/** One selector thread multiplexing a share of the server's connections. */
+final class IoLoop implements Runnable {
+    private final WebSocketServer server;
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+    private final Queue<WebSocketConnection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    IoLoop(WebSocketServer server, String name) throws IOException {
+        this.server = server;
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void adopt(SocketChannel channel) {
+        accepted.add(channel);
+        selector.wakeup();
+    }
+
+    void scheduleWrite(WebSocketConnection connection) {
+        pendingWrites.add(connection);
+        if (Thread.currentThread() != thread) selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                registerAccepted();
+                flushPending();
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    WebSocketConnection connection = (WebSocketConnection) key.attachment();
+                    if (!key.isValid()) continue;
+                    if (key.isReadable()) connection.onReadable();
+                    if (key.isValid() && key.isWritable()) connection.onWritable();
+                }
+                // Writes queued by handlers during this pass go out without another select round
+                flushPending();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            server.log("I/O loop " + thread.getName() + " failed: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof WebSocketConnection) {
+                    ((WebSocketConnection) key.attachment()).closeNow();
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+
+    private void registerAccepted() {
+        SocketChannel channel;
+        while ((channel = accepted.poll()) != null) {
+            try {
+                channel.configureBlocking(false);
+                WebSocketConnection connection = new WebSocketConnection(channel, this, server);
+                connection.register(channel.register(selector, SelectionKey.OP_READ, connection));
+            } catch (IOException e) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // Ignore
+                }
+            }
+        }
+    }
+
+    private void flushPending() {
+        WebSocketConnection connection;
+        while ((connection = pendingWrites.poll()) != null) {
+            connection.onWritable();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package queuemaster.realtime;
+
+/** What to do with a client whose outbound queue is full. */
+public enum OverflowPolicy {
+    /**
+     * Drop its backlog and let the handler resend current state. A client that overflows
+     * again within {@link #RESYNC_GRACE_MS} of its last resync is disconnected instead.
+     */
+    RESYNC,
+    /** Drop its backlog and close the socket; the web app reconnects and gets a fresh sync. */
+    DISCONNECT;
+
+    static final long RESYNC_GRACE_MS = 10_000;
+}
@@ -0,0 +1,54 @@
+package queuemaster.realtime;
+
+import java.util.Map;
+import queuemaster.metrics.LabeledCounter;
+import queuemaster.metrics.LatencyHistogram;
+
+/**
+ * What the relay counts as it works: messages received by type, events broadcast by type,
+ * how long each broadcast takes to reach every client's queue (the fan-out), and clients'
+ * ping round trips. All of it is LongAdder and histogram increments, cheap enough for the
+ * I/O threads and the broadcast path.
+ */
+public final class RealtimeMetrics {
+    private final LabeledCounter received = new LabeledCounter();
+    private final LabeledCounter broadcast = new LabeledCounter();
+    private final LatencyHistogram fanOut = new LatencyHistogram();
+    private final LatencyHistogram rtt = new LatencyHistogram();
+
+    void received(String type) {
+        received.increment(type);
+    }
+
+    void broadcast(String type) {
+        broadcast.increment(type);
+    }
+
+    void fanOut(long nanos) {
+        fanOut.record(nanos);
+    }
+
+    void rtt(long nanos) {
+        rtt.record(nanos);
+    }
+
+    /** Messages from clients, by type; types the relay does not know count as {@code other}. */
+    public Map<String, Long> receivedByType() {
+        return received.snapshot();
+    }
+
+    /** Messages sent to all clients, by type, each counted once however many clients got it. */
+    public Map<String, Long> broadcastByType() {
+        return broadcast.snapshot();
+    }
+
+    /** Time to queue one broadcast frame for every client. */
+    public LatencyHistogram.Snapshot fanOut() {
+        return fanOut.snapshot();
+    }
+
+    /** Ping round trips, all clients together. */
+    public LatencyHistogram.Snapshot rtt() {
+        return rtt.snapshot();
+    }
+}
@@ -0,0 +1,835 @@
+package queuemaster.realtime;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import queuemaster.engine.Dispatcher;
+import queuemaster.engine.QueueEngine;
+import queuemaster.engine.ServiceCategory;
+import queuemaster.engine.Teller;
+import queuemaster.engine.Ticket;
+import queuemaster.engine.TicketNumberAllocator;
+import queuemaster.engine.TicketNumberAllocator.CounterState;
+import queuemaster.engine.TicketStatus;
+import queuemaster.json.Json;
+import queuemaster.stats.AnalyticsRollups;
+import queuemaster.stats.ServiceTimeStats;
+import queuemaster.stats.WaitTimeEstimator;
+import queuemaster.store.FsyncPolicy;
+import queuemaster.store.Journal;
+import queuemaster.store.Snapshot;
+
+/**
+ * The realtime protocol of server.ts on top of a {@link QueueEngine}: every update is stored
+ * and relayed to all other clients, new clients get a {@code sync} snapshot and a
+ * {@code welcome}, and {@code ping}/{@code request_sync} are answered directly.
+ *
+ * <p>Entity updates carry a monotonically increasing {@code seq} and are kept in an
+ * {@link EventLog}. A client that reconnects with {@code ?lastSeq=N&epoch=E} (or sends them
+ * in {@code request_sync}) receives a {@code delta_sync} with only the events after N; a full
+ * {@code sync} is sent only when the ring no longer reaches back that far or the server
+ * restarted (different epoch). Announcements are not sequenced: replaying a missed call
+ * would make monitors announce a stale ticket.
+ *
+ * <p>When a {@link Journal} is attached through {@link #recover(Journal)}, each sequenced event
+ * is appended to it under the same lock that assigns seq, so journal order is seq order. With
+ * {@link FsyncPolicy#ALWAYS} the broadcast waits until the record is on disk; the wait happens
+ * on a commit thread that forces the journal and releases the frames it covered, so the
+ * thread that published never blocks on the disk.
+ *
+ * <p>{@code call_next} is answered by the relay itself: a {@link Dispatcher} picks the teller's
+ * next ticket, and the ticket, the teller and the announcement go out as ordinary events.
+ * Likewise {@code issue_ticket}: the number comes from a {@link TicketNumberAllocator} and is
+ * journaled as a {@code counter_update} event so counters survive a restart. The
+ * {@code welcome} message lists both under {@code features} so clients know they may use them.
+ *
+ * <p>A {@link WaitTimeEstimator} follows the same writes as the dispatcher. Issued tickets
+ * carry its {@code estimatedWaitMs}, and {@link #publishWaitEstimates} broadcasts the
+ * per-category predictions as an unsequenced {@code wait_estimates} message (also sent after
+ * {@code welcome}), so dashboards no longer derive them from the whole ticket list.
+ * {@link AnalyticsRollups} are fed from the same ticket writes for the analytics API.
+ *
+ * <p>Clients connecting with {@code ?format=binary} receive sequenced events and snapshots
+ * in the {@link BinaryCodec} format instead of JSON; the {@code welcome} says which format
+ * the connection got. Each event is encoded once per format, only while a binary client is
+ * connected. Unsequenced messages and replies stay JSON for everyone.
+ *
+ * <p>Sequenced events reach clients through a {@link BroadcastCoalescer}: with a window set
+ * ({@link #setCoalesceWindowMillis}), rapid updates to the same ticket, teller, category or
+ * account go out once, as the latest. Announcements bypass it.
+ *
+ * <p>{@link RealtimeMetrics} counts messages by type, times each broadcast's fan-out and
+ * records the round trips of the server's pings. Clients declare their role with
+ * {@code ?role=} or a later {@code client_info}, for counts of clients by role.
+ */
+public class RealtimeRelay implements WebSocketHandler {
+    public static final int DEFAULT_EVENT_LOG_CAPACITY = 8192;
+    private static final int RECOVERY_BATCH = 4096;
+    /** Message types clients may send; others are counted as {@code other} so labels stay bounded. */
+    private static final Set<String> RECEIVED_TYPES = Set.of("announce", "ticket_update", "teller_update",
+            "category_update", "admin_account_update", "call_next", "issue_ticket", "ping", "request_sync",
+            "client_info", "counter_update", "daily_reset");
+    /** Each issuing thread formats numbers into its own buffer; grown for an unusually long prefix. */
+    private static final ThreadLocal<char[]> NUMBER_BUFFER =
+            ThreadLocal.withInitial(() -> new char[8 + 1 + TicketNumberAllocator.MAX_DIGITS]);
+
+    private final QueueEngine engine;
+    private final EventLog eventLog;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Object publishLock = new Object();
+    private long seq; // guarded by publishLock
+    private Journal journal; // guarded by publishLock
+    private final ArrayDeque<PendingFrame> awaitingDisk = new ArrayDeque<>(); // guarded by itself
+    private boolean releaseScheduled; // guarded by awaitingDisk
+    private final Object releaseLock = new Object();
+    private final ExecutorService diskCommits = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "qm-journal-commit");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Dispatcher dispatcher = new Dispatcher();
+    private final TicketNumberAllocator ticketNumbers;
+    private final WaitTimeEstimator waitTimes;
+    private final AnalyticsRollups analytics;
+    // Rollups handed in by the caller outlive the relay and are rebuilt by their owner
+    private final boolean ownsAnalytics;
+    private final BinaryCodec binary = new BinaryCodec(); // guarded by publishLock
+    private final AtomicInteger binaryClients = new AtomicInteger();
+    private final RealtimeMetrics metrics = new RealtimeMetrics();
+    private volatile BroadcastCoalescer coalescer = new BroadcastCoalescer(0, this::broadcastFrame);
+    // Estimator version and seq of the last wait_estimates broadcast; guarded by publishLock
+    private long lastEstimateVersion = -1;
+    private long lastEstimateSeq = -1;
+    private WebSocketServer server;
+    private volatile Consumer<String> logger = System.out::println;
+
+    public RealtimeRelay(QueueEngine engine) {
+        this(engine, DEFAULT_EVENT_LOG_CAPACITY);
+    }
+
+    public RealtimeRelay(QueueEngine engine, int eventLogCapacity) {
+        this(engine, eventLogCapacity, new TicketNumberAllocator());
+    }
+
+    /** {@code ticketNumbers} may outlive the relay, like the engine, across an in-process restart. */
+    public RealtimeRelay(QueueEngine engine, int eventLogCapacity, TicketNumberAllocator ticketNumbers) {
+        this(engine, eventLogCapacity, ticketNumbers, null);
+    }
+
+    /**
+     * As above, feeding {@code analytics}, which may outlive the relay too; the caller then
+     * rebuilds it, as {@link #attach} only rebuilds rollups the relay created (null).
+     */
+    public RealtimeRelay(QueueEngine engine, int eventLogCapacity, TicketNumberAllocator ticketNumbers,
+                         AnalyticsRollups analytics) {
+        this.engine = engine;
+        this.eventLog = new EventLog(eventLogCapacity);
+        this.ticketNumbers = ticketNumbers;
+        this.waitTimes = new WaitTimeEstimator(engine);
+        this.analytics = analytics != null ? analytics : new AnalyticsRollups();
+        this.ownsAnalytics = analytics == null;
+    }
+
+    /** Binds the relay to the server whose connections it broadcasts to. */
+    public void attach(WebSocketServer server) {
+        this.server = server;
+        // The engine may have been filled from a snapshot or journal since construction
+        dispatcher.rebuild(engine);
+        waitTimes.rebuild();
+        if (ownsAnalytics) analytics.rebuild(engine);
+    }
+
+    public Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    public TicketNumberAllocator getTicketNumbers() {
+        return ticketNumbers;
+    }
+
+    public WaitTimeEstimator getWaitTimes() {
+        return waitTimes;
+    }
+
+    public AnalyticsRollups getAnalytics() {
+        return analytics;
+    }
+
+    public RealtimeMetrics getMetrics() {
+        return metrics;
+    }
+
+    /** Open connections by the role their client declared, {@code UNASSIGNED} before it picks one. */
+    public Map<String, Integer> clientsByRole() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (String role : ClientSession.ROLES) counts.put(role, 0);
+        if (server == null) return counts;
+        for (WebSocketConnection connection : server.getConnections()) {
+            ClientSession session = ClientSession.of(connection);
+            counts.merge(session != null ? session.getRole() : ClientSession.UNASSIGNED, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    public void setLogger(Consumer<String> logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * How long sequenced events wait for a newer update to the same entity before they are
+     * broadcast; 0 (the default) sends each at once. Set before {@link #attach}.
+     */
+    public void setCoalesceWindowMillis(long windowMillis) {
+        BroadcastCoalescer previous = coalescer;
+        coalescer = new BroadcastCoalescer(windowMillis, this::broadcastFrame);
+        previous.close();
+    }
+
+    public CoalescingStats getCoalescingStats() {
+        return coalescer.stats();
+    }
+
+    /**
+     * Sends events still waiting for the disk or in the coalescing window and stops their
+     * threads; later events are sent at once. Call before stopping the server. Not under
+     * publishLock: a client overflowing during the flush is resynced under it.
+     */
+    public void close() {
+        diskCommits.shutdown();
+        Journal attached;
+        synchronized (publishLock) {
+            attached = journal;
+        }
+        if (attached != null) releaseDurable(attached);
+        coalescer.close();
+    }
+
+    @Override
+    public void onOpen(WebSocketConnection connection) {
+        Map<String, String> query = connection.getRequest().getQuery();
+        boolean binaryFormat = "binary".equals(query.get("format"));
+        connection.setAttachment(new ClientSession(binaryFormat, query.get("role")));
+        if (binaryFormat) binaryClients.incrementAndGet();
+        synchronized (publishLock) {
+            sendCatchUp(connection, query.get("lastSeq"), query.get("epoch"));
+            Map<String, Object> welcome = message("welcome");
+            welcome.put("message", "Connected to QueueMaster Pro Server");
+            welcome.put("clientCount", server.getConnectionCount());
+            welcome.put("seq", seq);
+            welcome.put("epoch", epoch);
+            welcome.put("features", List.of("call_next", "issue_ticket", "wait_estimates", "analytics", "binary"));
+            welcome.put("format", binaryFormat ? "binary" : "json");
+            welcome.put("timestamp", System.currentTimeMillis());
+            connection.send(Json.write(welcome));
+            connection.send(Json.write(waitEstimatesMessage()));
+        }
+    }
+
+    @Override
+    public void onText(WebSocketConnection connection, String text) {
+        Map<String, Object> data;
+        try {
+            data = Json.parseObject(text);
+        } catch (IllegalArgumentException e) {
+            log("Error processing message: " + e.getMessage());
+            return;
+        }
+        String type = String.valueOf(data.get("type"));
+        metrics.received(RECEIVED_TYPES.contains(type) ? type : "other");
+        switch (type) {
+            case "announce": {
+                Map<String, Object> out = message("announce");
+                out.put("ticketNumber", data.get("ticketNumber"));
+                out.put("counterNumber", data.get("counterNumber"));
+                out.put("timestamp", System.currentTimeMillis());
+                broadcast(out, connection);
+                break;
+            }
+            case "ticket_update":
+            case "teller_update":
+            case "category_update":
+            case "admin_account_update":
+                Update update = decode(type, data);
+                publish(update.message(), connection, null, update.store());
+                break;
+            case "call_next": {
+                String tellerId = data.get("tellerId") != null ? data.get("tellerId").toString() : null;
+                Map<String, Object> result = message("call_next_result");
+                result.put("tellerId", tellerId);
+                if (tellerId == null || engine.getTeller(tellerId) == null) {
+                    result.put("error", "Unknown teller");
+                } else {
+                    Ticket called = callNext(tellerId, connection);
+                    result.put("ticket", called != null ? called.toJson() : null);
+                }
+                result.put("timestamp", System.currentTimeMillis());
+                connection.send(Json.write(result));
+                break;
+            }
+            case "issue_ticket": {
+                String categoryId = data.get("categoryId") != null ? data.get("categoryId").toString() : null;
+                Map<String, Object> result = message("issue_ticket_result");
+                result.put("categoryId", categoryId);
+                Ticket issued = categoryId != null ? issueTicket(categoryId) : null;
+                if (issued == null) result.put("error", "Unknown category");
+                else result.put("ticket", issued.toJson());
+                result.put("timestamp", System.currentTimeMillis());
+                connection.send(Json.write(result));
+                break;
+            }
+            case "ping": {
+                Map<String, Object> pong = message("pong");
+                pong.put("timestamp", System.currentTimeMillis());
+                connection.send(Json.write(pong));
+                break;
+            }
+            case "request_sync":
+                synchronized (publishLock) {
+                    sendCatchUp(connection, data.get("lastSeq"), data.get("epoch"));
+                }
+                break;
+            case "client_info": {
+                // The role picked after connecting, for clients-by-role metrics
+                ClientSession session = ClientSession.of(connection);
+                if (session != null) session.setRole(data.get("role") != null ? data.get("role").toString() : null);
+                break;
+            }
+            default:
+                // Unknown types (daily_reset, and counter_update from clients: numbers are issued
+                // here) are ignored, as in server.ts
+                break;
+        }
+    }
+
+    /**
+     * Validates an entity update into the normalized event to relay and the engine write that
+     * goes with it. Shared by live messages and journal replay so both take the same path.
+     */
+    Update decode(String type, Map<String, Object> data) {
+        switch (type) {
+            case "ticket_update": {
+                Ticket ticket = new Ticket(object(data, "ticket"));
+                return new Update(entityMessage(type, "ticket", ticket.toJson()), () -> {
+                    Ticket previous = engine.upsertTicket(ticket);
+                    dispatcher.track(ticket);
+                    waitTimes.observe(previous, ticket);
+                    analytics.observe(previous, ticket);
+                });
+            }
+            case "teller_update": {
+                Teller teller = new Teller(object(data, "teller"));
+                return new Update(entityMessage(type, "teller", teller.toJson()), () -> {
+                    engine.upsertTeller(teller);
+                    waitTimes.updateTeller(teller);
+                });
+            }
+            case "category_update": {
+                ServiceCategory category = new ServiceCategory(object(data, "category"));
+                return new Update(entityMessage(type, "category", category.toJson()), () -> {
+                    engine.upsertCategory(category);
+                    dispatcher.updateCategory(category);
+                    waitTimes.updateCategory(category);
+                });
+            }
+            case "admin_account_update": {
+                Map<String, Object> account = object(data, "account");
+                return new Update(entityMessage(type, "account", account), () -> engine.upsertAdminAccount(account));
+            }
+            case "counter_update": {
+                // Only produced by issueTicket(); replayed from the journal to restore the counters
+                CounterState counter = new CounterState(String.valueOf(data.get("prefix")),
+                        ((Number) data.get("day")).longValue(), ((Number) data.get("count")).longValue());
+                Map<String, Object> message = message(type);
+                message.put("categoryId", data.get("categoryId"));
+                message.put("prefix", counter.prefix());
+                message.put("day", counter.day());
+                message.put("count", counter.count());
+                return new Update(message, () -> ticketNumbers.restore(counter));
+            }
+            default:
+                throw new IllegalArgumentException("Not an entity update: " + type);
+        }
+    }
+
+    /**
+     * Rebuilds engine state from the journal and continues numbering after its last record.
+     * Must run before the server accepts connections.
+     */
+    public int recover(Journal journal) throws IOException {
+        return recover(journal, 0);
+    }
+
+    /**
+     * As {@link #recover(Journal)} for an engine already restored from a snapshot taken at
+     * {@code afterSeq}: only the journal tail is replayed.
+     */
+    public int recover(Journal journal, long afterSeq) throws IOException {
+        // Parsing dominates replay and is independent per record, so batches are parsed in
+        // parallel and then applied in journal order
+        List<byte[]> batch = new ArrayList<>(RECOVERY_BATCH);
+        int[] applied = {0};
+        long last = journal.replay(afterSeq, (recordSeq, payload) -> {
+            batch.add(payload);
+            if (batch.size() == RECOVERY_BATCH) applied[0] += applyBatch(batch);
+        });
+        applied[0] += applyBatch(batch);
+        synchronized (publishLock) {
+            this.journal = journal;
+            this.seq = Math.max(seq, last);
+        }
+        return applied[0];
+    }
+
+    private int applyBatch(List<byte[]> batch) {
+        List<Map<String, Object>> events = batch.parallelStream()
+                .map(payload -> Json.parseObject(new String(payload, StandardCharsets.UTF_8)))
+                .toList();
+        for (Map<String, Object> event : events) decode(String.valueOf(event.get("type")), event).store().run();
+        batch.clear();
+        return events.size();
+    }
+
+    /** Engine state as of the current sequence number. */
+    public Snapshot snapshot() {
+        synchronized (publishLock) {
+            return Snapshot.of(seq, engine, ticketNumbers.counters());
+        }
+    }
+
+    /** Attaches a journal whose contents are already in the engine (server restarted in-process). */
+    public void resume(Journal journal) {
+        synchronized (publishLock) {
+            this.journal = journal;
+            this.seq = Math.max(seq, journal.getLastSeq());
+        }
+    }
+
+    @Override
+    public void onClose(WebSocketConnection connection) {
+        if (isBinary(connection)) binaryClients.decrementAndGet();
+    }
+
+    @Override
+    public void onPong(WebSocketConnection connection, long rttNanos) {
+        metrics.rtt(rttNanos);
+    }
+
+    /** A lagging client lost its backlog; one snapshot replaces everything it missed. */
+    @Override
+    public void onOverflow(WebSocketConnection connection) {
+        synchronized (publishLock) {
+            sendSync(connection);
+        }
+    }
+
+    /**
+     * Sequences an entity update, records it for delta sync and broadcasts it. The JSON is
+     * encoded outside the lock; only the {@code seq} suffix is appended under it, which also
+     * keeps every client's queue in sequence order.
+     */
+    public void publish(Map<String, Object> message, WebSocketConnection sender) {
+        publish(message, sender, null, null);
+    }
+
+    /**
+     * As {@link #publish(Map, WebSocketConnection)}, running {@code store} under the same lock
+     * that assigns the sequence number, so engine state at seq N is exactly events 1..N. If
+     * {@code guard} is given and returns false under that lock, nothing is stored, sequenced or
+     * sent, and false is returned.
+     */
+    private boolean publish(Map<String, Object> message, WebSocketConnection sender, BooleanSupplier guard, Runnable store) {
+        String entity = coalesceKey(message);
+        metrics.broadcast(String.valueOf(message.get("type")));
+        String body = Json.write(message);
+        StringBuilder text = new StringBuilder(body.length() + 24);
+        text.append(body, 0, body.length() - 1).append(",\"seq\":");
+        Journal waitFor = null;
+        boolean schedule;
+        synchronized (publishLock) {
+            if (guard != null && !guard.getAsBoolean()) return false;
+            if (store != null) store.run();
+            long next = ++seq;
+            String json = text.append(next).append('}').toString();
+            byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer frame = Frames.frame(Frames.OP_TEXT, utf8, null);
+            ByteBuffer binaryFrame = binaryClients.get() > 0 ? binaryFrame(message, next, null) : null;
+            eventLog.append(next, json);
+            long ticket = 0;
+            if (journal != null) {
+                try {
+                    ticket = journal.write(next, utf8);
+                    if (journal.getPolicy() == FsyncPolicy.ALWAYS) waitFor = journal;
+                } catch (IOException e) {
+                    log("Journal write failed: " + e.getMessage());
+                }
+            }
+            if (waitFor == null) {
+                coalescer.submit(entity, frame, binaryFrame, sender);
+                return true;
+            }
+            synchronized (awaitingDisk) {
+                awaitingDisk.add(new PendingFrame(ticket, entity, frame, binaryFrame, sender));
+                schedule = !releaseScheduled;
+                releaseScheduled = true;
+            }
+        }
+        // Durable-before-visible: the commit thread forces the journal and releases the frames;
+        // publishers, often an I/O thread, only queue them
+        if (schedule) {
+            Journal committing = waitFor;
+            try {
+                diskCommits.execute(() -> releaseDurable(committing));
+            } catch (RuntimeException e) {
+                // Closed meanwhile: close() released what was there, so release this one directly
+                releaseDurable(committing);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forces the journal up to the last frame waiting for it and passes every frame the force
+     * covered to the coalescer, in order, until none is left. Frames queued meanwhile share
+     * the next force.
+     */
+    private void releaseDurable(Journal waitFor) {
+        synchronized (releaseLock) {
+            for (;;) {
+                long last;
+                synchronized (awaitingDisk) {
+                    if (awaitingDisk.isEmpty()) {
+                        releaseScheduled = false;
+                        return;
+                    }
+                    last = awaitingDisk.peekLast().ticket();
+                }
+                long durable;
+                try {
+                    waitFor.commit(last);
+                    durable = waitFor.getDurableTicket();
+                } catch (IOException e) {
+                    log("Journal sync failed: " + e.getMessage());
+                    durable = Long.MAX_VALUE;
+                }
+                synchronized (awaitingDisk) {
+                    while (!awaitingDisk.isEmpty() && awaitingDisk.peek().ticket() <= durable) {
+                        PendingFrame pending = awaitingDisk.poll();
+                        coalescer.submit(pending.entity(), pending.frame(), pending.binaryFrame(), pending.sender());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Calls the next ticket for a teller: claims it through the {@link Dispatcher}, then
+     * publishes it as CALLING at the teller's counter, the teller as BUSY, and the announcement
+     * (to everyone but {@code caller}, which announces locally). Returns the called ticket, or
+     * null when nothing is waiting in the teller's categories. Safe to call concurrently; no
+     * ticket is ever called twice.
+     */
+    public Ticket callNext(String tellerId, WebSocketConnection caller) {
+        for (;;) {
+            Teller teller = engine.getTeller(tellerId);
+            if (teller == null) return null;
+            Dispatcher.Claim claim = dispatcher.claim(teller.getAssignedCategoryIds());
+            if (claim == null) return null;
+            Ticket called = commitCall(claim.ticketId(), teller);
+            // A stale claim (ticket changed or expired since it was indexed) is dropped; try the next one
+            if (called == null) continue;
+            Update busy = decode("teller_update", Map.of("teller", teller.busyWith(called.getId(), System.currentTimeMillis()).toJson()));
+            publish(busy.message(), null, null, busy.store());
+            Map<String, Object> announce = message("announce");
+            announce.put("ticketNumber", called.getNumber());
+            announce.put("counterNumber", teller.getCounterNumber());
+            announce.put("timestamp", System.currentTimeMillis());
+            broadcast(announce, caller);
+            return called;
+        }
+    }
+
+    /**
+     * Issues a WAITING ticket in the category with the next number for its prefix, publishing
+     * the counter and then the ticket. Returns null if the category is unknown.
+     */
+    public Ticket issueTicket(String categoryId) {
+        ServiceCategory category = engine.getCategory(categoryId);
+        if (category == null) return null;
+        String prefix = category.getPrefix() != null ? category.getPrefix() : "";
+        // Day and count from the same compare-and-set, so a ticket issued across midnight is consistent
+        long allocated = ticketNumbers.allocateOnDay(prefix);
+        long day = TicketNumberAllocator.dayOf(allocated);
+        long count = TicketNumberAllocator.countOf(allocated);
+        long now = System.currentTimeMillis();
+        char[] number = NUMBER_BUFFER.get();
+        if (number.length < prefix.length() + 1 + TicketNumberAllocator.MAX_DIGITS) {
+            number = new char[prefix.length() + 1 + TicketNumberAllocator.MAX_DIGITS];
+            NUMBER_BUFFER.set(number);
+        }
+        int length = TicketNumberAllocator.format(prefix, count, number);
+
+        Map<String, Object> counter = message("counter_update");
+        counter.put("categoryId", categoryId);
+        counter.put("prefix", prefix);
+        counter.put("day", day);
+        counter.put("count", count);
+        Update counted = decode("counter_update", counter);
+        publish(counted.message(), null, null, counted.store());
+
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("id", "ticket-" + now + "-" + Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36));
+        fields.put("number", new String(number, 0, length));
+        fields.put("categoryId", categoryId);
+        fields.put("status", TicketStatus.WAITING.name());
+        fields.put("createdAt", now);
+        fields.put("lastUpdated", now);
+        // Same shape as the dashboards' tickets: issue day and category
+        fields.put("dailyIdentifier", LocalDate.ofEpochDay(day) + "-" + categoryId);
+        long expectedWait = waitTimes.expectedWaitMillis(categoryId);
+        if (expectedWait >= 0) fields.put("estimatedWaitMs", expectedWait);
+        Ticket ticket = new Ticket(fields);
+        Update issued = decode("ticket_update", Map.of("ticket", fields));
+        publish(issued.message(), null, null, issued.store());
+        return ticket;
+    }
+
+    /** Stores the ticket as CALLING if it is still WAITING; the check and the write share publishLock. */
+    private Ticket commitCall(String ticketId, Teller teller) {
+        for (;;) {
+            Ticket current = engine.getTicket(ticketId);
+            if (current == null || current.getStatus() != TicketStatus.WAITING) return null;
+            Ticket called = current.calledBy(teller, System.currentTimeMillis());
+            Update update = decode("ticket_update", Map.of("ticket", called.toJson()));
+            // Identity check: any write to the ticket since it was read replaced the object
+            if (publish(update.message(), null, () -> engine.getTicket(ticketId) == current, update.store())) return called;
+        }
+    }
+
+    /**
+     * Broadcasts the current {@code wait_estimates} if anything that feeds them changed since
+     * the last broadcast. Called periodically by the server; returns whether it sent.
+     */
+    public boolean publishWaitEstimates() {
+        long version = waitTimes.getVersion();
+        synchronized (publishLock) {
+            if (version == lastEstimateVersion && seq == lastEstimateSeq) return false;
+            lastEstimateVersion = version;
+            lastEstimateSeq = seq;
+        }
+        broadcast(waitEstimatesMessage(), null);
+        return true;
+    }
+
+    private Map<String, Object> waitEstimatesMessage() {
+        List<Map<String, Object>> categories = new ArrayList<>();
+        for (WaitTimeEstimator.Estimate estimate : waitTimes.estimates()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("categoryId", estimate.categoryId());
+            entry.put("waiting", estimate.waiting());
+            entry.put("servers", Math.round(estimate.servers() * 100) / 100.0);
+            entry.put("expectedWaitMs", estimate.expectedWaitMillis() >= 0 ? estimate.expectedWaitMillis() : null);
+            putServiceTimes(entry, estimate.service());
+            categories.add(entry);
+        }
+        List<Map<String, Object>> tellers = new ArrayList<>();
+        waitTimes.tellerSummaries().forEach((tellerId, summary) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("tellerId", tellerId);
+            putServiceTimes(entry, summary);
+            tellers.add(entry);
+        });
+        Map<String, Object> message = message("wait_estimates");
+        message.put("categories", categories);
+        message.put("tellers", tellers);
+        message.put("timestamp", System.currentTimeMillis());
+        return message;
+    }
+
+    private static void putServiceTimes(Map<String, Object> entry, ServiceTimeStats.Summary summary) {
+        entry.put("samples", summary.samples());
+        entry.put("serviceMeanMs", millis(summary.meanMillis()));
+        entry.put("serviceP50Ms", millis(summary.p50Millis()));
+        entry.put("serviceP90Ms", millis(summary.p90Millis()));
+    }
+
+    private static Long millis(double value) {
+        return Double.isNaN(value) ? null : Math.round(value);
+    }
+
+    /** Last sequence number handed out. */
+    public long getSeq() {
+        synchronized (publishLock) {
+            return seq;
+        }
+    }
+
+    /**
+     * Sends to every open connection except {@code sender} (null sends to all). The message is
+     * serialized and framed once; all recipients share the same bytes.
+     */
+    public void broadcast(Map<String, Object> message, WebSocketConnection sender) {
+        metrics.broadcast(String.valueOf(message.get("type")));
+        broadcastFrame(Frames.text(Json.write(message)), null, sender);
+    }
+
+    /** Sends {@code binaryFrame}, when there is one, to binary clients and {@code frame} to everyone else. */
+    private void broadcastFrame(ByteBuffer frame, ByteBuffer binaryFrame, WebSocketConnection sender) {
+        long started = System.nanoTime();
+        for (WebSocketConnection client : server.getConnections()) {
+            if (client == sender || !client.isOpen()) continue;
+            client.sendFrame(binaryFrame != null && isBinary(client) ? binaryFrame : frame);
+        }
+        metrics.fanOut(System.nanoTime() - started);
+    }
+
+    private static boolean isBinary(WebSocketConnection connection) {
+        ClientSession session = ClientSession.of(connection);
+        return session != null && session.binary;
+    }
+
+    /**
+     * Encodes a message for binary clients. Strings it added to the shared table are first
+     * sent to every binary client, the sender included, so later frames may refer to them;
+     * only the recipient of a snapshot, whose frame carries the whole table, is skipped.
+     * The strings go out at once, never through the coalescer or the wait for the disk: an
+     * event coalesced away must not take the strings of later events with it, and the event
+     * frames that follow, however late, never shrink a client's table. Caller holds publishLock.
+     */
+    private ByteBuffer binaryFrame(Map<String, Object> message, long seq, WebSocketConnection snapshotRecipient) {
+        int known = binary.tableSize();
+        byte[] encoded = binary.encode(message, seq, snapshotRecipient != null);
+        if (binary.tableSize() > known) {
+            ByteBuffer strings = Frames.frame(Frames.OP_BINARY, binary.strings(known), null);
+            for (WebSocketConnection client : server.getConnections()) {
+                if (client != snapshotRecipient && client.isOpen() && isBinary(client)) client.sendFrame(strings);
+            }
+        }
+        return Frames.frame(Frames.OP_BINARY, encoded, null);
+    }
+
+    /** A {@code delta_sync} if the client's position is still in the ring, else a full {@code sync}. Caller holds publishLock. */
+    private void sendCatchUp(WebSocketConnection connection, Object lastSeqValue, Object clientEpoch) {
+        long lastSeq = parseSeq(lastSeqValue);
+        List<String> missed = lastSeq >= 0 && epoch.equals(clientEpoch) ? eventLog.since(lastSeq) : null;
+        if (missed == null) {
+            sendSync(connection);
+        } else if (isBinary(connection)) {
+            // Reconnects are rare enough to re-read the logged JSON rather than keep a binary copy
+            List<Object> events = new ArrayList<>(missed.size());
+            for (String event : missed) events.add(Json.parseObject(event));
+            Map<String, Object> delta = message("delta_sync");
+            delta.put("epoch", epoch);
+            delta.put("fromSeq", lastSeq);
+            delta.put("seq", seq);
+            delta.put("events", events);
+            delta.put("timestamp", System.currentTimeMillis());
+            connection.sendFrame(binaryFrame(delta, -1, connection));
+        } else {
+            connection.send(deltaSyncMessage(lastSeq, missed));
+        }
+    }
+
+    private void sendSync(WebSocketConnection connection) {
+        if (isBinary(connection)) connection.sendFrame(binaryFrame(syncMap(), -1, connection));
+        else connection.send(Json.write(syncMap()));
+    }
+
+    private String deltaSyncMessage(long lastSeq, List<String> missed) {
+        StringBuilder out = new StringBuilder(64 + missed.size() * 256);
+        out.append("{\"type\":\"delta_sync\",\"epoch\":");
+        Json.write(epoch, out);
+        out.append(",\"fromSeq\":").append(lastSeq).append(",\"seq\":").append(seq).append(",\"events\":[");
+        for (int i = 0; i < missed.size(); i++) {
+            if (i > 0) out.append(',');
+            out.append(missed.get(i));
+        }
+        out.append("],\"timestamp\":").append(System.currentTimeMillis()).append('}');
+        return out.toString();
+    }
+
+    /** Full snapshot stamped with the current sequence number. Caller holds publishLock. */
+    private Map<String, Object> syncMap() {
+        Map<String, Object> sync = message("sync");
+        sync.put("tickets", engine.tickets().stream().map(Ticket::toJson).toList());
+        sync.put("categories", engine.categories().stream().map(ServiceCategory::toJson).toList());
+        sync.put("tellers", engine.tellers().stream().map(Teller::toJson).toList());
+        sync.put("adminAccounts", engine.adminAccounts());
+        sync.put("seq", seq);
+        sync.put("epoch", epoch);
+        sync.put("timestamp", System.currentTimeMillis());
+        return sync;
+    }
+
+    /** The entity an event updates, as {@code type:id}, or null for events that are never coalesced. */
+    private static String coalesceKey(Map<String, Object> message) {
+        String type = String.valueOf(message.get("type"));
+        String field;
+        switch (type) {
+            case "ticket_update": field = "ticket"; break;
+            case "teller_update": field = "teller"; break;
+            case "category_update": field = "category"; break;
+            case "admin_account_update": field = "account"; break;
+            case "counter_update": return type + ":" + message.get("prefix");
+            default: return null;
+        }
+        Object entity = message.get(field);
+        Object id = entity instanceof Map ? ((Map<?, ?>) entity).get("id") : null;
+        return id != null ? type + ":" + id : null;
+    }
+
+    private static long parseSeq(Object value) {
+        if (value instanceof Number) return ((Number) value).longValue();
+        if (value instanceof String && !((String) value).isEmpty()) {
+            try {
+                return Long.parseLong((String) value);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    static Map<String, Object> message(String type) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", type);
+        return message;
+    }
+
+    private static Map<String, Object> entityMessage(String type, String key, Map<String, Object> entity) {
+        Map<String, Object> message = message(type);
+        message.put(key, entity);
+        return message;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> object(Map<String, Object> data, String key) {
+        Object value = data.get(key);
+        if (!(value instanceof Map)) throw new IllegalArgumentException("Missing '" + key + "' object");
+        return (Map<String, Object>) value;
+    }
+
+    private void log(String message) {
+        Consumer<String> sink = logger;
+        if (sink != null) sink.accept(message);
+    }
+
+    record Update(Map<String, Object> message, Runnable store) {
+    }
+
+    private record PendingFrame(long ticket, String entity, ByteBuffer frame, ByteBuffer binaryFrame, WebSocketConnection sender) {
+    }
+}
@@ -0,0 +1,505 @@
+package queuemaster.realtime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One client socket. Reads and writes happen only on the owning {@link IoLoop} thread;
+ * {@link #send(String)} may be called from any thread and just queues the frame.
+ *
+ * <p>The outbound queue is bounded by {@link WebSocketServer#getMaxQueuedFrames()}. When a
+ * client falls that far behind, everything still queued for it is dropped and the server's
+ * {@link OverflowPolicy} decides whether it is resynced or disconnected, so one slow screen
+ * never holds back the others.
+ *
+ * <p>Plain HTTP requests are answered one at a time; with keep-alive the socket stops reading
+ * while a response is written, so pipelined requests wait in the read buffer and are answered
+ * in order once it is out.
+ */
+public final class WebSocketConnection {
+    private static final AtomicLong IDS = new AtomicLong();
+    private static final int MAX_HEAD_BYTES = 8 * 1024;
+    private static final int MAX_MESSAGE_BYTES = 16 * 1024 * 1024;
+    private static final long MAX_RTT_NANOS = 60_000_000_000L;
+
+    private enum State { HANDSHAKE, RESPONDING, OPEN, CLOSING, CLOSED }
+
+    private final long id = IDS.incrementAndGet();
+    private final SocketChannel channel;
+    private final IoLoop loop;
+    private final WebSocketServer server;
+    private final SocketAddress remoteAddress;
+    private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicBoolean overflowing = new AtomicBoolean();
+    private final AtomicInteger queuedFrames = new AtomicInteger();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicLong sentFrames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicInteger resyncs = new AtomicInteger();
+    private volatile long lastResyncAt;
+    private volatile long rttNanos = -1;
+
+    private SelectionKey key;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(4096);
+    private volatile State state = State.HANDSHAKE;
+    private volatile boolean closeAfterFlush;
+    private HttpRequest request;
+    private boolean processingInput;
+    private FileChannel fileBody;
+    private long filePosition;
+    private long fileRemaining;
+    private final ByteBuffer[] batch = new ByteBuffer[16];
+    private int batchCount;
+    private ByteArrayOutputStream fragments;
+    private int fragmentOpcode;
+    private volatile Object attachment;
+
+    WebSocketConnection(SocketChannel channel, IoLoop loop, WebSocketServer server) throws IOException {
+        this.channel = channel;
+        this.loop = loop;
+        this.server = server;
+        this.remoteAddress = channel.getRemoteAddress();
+    }
+
+    public long getId() { return id; }
+    public HttpRequest getRequest() { return request; }
+    public boolean isOpen() { return state == State.OPEN; }
+
+    public String getRemoteHost() {
+        return remoteAddress instanceof InetSocketAddress
+                ? ((InetSocketAddress) remoteAddress).getAddress().getHostAddress()
+                : String.valueOf(remoteAddress);
+    }
+
+    /** Per-connection state owned by the handler. */
+    public Object getAttachment() { return attachment; }
+    public void setAttachment(Object attachment) { this.attachment = attachment; }
+
+    /** Queues a text message. Silently ignored once the connection is closing. */
+    public void send(String text) {
+        if (state != State.OPEN) return;
+        enqueue(Frames.text(text), true);
+    }
+
+    /**
+     * Queues an already encoded frame. The buffer is shared, not copied: each recipient gets
+     * its own {@link ByteBuffer#duplicate() view}, so a broadcast is encoded only once.
+     */
+    public void sendFrame(ByteBuffer frame) {
+        if (state != State.OPEN) return;
+        enqueue(frame.duplicate(), true);
+    }
+
+    /** Frames waiting to be written. */
+    public int getQueueDepth() { return queuedFrames.get(); }
+    public long getQueuedBytes() { return queuedBytes.get(); }
+    public long getSentFrames() { return sentFrames.get(); }
+    public long getDroppedFrames() { return droppedFrames.get(); }
+    public int getResyncCount() { return resyncs.get(); }
+
+    /** Round trip of the last answered {@link #ping()}, or -1 before the first. */
+    public long getRttNanos() { return rttNanos; }
+
+    /**
+     * Sends a protocol-level ping carrying the send time. Browsers answer pings themselves, so
+     * every client reports its round trip without any application code.
+     */
+    public void ping() {
+        if (state != State.OPEN) return;
+        byte[] payload = ByteBuffer.allocate(Long.BYTES).putLong(System.nanoTime()).array();
+        enqueue(Frames.frame(Frames.OP_PING, payload, null), false);
+    }
+
+    long getLastResyncAt() { return lastResyncAt; }
+
+    void markResync(long now) {
+        lastResyncAt = now;
+        resyncs.incrementAndGet();
+    }
+
+    /** Starts the closing handshake; the socket is closed after pending frames are written. */
+    public void close(int code, String reason) {
+        if (state != State.OPEN) return;
+        state = State.CLOSING;
+        closeAfterFlush = true;
+        enqueue(Frames.close(code, reason), false);
+    }
+
+    void register(SelectionKey key) {
+        this.key = key;
+    }
+
+    /** Control frames are never dropped; data frames count against the queue bound. */
+    private void enqueue(ByteBuffer frame, boolean droppable) {
+        if (droppable && queuedFrames.get() >= server.getMaxQueuedFrames()) {
+            overflow();
+            return;
+        }
+        queuedFrames.incrementAndGet();
+        queuedBytes.addAndGet(frame.remaining());
+        outbound.add(frame);
+        if (writeScheduled.compareAndSet(false, true)) loop.scheduleWrite(this);
+    }
+
+    private void overflow() {
+        if (!overflowing.compareAndSet(false, true)) {
+            droppedFrames.incrementAndGet(); // another sender is already handling it
+            return;
+        }
+        try {
+            long dropped = 1; // the frame that did not fit
+            ByteBuffer frame;
+            while ((frame = outbound.poll()) != null) {
+                queuedFrames.decrementAndGet();
+                queuedBytes.addAndGet(-frame.remaining());
+                dropped++;
+            }
+            droppedFrames.addAndGet(dropped);
+            server.connectionOverflowed(this);
+        } finally {
+            overflowing.set(false);
+        }
+    }
+
+    // ============== I/O THREAD ONLY ==============
+
+    void onReadable() {
+        try {
+            int read = channel.read(readBuffer);
+            if (read < 0) {
+                closeNow();
+                return;
+            }
+            processInput();
+        } catch (IOException | RuntimeException e) {
+            closeNow();
+        }
+    }
+
+    /** Handles whatever complete requests or frames the read buffer holds. */
+    private void processInput() throws IOException {
+        processingInput = true;
+        readBuffer.flip();
+        try {
+            while (state == State.HANDSHAKE && readBuffer.hasRemaining()) {
+                if (!readHandshake()) break;
+            }
+            while (state == State.OPEN || state == State.CLOSING) {
+                if (!readFrame()) break;
+            }
+        } finally {
+            readBuffer.compact();
+            processingInput = false;
+        }
+    }
+
+    void onWritable() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            closeNow();
+        }
+    }
+
+    /**
+     * Writes queued frames with gathering writes. Frames move from the shared queue into a
+     * small batch owned by this thread, so an overflow can clear the queue without cutting
+     * a partially written frame.
+     */
+    void flush() throws IOException {
+        if (closed.get()) return;
+        while (true) {
+            while (batchCount < batch.length) {
+                ByteBuffer frame = outbound.poll();
+                if (frame == null) break;
+                queuedFrames.decrementAndGet();
+                queuedBytes.addAndGet(-frame.remaining());
+                sentFrames.incrementAndGet();
+                batch[batchCount++] = frame;
+            }
+            if (batchCount == 0) break;
+            channel.write(batch, 0, batchCount);
+            int done = 0;
+            while (done < batchCount && !batch[done].hasRemaining()) done++;
+            if (done < batchCount) {
+                System.arraycopy(batch, done, batch, 0, batchCount - done);
+                Arrays.fill(batch, batchCount - done, batchCount, null);
+                batchCount -= done;
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                return;
+            }
+            Arrays.fill(batch, 0, batchCount, null);
+            batchCount = 0;
+        }
+        if (fileBody != null && !transferFile()) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            return;
+        }
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        if (closeAfterFlush) {
+            closeNow();
+            return;
+        }
+        writeScheduled.set(false);
+        if (state == State.RESPONDING) {
+            // Keep-alive response is out; read the next request, which may already be buffered
+            state = State.HANDSHAKE;
+            request = null;
+            key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            if (!processingInput && readBuffer.position() > 0) processInput();
+            return;
+        }
+        // A sender may have queued between the last poll and the flag reset
+        if (!outbound.isEmpty() && writeScheduled.compareAndSet(false, true)) loop.scheduleWrite(this);
+    }
+
+    /**
+     * Sends the rest of the file body straight from the page cache to the socket; returns
+     * false while the socket cannot take more.
+     */
+    private boolean transferFile() throws IOException {
+        while (fileRemaining > 0) {
+            long sent = fileBody.transferTo(filePosition, fileRemaining, channel);
+            if (sent == 0) {
+                // Nothing left to send at this position means the file shrank underneath us
+                if (filePosition >= fileBody.size()) throw new IOException("File truncated while sending");
+                return false;
+            }
+            filePosition += sent;
+            fileRemaining -= sent;
+        }
+        closeFileBody();
+        return true;
+    }
+
+    private void closeFileBody() {
+        if (fileBody == null) return;
+        try {
+            fileBody.close();
+        } catch (IOException e) {
+            // Nothing to do
+        }
+        fileBody = null;
+    }
+
+    void closeNow() {
+        if (!closed.compareAndSet(false, true)) return;
+        boolean wasOpen = state == State.OPEN || state == State.CLOSING;
+        state = State.CLOSED;
+        closeFileBody();
+        outbound.clear();
+        queuedFrames.set(0);
+        queuedBytes.set(0);
+        if (key != null) key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+        server.connectionClosed(this, wasOpen);
+    }
+
+    /** Reads one request head; returns false if more bytes are needed. */
+    private boolean readHandshake() throws IOException {
+        int end = indexOfHeadEnd(readBuffer);
+        if (end < 0) {
+            if (readBuffer.remaining() >= MAX_HEAD_BYTES) respondAndClose(HttpResponse.text(431, "Request Header Fields Too Large", ""));
+            else if (!readBuffer.hasRemaining() || readBuffer.limit() == readBuffer.capacity()) growReadBuffer(readBuffer.capacity() * 2);
+            return false;
+        }
+        byte[] head = new byte[end - readBuffer.position()];
+        readBuffer.get(head);
+        readBuffer.position(end + 4);
+        request = HttpRequest.parse(new String(head, StandardCharsets.ISO_8859_1));
+        if (request == null) {
+            respondAndClose(HttpResponse.text(400, "Bad Request", ""));
+            return true;
+        }
+        if (!request.isWebSocketUpgrade()) {
+            // An unread body would be parsed as the next request head, so such requests end the connection
+            respond(server.handleHttp(request), request.isKeepAlive() && !request.hasBody());
+            return true;
+        }
+        String accept = Frames.acceptKey(request.header("sec-websocket-key"));
+        String response = "HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + accept + "\r\n\r\n";
+        ByteBuffer handshake = ByteBuffer.wrap(response.getBytes(StandardCharsets.ISO_8859_1));
+        queuedFrames.incrementAndGet();
+        queuedBytes.addAndGet(handshake.remaining());
+        outbound.add(handshake);
+        state = State.OPEN;
+        server.connectionOpened(this);
+        if (writeScheduled.compareAndSet(false, true)) flush();
+        return true;
+    }
+
+    private void respondAndClose(HttpResponse response) throws IOException {
+        respond(response, false);
+    }
+
+    private void respond(HttpResponse response, boolean keepAlive) throws IOException {
+        boolean includeBody = request == null || !"HEAD".equals(request.getMethod());
+        state = State.RESPONDING;
+        closeAfterFlush = !keepAlive;
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        ByteBuffer encoded = response.encode(includeBody, keepAlive);
+        if (includeBody && response.getFile() != null) {
+            fileBody = response.getFile();
+            filePosition = response.getFilePosition();
+            fileRemaining = response.getFileLength();
+        } else {
+            response.discardFile();
+        }
+        queuedFrames.incrementAndGet();
+        queuedBytes.addAndGet(encoded.remaining());
+        outbound.add(encoded);
+        writeScheduled.set(true);
+        flush();
+    }
+
+    /** Parses one complete frame from the read buffer; returns false if more bytes are needed. */
+    private boolean readFrame() throws IOException {
+        ByteBuffer buf = readBuffer;
+        int start = buf.position();
+        if (buf.remaining() < 2) return false;
+        int b0 = buf.get(start) & 0xFF;
+        int b1 = buf.get(start + 1) & 0xFF;
+        boolean fin = (b0 & 0x80) != 0;
+        int opcode = b0 & 0x0F;
+        boolean masked = (b1 & 0x80) != 0;
+        long length = b1 & 0x7F;
+        int header = 2;
+        if (length == 126) {
+            if (buf.remaining() < 4) return false;
+            length = buf.getShort(start + 2) & 0xFFFF;
+            header = 4;
+        } else if (length == 127) {
+            if (buf.remaining() < 10) return false;
+            length = buf.getLong(start + 2);
+            header = 10;
+        }
+        if (!masked) {
+            protocolError(1002, "Client frames must be masked");
+            return false;
+        }
+        if (length < 0 || length > MAX_MESSAGE_BYTES) {
+            protocolError(1009, "Message too big");
+            return false;
+        }
+        int total = header + 4 + (int) length;
+        if (buf.remaining() < total) {
+            if (total > buf.capacity()) growReadBuffer(total);
+            return false;
+        }
+        int maskAt = start + header;
+        byte[] payload = new byte[(int) length];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) (buf.get(maskAt + 4 + i) ^ buf.get(maskAt + (i & 3)));
+        }
+        buf.position(start + total);
+        handleFrame(fin, opcode, payload);
+        return true;
+    }
+
+    private void handleFrame(boolean fin, int opcode, byte[] payload) throws IOException {
+        switch (opcode) {
+            case Frames.OP_CLOSE:
+                if (state == State.OPEN) {
+                    state = State.CLOSING;
+                    closeAfterFlush = true;
+                    enqueue(Frames.frame(Frames.OP_CLOSE, payload.length >= 2 ? new byte[] {payload[0], payload[1]} : new byte[0], null), false);
+                } else {
+                    closeNow();
+                }
+                return;
+            case Frames.OP_PING:
+                enqueue(Frames.frame(Frames.OP_PONG, payload, null), false);
+                return;
+            case Frames.OP_PONG:
+                // Only pongs to our own pings carry an 8-byte send time; unsolicited ones are ignored
+                if (payload.length == Long.BYTES) {
+                    long rtt = System.nanoTime() - ByteBuffer.wrap(payload).getLong();
+                    if (rtt >= 0 && rtt < MAX_RTT_NANOS) {
+                        rttNanos = rtt;
+                        server.pongReceived(this, rtt);
+                    }
+                }
+                return;
+            case Frames.OP_CONTINUATION:
+                if (fragments == null) {
+                    protocolError(1002, "Unexpected continuation");
+                    return;
+                }
+                fragments.write(payload);
+                if (fragments.size() > MAX_MESSAGE_BYTES) {
+                    protocolError(1009, "Message too big");
+                    return;
+                }
+                if (fin) {
+                    byte[] message = fragments.toByteArray();
+                    fragments = null;
+                    deliver(fragmentOpcode, message);
+                }
+                return;
+            case Frames.OP_TEXT:
+            case Frames.OP_BINARY:
+                if (fin) {
+                    deliver(opcode, payload);
+                } else {
+                    fragments = new ByteArrayOutputStream(payload.length * 2);
+                    fragments.write(payload);
+                    fragmentOpcode = opcode;
+                }
+                return;
+            default:
+                protocolError(1002, "Unknown opcode " + opcode);
+        }
+    }
+
+    private void deliver(int opcode, byte[] payload) {
+        if (state != State.OPEN) return;
+        if (opcode == Frames.OP_TEXT) server.textReceived(this, new String(payload, StandardCharsets.UTF_8));
+    }
+
+    private void protocolError(int code, String reason) {
+        if (state == State.OPEN) {
+            state = State.CLOSING;
+            closeAfterFlush = true;
+            enqueue(Frames.close(code, reason), false);
+        } else {
+            closeNow();
+        }
+        readBuffer.position(readBuffer.limit());
+    }
+
+    private void growReadBuffer(int capacity) {
+        ByteBuffer bigger = ByteBuffer.allocate(Math.min(Math.max(capacity, readBuffer.capacity() * 2), MAX_MESSAGE_BYTES + 16));
+        bigger.put(readBuffer);
+        bigger.flip();
+        readBuffer = bigger;
+    }
+
+    private static int indexOfHeadEnd(ByteBuffer buf) {
+        for (int i = buf.position(); i + 3 < buf.limit(); i++) {
+            if (buf.get(i) == '\r' && buf.get(i + 1) == '\n' && buf.get(i + 2) == '\r' && buf.get(i + 3) == '\n') return i;
+        }
+        return -1;
+    }
+}
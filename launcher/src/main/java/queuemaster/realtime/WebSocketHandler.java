@@ -0,0 +1,25 @@
+package queuemaster.realtime;
+
+/**
+ * Callbacks from the {@link WebSocketServer}. They run on the connection's I/O thread,
+ * so implementations must not block.
+ */
+public interface WebSocketHandler {
+    void onOpen(WebSocketConnection connection);
+
+    void onText(WebSocketConnection connection, String text);
+
+    void onClose(WebSocketConnection connection);
+
+    /**
+     * The client fell behind and its queued messages were dropped ({@link OverflowPolicy#RESYNC}).
+     * The handler should bring it up to date, typically with a fresh snapshot.
+     */
+    default void onOverflow(WebSocketConnection connection) {
+        connection.close(1008, "Client too slow");
+    }
+
+    /** The client answered a {@link WebSocketConnection#ping()} after {@code rttNanos}. */
+    default void onPong(WebSocketConnection connection, long rttNanos) {
+    }
+}
@@ -0,0 +1,220 @@
+package queuemaster.realtime;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking WebSocket server. One acceptor thread hands sockets round-robin to a fixed
+ * number of selector threads, so the platform thread count stays constant no matter how many
+ * monitors and tellers connect. Plain HTTP requests on the same port go to {@link HttpHandler}s.
+ */
+public class WebSocketServer {
+    private static final String BANNER = "QueueMaster Pro WebSocket Server";
+
+    private final int port;
+    private final int ioThreads;
+    private final WebSocketHandler handler;
+    private final List<HttpHandler> httpHandlers = new ArrayList<>();
+    private final Set<WebSocketConnection> connections = ConcurrentHashMap.newKeySet();
+    private volatile Consumer<String> logger = System.out::println;
+    private volatile String threadPrefix = "qm-ws";
+    private volatile int maxQueuedFrames = 512;
+    private volatile OverflowPolicy overflowPolicy = OverflowPolicy.RESYNC;
+
+    private ServerSocketChannel serverChannel;
+    private Thread acceptor;
+    private IoLoop[] loops;
+
+    public WebSocketServer(int port, int ioThreads, WebSocketHandler handler) {
+        this.port = port;
+        this.ioThreads = Math.max(1, ioThreads);
+        this.handler = handler;
+    }
+
+    /** Default I/O thread count: one per core, capped at 4. */
+    public static int defaultIoThreads() {
+        return Math.min(4, Runtime.getRuntime().availableProcessors());
+    }
+
+    public void setLogger(Consumer<String> logger) {
+        this.logger = logger;
+    }
+
+    /** Prefix of the acceptor and I/O thread names, to tell servers apart in thread dumps. */
+    public void setThreadPrefix(String threadPrefix) {
+        this.threadPrefix = threadPrefix;
+    }
+
+    /** Bounds each client's outbound queue and picks what happens to clients that exceed it. */
+    public void setBackpressure(int maxQueuedFrames, OverflowPolicy overflowPolicy) {
+        this.maxQueuedFrames = Math.max(1, maxQueuedFrames);
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public int getMaxQueuedFrames() {
+        return maxQueuedFrames;
+    }
+
+    /** Registers a handler for plain HTTP requests; handlers are tried in registration order. */
+    public synchronized void addHttpHandler(HttpHandler httpHandler) {
+        httpHandlers.add(httpHandler);
+    }
+
+    public synchronized void start() throws IOException {
+        if (serverChannel != null) throw new IllegalStateException("Already started");
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        channel.bind(new InetSocketAddress(port), 1024);
+        loops = new IoLoop[ioThreads];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new IoLoop(this, threadPrefix + "-io-" + i);
+            loops[i].start();
+        }
+        serverChannel = channel;
+        acceptor = new Thread(this::acceptLoop, threadPrefix + "-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public synchronized void stop() {
+        if (serverChannel == null) return;
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+        for (IoLoop loop : loops) loop.stop();
+        serverChannel = null;
+        loops = null;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /** Live view of the open connections. */
+    public Set<WebSocketConnection> getConnections() {
+        return connections;
+    }
+
+    /** Queue and drop counters of every open connection, ordered by connection id. */
+    public List<ClientStats> getClientStats() {
+        List<ClientStats> stats = new ArrayList<>();
+        for (WebSocketConnection connection : connections) stats.add(ClientStats.of(connection));
+        stats.sort(Comparator.comparingLong(ClientStats::id));
+        return stats;
+    }
+
+    private void acceptLoop() {
+        ServerSocketChannel channel = serverChannel;
+        IoLoop[] targets = loops;
+        int next = 0;
+        while (channel.isOpen()) {
+            try {
+                SocketChannel socket = channel.accept();
+                socket.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                targets[next++ % targets.length].adopt(socket);
+            } catch (IOException e) {
+                if (!channel.isOpen()) break;
+                log("Accept failed: " + e.getMessage());
+                try {
+                    Thread.sleep(50); // e.g. out of file descriptors; don't spin
+                } catch (InterruptedException ie) {
+                    break;
+                }
+            }
+        }
+    }
+
+    void connectionOpened(WebSocketConnection connection) {
+        connections.add(connection);
+        try {
+            handler.onOpen(connection);
+        } catch (RuntimeException e) {
+            log("Error in open handler: " + e);
+        }
+    }
+
+    void textReceived(WebSocketConnection connection, String text) {
+        try {
+            handler.onText(connection, text);
+        } catch (RuntimeException e) {
+            log("Error processing message: " + e);
+        }
+    }
+
+    void connectionClosed(WebSocketConnection connection, boolean wasOpen) {
+        if (connections.remove(connection) && wasOpen) {
+            try {
+                handler.onClose(connection);
+            } catch (RuntimeException e) {
+                log("Error in close handler: " + e);
+            }
+        }
+    }
+
+    /** Pings every open connection; each answer reaches {@link WebSocketHandler#onPong}. */
+    public void pingAll() {
+        for (WebSocketConnection connection : connections) connection.ping();
+    }
+
+    void pongReceived(WebSocketConnection connection, long rttNanos) {
+        try {
+            handler.onPong(connection, rttNanos);
+        } catch (RuntimeException e) {
+            log("Error in pong handler: " + e);
+        }
+    }
+
+    void connectionOverflowed(WebSocketConnection connection) {
+        long now = System.currentTimeMillis();
+        boolean recentlyResynced = now - connection.getLastResyncAt() < OverflowPolicy.RESYNC_GRACE_MS;
+        if (overflowPolicy == OverflowPolicy.DISCONNECT || recentlyResynced) {
+            log("Disconnecting slow client " + connection.getRemoteHost() + " (" + connection.getDroppedFrames() + " messages dropped)");
+            connection.closeNow();
+            return;
+        }
+        connection.markResync(now);
+        try {
+            handler.onOverflow(connection);
+        } catch (RuntimeException e) {
+            log("Error in overflow handler: " + e);
+            connection.closeNow();
+        }
+    }
+
+    HttpResponse handleHttp(HttpRequest request) {
+        List<HttpHandler> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(httpHandlers);
+        }
+        for (HttpHandler httpHandler : snapshot) {
+            try {
+                HttpResponse response = httpHandler.handle(request);
+                if (response != null) return response;
+            } catch (RuntimeException e) {
+                log("HTTP handler error: " + e);
+                return HttpResponse.text(500, "Internal Server Error", "");
+            }
+        }
+        return HttpResponse.text(200, "OK", BANNER);
+    }
+
+    void log(String message) {
+        Consumer<String> sink = logger;
+        if (sink != null) sink.accept(message);
+    }
+}
@@ -0,0 +1,191 @@
+package queuemaster.runtime;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The launcher's one place to run work off the EDT: a bounded pool of daemon threads for
+ * blocking jobs (starting processes, pumping their output) plus a single scheduler thread for
+ * delayed actions. Every task is tracked by name so the diagnostics panel can show what is
+ * running, for how long, and the last {@value #HISTORY} finished tasks.
+ *
+ * <p>Idle pool threads are reused and retire after {@value #KEEP_ALIVE_SECONDS} s, so
+ * repeated start/stop/install cycles do not accumulate threads. The pool is capped at
+ * {@code maxThreads}; a submission beyond that is rejected instead of spawning without limit.
+ */
+public final class BackgroundTasks {
+    public static final int DEFAULT_MAX_THREADS = 32;
+    public static final int HISTORY = 100;
+    private static final int KEEP_ALIVE_SECONDS = 30;
+
+    private final ThreadPoolExecutor pool;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong ids = new AtomicLong();
+    // Guarded by this
+    private final Map<Long, Tracked> active = new LinkedHashMap<>();
+    private final ArrayDeque<TaskInfo> finished = new ArrayDeque<>();
+
+    private final class Tracked extends FutureTask<Void> {
+        final long id = ids.incrementAndGet();
+        final String name;
+        final long submittedAt = System.currentTimeMillis();
+        volatile long startedAt;
+        volatile Thread thread;
+
+        Tracked(String name, Runnable body) {
+            super(body, null);
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            startedAt = System.currentTimeMillis();
+            try {
+                super.run();
+            } finally {
+                thread = null;
+                // Do not let a cancellation interrupt leak into the next task on this thread
+                Thread.interrupted();
+            }
+        }
+
+        // Runs on completion, failure, or cancellation (also when cancelled before it started)
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                complete(this, TaskInfo.State.CANCELLED, null);
+                return;
+            }
+            try {
+                get();
+                complete(this, TaskInfo.State.DONE, null);
+            } catch (ExecutionException e) {
+                complete(this, TaskInfo.State.FAILED, String.valueOf(e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        TaskInfo info(TaskInfo.State state, long finishedAt, String failure) {
+            Thread t = thread;
+            return new TaskInfo(id, name, state, t != null ? t.getName() : "", submittedAt, startedAt, finishedAt, failure);
+        }
+    }
+
+    public BackgroundTasks() {
+        this(DEFAULT_MAX_THREADS);
+    }
+
+    public BackgroundTasks(int maxThreads) {
+        pool = new ThreadPoolExecutor(0, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), daemonThreads("qm-task-"));
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("qm-scheduler-"));
+    }
+
+    /**
+     * Runs {@code body} on a pool thread. Cancelling the returned future interrupts it.
+     *
+     * @throws RejectedExecutionException if all threads are busy or the pool is shut down
+     */
+    public Future<?> submit(String name, Runnable body) {
+        Tracked task = new Tracked(name, body);
+        synchronized (this) {
+            active.put(task.id, task);
+        }
+        try {
+            pool.execute(task);
+            return task;
+        } catch (RejectedExecutionException e) {
+            complete(task, TaskInfo.State.FAILED, "rejected: " + pool.getActiveCount() + " threads busy");
+            throw e;
+        }
+    }
+
+    /** Runs a short action on the scheduler thread after {@code delay}; it must not block. */
+    public ScheduledFuture<?> schedule(Runnable action, long delay, TimeUnit unit) {
+        return scheduler.schedule(action, delay, unit);
+    }
+
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable action, long initialDelay, long delay, TimeUnit unit) {
+        return scheduler.scheduleWithFixedDelay(action, initialDelay, delay, unit);
+    }
+
+    /** Running and queued tasks first (oldest first), then recently finished ones (newest first). */
+    public List<TaskInfo> snapshot() {
+        List<TaskInfo> out = new ArrayList<>();
+        synchronized (this) {
+            for (Tracked task : active.values()) {
+                out.add(task.info(task.startedAt != 0 ? TaskInfo.State.RUNNING : TaskInfo.State.QUEUED, 0, null));
+            }
+            out.addAll(finished);
+        }
+        return out;
+    }
+
+    public int getPoolSize() {
+        return pool.getPoolSize();
+    }
+
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    public int getLargestPoolSize() {
+        return pool.getLargestPoolSize();
+    }
+
+    public int getMaxThreads() {
+        return pool.getMaximumPoolSize();
+    }
+
+    /** Live threads in the whole JVM (embedded server, AWT and pool included). */
+    public static int jvmThreadCount() {
+        return ManagementFactory.getThreadMXBean().getThreadCount();
+    }
+
+    public static int jvmPeakThreadCount() {
+        return ManagementFactory.getThreadMXBean().getPeakThreadCount();
+    }
+
+    /** Interrupts running tasks and stops accepting new ones. */
+    public void shutdownNow() {
+        scheduler.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    private void complete(Tracked task, TaskInfo.State state, String failure) {
+        TaskInfo info = task.info(state, System.currentTimeMillis(), failure);
+        synchronized (this) {
+            active.remove(task.id);
+            finished.addFirst(info);
+            if (finished.size() > HISTORY) finished.removeLast();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,128 @@
+package queuemaster.runtime;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Supervision handle for one child process (npm and whatever it spawns). Output pumps run as
+ * named {@link BackgroundTasks} and end with the process; {@link #cancel(long)} asks the whole
+ * process tree to exit and force-kills whatever is left after a grace period, scheduled
+ * rather than slept so callers on the EDT are not blocked.
+ */
+public final class ChildProcess {
+    private final String name;
+    private final Process process;
+    private final long startedAt = System.currentTimeMillis();
+    private final BackgroundTasks tasks;
+    private final List<Future<?>> pumps;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    // Set once by cancel()
+    private volatile List<ProcessHandle> tree = List.of();
+    private volatile CompletableFuture<Void> treeExit;
+
+    private ChildProcess(String name, Process process, BackgroundTasks tasks, Consumer<String> stdout, Consumer<String> stderr) {
+        this.name = name;
+        this.process = process;
+        this.tasks = tasks;
+        this.pumps = List.of(
+                tasks.submit(name + " (stdout)", () -> pump(process.getInputStream(), stdout)),
+                tasks.submit(name + " (stderr)", () -> pump(process.getErrorStream(), stderr)));
+    }
+
+    /** Starts {@code builder} and pumps its output, line by line, into the given sinks. */
+    public static ChildProcess start(String name, ProcessBuilder builder, BackgroundTasks tasks,
+                                     Consumer<String> stdout, Consumer<String> stderr) throws IOException {
+        return new ChildProcess(name, builder.start(), tasks, stdout, stderr);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long pid() {
+        return process.pid();
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /** Completes with the exit code once the process has exited. */
+    public CompletableFuture<Integer> onExit() {
+        return process.onExit().thenApply(Process::exitValue);
+    }
+
+    /** Blocks until the process exits; an interrupt cancels it. */
+    public int waitFor() throws InterruptedException {
+        try {
+            return process.waitFor();
+        } catch (InterruptedException e) {
+            cancel(0);
+            throw e;
+        }
+    }
+
+    /** Blocks up to {@code timeoutMs} for the process to exit. Returns whether it did. */
+    public boolean awaitExit(long timeoutMs) throws InterruptedException {
+        return process.waitFor(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Asks the process and its descendants to terminate, then force-kills any survivor after
+     * {@code graceMs}. Returns immediately, with a future that completes once the whole tree
+     * has exited; idempotent, later calls return the same future.
+     */
+    public CompletableFuture<Void> cancel(long graceMs) {
+        synchronized (this) {
+            if (!cancelled.compareAndSet(false, true)) return treeExit;
+            // Captured now: once npm exits its children are reparented and no longer its descendants
+            tree = process.descendants().toList();
+            treeExit = CompletableFuture.allOf(process.onExit(),
+                    CompletableFuture.allOf(tree.stream().map(ProcessHandle::onExit).toArray(CompletableFuture[]::new)));
+        }
+        // npm runs node through a shell; the tree has to go, not just the npm process
+        tree.forEach(ProcessHandle::destroy);
+        process.destroy();
+        if (graceMs <= 0) {
+            forceKill();
+        } else {
+            tasks.schedule(() -> {
+                if (!treeExit.isDone()) forceKill();
+            }, graceMs, TimeUnit.MILLISECONDS);
+        }
+        return treeExit;
+    }
+
+    private void forceKill() {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        tree.forEach(ProcessHandle::destroyForcibly);
+        if (process.isAlive()) process.destroyForcibly();
+        // Pumps end at EOF once the pipes close; interrupt in case a grandchild holds them open
+        for (Future<?> pump : pumps) pump.cancel(true);
+    }
+
+    private static void pump(InputStream stream, Consumer<String> sink) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
+            String line;
+            while ((line = reader.readLine()) != null) sink.accept(line);
+        } catch (IOException e) {
+            // Stream closed by cancel(); nothing left to read
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package queuemaster.runtime;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import queuemaster.json.Json;
+
+/** A check that a supervised process is serving, run by {@link ProcessSupervisor}. */
+@FunctionalInterface
+public interface HealthProbe {
+
+    /** Whether the process answered within {@code timeoutMillis}. Must not throw. */
+    boolean check(int timeoutMillis);
+
+    /**
+     * A {@code GET} of {@code url}: any HTTP answer below 500 counts, since the port is
+     * listening and the server behind it handled a request. The Node server's WebSocket port
+     * and the Vite dev server both answer plain HTTP on {@code /}.
+     */
+    static HealthProbe http(String url) {
+        return new HealthProbe() {
+            @Override
+            public boolean check(int timeoutMillis) {
+                HttpURLConnection connection = null;
+                try {
+                    connection = (HttpURLConnection) new URL(url).openConnection();
+                    connection.setConnectTimeout(timeoutMillis);
+                    connection.setReadTimeout(timeoutMillis);
+                    connection.setUseCaches(false);
+                    int status = connection.getResponseCode();
+                    try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                        if (body != null) body.readAllBytes();
+                    }
+                    return status < 500;
+                } catch (IOException | RuntimeException e) {
+                    return false;
+                } finally {
+                    if (connection != null) connection.disconnect();
+                }
+            }
+
+            @Override
+            public String toString() {
+                return url;
+            }
+        };
+    }
+
+    /** A TCP connect to {@code host:port}: the port is bound and accepting. */
+    static HealthProbe tcp(String host, int port) {
+        return new HealthProbe() {
+            @Override
+            public boolean check(int timeoutMillis) {
+                try (Socket socket = new Socket()) {
+                    socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+                    return true;
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+
+            @Override
+            public String toString() {
+                return host + ":" + port;
+            }
+        };
+    }
+
+    /**
+     * A WebSocket handshake with {@code uri} until the server's {@code welcome} arrives (the
+     * embedded server sends its {@code sync} first): the whole path a monitor takes before it
+     * can show anything.
+     */
+    static HealthProbe welcome(String uri) {
+        // Built here, before the server starts, so its one-off setup is not timed as startup
+        HttpClient client = HttpClient.newHttpClient();
+        return new HealthProbe() {
+            @Override
+            public boolean check(int timeoutMillis) {
+                CompletableFuture<Boolean> welcomed = new CompletableFuture<>();
+                WebSocket.Listener listener = new WebSocket.Listener() {
+                    private final StringBuilder text = new StringBuilder();
+
+                    @Override
+                    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+                        text.append(data);
+                        if (last) {
+                            try {
+                                if ("welcome".equals(Json.parseObject(text.toString()).get("type"))) welcomed.complete(true);
+                            } catch (RuntimeException e) {
+                                welcomed.complete(false);
+                            }
+                            text.setLength(0);
+                        }
+                        webSocket.request(1);
+                        return null;
+                    }
+
+                    @Override
+                    public void onError(WebSocket webSocket, Throwable error) {
+                        welcomed.complete(false);
+                    }
+                };
+                WebSocket socket = null;
+                try {
+                    socket = client.newWebSocketBuilder().connectTimeout(Duration.ofMillis(timeoutMillis))
+                            .buildAsync(URI.create(uri), listener).get(timeoutMillis, TimeUnit.MILLISECONDS);
+                    return welcomed.get(timeoutMillis, TimeUnit.MILLISECONDS);
+                } catch (ExecutionException | TimeoutException | RuntimeException e) {
+                    return false;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                } finally {
+                    if (socket != null) socket.abort();
+                }
+            }
+
+            @Override
+            public String toString() {
+                return uri;
+            }
+        };
+    }
+}
@@ -0,0 +1,188 @@
+package queuemaster.runtime;
+
+import java.net.DatagramSocket;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the addresses monitors and tablets can reach the launcher on, off the EDT, and keeps
+ * the answer. Walking every {@link NetworkInterface} can take hundreds of milliseconds with
+ * VPN and virtual adapters installed, so it happens on {@link BackgroundTasks} every
+ * {@value #REFRESH_SECONDS} seconds; {@link #candidates()} only reads the last result, and the
+ * listener hears about it only when something changed (a cable unplugged, Wi-Fi joined, a VPN
+ * connected).
+ *
+ * <p>Candidates are site-local IPv4 addresses of interfaces that are up, best first: the
+ * interface the OS routes outbound traffic through, then wired before wireless, and VPN or
+ * virtual adapters (Hyper-V, WSL, Docker, VirtualBox, Tailscale, ...) last, since other
+ * devices on the branch network rarely reach those.
+ */
+public final class NetworkDiscovery {
+    public static final int REFRESH_SECONDS = 10;
+
+    private static final Pattern VIRTUAL = Pattern.compile(
+            "virtual|vethernet|hyper-v|wsl|docker|veth|^br-|virbr|vbox|vmware|vmnet|utun|^tun|^tap|tailscale"
+                    + "|zerotier|wireguard|^wg|hamachi|vpn|^ppp|loopback|bluetooth");
+    private static final Pattern WIRELESS = Pattern.compile("wi-?fi|wlan|wireless|^wl|802\\.11");
+
+    /** How an address is attached, in preference order. */
+    public enum Kind {
+        WIRED("Ethernet"), WIRELESS("Wi-Fi"), OTHER("Network"), VIRTUAL("Virtual/VPN");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    /** One reachable-looking address; {@code defaultRoute} if outbound traffic leaves through it. */
+    public record Candidate(String address, String interfaceName, String displayName, Kind kind, boolean defaultRoute) {
+
+        /** e.g. "Ethernet (eth0)". */
+        public String title() {
+            return kind.label() + " (" + interfaceName + ")";
+        }
+    }
+
+    private final BackgroundTasks tasks;
+    private volatile Consumer<String> logger = System.out::println;
+    private volatile Consumer<List<Candidate>> listener;
+    private volatile List<Candidate> candidates = List.of();
+    private volatile boolean discovered;
+
+    public NetworkDiscovery(BackgroundTasks tasks) {
+        this.tasks = tasks;
+    }
+
+    public void setLogger(Consumer<String> logger) {
+        this.logger = logger;
+    }
+
+    /** Called with the new candidates, on a background thread, whenever they change. */
+    public void setListener(Consumer<List<Candidate>> listener) {
+        this.listener = listener;
+    }
+
+    /** Discovers now and then every {@value #REFRESH_SECONDS} seconds. */
+    public void start() {
+        tasks.scheduleWithFixedDelay(() -> tasks.submit("network discovery", this::refresh),
+                0, REFRESH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /** The last discovery's result, best first; empty before the first one finishes. */
+    public List<Candidate> candidates() {
+        return candidates;
+    }
+
+    /** Whether a discovery has finished, so an empty list means no network rather than not yet. */
+    public boolean isDiscovered() {
+        return discovered;
+    }
+
+    /** The best address, or null if there is none (yet). */
+    public String primaryAddress() {
+        List<Candidate> current = candidates;
+        return current.isEmpty() ? null : current.get(0).address();
+    }
+
+    /** Walks the interfaces and publishes the result if it differs from the last one. */
+    public void refresh() {
+        List<Candidate> found = discover();
+        boolean changed = !found.equals(candidates);
+        candidates = found;
+        discovered = true;
+        if (!changed) return;
+        log(found.isEmpty() ? "Network: no LAN address found"
+                : "Network: " + String.join(", ", found.stream().map(c -> c.address() + " " + c.title()).toList()));
+        Consumer<List<Candidate>> l = listener;
+        if (l != null) l.accept(found);
+    }
+
+    static List<Candidate> discover() {
+        String routed = defaultRouteAddress();
+        List<Candidate> found = new ArrayList<>();
+        try {
+            for (NetworkInterface iface : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+                try {
+                    if (iface.isLoopback() || !iface.isUp()) continue;
+                } catch (SocketException e) {
+                    continue; // vanished while we looked
+                }
+                for (InetAddress address : Collections.list(iface.getInetAddresses())) {
+                    if (!(address instanceof Inet4Address) || address.isLinkLocalAddress() || address.isLoopbackAddress()) continue;
+                    String host = address.getHostAddress();
+                    boolean cgnat = host.startsWith("100.") && isCgnat(address);
+                    if (!address.isSiteLocalAddress() && !cgnat && !host.equals(routed)) continue;
+                    Kind kind = cgnat ? Kind.VIRTUAL : kindOf(iface);
+                    found.add(new Candidate(host, iface.getName(), iface.getDisplayName(), kind, host.equals(routed)));
+                }
+            }
+        } catch (SocketException e) {
+            return List.of();
+        }
+        found.sort(Comparator.comparing((Candidate c) -> c.kind() == Kind.VIRTUAL)
+                .thenComparing(c -> !c.defaultRoute())
+                .thenComparing(Candidate::kind)
+                .thenComparing(c -> privateRangeRank(c.address()))
+                .thenComparing(Candidate::interfaceName));
+        return List.copyOf(found);
+    }
+
+    /**
+     * The source address the OS picks for outbound traffic. Connecting a UDP socket only
+     * consults the routing table; nothing is sent.
+     */
+    private static String defaultRouteAddress() {
+        try (DatagramSocket socket = new DatagramSocket()) {
+            socket.connect(new InetSocketAddress("192.0.2.1", 9)); // TEST-NET-1, never routed anywhere real
+            InetAddress local = socket.getLocalAddress();
+            return local instanceof Inet4Address && !local.isAnyLocalAddress() ? local.getHostAddress() : null;
+        } catch (SocketException | RuntimeException e) {
+            return null; // no route at all
+        }
+    }
+
+    private static Kind kindOf(NetworkInterface iface) {
+        // Name first, so the ^ patterns match interface names like wg0, tun0 or wlan0
+        String text = (iface.getName() + " " + iface.getDisplayName()).toLowerCase(Locale.ROOT);
+        if (iface.isVirtual() || VIRTUAL.matcher(text).find()) return Kind.VIRTUAL;
+        if (WIRELESS.matcher(text).find()) return Kind.WIRELESS;
+        if (text.contains("ethernet") || text.startsWith("eth") || text.startsWith("en")) return Kind.WIRED;
+        return Kind.OTHER;
+    }
+
+    // Home and branch routers hand out 192.168.x.x; 10.x and 172.16-31.x are more often
+    // corporate VPNs or container networks
+    private static int privateRangeRank(String address) {
+        if (address.startsWith("192.168.")) return 0;
+        if (address.startsWith("10.")) return 1;
+        return 2;
+    }
+
+    /** 100.64.0.0/10, used by Tailscale and carrier-grade NAT. */
+    private static boolean isCgnat(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        return (bytes[0] & 0xFF) == 100 && (bytes[1] & 0xC0) == 64;
+    }
+
+    private void log(String message) {
+        Consumer<String> sink = logger;
+        if (sink != null) sink.accept(message);
+    }
+}
@@ -0,0 +1,266 @@
+package queuemaster.runtime;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a server process up: starts it, probes it until it answers (readiness), keeps probing
+ * while it runs (liveness), and restarts it when it exits on its own or stops answering.
+ *
+ * <p>Restarts back off exponentially from {@value #INITIAL_BACKOFF_MS} ms to
+ * {@value #MAX_BACKOFF_MS} ms; a run that stays ready for {@value #STABLE_MS} ms resets the
+ * backoff. After {@value #MAX_FAILED_STARTS} starts in a row that never became ready the
+ * supervisor gives up, since restarting a server that cannot bind its port or load its code
+ * only fills the console. Every wait is on the process's exit future or the stop signal,
+ * so an exit or a stop is acted on at once rather than at the next poll.
+ *
+ * <p>{@link #run()} blocks for as long as the process is supervised; run it as a
+ * {@link BackgroundTasks} job.
+ */
+public final class ProcessSupervisor {
+    public static final long READY_PROBE_MS = 250;
+    public static final long READY_TIMEOUT_MS = 120_000;
+    public static final long LIVENESS_PROBE_MS = 5_000;
+    public static final int LIVENESS_FAILURES = 3;
+    public static final int PROBE_TIMEOUT_MS = 1_000;
+    public static final long INITIAL_BACKOFF_MS = 500;
+    public static final long MAX_BACKOFF_MS = 30_000;
+    public static final long STABLE_MS = 60_000;
+    public static final int MAX_FAILED_STARTS = 5;
+
+    public enum State { STARTING, READY, UNRESPONSIVE, RESTARTING, STOPPED, FAILED }
+
+    /** Starts one instance of the supervised process. */
+    @FunctionalInterface
+    public interface Launch {
+        ChildProcess start() throws IOException;
+    }
+
+    /**
+     * What the supervisor is doing. {@code readyMillis} is how long the last start took to
+     * answer its probes, measured from the exit or hang that caused it for a restart; -1
+     * until the first start is ready.
+     */
+    public record Status(State state, int restarts, long readyMillis, String detail) {
+    }
+
+    private final String name;
+    private final Launch launch;
+    private final List<HealthProbe> probes;
+    private final long graceMs;
+    private final CompletableFuture<Void> stopSignal = new CompletableFuture<>();
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
+    private volatile Consumer<Status> listener;
+    private volatile Consumer<String> logger;
+    private volatile Status status = new Status(State.STOPPED, 0, -1, "");
+    // Guarded by this
+    private ChildProcess current;
+    private long stopGraceMs;
+
+    public ProcessSupervisor(String name, Launch launch, List<HealthProbe> probes, long graceMs) {
+        this.name = name;
+        this.launch = launch;
+        this.probes = List.copyOf(probes);
+        this.graceMs = graceMs;
+    }
+
+    /** Called with every state change, on the supervising thread. */
+    public void setListener(Consumer<Status> listener) {
+        this.listener = listener;
+    }
+
+    /** Where restarts and probe failures are reported; null disables logging. */
+    public void setLogger(Consumer<String> logger) {
+        this.logger = logger;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /** The running instance, or null between restarts. */
+    public synchronized ChildProcess getProcess() {
+        return current;
+    }
+
+    /**
+     * Supervises until {@link #stop(long)} or until the process keeps failing to start.
+     * Returns once the last instance and its descendants have exited.
+     */
+    public void run() {
+        try {
+            supervise();
+        } catch (InterruptedException e) {
+            stop(0);
+            Thread.currentThread().interrupt();
+        } finally {
+            if (status.state() != State.FAILED) publish(State.STOPPED, status.readyMillis(), "");
+            finished.complete(null);
+        }
+    }
+
+    /**
+     * Ends supervision: the running instance gets {@code graceMs} to exit before its tree is
+     * killed. The future completes when {@link #run()} has returned.
+     */
+    public CompletableFuture<Void> stop(long graceMs) {
+        ChildProcess process;
+        synchronized (this) {
+            if (stopSignal.isDone()) return finished;
+            stopGraceMs = graceMs;
+            stopSignal.complete(null);
+            process = current;
+        }
+        if (process != null) process.cancel(graceMs);
+        return finished;
+    }
+
+    public boolean isStopping() {
+        return stopSignal.isDone();
+    }
+
+    /** Whether {@link #run()} has returned, after a stop or after giving up. */
+    public boolean isFinished() {
+        return finished.isDone();
+    }
+
+    private void supervise() throws InterruptedException {
+        int restarts = 0;
+        int failedStarts = 0;
+        int crashes = 0;
+        long downSince = System.nanoTime();
+        while (!isStopping()) {
+            ChildProcess process;
+            try {
+                process = launch.start();
+            } catch (IOException e) {
+                log(name + " could not start: " + e.getMessage());
+                publish(State.FAILED, status.readyMillis(), e.getMessage());
+                return;
+            }
+            synchronized (this) {
+                current = process;
+                // A stop that raced the start finds nothing to cancel, so cancel here
+                if (isStopping()) process.cancel(stopGraceMs);
+            }
+            publish(State.STARTING, status.readyMillis(), restarts > 0 ? "restart " + restarts : "");
+
+            Run run = watch(process, downSince, restarts);
+            synchronized (this) {
+                current = null;
+            }
+            if (isStopping()) {
+                awaitTree(process.cancel(stopGraceMs));
+                return;
+            }
+
+            downSince = run.endedAt;
+            // The instance's children may still hold the ports; they go before the next start
+            awaitTree(process.cancel(graceMs));
+            if (run.readyAt == 0) {
+                if (++failedStarts >= MAX_FAILED_STARTS) {
+                    log(name + " did not become ready after " + failedStarts + " attempts; giving up");
+                    publish(State.FAILED, status.readyMillis(), run.reason);
+                    return;
+                }
+            } else {
+                failedStarts = 0;
+                if (run.endedAt - run.readyAt >= TimeUnit.MILLISECONDS.toNanos(STABLE_MS)) crashes = 0;
+            }
+            long backoff = Math.min(MAX_BACKOFF_MS, INITIAL_BACKOFF_MS << Math.min(crashes, 16));
+            crashes++;
+            restarts++;
+            log(name + " " + run.reason + "; restarting in " + backoff + " ms");
+            publish(State.RESTARTING, status.readyMillis(), run.reason);
+            try {
+                stopSignal.get(backoff, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Backoff elapsed
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /** How one instance ended; times are {@link System#nanoTime()}, readyAt 0 if it never was. */
+    private record Run(long readyAt, long endedAt, String reason) {
+    }
+
+    private Run watch(ChildProcess process, long downSince, int restarts) throws InterruptedException {
+        CompletableFuture<Integer> exit = process.onExit();
+        long startedAt = System.nanoTime();
+        long readyAt = 0;
+        int failures = 0;
+        long wait = READY_PROBE_MS;
+        while (true) {
+            try {
+                int code = exit.get(wait, TimeUnit.MILLISECONDS);
+                return new Run(readyAt, System.nanoTime(), "exited with code " + code);
+            } catch (TimeoutException e) {
+                // Still running: probe
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+            if (isStopping()) {
+                wait = READY_PROBE_MS;
+                continue;
+            }
+            boolean healthy = probe();
+            long now = System.nanoTime();
+            if (readyAt == 0) {
+                if (healthy) {
+                    readyAt = now;
+                    long readyMillis = TimeUnit.NANOSECONDS.toMillis(now - downSince);
+                    log(name + (restarts > 0 ? " restarted, ready in " : " ready in ") + readyMillis + " ms");
+                    publish(State.READY, readyMillis, "");
+                    wait = LIVENESS_PROBE_MS;
+                } else if (now - startedAt >= TimeUnit.MILLISECONDS.toNanos(READY_TIMEOUT_MS)) {
+                    process.cancel(graceMs);
+                    return new Run(0, now, "not ready after " + READY_TIMEOUT_MS / 1000 + " s");
+                }
+            } else if (healthy) {
+                if (failures > 0) publish(State.READY, status.readyMillis(), "");
+                failures = 0;
+            } else if (++failures >= LIVENESS_FAILURES) {
+                process.cancel(graceMs);
+                return new Run(readyAt, now, "not responding to " + probes);
+            } else {
+                publish(State.UNRESPONSIVE, status.readyMillis(), "probe failed " + failures + "/" + LIVENESS_FAILURES);
+            }
+        }
+    }
+
+    private boolean probe() {
+        for (HealthProbe probe : probes) {
+            if (!probe.check(PROBE_TIMEOUT_MS)) return false;
+        }
+        return true;
+    }
+
+    private void awaitTree(CompletableFuture<Void> treeExit) throws InterruptedException {
+        try {
+            treeExit.get(graceMs + 1000, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log(name + ": processes still running " + (graceMs + 1000) + " ms after kill");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void publish(State state, long readyMillis, String detail) {
+        Status next = new Status(state, status.restarts() + (state == State.RESTARTING ? 1 : 0), readyMillis, detail);
+        status = next;
+        Consumer<Status> l = listener;
+        if (l != null) l.accept(next);
+    }
+
+    private void log(String message) {
+        Consumer<String> l = logger;
+        if (l != null) l.accept(message);
+    }
+}
@@ -0,0 +1,227 @@
+package queuemaster.runtime;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import queuemaster.json.Json;
+
+/**
+ * The phases of one server start, from pressing Start until a client gets its
+ * {@code welcome}. A phase ends the first time either the child's output says so (Vite's
+ * "ready in" line, server.ts's "running on port") or an active probe of its port succeeds;
+ * the span records which. Each phase is measured from the end of the one it waits for, so
+ * Vite and the WebSocket server, which start in parallel, both begin when the spawn ends.
+ *
+ * <p>Finished launches are appended to a JSON-lines history ({@link #appendTo(Path)}), so
+ * startup times can be compared across upgrades.
+ */
+public final class StartupTimeline {
+    public static final long PROBE_INTERVAL_MS = 100;
+    public static final int PROBE_TIMEOUT_MS = 1_000;
+    public static final long PROBE_LIMIT_MS = 120_000;
+
+    public enum Phase {
+        NPM_RESOLVE("npm resolve", null),
+        SPAWN("process spawn", NPM_RESOLVE),
+        // Vite, or the launcher's dist/ server; the constant keeps its name for existing history
+        VITE_READY("UI ready", SPAWN),
+        WEBSOCKET_ACCEPTING("WebSocket accepting", SPAWN),
+        WELCOME("first welcome", WEBSOCKET_ACCEPTING);
+
+        private final String label;
+        private final Phase after;
+
+        Phase(String label, Phase after) {
+            this.label = label;
+            this.after = after;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    /** One finished phase, in milliseconds from the start of the launch. */
+    public record Span(Phase phase, long startMillis, long endMillis, String source) {
+        public long durationMillis() {
+            return endMillis - startMillis;
+        }
+    }
+
+    // ANSI colours and the "[0] " / "[1] " prefixes concurrently puts on each child's lines
+    private static final Pattern DECORATION = Pattern.compile("\\u001B\\[[0-9;]*m|^\\s*\\[\\w+\\]\\s*");
+    private static final Pattern VITE_READY_LINE = Pattern.compile("VITE v\\S+\\s+ready in");
+    private static final Pattern WEBSOCKET_LINE = Pattern.compile("WebSocket Server running on port");
+
+    private final long startedAt;
+    private final long startNanos;
+    private final String version;
+    private final String mode;
+    // Guarded by this
+    private final Map<Phase, Span> spans = new EnumMap<>(Phase.class);
+    private volatile Consumer<Span> listener;
+
+    /** Starts the clock; {@code mode} is the npm script run, {@code version} the app's. */
+    public StartupTimeline(String version, String mode) {
+        this(System.currentTimeMillis(), System.nanoTime(), version, mode);
+    }
+
+    private StartupTimeline(long startedAt, long startNanos, String version, String mode) {
+        this.startedAt = startedAt;
+        this.startNanos = startNanos;
+        this.version = version;
+        this.mode = mode;
+    }
+
+    /** Called with each phase as it ends, on the thread that ended it. */
+    public void setListener(Consumer<Span> listener) {
+        this.listener = listener;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    /** Ends {@code phase} now, unless it already ended. Returns whether this call ended it. */
+    public boolean complete(Phase phase, String source) {
+        Span span;
+        synchronized (this) {
+            if (spans.containsKey(phase)) return false;
+            long now = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            span = new Span(phase, Math.min(now, startOf(phase)), now, source);
+            spans.put(phase, span);
+        }
+        Consumer<Span> l = listener;
+        if (l != null) l.accept(span);
+        return true;
+    }
+
+    // The end of the phase it waits for; in embedded mode the WebSocket port is up before the
+    // spawn, so fall back to the latest phase already ended
+    private long startOf(Phase phase) {
+        Span previous = phase.after != null ? spans.get(phase.after) : null;
+        if (previous != null) return previous.endMillis();
+        long latest = 0;
+        for (Span span : spans.values()) latest = Math.max(latest, span.endMillis());
+        return latest;
+    }
+
+    /** Feeds one line of the child's output; lines that mark a phase end it. */
+    public void onOutput(String line) {
+        if (isComplete()) return;
+        String plain = DECORATION.matcher(line).replaceAll("");
+        if (VITE_READY_LINE.matcher(plain).find()) complete(Phase.VITE_READY, "log");
+        if (WEBSOCKET_LINE.matcher(plain).find()) complete(Phase.WEBSOCKET_ACCEPTING, "log");
+    }
+
+    /**
+     * Probes the ports until every phase has ended, {@code cancelled} turns true, or
+     * {@value #PROBE_LIMIT_MS} ms pass. Blocks; run it as a {@link BackgroundTasks} job once the
+     * process has been spawned. The welcome is only tried once the WebSocket port accepts.
+     */
+    public void probe(HealthProbe vite, HealthProbe webSocket, HealthProbe welcome, BooleanSupplier cancelled)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PROBE_LIMIT_MS);
+        while (!isComplete() && !cancelled.getAsBoolean() && System.nanoTime() < deadline) {
+            if (!isComplete(Phase.VITE_READY) && vite.check(PROBE_TIMEOUT_MS)) complete(Phase.VITE_READY, "probe");
+            if (!isComplete(Phase.WEBSOCKET_ACCEPTING) && webSocket.check(PROBE_TIMEOUT_MS)) {
+                complete(Phase.WEBSOCKET_ACCEPTING, "probe");
+            }
+            if (isComplete(Phase.WEBSOCKET_ACCEPTING) && welcome.check(PROBE_TIMEOUT_MS)) {
+                complete(Phase.WELCOME, "probe");
+            }
+            if (!isComplete()) Thread.sleep(PROBE_INTERVAL_MS);
+        }
+    }
+
+    public synchronized boolean isComplete(Phase phase) {
+        return spans.containsKey(phase);
+    }
+
+    public synchronized boolean isComplete() {
+        return spans.size() == Phase.values().length;
+    }
+
+    /** Ended phases in phase order. */
+    public synchronized List<Span> spans() {
+        return new ArrayList<>(spans.values());
+    }
+
+    /** From Start to the last phase that ended. */
+    public synchronized long totalMillis() {
+        long total = 0;
+        for (Span span : spans.values()) total = Math.max(total, span.endMillis());
+        return total;
+    }
+
+    public synchronized Map<String, Object> toJson() {
+        Map<String, Object> phases = new LinkedHashMap<>();
+        for (Span span : spans.values()) {
+            phases.put(span.phase().name(), List.of(span.startMillis(), span.endMillis(), span.source()));
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("startedAt", startedAt);
+        json.put("version", version);
+        json.put("mode", mode);
+        json.put("phases", phases);
+        return json;
+    }
+
+    @SuppressWarnings("unchecked")
+    static StartupTimeline fromJson(Map<String, Object> json) {
+        StartupTimeline timeline = new StartupTimeline(((Number) json.get("startedAt")).longValue(), 0,
+                (String) json.get("version"), (String) json.get("mode"));
+        Map<String, Object> phases = (Map<String, Object>) json.get("phases");
+        for (Map.Entry<String, Object> entry : phases.entrySet()) {
+            List<Object> span = (List<Object>) entry.getValue();
+            Phase phase = Phase.valueOf(entry.getKey());
+            timeline.spans.put(phase, new Span(phase, ((Number) span.get(0)).longValue(),
+                    ((Number) span.get(1)).longValue(), (String) span.get(2)));
+        }
+        return timeline;
+    }
+
+    /** Appends this launch, complete or not, as one line of {@code file}. */
+    public void appendTo(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, Json.write(toJson()) + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * The last {@code limit} launches in {@code file}, oldest first; none if it does not exist.
+     * A line that does not parse, such as one cut short by a crash, is skipped.
+     */
+    public static List<StartupTimeline> readHistory(Path file, int limit) throws IOException {
+        if (!Files.exists(file)) return List.of();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        List<StartupTimeline> history = new ArrayList<>();
+        for (String line : lines.subList(Math.max(0, lines.size() - limit), lines.size())) {
+            try {
+                history.add(fromJson(Json.parseObject(line)));
+            } catch (RuntimeException e) {
+                // Damaged line
+            }
+        }
+        return history;
+    }
+}
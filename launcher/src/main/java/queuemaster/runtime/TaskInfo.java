@@ -0,0 +1,22 @@
+package queuemaster.runtime;
+
+/**
+ * Point-in-time view of one background task for the diagnostics panel. Times are epoch
+ * millis; {@code startedAt}/{@code finishedAt} are 0 until the task gets there.
+ */
+public record TaskInfo(long id, String name, State state, String thread, long submittedAt,
+                       long startedAt, long finishedAt, String failure) {
+
+    public enum State { QUEUED, RUNNING, DONE, FAILED, CANCELLED }
+
+    /** Time spent waiting for a thread. */
+    public long queuedMillis() {
+        return (startedAt != 0 ? startedAt : System.currentTimeMillis()) - submittedAt;
+    }
+
+    /** Time spent running so far (or in total, once finished). */
+    public long runMillis() {
+        if (startedAt == 0) return 0;
+        return (finishedAt != 0 ? finishedAt : System.currentTimeMillis()) - startedAt;
+    }
+}
@@ -0,0 +1,242 @@
+package queuemaster.runtime;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Finds npm (and the Node.js directory next to it) once and remembers the answer.
+ *
+ * <p>A resolved {@link Toolchain} carries a fingerprint: the PATH it was found under and the
+ * modification times of the npm file and its directory. While the fingerprint still matches,
+ * {@link #resolve()} returns the cached toolchain after a couple of file stats, without
+ * spawning anything. The encoded form survives restarts through {@link #seed}.
+ *
+ * <p>On a miss, the candidates that only need a stat (the last known path, every PATH entry,
+ * the usual install locations) are checked first. Only if none exists are the slow probes
+ * ({@code npm --version}, {@code where npm}, {@code where node}) started, all at once on
+ * {@link BackgroundTasks}; the first in priority order that answers wins.
+ */
+public final class ToolchainResolver {
+    /** Upper bound for the process probes; a hung {@code where} must not hang the launcher. */
+    public static final long PROBE_TIMEOUT_MS = 10_000;
+    private static final boolean WINDOWS = System.getProperty("os.name").toLowerCase().contains("windows");
+
+    /** Where npm is, plus the fingerprint that tells whether that is still true. */
+    public record Toolchain(String npmPath, String nodeDirectory, int pathHash, long npmModified,
+                            long nodeModified, String source) {
+
+        /** Cheap revalidation: stats only. */
+        boolean isValid(int currentPathHash) {
+            if (currentPathHash != pathHash) return false;
+            File npm = new File(npmPath);
+            if (!npm.isAbsolute()) return true; // bare command: only PATH decides
+            if (npm.lastModified() != npmModified || npmModified == 0) return false;
+            return nodeDirectory == null || new File(nodeDirectory).lastModified() == nodeModified;
+        }
+
+        /** Single-line form for a preference value. */
+        public String encode() {
+            return String.join("|", npmPath, nodeDirectory != null ? nodeDirectory : "",
+                    Integer.toString(pathHash), Long.toString(npmModified), Long.toString(nodeModified));
+        }
+
+        static Toolchain decode(String encoded, String source) {
+            String[] parts = encoded.split("\\|", -1);
+            if (parts.length != 5 || parts[0].isEmpty()) return null;
+            try {
+                return new Toolchain(parts[0], parts[1].isEmpty() ? null : parts[1], Integer.parseInt(parts[2]),
+                        Long.parseLong(parts[3]), Long.parseLong(parts[4]), source);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    private final BackgroundTasks tasks;
+    private volatile Consumer<String> logger = System.out::println;
+    // Guarded by this
+    private Toolchain current;
+    private String hint;
+
+    public ToolchainResolver(BackgroundTasks tasks) {
+        this.tasks = tasks;
+    }
+
+    public void setLogger(Consumer<String> logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Primes the resolver from persisted state: a previously {@link Toolchain#encode() encoded}
+     * toolchain and the last npm path that worked. Either may be null.
+     */
+    public synchronized void seed(String encoded, String lastNpmPath) {
+        if (current == null && encoded != null) current = Toolchain.decode(encoded, "cache");
+        hint = lastNpmPath;
+    }
+
+    /** The last resolved toolchain, without revalidating or probing. May be null. */
+    public synchronized Toolchain current() {
+        return current;
+    }
+
+    public synchronized void invalidate() {
+        current = null;
+        hint = null;
+    }
+
+    /**
+     * Returns the cached toolchain if it is still valid, otherwise probes for npm. Concurrent
+     * callers share one probe. Returns null when npm cannot be found.
+     */
+    public synchronized Toolchain resolve() {
+        int pathHash = pathHash();
+        if (current != null && current.isValid(pathHash)) return current;
+        long started = System.nanoTime();
+        Toolchain found = statCandidates(pathHash);
+        if (found == null) found = probeProcesses(pathHash);
+        current = found;
+        log(found != null
+                ? String.format("npm resolved to %s (%s) in %.0f ms", found.npmPath(), found.source(), (System.nanoTime() - started) / 1e6)
+                : String.format("npm not found after %.0f ms", (System.nanoTime() - started) / 1e6));
+        return found;
+    }
+
+    private Toolchain statCandidates(int pathHash) {
+        Set<String> candidates = new LinkedHashSet<>();
+        if (hint != null) candidates.add(hint);
+        String path = System.getenv("PATH");
+        if (path != null) {
+            for (String dir : path.split(File.pathSeparator)) {
+                if (dir.isEmpty()) continue;
+                if (WINDOWS) candidates.add(new File(dir, "npm.cmd").getPath());
+                candidates.add(new File(dir, "npm").getPath());
+            }
+        }
+        // Common Node.js install locations (PATH is limited when double-clicked)
+        for (String base : new String[]{"C:\\Program Files", "C:\\Program Files (x86)",
+                System.getenv("ProgramFiles"), System.getenv("ProgramFiles(x86)")}) {
+            if (base != null) candidates.add(base + "\\nodejs\\npm.cmd");
+        }
+        String localAppData = System.getenv("LOCALAPPDATA");
+        if (localAppData != null) candidates.add(localAppData + "\\Programs\\nodejs\\npm.cmd");
+        String appData = System.getenv("APPDATA");
+        if (appData != null) candidates.add(appData + "\\npm\\npm.cmd");
+
+        for (String candidate : candidates) {
+            File file = new File(candidate);
+            if (file.isFile()) return toolchain(file.getAbsolutePath(), pathHash, candidate.equals(hint) ? "last known" : "scan");
+        }
+        return null;
+    }
+
+    private Toolchain probeProcesses(int pathHash) {
+        List<CompletableFuture<String>> probes = new ArrayList<>();
+        for (String cmd : new String[]{"npm.cmd", "npm"}) {
+            probes.add(probe("npm probe: " + cmd, () -> runsVersion(cmd) ? cmd : null));
+        }
+        if (WINDOWS) {
+            probes.add(probe("npm probe: where npm", () -> where("npm")));
+            probes.add(probe("npm probe: where node", () -> where("node")));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PROBE_TIMEOUT_MS);
+        try {
+            // Priority order: a later probe's answer is used only if every earlier one failed
+            for (CompletableFuture<String> probe : probes) {
+                String npm;
+                try {
+                    npm = probe.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException | TimeoutException e) {
+                    continue;
+                }
+                if (npm != null) return toolchain(npm, pathHash, "probe");
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            for (CompletableFuture<String> probe : probes) probe.cancel(true);
+        }
+    }
+
+    private interface Probe {
+        String run() throws Exception;
+    }
+
+    private CompletableFuture<String> probe(String name, Probe probe) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        try {
+            tasks.submit(name, () -> {
+                try {
+                    result.complete(probe.run());
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private static boolean runsVersion(String cmd) throws Exception {
+        ProcessBuilder pb = new ProcessBuilder(cmd, "--version");
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        Process p = pb.start();
+        try {
+            return p.waitFor(PROBE_TIMEOUT_MS, TimeUnit.MILLISECONDS) && p.exitValue() == 0;
+        } finally {
+            p.destroyForcibly();
+        }
+    }
+
+    /** {@code where npm} / {@code where node} through cmd, mapped to an npm path. */
+    private static String where(String program) throws Exception {
+        ProcessBuilder pb = new ProcessBuilder("cmd", "/c", "where " + program);
+        pb.redirectErrorStream(true);
+        Process p = pb.start();
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+            String line = r.readLine();
+            if (line == null || line.isEmpty() || line.contains("INFO:")) return null;
+            line = line.trim();
+            if (line.endsWith("npm.cmd") || line.endsWith("npm")) return line;
+            if (line.endsWith("node.exe")) {
+                File npmFile = new File(new File(line).getParent(), "npm.cmd");
+                if (npmFile.exists()) return npmFile.getAbsolutePath();
+            }
+            return null;
+        } finally {
+            p.destroyForcibly();
+        }
+    }
+
+    private static Toolchain toolchain(String npmPath, int pathHash, String source) {
+        File npm = new File(npmPath);
+        if (!npm.isAbsolute()) return new Toolchain(npmPath, null, pathHash, 0, 0, source);
+        File nodeDirectory = npm.getAbsoluteFile().getParentFile();
+        return new Toolchain(npm.getAbsolutePath(), nodeDirectory != null ? nodeDirectory.getPath() : null, pathHash,
+                npm.lastModified(), nodeDirectory != null ? nodeDirectory.lastModified() : 0, source);
+    }
+
+    private static int pathHash() {
+        String path = System.getenv("PATH");
+        return path != null ? path.hashCode() : 0;
+    }
+
+    private void log(String message) {
+        Consumer<String> sink = logger;
+        if (sink != null) sink.accept(message);
+    }
+}
@@ -0,0 +1,108 @@
+package queuemaster.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import queuemaster.json.Json;
+import queuemaster.realtime.HttpHandler;
+import queuemaster.realtime.HttpRequest;
+import queuemaster.realtime.HttpResponse;
+import queuemaster.stats.AnalyticsRollups;
+import queuemaster.stats.AnalyticsRollups.Granularity;
+
+/**
+ * {@code GET /api/analytics} on the realtime port: rollups from {@link AnalyticsRollups}.
+ *
+ * <pre>
+ * /api/analytics?granularity=hour&amp;from=1718000000000&amp;to=1718086400000&amp;by=category,teller
+ * </pre>
+ *
+ * {@code granularity} is {@code minute}, {@code hour} (default) or {@code day}; {@code from}
+ * and {@code to} are epoch milliseconds, defaulting to the last 60 minutes, 24 hours or 30
+ * days. {@code by} picks the breakdowns included ({@code category}, {@code teller}, or
+ * {@code none} for totals only). The response holds the buckets in range and a
+ * {@code summary} of them added together.
+ */
+final class AnalyticsApi implements HttpHandler {
+    static final String PATH = "/api/analytics";
+
+    private final AnalyticsRollups rollups;
+
+    AnalyticsApi(AnalyticsRollups rollups) {
+        this.rollups = rollups;
+    }
+
+    @Override
+    public HttpResponse handle(HttpRequest request) {
+        if (!PATH.equals(request.getPath())) return null;
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return cors(HttpResponse.text(405, "Method Not Allowed", "")).header("Allow", "GET, HEAD");
+        }
+        Map<String, String> query = request.getQuery();
+        Granularity granularity = Granularity.parse(query.getOrDefault("granularity", "hour"));
+        if (granularity == null) return badRequest("granularity must be minute, hour or day");
+        long to;
+        long from;
+        try {
+            to = query.containsKey("to") ? Long.parseLong(query.get("to")) : System.currentTimeMillis() + 1;
+            from = query.containsKey("from") ? Long.parseLong(query.get("from")) : to - defaultSpan(granularity);
+        } catch (NumberFormatException e) {
+            return badRequest("from and to must be epoch milliseconds");
+        }
+        String by = query.getOrDefault("by", "category,teller");
+        boolean byCategory = by.contains("category");
+        boolean byTeller = by.contains("teller");
+
+        // Align to bucket starts so the first bucket in range is not cut off
+        from = rollups.bucketStart(granularity, from);
+        List<Map<String, Object>> buckets = new ArrayList<>();
+        for (AnalyticsRollups.Rollup rollup : rollups.query(granularity, from, to)) {
+            buckets.add(toJson(rollup, byCategory, byTeller));
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("granularity", granularity.name().toLowerCase(Locale.ROOT));
+        body.put("bucketMillis", granularity.getMillis());
+        body.put("from", from);
+        body.put("to", to);
+        body.put("version", rollups.getVersion());
+        body.put("buckets", buckets);
+        body.put("summary", toJson(rollups.summarize(granularity, from, to), byCategory, byTeller));
+        return cors(new HttpResponse(200, "OK", "application/json; charset=utf-8",
+                Json.write(body).getBytes(StandardCharsets.UTF_8))).header("Cache-Control", "no-store");
+    }
+
+    private static long defaultSpan(Granularity granularity) {
+        switch (granularity) {
+            case MINUTE: return 60 * Granularity.MINUTE.getMillis();
+            case DAY: return 30 * Granularity.DAY.getMillis();
+            default: return 24 * Granularity.HOUR.getMillis();
+        }
+    }
+
+    private static Map<String, Object> toJson(AnalyticsRollups.Rollup rollup, boolean byCategory, boolean byTeller) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("start", rollup.start());
+        json.put("total", rollup.total().toJson());
+        if (byCategory) json.put("categories", toJson(rollup.categories()));
+        if (byTeller) json.put("tellers", toJson(rollup.tellers()));
+        return json;
+    }
+
+    private static Map<String, Object> toJson(Map<String, AnalyticsRollups.Counters> counters) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        counters.forEach((id, value) -> json.put(id, value.toJson()));
+        return json;
+    }
+
+    private static HttpResponse badRequest(String message) {
+        return cors(HttpResponse.text(400, "Bad Request", message));
+    }
+
+    /** Dashboards are served from another origin (Vite, or the Node server's port). */
+    private static HttpResponse cors(HttpResponse response) {
+        return response.header("Access-Control-Allow-Origin", "*");
+    }
+}
@@ -0,0 +1,369 @@
+package queuemaster.server;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import queuemaster.engine.QueueEngine;
+import queuemaster.engine.Ticket;
+import queuemaster.engine.TicketArchive;
+import queuemaster.engine.TicketNumberAllocator;
+import queuemaster.realtime.ClientStats;
+import queuemaster.realtime.CoalescingStats;
+import queuemaster.realtime.OverflowPolicy;
+import queuemaster.realtime.RealtimeMetrics;
+import queuemaster.realtime.RealtimeRelay;
+import queuemaster.realtime.WebSocketServer;
+import queuemaster.stats.AnalyticsRollups;
+import queuemaster.store.FsyncPolicy;
+import queuemaster.store.Journal;
+import queuemaster.store.Snapshot;
+import queuemaster.store.SnapshotStore;
+
+/**
+ * The in-process replacement for server.ts: a {@link QueueEngine} exposed over the realtime
+ * WebSocket protocol, plus expiry of tickets older than the retention window (a day by
+ * default), which hands them to a {@link TicketArchive}.
+ *
+ * <p>With a data directory, every mutation is written to a {@link Journal} and the journal is
+ * replayed into the engine on start, before the port is opened, so a restart or crash no
+ * longer loses the day's queue. A binary {@link Snapshot} is written every
+ * {@value #SNAPSHOT_INTERVAL_MINUTES} minutes and on stop; start loads the newest one and
+ * replays only the journal after it, and journal segments older than the snapshots are deleted.
+ *
+ * <p>Wait-time estimates are pushed to clients every {@value #WAIT_ESTIMATE_INTERVAL_SECONDS}
+ * seconds, when something changed, and minute/hour/day rollups are served over HTTP at
+ * {@code /api/analytics} on the same port, with reports over archived days at
+ * {@code /api/history}.
+ *
+ * <p>Entity updates are coalesced for {@value #DEFAULT_COALESCE_WINDOW_MILLIS} ms by default:
+ * a ticket or teller changing again within the window is broadcast once, in its latest state.
+ *
+ * <p>Every client is pinged each {@value #PING_INTERVAL_SECONDS} seconds to measure its round
+ * trip, and {@code /metrics} serves the relay's counters and latencies in Prometheus format.
+ */
+public class EmbeddedServer {
+    public static final int DEFAULT_PORT = 8080;
+    /** Per-client outbound bound; a monitor this far behind is resynced rather than waited for. */
+    public static final int MAX_QUEUED_FRAMES = 512;
+    public static final int SNAPSHOT_INTERVAL_MINUTES = 10;
+    public static final int DEFAULT_RETENTION_HOURS = 24;
+    public static final int EXPIRY_INTERVAL_MINUTES = 15;
+    public static final int WAIT_ESTIMATE_INTERVAL_SECONDS = 5;
+    public static final int DEFAULT_COALESCE_WINDOW_MILLIS = 25;
+    public static final int PING_INTERVAL_SECONDS = 10;
+
+    private final QueueEngine engine;
+    private final int port;
+    private final Path dataDirectory;
+    // Kept across stop/start like the engine: a restart that skips replay must not reset numbering
+    private final TicketNumberAllocator ticketNumbers = new TicketNumberAllocator();
+    // Also kept: rebuilding from the archive on every restart would cost a read of its whole year
+    private final AnalyticsRollups analytics = new AnalyticsRollups();
+    private boolean analyticsLoaded;
+    private volatile Consumer<String> logger = System.out::println;
+    private volatile FsyncPolicy fsyncPolicy = FsyncPolicy.BATCH;
+    private volatile int retentionHours = DEFAULT_RETENTION_HOURS;
+    private volatile TicketArchive archive = TicketArchive.DISCARD;
+    private volatile int coalesceWindowMillis = DEFAULT_COALESCE_WINDOW_MILLIS;
+
+    private ScheduledExecutorService maintenance;
+    // Written under the server monitor, read by takeSnapshot() and the launcher's metrics
+    // sampler without it: stop() waits for the maintenance thread while holding the monitor
+    private volatile WebSocketServer webSocketServer;
+    private volatile RealtimeRelay relay;
+    private volatile Journal journal;
+    private volatile SnapshotStore snapshots;
+    private boolean recovered;
+
+    // Guarded by snapshotLock: one snapshot at a time, without holding the server monitor
+    private final Object snapshotLock = new Object();
+    private long lastSnapshotSeq = -1;
+
+    /** In-memory only: nothing survives a restart (load tests, benchmarks). */
+    public EmbeddedServer(QueueEngine engine, int port) {
+        this(engine, port, null);
+    }
+
+    /** Durable: mutations are journaled under {@code dataDirectory}. */
+    public EmbeddedServer(QueueEngine engine, int port, Path dataDirectory) {
+        this.engine = engine;
+        this.port = port;
+        this.dataDirectory = dataDirectory;
+    }
+
+    /** Takes effect on the next {@link #start()}. */
+    public void setFsyncPolicy(FsyncPolicy fsyncPolicy) {
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    /** How long tickets stay in the engine (and in {@code sync}) after they are created. */
+    public void setRetentionHours(int retentionHours) {
+        this.retentionHours = Math.max(1, retentionHours);
+    }
+
+    /** Where expired tickets go; {@link TicketArchive#DISCARD} drops them. */
+    public void setArchive(TicketArchive archive) {
+        this.archive = archive != null ? archive : TicketArchive.DISCARD;
+    }
+
+    /** How long updates wait for a newer one to the same entity; 0 disables. Takes effect on the next {@link #start()}. */
+    public void setCoalesceWindowMillis(int coalesceWindowMillis) {
+        this.coalesceWindowMillis = Math.max(0, coalesceWindowMillis);
+    }
+
+    public void setLogger(Consumer<String> logger) {
+        this.logger = logger;
+    }
+
+    public synchronized void start() throws IOException {
+        if (webSocketServer != null) return;
+        relay = new RealtimeRelay(engine, RealtimeRelay.DEFAULT_EVENT_LOG_CAPACITY, ticketNumbers, analytics);
+        relay.setLogger(logger);
+        relay.setCoalesceWindowMillis(coalesceWindowMillis);
+        if (dataDirectory != null) {
+            try {
+                openStore();
+            } catch (IOException | RuntimeException e) {
+                relay.close();
+                closeJournal();
+                throw e;
+            }
+        }
+        if (!analyticsLoaded) loadAnalytics();
+        WebSocketServer server = new WebSocketServer(port, WebSocketServer.defaultIoThreads(), relay);
+        server.setLogger(logger);
+        server.setBackpressure(MAX_QUEUED_FRAMES, OverflowPolicy.RESYNC);
+        server.addHttpHandler(new AnalyticsApi(relay.getAnalytics()));
+        server.addHttpHandler(new HistoryApi(archive));
+        server.addHttpHandler(new MetricsApi(relay));
+        relay.attach(server);
+        server.start();
+        webSocketServer = server;
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "qm-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        maintenance.scheduleWithFixedDelay(this::cleanUpOldTickets, EXPIRY_INTERVAL_MINUTES,
+                EXPIRY_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        maintenance.scheduleWithFixedDelay(this::publishWaitEstimates, WAIT_ESTIMATE_INTERVAL_SECONDS,
+                WAIT_ESTIMATE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        maintenance.scheduleWithFixedDelay(server::pingAll, PING_INTERVAL_SECONDS, PING_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        if (journal != null) {
+            maintenance.scheduleWithFixedDelay(() -> snapshotQuietly(false), SNAPSHOT_INTERVAL_MINUTES,
+                    SNAPSHOT_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        }
+
+        log("QueueMaster Pro WebSocket Server running on port " + port + " (embedded)");
+        log("Central storage initialized with: " + engine.size() + " tickets, "
+                + engine.categories().size() + " categories, " + engine.tellers().size() + " tellers");
+    }
+
+    public synchronized void stop() {
+        if (webSocketServer == null) return;
+        // Let a running snapshot finish rather than interrupting its file write
+        maintenance.shutdown();
+        try {
+            maintenance.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        relay.close();
+        webSocketServer.stop();
+        webSocketServer = null;
+        snapshotQuietly(false);
+        relay = null;
+        closeJournal();
+        log("Embedded server stopped");
+    }
+
+    // The getters below read the volatile fields without the monitor, so the EDT polling them
+    // never waits out a stop()
+
+    public boolean isRunning() {
+        return webSocketServer != null;
+    }
+
+    public int getConnectionCount() {
+        WebSocketServer server = webSocketServer;
+        return server != null ? server.getConnectionCount() : 0;
+    }
+
+    /** Per-client queue depth and drop counters; empty when stopped. */
+    public List<ClientStats> getClientStats() {
+        WebSocketServer server = webSocketServer;
+        return server != null ? server.getClientStats() : Collections.emptyList();
+    }
+
+    /** Updates published and coalesced away since start; null when stopped. */
+    public CoalescingStats getCoalescingStats() {
+        RealtimeRelay current = runningRelay();
+        return current != null ? current.getCoalescingStats() : null;
+    }
+
+    /** Counters of the running server's relay, or null when stopped. */
+    public RealtimeMetrics getMetrics() {
+        RealtimeRelay current = runningRelay();
+        return current != null ? current.getMetrics() : null;
+    }
+
+    public Map<String, Integer> getClientsByRole() {
+        RealtimeRelay current = runningRelay();
+        return current != null ? current.clientsByRole() : Collections.emptyMap();
+    }
+
+    /** The relay while the port is open; start() sets it before the server and stop() clears it after. */
+    private RealtimeRelay runningRelay() {
+        RealtimeRelay current = relay;
+        return webSocketServer != null ? current : null;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public QueueEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Writes a snapshot of the current state unless nothing changed since the last one, then
+     * deletes the journal segments the retained snapshots cover. No-op when not journaling.
+     */
+    public void takeSnapshot() throws IOException {
+        takeSnapshot(false);
+    }
+
+    private void takeSnapshot(boolean evenIfUnchanged) throws IOException {
+        RealtimeRelay currentRelay = relay;
+        Journal currentJournal = journal;
+        SnapshotStore store = snapshots;
+        if (currentRelay == null || currentJournal == null || store == null) return;
+        synchronized (snapshotLock) {
+            Snapshot snapshot = currentRelay.snapshot();
+            if (snapshot.seq() == lastSnapshotSeq && !evenIfUnchanged) return;
+            long started = System.nanoTime();
+            Path file = store.write(snapshot);
+            lastSnapshotSeq = snapshot.seq();
+            long covered = store.prune(SnapshotStore.DEFAULT_KEEP);
+            int deleted = currentJournal.deleteSegmentsThrough(covered);
+            log(String.format("Snapshot at seq %d: %d tickets, %d KB in %.0f ms%s", snapshot.seq(),
+                    snapshot.tickets().size(), Files.size(file) / 1024, (System.nanoTime() - started) / 1e6,
+                    deleted > 0 ? " (" + deleted + " journal segments released)" : ""));
+        }
+    }
+
+    private void snapshotQuietly(boolean evenIfUnchanged) {
+        try {
+            takeSnapshot(evenIfUnchanged);
+        } catch (IOException | RuntimeException e) {
+            log("Snapshot failed: " + e.getMessage());
+        }
+    }
+
+    private void publishWaitEstimates() {
+        RealtimeRelay currentRelay = relay;
+        if (currentRelay == null) return;
+        try {
+            currentRelay.publishWaitEstimates();
+        } catch (RuntimeException e) {
+            log("Wait estimate broadcast failed: " + e.getMessage());
+        }
+    }
+
+    private void openStore() throws IOException {
+        long started = System.nanoTime();
+        snapshots = new SnapshotStore(dataDirectory.resolve("snapshots"));
+        snapshots.setLogger(logger);
+        journal = Journal.open(dataDirectory.resolve("journal"), fsyncPolicy, Journal.DEFAULT_SEGMENT_BYTES);
+        if (recovered) {
+            // The engine already holds everything up to the journal tail; only continue numbering
+            relay.resume(journal);
+            return;
+        }
+        Snapshot snapshot = snapshots.loadLatest();
+        long afterSeq = 0;
+        if (snapshot != null) {
+            snapshot.restoreInto(engine);
+            snapshot.counters().forEach(ticketNumbers::restore);
+            afterSeq = snapshot.seq();
+            synchronized (snapshotLock) {
+                lastSnapshotSeq = afterSeq;
+            }
+        }
+        long loaded = System.nanoTime();
+        int replayed = relay.recover(journal, afterSeq);
+        recovered = true;
+        if (snapshot != null || replayed > 0) {
+            log(String.format("Recovered %d tickets from snapshot (seq %d) in %.0f ms + %d journal events in %.0f ms (fsync: %s)",
+                    snapshot != null ? snapshot.tickets().size() : 0, afterSeq, (loaded - started) / 1e6,
+                    replayed, (System.nanoTime() - loaded) / 1e6, fsyncPolicy));
+            cleanUpOldTickets();
+        }
+    }
+
+    /** Counts the archive's history and the engine's tickets into the rollups, once per process. */
+    private void loadAnalytics() {
+        long started = System.nanoTime();
+        try {
+            analytics.rebuild(engine, archive);
+            log(String.format("Analytics rebuilt from the archive and %d tickets in %.0f ms (%d buckets)",
+                    engine.size(), (System.nanoTime() - started) / 1e6, analytics.bucketCount()));
+        } catch (IOException | RuntimeException e) {
+            log("Reading the ticket archive for analytics failed, history is incomplete: " + e.getMessage());
+        }
+        analyticsLoaded = true;
+    }
+
+    private void closeJournal() {
+        snapshots = null;
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log("Journal close failed: " + e.getMessage());
+        }
+        journal = null;
+    }
+
+    private void cleanUpOldTickets() {
+        List<Ticket> expired;
+        try {
+            expired = engine.expireCreatedBefore(System.currentTimeMillis() - retentionHours * 3_600_000L);
+        } catch (RuntimeException e) {
+            log("Ticket cleanup failed: " + e.getMessage());
+            return;
+        }
+        if (expired.isEmpty()) return;
+        // Archive outside the engine lock; publishing continues meanwhile
+        try {
+            archive.archive(expired);
+        } catch (IOException | RuntimeException e) {
+            // Put them back so the next cleanup retries; a snapshot now would lose them for good
+            for (Ticket ticket : expired) {
+                if (engine.getTicket(ticket.getId()) == null) engine.upsertTicket(ticket);
+            }
+            log("Archiving " + expired.size() + " expired tickets failed, kept for the next cleanup: " + e.getMessage());
+            return;
+        }
+        RealtimeRelay currentRelay = relay;
+        if (currentRelay != null) currentRelay.getDispatcher().forget(expired);
+        log("Cleaned up " + expired.size() + " old tickets (" + engine.activeSize() + " active, "
+                + (engine.size() - engine.activeSize()) + " finished kept)");
+        // Expiry is not journaled; a fresh snapshot keeps a restart from resurrecting and re-archiving them
+        snapshotQuietly(true);
+    }
+
+    private void log(String message) {
+        Consumer<String> sink = logger;
+        if (sink != null) sink.accept(message);
+    }
+}
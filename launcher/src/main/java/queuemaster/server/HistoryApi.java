@@ -0,0 +1,88 @@
+package queuemaster.server;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import queuemaster.engine.TicketArchive;
+import queuemaster.json.Json;
+import queuemaster.realtime.HttpHandler;
+import queuemaster.realtime.HttpRequest;
+import queuemaster.realtime.HttpResponse;
+import queuemaster.store.ColumnarArchive;
+
+/**
+ * {@code GET /api/history} on the realtime port: totals over any range of archived days from
+ * the {@link ColumnarArchive}, for the month and year reports the rollups do not reach.
+ *
+ * <pre>
+ * /api/history?from=2024-03-01&amp;to=2024-03-31&amp;category=cat-3&amp;teller=teller-2
+ * </pre>
+ *
+ * {@code from} and {@code to} are local dates, inclusive, defaulting to the 30 days before
+ * today; {@code category} and {@code teller} narrow the totals and are optional. Only expired
+ * tickets are archived, so today and the rest of the retention window are not included.
+ * Answers 404 unless expired tickets go to the columnar archive.
+ */
+final class HistoryApi implements HttpHandler {
+    static final String PATH = "/api/history";
+
+    private final TicketArchive archive;
+
+    HistoryApi(TicketArchive archive) {
+        this.archive = archive;
+    }
+
+    @Override
+    public HttpResponse handle(HttpRequest request) {
+        if (!PATH.equals(request.getPath())) return null;
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return cors(HttpResponse.text(405, "Method Not Allowed", "")).header("Allow", "GET, HEAD");
+        }
+        if (!(archive instanceof ColumnarArchive columnar)) {
+            return cors(HttpResponse.text(404, "Not Found", "History needs expired tickets archived in the columnar format"));
+        }
+        Map<String, String> query = request.getQuery();
+        LocalDate from;
+        LocalDate to;
+        try {
+            to = query.containsKey("to") ? LocalDate.parse(query.get("to")) : LocalDate.now().minusDays(1);
+            from = query.containsKey("from") ? LocalDate.parse(query.get("from")) : to.minusDays(29);
+        } catch (DateTimeParseException e) {
+            return badRequest("from and to must be dates such as 2024-03-01");
+        }
+        if (from.isAfter(to)) return badRequest("from must not be after to");
+        String categoryId = query.get("category");
+        String tellerId = query.get("teller");
+
+        ColumnarArchive.RangeStats stats;
+        try {
+            stats = columnar.stats(from, to, categoryId, tellerId);
+        } catch (IOException e) {
+            return cors(HttpResponse.text(500, "Internal Server Error", "Reading the archive failed: " + e.getMessage()));
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("from", from.toString());
+        body.put("to", to.toString());
+        body.put("category", categoryId);
+        body.put("teller", tellerId);
+        body.put("tickets", stats.tickets());
+        body.put("served", stats.served());
+        body.put("noShows", stats.noShows());
+        body.put("avgWaitMs", stats.waitCount() > 0 ? Math.round(stats.averageWaitMillis()) : null);
+        body.put("avgServiceMs", stats.serviceCount() > 0 ? Math.round(stats.averageServiceMillis()) : null);
+        return cors(new HttpResponse(200, "OK", "application/json; charset=utf-8",
+                Json.write(body).getBytes(StandardCharsets.UTF_8))).header("Cache-Control", "no-store");
+    }
+
+    private static HttpResponse badRequest(String message) {
+        return cors(HttpResponse.text(400, "Bad Request", message));
+    }
+
+    /** Dashboards are served from another origin (Vite, or the Node server's port). */
+    private static HttpResponse cors(HttpResponse response) {
+        return response.header("Access-Control-Allow-Origin", "*");
+    }
+}
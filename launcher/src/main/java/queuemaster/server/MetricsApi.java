@@ -0,0 +1,67 @@
+package queuemaster.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import queuemaster.metrics.JvmMetrics;
+import queuemaster.metrics.PrometheusText;
+import queuemaster.realtime.CoalescingStats;
+import queuemaster.realtime.HttpHandler;
+import queuemaster.realtime.HttpRequest;
+import queuemaster.realtime.HttpResponse;
+import queuemaster.realtime.RealtimeMetrics;
+import queuemaster.realtime.RealtimeRelay;
+
+/**
+ * {@code GET /metrics} on the realtime port, in Prometheus text format, for a monitoring box
+ * to scrape: clients by role, messages received and broadcast by type, broadcast fan-out
+ * time, client ping round trips, coalescing, and the JVM's heap and GC. Counters restart from
+ * zero with the server, which Prometheus' {@code rate()} handles.
+ */
+final class MetricsApi implements HttpHandler {
+    static final String PATH = "/metrics";
+
+    private final RealtimeRelay relay;
+
+    MetricsApi(RealtimeRelay relay) {
+        this.relay = relay;
+    }
+
+    @Override
+    public HttpResponse handle(HttpRequest request) {
+        if (!PATH.equals(request.getPath())) return null;
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return HttpResponse.text(405, "Method Not Allowed", "").header("Allow", "GET, HEAD");
+        }
+        return new HttpResponse(200, "OK", PrometheusText.CONTENT_TYPE, render().getBytes(StandardCharsets.UTF_8))
+                .header("Cache-Control", "no-store");
+    }
+
+    String render() {
+        RealtimeMetrics metrics = relay.getMetrics();
+        CoalescingStats coalescing = relay.getCoalescingStats();
+        JvmMetrics jvm = JvmMetrics.read();
+        Map<String, Double> gcSeconds = new LinkedHashMap<>();
+        jvm.gcMillis().forEach((gc, millis) -> gcSeconds.put(gc, millis / 1000.0));
+        return new PrometheusText()
+                .gauge("qm_clients", "Open realtime connections by declared role.", "role", relay.clientsByRole())
+                .counter("qm_messages_received_total", "Messages received from clients by type.", "type",
+                        metrics.receivedByType())
+                .counter("qm_messages_broadcast_total", "Messages broadcast to all clients by type.", "type",
+                        metrics.broadcastByType())
+                .histogram("qm_broadcast_fanout_seconds", "Time to queue one broadcast for every client.",
+                        metrics.fanOut())
+                .histogram("qm_client_rtt_seconds", "Round trip of server pings to clients.", metrics.rtt())
+                .counter("qm_updates_total", "Sequenced entity updates published.", coalescing.updates())
+                .counter("qm_updates_coalesced_total", "Updates replaced by a newer one before broadcast.",
+                        coalescing.coalesced())
+                .gauge("qm_event_seq", "Last event sequence number.", relay.getSeq())
+                .gauge("jvm_memory_heap_used_bytes", "Heap in use.", jvm.heapUsed())
+                .gauge("jvm_memory_heap_committed_bytes", "Heap reserved from the OS.", jvm.heapCommitted())
+                .gauge("jvm_memory_heap_max_bytes", "Heap limit, -1 if none.", jvm.heapMax())
+                .counter("jvm_gc_collections_total", "Garbage collections by collector.", "gc", jvm.gcCount())
+                .counter("jvm_gc_collection_seconds_total", "Time spent in garbage collection by collector.", "gc",
+                        gcSeconds)
+                .toString();
+    }
+}
@@ -0,0 +1,329 @@
+package queuemaster.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import queuemaster.realtime.HttpHandler;
+import queuemaster.realtime.HttpRequest;
+import queuemaster.realtime.HttpResponse;
+import queuemaster.runtime.BackgroundTasks;
+
+/**
+ * The built web app ({@code npm run build} into {@code dist/}) and any extra directories
+ * mounted beside it, indexed once and served without touching the disk for text assets.
+ *
+ * <p>Text assets up to {@value #MAX_CACHED_BYTES} bytes are held in memory together with a
+ * gzip variant compressed once at load, and a brotli one if the build wrote a {@code .br}
+ * file next to the asset. Everything else (the announcement sound, images, fonts) is sent
+ * from the page cache with {@code transferTo}, with single byte ranges for media players.
+ * Vite's hashed {@code /assets/} files are cached by browsers for a year; other files carry
+ * an ETag and are revalidated, so a rebuild reaches every screen on its next load. Paths
+ * without an extension fall back to {@code index.html} for client-side routes.
+ *
+ * <p>A rebuild is picked up within {@value #RELOAD_CHECK_MS} ms of the next request, by the
+ * modification time of {@code index.html}. It is indexed and compressed on
+ * {@link BackgroundTasks}, not the I/O thread that noticed it, and the previous build is
+ * served until the new one replaces it whole.
+ */
+final class StaticAssets implements HttpHandler {
+    static final int MAX_CACHED_BYTES = 8 * 1024 * 1024;
+    private static final int MIN_COMPRESSED_BYTES = 1024;
+    private static final long RELOAD_CHECK_MS = 1000;
+    private static final String INDEX = "/index.html";
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "no-cache";
+
+    private static final Map<String, String> CONTENT_TYPES = Map.ofEntries(
+            Map.entry("html", "text/html; charset=utf-8"),
+            Map.entry("js", "text/javascript; charset=utf-8"),
+            Map.entry("mjs", "text/javascript; charset=utf-8"),
+            Map.entry("css", "text/css; charset=utf-8"),
+            Map.entry("json", "application/json; charset=utf-8"),
+            Map.entry("webmanifest", "application/manifest+json; charset=utf-8"),
+            Map.entry("map", "application/json; charset=utf-8"),
+            Map.entry("txt", "text/plain; charset=utf-8"),
+            Map.entry("svg", "image/svg+xml"),
+            Map.entry("png", "image/png"),
+            Map.entry("jpg", "image/jpeg"),
+            Map.entry("jpeg", "image/jpeg"),
+            Map.entry("gif", "image/gif"),
+            Map.entry("webp", "image/webp"),
+            Map.entry("ico", "image/x-icon"),
+            Map.entry("woff", "font/woff"),
+            Map.entry("woff2", "font/woff2"),
+            Map.entry("mp3", "audio/mpeg"),
+            Map.entry("wav", "audio/wav"),
+            Map.entry("ogg", "audio/ogg"),
+            Map.entry("mp4", "video/mp4"),
+            Map.entry("wasm", "application/wasm"));
+
+    /** One servable file; {@code identity} is null for files sent from disk. */
+    private record Asset(Path file, String contentType, long length, String etag, String cacheControl,
+                         byte[] identity, byte[] gzip, byte[] brotli) {
+    }
+
+    private final Path root;
+    private final BackgroundTasks tasks;
+    private final Map<String, Path> mounts = new LinkedHashMap<>();
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private volatile Map<String, Asset> assets = Map.of();
+    private volatile long indexModified = -1;
+    private volatile long checkedAt;
+    private volatile Consumer<String> logger;
+
+    StaticAssets(Path root, BackgroundTasks tasks) {
+        this.root = root;
+        this.tasks = tasks;
+    }
+
+    /** Serves {@code directory} under {@code prefix} (e.g. {@code /sounds/}) as well. */
+    void mount(String prefix, Path directory) {
+        mounts.put(prefix.endsWith("/") ? prefix : prefix + "/", directory);
+    }
+
+    void setLogger(Consumer<String> logger) {
+        this.logger = logger;
+    }
+
+    int size() {
+        return assets.size();
+    }
+
+    /** Indexes every file; throws if {@code dist/index.html} is missing. */
+    synchronized void load() throws IOException {
+        Path index = root.resolve("index.html");
+        long modified = Files.getLastModifiedTime(index).toMillis();
+        Map<String, Asset> loaded = new HashMap<>();
+        long cachedBytes = 0;
+        cachedBytes += index(root, "/", loaded);
+        for (Map.Entry<String, Path> mount : mounts.entrySet()) {
+            if (Files.isDirectory(mount.getValue())) cachedBytes += index(mount.getValue(), mount.getKey(), loaded);
+        }
+        assets = loaded;
+        indexModified = modified;
+        checkedAt = System.currentTimeMillis();
+        log(String.format("Serving %d files from %s (%d KB held in memory)", loaded.size(), root, cachedBytes / 1024));
+    }
+
+    private long index(Path directory, String prefix, Map<String, Asset> into) throws IOException {
+        long cachedBytes = 0;
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                String name = file.getFileName().toString();
+                // Precompressed siblings are variants of their asset, not assets of their own
+                if (name.endsWith(".gz") || name.endsWith(".br")) continue;
+                String urlPath = prefix + directory.relativize(file).toString().replace('\\', '/');
+                Asset asset = read(file, urlPath);
+                into.put(urlPath, asset);
+                if (asset.identity() != null) {
+                    cachedBytes += asset.identity().length + (asset.gzip() != null ? asset.gzip().length : 0)
+                            + (asset.brotli() != null ? asset.brotli().length : 0);
+                }
+            }
+        }
+        return cachedBytes;
+    }
+
+    private static Asset read(Path file, String urlPath) throws IOException {
+        String contentType = contentType(urlPath);
+        String cacheControl = urlPath.startsWith("/assets/") ? IMMUTABLE : REVALIDATE;
+        long length = Files.size(file);
+        if (!isText(contentType) || length > MAX_CACHED_BYTES) {
+            String etag = "\"" + Long.toHexString(Files.getLastModifiedTime(file).toMillis()) + "-" + Long.toHexString(length) + "\"";
+            return new Asset(file, contentType, length, etag, cacheControl, null, null, null);
+        }
+        byte[] identity = Files.readAllBytes(file);
+        CRC32 crc = new CRC32();
+        crc.update(identity);
+        String etag = "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(identity.length) + "\"";
+        byte[] gzip = null;
+        byte[] brotli = null;
+        if (identity.length >= MIN_COMPRESSED_BYTES) {
+            Path gz = file.resolveSibling(file.getFileName() + ".gz");
+            gzip = Files.isRegularFile(gz) ? Files.readAllBytes(gz) : gzip(identity);
+            if (gzip.length >= identity.length) gzip = null;
+            Path br = file.resolveSibling(file.getFileName() + ".br");
+            if (Files.isRegularFile(br)) brotli = Files.readAllBytes(br);
+        }
+        return new Asset(file, contentType, identity.length, etag, cacheControl, identity, gzip, brotli);
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 3);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {{ def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    static String contentType(String path) {
+        int dot = path.lastIndexOf('.');
+        String extension = dot >= 0 ? path.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+        return CONTENT_TYPES.getOrDefault(extension, "application/octet-stream");
+    }
+
+    private static boolean isText(String contentType) {
+        return contentType.startsWith("text/") || contentType.startsWith("application/json")
+                || contentType.startsWith("application/manifest+json") || contentType.equals("image/svg+xml");
+    }
+
+    @Override
+    public HttpResponse handle(HttpRequest request) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return HttpResponse.text(405, "Method Not Allowed", "").header("Allow", "GET, HEAD");
+        }
+        reloadIfChanged();
+        String path;
+        try {
+            path = URLDecoder.decode(request.getPath().replace("+", "%2B"), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return HttpResponse.text(400, "Bad Request", "");
+        }
+        if (path.endsWith("/")) path += "index.html";
+        Map<String, Asset> current = assets;
+        Asset asset = current.get(path);
+        if (asset == null && path.lastIndexOf('.') <= path.lastIndexOf('/')) asset = current.get(INDEX);
+        if (asset == null) return HttpResponse.text(404, "Not Found", "Not found: " + path);
+
+        String acceptEncoding = request.header("accept-encoding");
+        String encoding = null;
+        byte[] body = asset.identity();
+        if (acceptEncoding != null && asset.brotli() != null && accepts(acceptEncoding, "br")) {
+            encoding = "br";
+            body = asset.brotli();
+        } else if (acceptEncoding != null && asset.gzip() != null && accepts(acceptEncoding, "gzip")) {
+            encoding = "gzip";
+            body = asset.gzip();
+        }
+        // Each encoding is a different representation, so it gets its own strong validator
+        String etag = encoding == null ? asset.etag() : asset.etag().substring(0, asset.etag().length() - 1) + "-" + encoding + "\"";
+
+        String ifNoneMatch = request.header("if-none-match");
+        if (ifNoneMatch != null && (ifNoneMatch.equals("*") || ifNoneMatch.contains(etag))) {
+            return withCaching(new HttpResponse(304, "Not Modified", asset.contentType(), new byte[0]), asset, etag, encoding);
+        }
+        if (body != null) {
+            return withCaching(new HttpResponse(200, "OK", asset.contentType(), body), asset, etag, encoding);
+        }
+        return fromDisk(asset, etag, request.header("range"));
+    }
+
+    /** Whether {@code coding} appears in Accept-Encoding without {@code q=0}. */
+    static boolean accepts(String acceptEncoding, String coding) {
+        for (String part : acceptEncoding.split(",")) {
+            String[] fields = part.trim().split(";");
+            if (!fields[0].trim().equalsIgnoreCase(coding)) continue;
+            for (int i = 1; i < fields.length; i++) {
+                String field = fields[i].trim();
+                if (field.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(field.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private HttpResponse fromDisk(Asset asset, String etag, String range) {
+        long length = asset.length();
+        long start = 0;
+        long end = length - 1;
+        boolean partial = false;
+        if (range != null && range.startsWith("bytes=") && !range.contains(",")) {
+            String spec = range.substring("bytes=".length()).trim();
+            int dash = spec.indexOf('-');
+            try {
+                if (dash == 0) {
+                    start = Math.max(0, length - Long.parseLong(spec.substring(1)));
+                } else if (dash > 0) {
+                    start = Long.parseLong(spec.substring(0, dash));
+                    if (dash + 1 < spec.length()) end = Math.min(end, Long.parseLong(spec.substring(dash + 1)));
+                }
+                partial = dash >= 0;
+            } catch (NumberFormatException e) {
+                partial = false; // malformed ranges are ignored, as RFC 9110 allows
+                start = 0;
+                end = length - 1;
+            }
+            if (partial && (start >= length || start > end)) {
+                return HttpResponse.text(416, "Range Not Satisfiable", "").header("Content-Range", "bytes */" + length);
+            }
+        }
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(asset.file(), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return HttpResponse.text(404, "Not Found", "Not found: " + asset.file().getFileName());
+        } catch (IOException e) {
+            log("Could not open " + asset.file() + ": " + e.getMessage());
+            return HttpResponse.text(500, "Internal Server Error", "");
+        }
+        HttpResponse response = partial
+                ? HttpResponse.file(206, "Partial Content", asset.contentType(), channel, start, end - start + 1)
+                        .header("Content-Range", "bytes " + start + "-" + end + "/" + length)
+                : HttpResponse.file(200, "OK", asset.contentType(), channel, 0, length);
+        return withCaching(response, asset, etag, null).header("Accept-Ranges", "bytes");
+    }
+
+    private static HttpResponse withCaching(HttpResponse response, Asset asset, String etag, String encoding) {
+        response.header("ETag", etag).header("Cache-Control", asset.cacheControl());
+        if (asset.gzip() != null || asset.brotli() != null) response.header("Vary", "Accept-Encoding");
+        if (encoding != null) response.header("Content-Encoding", encoding);
+        return response;
+    }
+
+    private void reloadIfChanged() {
+        long now = System.currentTimeMillis();
+        if (now - checkedAt < RELOAD_CHECK_MS) return;
+        checkedAt = now;
+        long modified;
+        try {
+            modified = Files.getLastModifiedTime(root.resolve("index.html")).toMillis();
+        } catch (IOException e) {
+            return; // Mid-rebuild: keep serving what was loaded and look again on a later request
+        }
+        if (modified == indexModified || !reloading.compareAndSet(false, true)) return;
+        try {
+            tasks.submit("reload dist/", () -> {
+                try {
+                    load();
+                } catch (IOException | UncheckedIOException e) {
+                    // Mid-rebuild: indexModified is unchanged, so a later request tries again
+                } finally {
+                    reloading.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            reloading.set(false);
+        }
+    }
+
+    private void log(String message) {
+        Consumer<String> sink = logger;
+        if (sink != null) sink.accept(message);
+    }
+}
@@ -0,0 +1,96 @@
+package queuemaster.server;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import queuemaster.realtime.WebSocketConnection;
+import queuemaster.realtime.WebSocketHandler;
+import queuemaster.realtime.WebSocketServer;
+import queuemaster.runtime.BackgroundTasks;
+
+/**
+ * Serves the production build of the web app on the UI port, in place of the Vite dev
+ * server: the same non-blocking server as the realtime endpoint, with {@link StaticAssets}
+ * answering every request. The app's {@code sounds/} directory is mounted at
+ * {@code /sounds/}, since the build does not copy it into {@code dist/}.
+ */
+public class StaticSiteServer {
+    public static final int DEFAULT_PORT = 3000;
+
+    private static final WebSocketHandler NO_WEBSOCKETS = new WebSocketHandler() {
+        @Override
+        public void onOpen(WebSocketConnection connection) {
+            connection.close(1008, "WebSockets are served on the realtime port");
+        }
+
+        @Override
+        public void onText(WebSocketConnection connection, String text) {
+        }
+
+        @Override
+        public void onClose(WebSocketConnection connection) {
+        }
+    };
+
+    private final Path appDirectory;
+    private final int port;
+    private final BackgroundTasks tasks;
+    private volatile Consumer<String> logger = System.out::println;
+    private WebSocketServer server;
+
+    public StaticSiteServer(Path appDirectory, int port) {
+        this(appDirectory, port, new BackgroundTasks(1));
+    }
+
+    /** A rebuilt {@code dist/} is re-indexed on {@code tasks}, off the I/O threads. */
+    public StaticSiteServer(Path appDirectory, int port, BackgroundTasks tasks) {
+        this.appDirectory = appDirectory;
+        this.port = port;
+        this.tasks = tasks;
+    }
+
+    /** Whether {@code npm run build} has produced something to serve. */
+    public static boolean hasBuild(Path appDirectory) {
+        return Files.isRegularFile(appDirectory.resolve("dist").resolve("index.html"));
+    }
+
+    public void setLogger(Consumer<String> logger) {
+        this.logger = logger;
+    }
+
+    /** Indexes {@code dist/} and opens the port; fails if there is no build. */
+    public synchronized void start() throws IOException {
+        if (server != null) return;
+        StaticAssets assets = new StaticAssets(appDirectory.resolve("dist"), tasks);
+        assets.mount("/sounds/", appDirectory.resolve("sounds"));
+        assets.setLogger(logger);
+        assets.load();
+        WebSocketServer webSocketServer = new WebSocketServer(port, WebSocketServer.defaultIoThreads(), NO_WEBSOCKETS);
+        webSocketServer.setThreadPrefix("qm-static");
+        webSocketServer.setLogger(logger);
+        webSocketServer.addHttpHandler(assets);
+        webSocketServer.start();
+        server = webSocketServer;
+        log("Web app served from dist/ on port " + port);
+    }
+
+    public synchronized void stop() {
+        if (server == null) return;
+        server.stop();
+        server = null;
+    }
+
+    public synchronized boolean isRunning() {
+        return server != null;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    private void log(String message) {
+        Consumer<String> sink = logger;
+        if (sink != null) sink.accept(message);
+    }
+}
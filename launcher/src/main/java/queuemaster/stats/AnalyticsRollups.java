@@ -0,0 +1,290 @@
+package queuemaster.stats;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import queuemaster.engine.QueueEngine;
+import queuemaster.engine.Ticket;
+import queuemaster.engine.TicketArchive;
+import queuemaster.engine.TicketStatus;
+
+/**
+ * Minute, hour and day totals of what happened to tickets, per category and per teller, so
+ * the admin dashboard can chart a day from a few kilobytes instead of syncing and filtering
+ * every ticket on each render.
+ *
+ * <p>The relay feeds every ticket write to {@link #observe}, which compares it with the
+ * previous version and adds the transitions it finds (created, called with its wait,
+ * completed with its service time, no-show) to the bucket of the time each one happened, at
+ * all three granularities. Nothing is recomputed: a query only copies the buckets in range.
+ * Buckets older than their granularity's retention are dropped as new ones are opened, so
+ * memory is bounded however long the server runs. Day and hour buckets follow local time.
+ *
+ * <p>Rollups are history, not state: tickets expiring from the engine stay counted. They are
+ * not persisted; on start {@link #rebuild(QueueEngine, TicketArchive)} recounts the archived
+ * tickets still inside the day retention plus the tickets the engine holds. All methods are
+ * synchronized; the relay writes under its publish lock and HTTP threads read.
+ */
+public final class AnalyticsRollups {
+    /** Waits and service times longer than this are tickets left open, not measurements. */
+    private static final long MAX_DURATION_MILLIS = 12 * 3_600_000L;
+
+    public enum Granularity {
+        MINUTE(60_000L, 24 * 60),
+        HOUR(3_600_000L, 8 * 24),
+        DAY(86_400_000L, 400);
+
+        private final long millis;
+        private final int retained;
+
+        Granularity(long millis, int retained) {
+            this.millis = millis;
+            this.retained = retained;
+        }
+
+        /** Nominal bucket length; a local day with a DST change is an hour shorter or longer. */
+        public long getMillis() {
+            return millis;
+        }
+
+        /** How many of the most recent buckets are kept. */
+        public int getRetained() {
+            return retained;
+        }
+
+        /** Case-insensitive name, or null if unknown. */
+        public static Granularity parse(String value) {
+            if (value == null) return null;
+            for (Granularity granularity : values()) {
+                if (granularity.name().equalsIgnoreCase(value)) return granularity;
+            }
+            return null;
+        }
+    }
+
+    /** Totals for one bucket and key. Averages are NaN when nothing was measured. */
+    public static final class Counters {
+        private long created;
+        private long called;
+        private long served;
+        private long noShows;
+        private long waitCount;
+        private long waitMillis;
+        private long serviceCount;
+        private long serviceMillis;
+
+        public long getCreated() { return created; }
+        public long getCalled() { return called; }
+        public long getServed() { return served; }
+        public long getNoShows() { return noShows; }
+
+        public double getAverageWaitMillis() {
+            return waitCount > 0 ? (double) waitMillis / waitCount : Double.NaN;
+        }
+
+        public double getAverageServiceMillis() {
+            return serviceCount > 0 ? (double) serviceMillis / serviceCount : Double.NaN;
+        }
+
+        void add(Counters other) {
+            created += other.created;
+            called += other.called;
+            served += other.served;
+            noShows += other.noShows;
+            waitCount += other.waitCount;
+            waitMillis += other.waitMillis;
+            serviceCount += other.serviceCount;
+            serviceMillis += other.serviceMillis;
+        }
+
+        Counters copy() {
+            Counters copy = new Counters();
+            copy.add(this);
+            return copy;
+        }
+
+        /** Wire form; averages are whole milliseconds, or null when nothing was measured. */
+        public Map<String, Object> toJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("created", created);
+            json.put("called", called);
+            json.put("served", served);
+            json.put("noShows", noShows);
+            json.put("avgWaitMs", waitCount > 0 ? Math.round((double) waitMillis / waitCount) : null);
+            json.put("avgServiceMs", serviceCount > 0 ? Math.round((double) serviceMillis / serviceCount) : null);
+            return json;
+        }
+    }
+
+    /** One bucket, copied out: totals, then the same counters per category and per teller. */
+    public record Rollup(long start, Counters total, Map<String, Counters> categories, Map<String, Counters> tellers) {
+    }
+
+    private static final class Bucket {
+        final Counters total = new Counters();
+        final Map<String, Counters> categories = new LinkedHashMap<>();
+        final Map<String, Counters> tellers = new LinkedHashMap<>();
+    }
+
+    private final Clock clock;
+    private final Map<Granularity, NavigableMap<Long, Bucket>> buckets = new EnumMap<>(Granularity.class);
+    private long version;
+
+    public AnalyticsRollups() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /** Hour and day buckets start on the hour and at midnight in {@code clock}'s zone. */
+    public AnalyticsRollups(Clock clock) {
+        this.clock = clock;
+        for (Granularity granularity : Granularity.values()) buckets.put(granularity, new TreeMap<>());
+    }
+
+    /** Replaces all rollups with the counts of the engine's tickets. */
+    public synchronized void rebuild(QueueEngine engine) {
+        for (NavigableMap<Long, Bucket> series : buckets.values()) series.clear();
+        for (Ticket ticket : engine.tickets()) observe(null, ticket);
+        version++;
+    }
+
+    /**
+     * Replaces all rollups with the counts of the archived tickets inside the day retention,
+     * then the engine's, which the archive does not hold. If the archive cannot be read, the
+     * rollups keep what was read before the failure plus the engine's tickets.
+     */
+    public synchronized void rebuild(QueueEngine engine, TicketArchive history) throws IOException {
+        for (NavigableMap<Long, Bucket> series : buckets.values()) series.clear();
+        Granularity day = Granularity.DAY;
+        try {
+            history.replay(bucketStart(day, clock.millis()) - (day.getRetained() - 1) * day.getMillis(),
+                    ticket -> observe(null, ticket));
+        } finally {
+            for (Ticket ticket : engine.tickets()) observe(null, ticket);
+            version++;
+        }
+    }
+
+    /** Adds the transitions between {@code previous} (null for a new ticket) and {@code current}. */
+    public synchronized void observe(Ticket previous, Ticket current) {
+        String categoryId = current.getCategoryId() != null ? current.getCategoryId() : "";
+        String tellerId = current.getTellerId();
+        if (previous == null) {
+            add(current.getCreatedAt(), categoryId, null, counters -> counters.created++);
+        }
+        Long calledAt = current.getCalledAt();
+        if (calledAt != null && (previous == null || previous.getCalledAt() == null)) {
+            long wait = duration(current.getCreatedAt(), calledAt);
+            add(calledAt, categoryId, tellerId, counters -> {
+                counters.called++;
+                if (wait >= 0) {
+                    counters.waitCount++;
+                    counters.waitMillis += wait;
+                }
+            });
+        }
+        TicketStatus status = current.getStatus();
+        if (status == TicketStatus.COMPLETED && (previous == null || previous.getStatus() != TicketStatus.COMPLETED)) {
+            Long completedAt = current.getCompletedAt();
+            Long startedAt = current.getServedAt() != null ? current.getServedAt() : calledAt;
+            long service = completedAt != null && startedAt != null ? duration(startedAt, completedAt) : -1;
+            add(completedAt != null ? completedAt : updatedAt(current), categoryId, tellerId, counters -> {
+                counters.served++;
+                if (service >= 0) {
+                    counters.serviceCount++;
+                    counters.serviceMillis += service;
+                }
+            });
+        } else if (status == TicketStatus.NOSHOW && (previous == null || previous.getStatus() != TicketStatus.NOSHOW)) {
+            add(updatedAt(current), categoryId, tellerId, counters -> counters.noShows++);
+        }
+    }
+
+    /** Buckets starting in {@code [from, to)}, oldest first. */
+    public synchronized List<Rollup> query(Granularity granularity, long from, long to) {
+        List<Rollup> rollups = new ArrayList<>();
+        if (from >= to) return rollups;
+        for (Map.Entry<Long, Bucket> entry : buckets.get(granularity).subMap(from, true, to, false).entrySet()) {
+            Bucket bucket = entry.getValue();
+            rollups.add(new Rollup(entry.getKey(), bucket.total.copy(), copy(bucket.categories), copy(bucket.tellers)));
+        }
+        return rollups;
+    }
+
+    /** The buckets of {@link #query} added together into one, starting at {@code from}. */
+    public synchronized Rollup summarize(Granularity granularity, long from, long to) {
+        Counters total = new Counters();
+        Map<String, Counters> categories = new LinkedHashMap<>();
+        Map<String, Counters> tellers = new LinkedHashMap<>();
+        if (from < to) {
+            for (Bucket bucket : buckets.get(granularity).subMap(from, true, to, false).values()) {
+                total.add(bucket.total);
+                bucket.categories.forEach((id, counters) -> categories.computeIfAbsent(id, k -> new Counters()).add(counters));
+                bucket.tellers.forEach((id, counters) -> tellers.computeIfAbsent(id, k -> new Counters()).add(counters));
+            }
+        }
+        return new Rollup(from, total, categories, tellers);
+    }
+
+    /** Start of the bucket containing {@code timestamp}. */
+    public long bucketStart(Granularity granularity, long timestamp) {
+        long offset = clock.getZone().getRules().getOffset(Instant.ofEpochMilli(timestamp)).getTotalSeconds() * 1000L;
+        return timestamp - Math.floorMod(timestamp + offset, granularity.getMillis());
+    }
+
+    /** Changes on every counted transition, so callers can tell whether a query is stale. */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /** Buckets currently held, over all granularities. */
+    public synchronized int bucketCount() {
+        int count = 0;
+        for (NavigableMap<Long, Bucket> series : buckets.values()) count += series.size();
+        return count;
+    }
+
+    private void add(long timestamp, String categoryId, String tellerId, Consumer<Counters> change) {
+        long now = clock.millis();
+        for (Granularity granularity : Granularity.values()) {
+            long start = bucketStart(granularity, timestamp);
+            long oldest = bucketStart(granularity, now) - (granularity.getRetained() - 1) * granularity.getMillis();
+            if (start < oldest) continue;
+            NavigableMap<Long, Bucket> series = buckets.get(granularity);
+            Bucket bucket = series.get(start);
+            if (bucket == null) {
+                bucket = new Bucket();
+                series.put(start, bucket);
+                series.headMap(oldest, false).clear();
+            }
+            change.accept(bucket.total);
+            change.accept(bucket.categories.computeIfAbsent(categoryId, k -> new Counters()));
+            if (tellerId != null) change.accept(bucket.tellers.computeIfAbsent(tellerId, k -> new Counters()));
+        }
+        version++;
+    }
+
+    private long updatedAt(Ticket ticket) {
+        Long lastUpdated = ticket.getLastUpdated();
+        return lastUpdated != null ? lastUpdated : clock.millis();
+    }
+
+    /** {@code end - start}, or -1 when it is negative or implausibly long. */
+    private static long duration(long start, long end) {
+        long millis = end - start;
+        return millis < 0 || millis > MAX_DURATION_MILLIS ? -1 : millis;
+    }
+
+    private static Map<String, Counters> copy(Map<String, Counters> source) {
+        Map<String, Counters> copy = new LinkedHashMap<>();
+        source.forEach((id, counters) -> copy.put(id, counters.copy()));
+        return copy;
+    }
+}
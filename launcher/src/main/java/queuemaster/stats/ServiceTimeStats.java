@@ -0,0 +1,55 @@
+package queuemaster.stats;
+
+/**
+ * Running statistics of one stream of service times: an exponentially weighted moving
+ * average that follows the current pace, and a {@link TDigest} for percentiles. Each
+ * {@link #record} is O(1) amortized and only invalidates the percentiles; the first
+ * {@link #summary} after it reads them from the digest and later ones reuse the result, so
+ * {@link #mean} (every issued ticket) never touches the digest.
+ */
+public final class ServiceTimeStats {
+    /** Weight of the newest sample: the average follows roughly the last ten customers. */
+    public static final double DEFAULT_ALPHA = 0.2;
+
+    /** Service times in milliseconds; the mean and percentiles are NaN before the first sample. */
+    public record Summary(long samples, double meanMillis, double p50Millis, double p90Millis) {
+    }
+
+    private static final Summary EMPTY = new Summary(0, Double.NaN, Double.NaN, Double.NaN);
+
+    private final double alpha;
+    private final TDigest digest = new TDigest();
+    private long samples; // guarded by this
+    private volatile double mean = Double.NaN;
+    // null after a record until the next summary() recomputes the percentiles
+    private volatile Summary summary = EMPTY;
+
+    public ServiceTimeStats() {
+        this(DEFAULT_ALPHA);
+    }
+
+    public ServiceTimeStats(double alpha) {
+        if (alpha <= 0 || alpha > 1) throw new IllegalArgumentException("alpha must be in (0, 1]");
+        this.alpha = alpha;
+    }
+
+    public synchronized void record(long millis) {
+        mean = samples++ == 0 ? millis : mean + alpha * (millis - mean);
+        digest.add(millis);
+        summary = null;
+    }
+
+    public Summary summary() {
+        Summary current = summary;
+        if (current != null) return current;
+        synchronized (this) {
+            if (summary == null) summary = new Summary(samples, mean, digest.quantile(0.5), digest.quantile(0.9));
+            return summary;
+        }
+    }
+
+    /** The moving average, or NaN before the first sample. */
+    public double mean() {
+        return mean;
+    }
+}
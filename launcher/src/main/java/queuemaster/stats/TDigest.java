@@ -0,0 +1,139 @@
+package queuemaster.stats;
+
+import java.util.Arrays;
+
+/**
+ * Streaming quantile sketch (a merging t-digest): values are buffered, then merged into at
+ * most about {@code compression} centroids that are small near the tails and large in the
+ * middle, so extreme quantiles stay accurate while memory stays fixed however many values
+ * are added. Not thread-safe; {@link ServiceTimeStats} guards its digest.
+ */
+public final class TDigest {
+    public static final double DEFAULT_COMPRESSION = 100;
+    private static final int BUFFER_SIZE = 256;
+
+    private final double compression;
+    private double[] means;
+    private double[] weights;
+    private int centroids;
+    private final double[] buffer = new double[BUFFER_SIZE];
+    private int buffered;
+    private double mergedWeight;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    // Scratch for merging, sized once
+    private double[] mergeMeans;
+    private double[] mergeWeights;
+
+    public TDigest() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    public TDigest(double compression) {
+        if (compression < 10) throw new IllegalArgumentException("compression must be at least 10");
+        this.compression = compression;
+        int capacity = (int) Math.ceil(compression) + 10;
+        means = new double[capacity];
+        weights = new double[capacity];
+        mergeMeans = new double[capacity + BUFFER_SIZE];
+        mergeWeights = new double[capacity + BUFFER_SIZE];
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value)) return;
+        if (buffered == 0 && centroids == 0) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        buffer[buffered++] = value;
+        if (buffered == BUFFER_SIZE) merge();
+    }
+
+    public long count() {
+        return (long) mergedWeight + buffered;
+    }
+
+    /** The value below which a fraction {@code q} of the added values lie; NaN when empty. */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) throw new IllegalArgumentException("q must be in [0, 1]");
+        merge();
+        if (centroids == 0) return Double.NaN;
+        if (centroids == 1) return means[0];
+        double index = q * mergedWeight;
+        double firstHalf = weights[0] / 2;
+        if (index < firstHalf) return min + (means[0] - min) * (index / firstHalf);
+        double cumulative = firstHalf;
+        for (int i = 0; i < centroids - 1; i++) {
+            double step = (weights[i] + weights[i + 1]) / 2;
+            if (cumulative + step > index) return means[i] + (means[i + 1] - means[i]) * ((index - cumulative) / step);
+            cumulative += step;
+        }
+        int last = centroids - 1;
+        double lastHalf = weights[last] / 2;
+        return means[last] + (max - means[last]) * Math.min(1, (index - cumulative) / lastHalf);
+    }
+
+    /** Number of centroids after the pending values are merged; bounded by the compression. */
+    public int centroidCount() {
+        merge();
+        return centroids;
+    }
+
+    private void merge() {
+        if (buffered == 0) return;
+        Arrays.sort(buffer, 0, buffered);
+        int n = 0;
+        for (int i = 0, j = 0; i < centroids || j < buffered; n++) {
+            if (j >= buffered || (i < centroids && means[i] <= buffer[j])) {
+                mergeMeans[n] = means[i];
+                mergeWeights[n] = weights[i++];
+            } else {
+                mergeMeans[n] = buffer[j++];
+                mergeWeights[n] = 1;
+            }
+        }
+        mergedWeight += buffered;
+        buffered = 0;
+
+        // Neighbours are combined while the result spans at most one unit of the scale function
+        int out = 0;
+        double before = 0;
+        double mean = mergeMeans[0];
+        double weight = mergeWeights[0];
+        double kStart = scale(0);
+        for (int i = 1; i < n; i++) {
+            double combined = weight + mergeWeights[i];
+            if (scale((before + combined) / mergedWeight) - kStart <= 1) {
+                mean += (mergeMeans[i] - mean) * mergeWeights[i] / combined;
+                weight = combined;
+            } else {
+                out = emit(out, mean, weight);
+                before += weight;
+                kStart = scale(before / mergedWeight);
+                mean = mergeMeans[i];
+                weight = mergeWeights[i];
+            }
+        }
+        centroids = emit(out, mean, weight);
+    }
+
+    private int emit(int index, double mean, double weight) {
+        if (index == means.length) {
+            means = Arrays.copyOf(means, index * 2);
+            weights = Arrays.copyOf(weights, index * 2);
+            mergeMeans = Arrays.copyOf(mergeMeans, index * 2 + BUFFER_SIZE);
+            mergeWeights = Arrays.copyOf(mergeWeights, index * 2 + BUFFER_SIZE);
+        }
+        means[index] = mean;
+        weights[index] = weight;
+        return index + 1;
+    }
+
+    /** The k1 scale function: centroids near q = 0 and q = 1 stay small. */
+    private double scale(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * Math.min(1, Math.max(0, q)) - 1);
+    }
+}
@@ -0,0 +1,173 @@
+package queuemaster.stats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import queuemaster.engine.QueueEngine;
+import queuemaster.engine.ServiceCategory;
+import queuemaster.engine.Teller;
+import queuemaster.engine.Ticket;
+import queuemaster.engine.TicketStatus;
+
+/**
+ * Predicts how long a customer will wait, from service times measured as tickets complete
+ * instead of the static {@code estimatedTime} an admin typed in.
+ *
+ * <p>Service time statistics ({@link ServiceTimeStats}) are kept per category and per teller
+ * and updated once per completed ticket. Serving capacity is kept per category as the number
+ * of tellers on duty for it, a teller covering k categories counting 1/k towards each, and is
+ * adjusted on every teller update. A prediction is then arithmetic on those running values:
+ * O(1), with no pass over the tickets, so it can go on every issued ticket and every monitor
+ * refresh.
+ *
+ * <p>The model: with {@code ahead} customers waiting before this one, {@code s} tellers and a
+ * mean service time {@code m}, the wait is about {@code (ahead + 0.5) * m / s}; the half
+ * accounts for the customer currently at the counter. Until a category has completed
+ * tickets its {@code estimatedTime} stands in for the mean.
+ *
+ * <p>The estimator follows engine writes: the relay calls {@link #observe}, {@link #updateTeller}
+ * and {@link #updateCategory} under its publish lock, so updates never overlap. Reads are
+ * safe from any thread.
+ */
+public final class WaitTimeEstimator {
+    /** Used when a category has neither completed tickets nor an {@code estimatedTime}. */
+    public static final long DEFAULT_SERVICE_MILLIS = 5 * 60_000L;
+    /** Longer "service times" are a ticket left open over a break or overnight, not a service. */
+    private static final long MAX_SERVICE_MILLIS = 4 * 3_600_000L;
+
+    /** The current prediction for one category; times in milliseconds, -1 when no teller serves it. */
+    public record Estimate(String categoryId, int waiting, double servers, long expectedWaitMillis,
+                           ServiceTimeStats.Summary service) {
+    }
+
+    private final QueueEngine engine;
+    private final Map<String, ServiceTimeStats> byCategory = new ConcurrentHashMap<>();
+    private final Map<String, ServiceTimeStats> byTeller = new ConcurrentHashMap<>();
+    private final Map<String, Double> servers = new ConcurrentHashMap<>();
+    // Guarded by this: the on-duty tellers whose shares are in servers
+    private final Map<String, Teller> onDuty = new HashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    public WaitTimeEstimator(QueueEngine engine) {
+        this.engine = engine;
+    }
+
+    /** Replaces all statistics with those of the engine's completed tickets and current tellers. */
+    public synchronized void rebuild() {
+        byCategory.clear();
+        byTeller.clear();
+        servers.clear();
+        onDuty.clear();
+        for (Teller teller : engine.tellers()) updateTeller(teller);
+        List<Ticket> completed = new ArrayList<>();
+        for (Ticket ticket : engine.tickets()) {
+            if (ticket.getStatus() == TicketStatus.COMPLETED && ticket.getCompletedAt() != null) completed.add(ticket);
+        }
+        // In completion order, so the moving averages end where the live ones would have
+        completed.sort(Comparator.comparingLong(Ticket::getCompletedAt));
+        for (Ticket ticket : completed) record(ticket);
+        version.incrementAndGet();
+    }
+
+    /** Follows one ticket write; a ticket that just became COMPLETED adds a service time. */
+    public void observe(Ticket previous, Ticket current) {
+        if (current.getStatus() != TicketStatus.COMPLETED) return;
+        if (previous != null && previous.getStatus() == TicketStatus.COMPLETED) return;
+        if (record(current)) version.incrementAndGet();
+    }
+
+    /** Follows one teller write: its share of serving capacity moves with its status and categories. */
+    public synchronized void updateTeller(Teller teller) {
+        Teller before = onDuty.remove(teller.getId());
+        if (before != null) addShares(before, -1);
+        if (isOnDuty(teller)) {
+            onDuty.put(teller.getId(), teller);
+            addShares(teller, 1);
+        }
+        version.incrementAndGet();
+    }
+
+    /** A category's {@code estimatedTime} is the fallback mean, so changing it changes predictions. */
+    public void updateCategory(ServiceCategory category) {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Predicted wait in milliseconds for a customer with {@code ahead} people before them in
+     * the category, or -1 when no teller on duty serves it.
+     */
+    public long expectedWaitMillis(String categoryId, int ahead) {
+        double share = servers.getOrDefault(categoryId, 0.0);
+        if (share < 1e-6) return -1;
+        return Math.round((ahead + 0.5) * meanServiceMillis(categoryId) / share);
+    }
+
+    /** Predicted wait for a ticket issued now: everyone currently waiting is ahead of it. */
+    public long expectedWaitMillis(String categoryId) {
+        return expectedWaitMillis(categoryId, engine.count(categoryId, TicketStatus.WAITING));
+    }
+
+    /** The measured moving average, else the category's {@code estimatedTime}, else the default. */
+    public double meanServiceMillis(String categoryId) {
+        ServiceTimeStats stats = byCategory.get(categoryId);
+        if (stats != null && !Double.isNaN(stats.mean())) return stats.mean();
+        ServiceCategory category = engine.getCategory(categoryId);
+        return category != null && category.getEstimatedTime() > 0 ? category.getEstimatedTime() * 60_000.0 : DEFAULT_SERVICE_MILLIS;
+    }
+
+    /** One estimate per category, in the engine's category order. */
+    public List<Estimate> estimates() {
+        List<Estimate> estimates = new ArrayList<>();
+        for (ServiceCategory category : engine.categories()) {
+            String id = category.getId();
+            int waiting = engine.count(id, TicketStatus.WAITING);
+            ServiceTimeStats stats = byCategory.get(id);
+            estimates.add(new Estimate(id, waiting, servers.getOrDefault(id, 0.0), expectedWaitMillis(id, waiting),
+                    stats != null ? stats.summary() : new ServiceTimeStats.Summary(0, Double.NaN, Double.NaN, Double.NaN)));
+        }
+        return estimates;
+    }
+
+    /** Service time statistics of every teller that has completed a ticket. */
+    public Map<String, ServiceTimeStats.Summary> tellerSummaries() {
+        Map<String, ServiceTimeStats.Summary> summaries = new LinkedHashMap<>();
+        byTeller.forEach((id, stats) -> summaries.put(id, stats.summary()));
+        return summaries;
+    }
+
+    /** Changes whenever a prediction may have changed, so callers can skip identical rebroadcasts. */
+    public long getVersion() {
+        return version.get();
+    }
+
+    private boolean record(Ticket ticket) {
+        Long completedAt = ticket.getCompletedAt();
+        Long startedAt = ticket.getServedAt() != null ? ticket.getServedAt() : ticket.getCalledAt();
+        if (completedAt == null || startedAt == null) return false;
+        long millis = completedAt - startedAt;
+        if (millis < 0 || millis > MAX_SERVICE_MILLIS) return false;
+        String categoryId = ticket.getCategoryId() != null ? ticket.getCategoryId() : "";
+        byCategory.computeIfAbsent(categoryId, k -> new ServiceTimeStats()).record(millis);
+        if (ticket.getTellerId() != null) byTeller.computeIfAbsent(ticket.getTellerId(), k -> new ServiceTimeStats()).record(millis);
+        return true;
+    }
+
+    private void addShares(Teller teller, int sign) {
+        List<String> categories = teller.getAssignedCategoryIds();
+        if (categories.isEmpty()) return;
+        double share = sign * (1.0 / categories.size());
+        for (String categoryId : categories) {
+            servers.merge(categoryId, share, (a, b) -> Math.abs(a + b) < 1e-9 ? null : a + b);
+        }
+    }
+
+    private static boolean isOnDuty(Teller teller) {
+        String status = teller.getStatus();
+        return !"OFFLINE".equals(status) && !"BREAK".equals(status);
+    }
+}
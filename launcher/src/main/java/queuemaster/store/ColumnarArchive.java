@@ -0,0 +1,624 @@
+package queuemaster.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import queuemaster.engine.Ticket;
+import queuemaster.engine.TicketArchive;
+import queuemaster.engine.TicketStatus;
+
+/**
+ * Expired tickets stored by day of creation in column-oriented files, so reports over months
+ * of history ("average wait for category X in March") read a few compact columns through a
+ * memory mapping instead of parsing JSON.
+ *
+ * <p>Layout (version 1): {@code int magic | int version}, then one block per column, then a
+ * footer and a trailer {@code int footerCrc | long footerOffset | int magic}. Rows are sorted
+ * by {@code createdAt}, which is stored as zigzag varint deltas from the previous row (the
+ * first from local midnight). {@code calledAt}, {@code servedAt} and {@code completedAt} are zigzag
+ * varint offsets from the row's {@code createdAt} plus one, 0 meaning absent; the called
+ * offset is the ticket's wait as is. Category and teller ids are indexes into dictionaries
+ * kept in the footer, status is one byte. The footer holds the row count, the createdAt
+ * range, the dictionaries and each column's offset, length and crc32c.
+ *
+ * <p>Expiry hands over a day's tickets in several batches, so each {@link #archive} writes an
+ * immutable part ({@code history-2024-05-17.qmc}, then {@code history-2024-05-17.2.qmc}, ...).
+ * Expiry goes by creation time, so once a later day is archived a day is complete and its
+ * parts are compacted into one new part after the last. A part's footer records the highest
+ * part it holds: its own index for a batch, the one below it for a compaction, which holds
+ * everything before it. Readers start from the newest part and stop at a compaction, so a
+ * crash mid-compaction, or a part Windows will not delete while a reader still maps it, never
+ * counts a ticket twice; no file a reader may have mapped is ever overwritten. (Archives
+ * written before compactions got their own part compacted into the first file, whose footer
+ * then names the last part it absorbed; readers still honour that.)
+ *
+ * <p>Only the fields reports use are kept: id, number, category, status, teller, counter and
+ * the lifecycle timestamps.
+ */
+public final class ColumnarArchive implements TicketArchive {
+    public static final int VERSION = 1;
+    private static final int MAGIC = 0x514D4341; // "QMCA"
+    private static final String PREFIX = "history-";
+    private static final String SUFFIX = ".qmc";
+    private static final int TRAILER_BYTES = 16;
+
+    private static final byte CREATED = 1;
+    private static final byte STATUS = 2;
+    private static final byte CATEGORY = 3;
+    private static final byte TELLER = 4;
+    private static final byte CALLED = 5;
+    private static final byte SERVED = 6;
+    private static final byte COMPLETED = 7;
+    private static final byte COUNTER = 8;
+    private static final byte ID = 9;
+    private static final byte NUMBER = 10;
+    private static final int COLUMN_IDS = 11;
+
+    private static final TicketStatus[] STATUSES = TicketStatus.values();
+
+    /**
+     * Totals over a range of days. Waits count tickets that were called, service times those
+     * completed with a start; averages are NaN when there was nothing to measure.
+     */
+    public record RangeStats(long tickets, long served, long noShows, long waitCount, long waitMillis,
+                             long serviceCount, long serviceMillis) {
+        public double averageWaitMillis() {
+            return waitCount > 0 ? (double) waitMillis / waitCount : Double.NaN;
+        }
+
+        public double averageServiceMillis() {
+            return serviceCount > 0 ? (double) serviceMillis / serviceCount : Double.NaN;
+        }
+    }
+
+    private final Path directory;
+    private final ZoneId zone;
+    private volatile Consumer<String> logger = System.out::println;
+
+    public ColumnarArchive(Path directory) {
+        this(directory, ZoneId.systemDefault());
+    }
+
+    public ColumnarArchive(Path directory, ZoneId zone) {
+        this.directory = directory;
+        this.zone = zone;
+    }
+
+    public void setLogger(Consumer<String> logger) {
+        this.logger = logger;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public synchronized void archive(List<Ticket> tickets) throws IOException {
+        if (tickets.isEmpty()) return;
+        Files.createDirectories(directory);
+        TreeMap<LocalDate, List<Ticket>> byDay = new TreeMap<>();
+        for (Ticket ticket : tickets) {
+            byDay.computeIfAbsent(dayOf(ticket.getCreatedAt()), d -> new ArrayList<>()).add(ticket);
+        }
+        Map<LocalDate, List<Part>> parts = parts();
+        for (Map.Entry<LocalDate, List<Ticket>> day : byDay.entrySet()) {
+            List<Part> existing = parts.computeIfAbsent(day.getKey(), d -> new ArrayList<>());
+            int index = existing.isEmpty() ? 1 : existing.get(existing.size() - 1).index() + 1;
+            Path file = partPath(day.getKey(), index);
+            write(file, day.getKey(), day.getValue(), index);
+            existing.add(new Part(index, file));
+        }
+        // Days before the newest one archived can no longer receive tickets
+        LocalDate newest = byDay.lastKey();
+        for (Map.Entry<LocalDate, List<Part>> day : parts.entrySet()) {
+            if (day.getKey().isBefore(newest) && day.getValue().size() > 1) compact(day.getKey(), day.getValue());
+        }
+    }
+
+    /** Days with archived tickets, oldest first. */
+    public List<LocalDate> days() throws IOException {
+        return new ArrayList<>(parts().keySet());
+    }
+
+    /** The tickets archived for {@code day}, in creation order within each part. */
+    public List<Ticket> read(LocalDate day) throws IOException {
+        List<Ticket> tickets = new ArrayList<>();
+        for (DayFile file : open(day)) file.readTickets(tickets);
+        return tickets;
+    }
+
+    @Override
+    public void replay(long since, Consumer<Ticket> action) throws IOException {
+        LocalDate first = dayOf(since);
+        for (LocalDate day : days()) {
+            if (day.isBefore(first)) continue;
+            for (Ticket ticket : read(day)) action.accept(ticket);
+        }
+    }
+
+    /**
+     * Totals for tickets created from {@code from} to {@code to} inclusive, optionally only
+     * one category and/or teller (null for all). Reads just the columns involved.
+     */
+    public RangeStats stats(LocalDate from, LocalDate to, String categoryId, String tellerId) throws IOException {
+        long[] totals = new long[7];
+        Map<LocalDate, List<Part>> parts = parts();
+        for (Map.Entry<LocalDate, List<Part>> day : parts.entrySet()) {
+            if (day.getKey().isBefore(from) || day.getKey().isAfter(to)) continue;
+            for (DayFile file : open(day.getValue())) file.scan(categoryId, tellerId, totals);
+        }
+        return new RangeStats(totals[0], totals[1], totals[2], totals[3], totals[4], totals[5], totals[6]);
+    }
+
+    private LocalDate dayOf(long timestamp) {
+        return Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate();
+    }
+
+    private List<DayFile> open(LocalDate day) throws IOException {
+        List<Part> parts = parts().get(day);
+        return parts != null ? open(parts) : List.of();
+    }
+
+    private List<DayFile> open(List<Part> parts) throws IOException {
+        List<DayFile> files = new ArrayList<>();
+        for (Mapped mapped : map(parts)) files.add(mapped.file());
+        return files;
+    }
+
+    private record Mapped(Part part, DayFile file) {
+    }
+
+    /**
+     * Maps the day's parts from the newest back to the latest compaction, which holds all
+     * before it, and returns them oldest first; damaged files are skipped.
+     */
+    private List<Mapped> map(List<Part> parts) throws IOException {
+        List<Mapped> mapped = new ArrayList<>();
+        for (int i = parts.size() - 1; i >= 0; i--) {
+            Part part = parts.get(i);
+            DayFile file;
+            try {
+                file = DayFile.open(part.path());
+            } catch (IllegalStateException e) {
+                log("Skipping archive file " + part.path().getFileName() + ": " + e.getMessage());
+                continue;
+            }
+            mapped.add(0, new Mapped(part, file));
+            if (file.mergedParts < part.index()) break;
+            if (part.index() == 1 && file.mergedParts > 1) {
+                // Compacted in place by an earlier version: parts up to mergedParts are in it
+                mapped.removeIf(m -> m.part().index() > 1 && m.part().index() <= file.mergedParts);
+            }
+        }
+        return mapped;
+    }
+
+    private void compact(LocalDate day, List<Part> parts) {
+        Part last = parts.get(parts.size() - 1);
+        Path keep;
+        try {
+            List<Mapped> mapped = map(parts);
+            if (mapped.size() > 1) {
+                List<Ticket> tickets = new ArrayList<>();
+                for (Mapped m : mapped) m.file().readTickets(tickets);
+                // A new part rather than over the first, which readers may have mapped
+                keep = partPath(day, last.index() + 1);
+                write(keep, day, tickets, last.index());
+            } else if (mapped.size() == 1) {
+                keep = mapped.get(0).part().path();
+            } else {
+                return;
+            }
+        } catch (IOException e) {
+            // Still correct as parts; compaction is retried on the next archive
+            log("Compacting archive for " + day + " failed: " + e.getMessage());
+            return;
+        }
+        for (Part part : parts) {
+            if (part.path().equals(keep)) continue;
+            try {
+                Files.deleteIfExists(part.path());
+            } catch (IOException e) {
+                // Held by the compaction, so readers skip it; deleted on a later pass
+            }
+        }
+    }
+
+    private Path partPath(LocalDate day, int index) {
+        return directory.resolve(PREFIX + day + (index == 1 ? "" : "." + index) + SUFFIX);
+    }
+
+    private record Part(int index, Path path) {
+    }
+
+    /** Archive files by day, each day's parts in index order. */
+    private Map<LocalDate, List<Part>> parts() throws IOException {
+        Map<LocalDate, List<Part>> parts = new TreeMap<>();
+        if (!Files.isDirectory(directory)) return parts;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                String stem = name.substring(PREFIX.length(), name.length() - SUFFIX.length());
+                int dot = stem.indexOf('.');
+                try {
+                    LocalDate day = LocalDate.parse(dot < 0 ? stem : stem.substring(0, dot));
+                    int index = dot < 0 ? 1 : Integer.parseInt(stem.substring(dot + 1));
+                    parts.computeIfAbsent(day, d -> new ArrayList<>()).add(new Part(index, path));
+                } catch (DateTimeParseException | NumberFormatException e) {
+                    // Not ours
+                }
+            }
+        }
+        for (List<Part> day : parts.values()) day.sort(Comparator.comparingInt(Part::index));
+        return parts;
+    }
+
+    /** Writes {@code tickets} as one file via a temp name, so a reader never maps a partial file. */
+    private void write(Path file, LocalDate day, List<Ticket> tickets, int mergedParts) throws IOException {
+        List<Ticket> rows = new ArrayList<>(tickets);
+        rows.sort(Comparator.comparingLong(Ticket::getCreatedAt));
+        long dayStart = day.atStartOfDay(zone).toInstant().toEpochMilli();
+        Map<String, Integer> categories = new LinkedHashMap<>();
+        Map<String, Integer> tellers = new LinkedHashMap<>();
+        Column[] columns = new Column[COLUMN_IDS];
+        for (int id = CREATED; id < COLUMN_IDS; id++) columns[id] = new Column(rows.size() * (id >= ID ? 16 : 2));
+        long previous = dayStart;
+        for (Ticket ticket : rows) {
+            long createdAt = ticket.getCreatedAt();
+            // Zigzag, in case a ticket stamped just before midnight by another clock lands here
+            columns[CREATED].writeVarint(zigzag(createdAt - previous));
+            previous = createdAt;
+            columns[STATUS].writeByte(ticket.getStatus().ordinal());
+            String categoryId = ticket.getCategoryId() != null ? ticket.getCategoryId() : "";
+            columns[CATEGORY].writeVarint(categories.computeIfAbsent(categoryId, k -> categories.size()));
+            String tellerId = ticket.getTellerId();
+            columns[TELLER].writeVarint(tellerId == null ? 0 : tellers.computeIfAbsent(tellerId, k -> tellers.size()) + 1);
+            columns[CALLED].writeVarint(offset(ticket.getCalledAt(), createdAt));
+            columns[SERVED].writeVarint(offset(ticket.getServedAt(), createdAt));
+            columns[COMPLETED].writeVarint(offset(ticket.getCompletedAt(), createdAt));
+            Integer counter = ticket.getCounterNumber();
+            columns[COUNTER].writeVarint(counter != null && counter > 0 ? counter : 0);
+            columns[ID].writeString(ticket.getId());
+            columns[NUMBER].writeString(ticket.getNumber() != null ? ticket.getNumber() : "");
+        }
+
+        Column footer = new Column(256);
+        footer.writeLong(dayStart);
+        footer.writeVarint(mergedParts);
+        footer.writeVarint(rows.size());
+        footer.writeLong(rows.isEmpty() ? dayStart : rows.get(0).getCreatedAt());
+        footer.writeLong(rows.isEmpty() ? dayStart : rows.get(rows.size() - 1).getCreatedAt());
+        footer.writeVarint(categories.size());
+        for (String id : categories.keySet()) footer.writeString(id);
+        footer.writeVarint(tellers.size());
+        for (String id : tellers.keySet()) footer.writeString(id);
+        footer.writeVarint(COLUMN_IDS - CREATED);
+        long offset = 8;
+        for (int id = CREATED; id < COLUMN_IDS; id++) {
+            footer.writeByte(id);
+            footer.writeVarint(offset);
+            footer.writeVarint(columns[id].size);
+            footer.writeInt(columns[id].crc());
+            offset += columns[id].size;
+        }
+
+        Files.createDirectories(directory);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(8).putInt(MAGIC).putInt(VERSION).flip();
+            writeFully(channel, header);
+            for (int id = CREATED; id < COLUMN_IDS; id++) writeFully(channel, columns[id].buffer());
+            writeFully(channel, footer.buffer());
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES).putInt(footer.crc()).putLong(offset).putInt(MAGIC).flip();
+            writeFully(channel, trailer);
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static long offset(Long timestamp, long createdAt) {
+        return timestamp == null ? 0 : zigzag(timestamp - createdAt) + 1;
+    }
+
+    private static long zigzag(long n) {
+        return (n << 1) ^ (n >> 63);
+    }
+
+    private static long unzigzag(long n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalStateException("varint too long");
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = (int) readVarint(in);
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private void log(String message) {
+        Consumer<String> sink = logger;
+        if (sink != null) sink.accept(message);
+    }
+
+    /** Growable byte buffer for one column while a file is being built. */
+    private static final class Column {
+        private byte[] bytes;
+        private int size;
+
+        Column(int capacity) {
+            bytes = new byte[Math.max(16, capacity)];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) bytes[size++] = (byte) (value >>> shift);
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) bytes[size++] = (byte) (value >>> shift);
+        }
+
+        void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        int crc() {
+            CRC32C crc = new CRC32C();
+            crc.update(bytes, 0, size);
+            return (int) crc.getValue();
+        }
+
+        ByteBuffer buffer() {
+            return ByteBuffer.wrap(bytes, 0, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+
+    /** One mapped archive file; its footer is parsed and verified on open, columns are read on demand. */
+    private static final class DayFile {
+        final MappedByteBuffer data;
+        final long dayStart;
+        final int mergedParts;
+        final int rows;
+        final String[] categories;
+        final String[] tellers;
+        final int[] offsets = new int[COLUMN_IDS];
+        final int[] lengths = new int[COLUMN_IDS];
+        final int[] crcs = new int[COLUMN_IDS];
+
+        private DayFile(MappedByteBuffer data) {
+            this.data = data;
+            int size = data.capacity();
+            if (size < 8 + TRAILER_BYTES) throw new IllegalStateException("truncated");
+            if (data.getInt(0) != MAGIC || data.getInt(size - 4) != MAGIC) throw new IllegalStateException("not an archive file");
+            int version = data.getInt(4);
+            if (version != VERSION) throw new IllegalStateException("unsupported version " + version);
+            int footerCrc = data.getInt(size - TRAILER_BYTES);
+            long footerOffset = data.getLong(size - TRAILER_BYTES + 4);
+            if (footerOffset < 8 || footerOffset > size - TRAILER_BYTES) throw new IllegalStateException("bad footer offset");
+            ByteBuffer footer = data.duplicate().position((int) footerOffset).limit(size - TRAILER_BYTES);
+            CRC32C crc = new CRC32C();
+            crc.update(footer.duplicate());
+            if ((int) crc.getValue() != footerCrc) throw new IllegalStateException("footer checksum mismatch");
+            try {
+                dayStart = footer.getLong();
+                mergedParts = (int) readVarint(footer);
+                rows = (int) readVarint(footer);
+                footer.getLong(); // first createdAt
+                footer.getLong(); // last createdAt
+                categories = new String[(int) readVarint(footer)];
+                for (int i = 0; i < categories.length; i++) categories[i] = readString(footer);
+                tellers = new String[(int) readVarint(footer)];
+                for (int i = 0; i < tellers.length; i++) tellers[i] = readString(footer);
+                for (int n = (int) readVarint(footer); n > 0; n--) {
+                    int id = footer.get();
+                    int offset = (int) readVarint(footer);
+                    int length = (int) readVarint(footer);
+                    int columnCrc = footer.getInt();
+                    if (id <= 0 || id >= COLUMN_IDS || offset < 8 || offset + (long) length > footerOffset) {
+                        throw new IllegalStateException("bad column " + id);
+                    }
+                    offsets[id] = offset;
+                    lengths[id] = length;
+                    crcs[id] = columnCrc;
+                }
+            } catch (RuntimeException e) {
+                if (e instanceof IllegalStateException) throw e;
+                throw new IllegalStateException("malformed footer: " + e, e);
+            }
+            for (int id = CREATED; id < COLUMN_IDS; id++) {
+                if (lengths[id] == 0 && rows > 0) throw new IllegalStateException("missing column " + id);
+            }
+        }
+
+        static DayFile open(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size > Integer.MAX_VALUE) throw new IllegalStateException("too large");
+                return new DayFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+        }
+
+        ByteBuffer column(int id) {
+            return data.duplicate().position(offsets[id]).limit(offsets[id] + lengths[id]);
+        }
+
+        /** Adds this file's rows matching the filters to {@code totals} (the order of {@link RangeStats}). */
+        void scan(String categoryId, String tellerId, long[] totals) {
+            int category = categoryId == null ? -1 : indexOf(categories, categoryId);
+            int teller = tellerId == null ? -1 : indexOf(tellers, tellerId);
+            // Not in this file's dictionary, so no row can match
+            if ((categoryId != null && category < 0) || (tellerId != null && teller < 0)) return;
+            ByteBuffer categoryColumn = categoryId != null ? column(CATEGORY) : null;
+            ByteBuffer tellerColumn = tellerId != null ? column(TELLER) : null;
+            ByteBuffer status = column(STATUS);
+            ByteBuffer called = column(CALLED);
+            ByteBuffer served = column(SERVED);
+            ByteBuffer completed = column(COMPLETED);
+            int completedOrdinal = TicketStatus.COMPLETED.ordinal();
+            int noShowOrdinal = TicketStatus.NOSHOW.ordinal();
+            for (int row = 0; row < rows; row++) {
+                int state = status.get();
+                long calledAt = readVarint(called);
+                long servedAt = readVarint(served);
+                long completedAt = readVarint(completed);
+                // Both filter columns advance on every row, or they fall out of step with the rest
+                long rowCategory = categoryColumn != null ? readVarint(categoryColumn) : category;
+                long rowTeller = tellerColumn != null ? readVarint(tellerColumn) : teller + 1;
+                if (rowCategory != category || rowTeller != teller + 1) continue;
+                totals[0]++;
+                if (state == completedOrdinal) totals[1]++;
+                else if (state == noShowOrdinal) totals[2]++;
+                if (calledAt != 0) {
+                    long wait = unzigzag(calledAt - 1);
+                    if (wait >= 0) {
+                        totals[3]++;
+                        totals[4] += wait;
+                    }
+                }
+                long start = servedAt != 0 ? servedAt : calledAt;
+                if (state == completedOrdinal && completedAt != 0 && start != 0) {
+                    long service = unzigzag(completedAt - 1) - unzigzag(start - 1);
+                    if (service >= 0) {
+                        totals[5]++;
+                        totals[6] += service;
+                    }
+                }
+            }
+        }
+
+        void readTickets(List<Ticket> out) {
+            ByteBuffer created = column(CREATED);
+            ByteBuffer status = column(STATUS);
+            ByteBuffer category = column(CATEGORY);
+            ByteBuffer teller = column(TELLER);
+            ByteBuffer called = column(CALLED);
+            ByteBuffer served = column(SERVED);
+            ByteBuffer completed = column(COMPLETED);
+            ByteBuffer counter = column(COUNTER);
+            ByteBuffer ids = column(ID);
+            ByteBuffer numbers = column(NUMBER);
+            long createdAt = dayStart;
+            for (int row = 0; row < rows; row++) {
+                createdAt += unzigzag(readVarint(created));
+                Map<String, Object> fields = new LinkedHashMap<>();
+                fields.put("id", readString(ids));
+                fields.put("number", readString(numbers));
+                fields.put("categoryId", categories[(int) readVarint(category)]);
+                int state = status.get();
+                fields.put("status", STATUSES[state >= 0 && state < STATUSES.length ? state : 0].name());
+                fields.put("createdAt", createdAt);
+                putTimestamp(fields, "calledAt", readVarint(called), createdAt);
+                putTimestamp(fields, "servedAt", readVarint(served), createdAt);
+                putTimestamp(fields, "completedAt", readVarint(completed), createdAt);
+                int tellerIndex = (int) readVarint(teller);
+                if (tellerIndex > 0) fields.put("tellerId", tellers[tellerIndex - 1]);
+                long counterNumber = readVarint(counter);
+                if (counterNumber > 0) fields.put("counterNumber", counterNumber);
+                out.add(new Ticket(fields));
+            }
+        }
+
+        private static void putTimestamp(Map<String, Object> fields, String name, long encoded, long createdAt) {
+            if (encoded != 0) fields.put(name, createdAt + unzigzag(encoded - 1));
+        }
+
+        private static int indexOf(String[] dictionary, String value) {
+            for (int i = 0; i < dictionary.length; i++) {
+                if (dictionary[i].equals(value)) return i;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Checks every column of every file against its crc32c, which queries skip for speed;
+     * returns the names of damaged files.
+     */
+    public List<String> verify() throws IOException {
+        List<String> damaged = new ArrayList<>();
+        for (List<Part> day : parts().values()) {
+            for (Part part : day) {
+                if (!verify(part.path())) damaged.add(part.path().getFileName().toString());
+            }
+        }
+        return damaged;
+    }
+
+    private static boolean verify(Path path) throws IOException {
+        DayFile file;
+        try {
+            file = DayFile.open(path);
+        } catch (IllegalStateException e) {
+            return false;
+        }
+        for (int id = CREATED; id < COLUMN_IDS; id++) {
+            CRC32C crc = new CRC32C();
+            crc.update(file.column(id));
+            if ((int) crc.getValue() != file.crcs[id]) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,29 @@
+package queuemaster.store;
+
+/** When journal writes are forced to disk. */
+public enum FsyncPolicy {
+    /** Every append waits until it is on disk; concurrent appends share one fsync (group commit). */
+    ALWAYS("Every write (group commit)"),
+    /** A background flush every {@link Journal#BATCH_INTERVAL_MS} ms; appends never wait. */
+    BATCH("Batched (every " + Journal.BATCH_INTERVAL_MS + " ms)"),
+    /** Left to the operating system; only rotation and shutdown force. */
+    OS("Operating system");
+
+    private final String label;
+
+    FsyncPolicy(String label) {
+        this.label = label;
+    }
+
+    public static FsyncPolicy parse(String value) {
+        for (FsyncPolicy policy : values()) {
+            if (policy.name().equals(value)) return policy;
+        }
+        return BATCH;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
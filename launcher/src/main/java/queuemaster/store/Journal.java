@@ -0,0 +1,336 @@
+package queuemaster.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead log of sequenced mutations, stored in fixed-size memory-mapped
+ * segment files named after the first sequence number they hold.
+ *
+ * <p>Record layout: {@code int length | int crc32c(seq, payload) | long seq | payload}. A zero
+ * length marks the end of written data (segments are preallocated); a record whose checksum
+ * does not match is a torn write from a crash and ends replay.
+ */
+public final class Journal implements Closeable {
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    public static final int BATCH_INTERVAL_MS = 20;
+    private static final int HEADER_BYTES = 16;
+    private static final String SUFFIX = ".journal";
+
+    /** Receives replayed records in sequence order. */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void apply(long seq, byte[] payload);
+    }
+
+    private final Path directory;
+    private final FsyncPolicy policy;
+    private final int segmentBytes;
+    private final ScheduledExecutorService flusher;
+
+    // Guarded by this
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+    private int forcedPosition;
+    private long appendedCount;
+    private long lastSeq;
+    private boolean closed;
+
+    // Guarded by commitLock
+    private final Object commitLock = new Object();
+    private long durableCount;
+    private boolean forcing;
+
+    private Journal(Path directory, FsyncPolicy policy, long segmentBytes) {
+        this.directory = directory;
+        this.policy = policy;
+        this.segmentBytes = (int) Math.min(segmentBytes, Integer.MAX_VALUE);
+        if (policy == FsyncPolicy.BATCH) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "qm-journal-flush");
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            flusher = null;
+        }
+    }
+
+    /** Opens (or creates) the journal in {@code directory}, positioned after the last intact record. */
+    public static Journal open(Path directory, FsyncPolicy policy, long segmentBytes) throws IOException {
+        Files.createDirectories(directory);
+        Journal journal = new Journal(directory, policy, segmentBytes);
+        journal.openTail();
+        if (journal.flusher != null) {
+            journal.flusher.scheduleWithFixedDelay(journal::flushQuietly, BATCH_INTERVAL_MS, BATCH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+        return journal;
+    }
+
+    /**
+     * Feeds every intact record with a sequence number above {@code afterSeq} to the handler.
+     * Returns the last sequence number in the journal (or {@code afterSeq} if it is empty).
+     */
+    public long replay(long afterSeq, RecordHandler handler) throws IOException {
+        long last = afterSeq;
+        for (Path segment : segments()) {
+            try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ)) {
+                MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                int pos = 0;
+                int end = scanEnd(map, 0);
+                while (pos < end) {
+                    int length = map.getInt(pos);
+                    long seq = map.getLong(pos + 8);
+                    if (seq > afterSeq) {
+                        byte[] payload = new byte[length];
+                        map.get(pos + HEADER_BYTES, payload);
+                        handler.apply(seq, payload);
+                        last = seq;
+                    }
+                    pos += HEADER_BYTES + length;
+                }
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Appends one record. Sequence numbers must increase; the caller serializes appends in
+     * sequence order. With {@link FsyncPolicy#ALWAYS} this returns once the record is durable.
+     */
+    public void append(long seq, byte[] payload) throws IOException {
+        long ticket = write(seq, payload);
+        if (policy == FsyncPolicy.ALWAYS) commit(ticket);
+    }
+
+    /**
+     * Appends one record without waiting for the disk and returns its commit ticket. Callers
+     * that must not hold their own lock across an fsync write under the lock and
+     * {@link #commit(long)} after releasing it, so concurrent writers share one force.
+     */
+    public long write(long seq, byte[] payload) throws IOException {
+        synchronized (this) {
+            if (closed) throw new IOException("Journal is closed");
+            int size = HEADER_BYTES + payload.length;
+            if (size + 4 > segmentBytes) throw new IOException("Record of " + payload.length + " bytes exceeds segment size");
+            if (buffer == null || position + size + 4 > segmentBytes) rotate(seq);
+            CRC32C crc = new CRC32C();
+            crc.update(longBytes(seq));
+            crc.update(payload);
+            buffer.putInt(position + 4, (int) crc.getValue());
+            buffer.putLong(position + 8, seq);
+            buffer.put(position + HEADER_BYTES, payload);
+            buffer.putInt(position, payload.length);
+            position += size;
+            lastSeq = seq;
+            return ++appendedCount;
+        }
+    }
+
+    /** Blocks until the record with this commit ticket (and every one before it) is on disk. */
+    public void commit(long ticket) throws IOException {
+        awaitDurable(ticket);
+    }
+
+    /** Highest commit ticket known to be on disk. */
+    public long getDurableTicket() {
+        synchronized (commitLock) {
+            return durableCount;
+        }
+    }
+
+    public FsyncPolicy getPolicy() {
+        return policy;
+    }
+
+    /** Forces everything appended so far to disk. */
+    public void sync() throws IOException {
+        long ticket;
+        synchronized (this) {
+            ticket = appendedCount;
+        }
+        awaitDurable(ticket);
+    }
+
+    public synchronized long getLastSeq() {
+        return lastSeq;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) flusher.shutdownNow();
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            if (buffer != null) buffer.force();
+            if (channel != null) channel.close();
+            buffer = null;
+            channel = null;
+        }
+    }
+
+    /**
+     * Deletes segments whose records are all at or below {@code seq} (covered by a snapshot).
+     * The segment being written is always kept. A segment that cannot be deleted yet (on
+     * Windows, while a replay mapping of it has not been collected) is retried next time.
+     */
+    public int deleteSegmentsThrough(long seq) throws IOException {
+        List<Path> segments = segments();
+        int deleted = 0;
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (firstSeq(segments.get(i + 1)) - 1 > seq) break;
+            try {
+                Files.deleteIfExists(segments.get(i));
+                deleted++;
+            } catch (IOException e) {
+                // Still mapped; the next compaction picks it up
+            }
+        }
+        return deleted;
+    }
+
+    /** Segment files in sequence order. */
+    List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path path : stream) segments.add(path);
+        }
+        segments.sort((a, b) -> Long.compare(firstSeq(a), firstSeq(b)));
+        return segments;
+    }
+
+    static long firstSeq(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    // Group commit: the first waiter forces on behalf of everyone queued behind it
+    private void awaitDurable(long ticket) throws IOException {
+        while (true) {
+            synchronized (commitLock) {
+                if (durableCount >= ticket) return;
+                if (forcing) {
+                    try {
+                        commitLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted waiting for journal sync", e);
+                    }
+                    continue;
+                }
+                forcing = true;
+            }
+            long covered = durableCount;
+            try {
+                covered = forceAppended();
+            } finally {
+                synchronized (commitLock) {
+                    forcing = false;
+                    durableCount = Math.max(durableCount, covered);
+                    commitLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private long forceAppended() {
+        MappedByteBuffer target;
+        int from;
+        int to;
+        long covered;
+        synchronized (this) {
+            if (buffer == null) return appendedCount;
+            target = buffer;
+            from = forcedPosition;
+            to = position;
+            covered = appendedCount;
+            forcedPosition = to;
+        }
+        if (to > from) target.force(from, to - from);
+        return covered;
+    }
+
+    private void flushQuietly() {
+        try {
+            sync();
+        } catch (IOException | RuntimeException e) {
+            // Retried on the next tick; ALWAYS/close surface errors to callers
+        }
+    }
+
+    private void openTail() throws IOException {
+        List<Path> segments = segments();
+        if (segments.isEmpty()) return;
+        Path last = segments.get(segments.size() - 1);
+        channel = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentBytes, channel.size()));
+        position = scanEnd(buffer, 0);
+        forcedPosition = position;
+        // Clear a torn record so the next append is not followed by stale bytes
+        if (position + 4 <= buffer.capacity()) buffer.putInt(position, 0);
+        int pos = 0;
+        while (pos < position) {
+            lastSeq = buffer.getLong(pos + 8);
+            pos += HEADER_BYTES + buffer.getInt(pos);
+        }
+        if (lastSeq == 0) lastSeq = firstSeq(last) - 1;
+    }
+
+    private void rotate(long nextSeq) throws IOException {
+        if (buffer != null) {
+            buffer.force();
+            channel.close();
+        }
+        Path segment = directory.resolve(String.format("%020d%s", nextSeq, SUFFIX));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        position = 0;
+        forcedPosition = 0;
+    }
+
+    /** Offset just past the last intact record, starting from {@code pos}. */
+    private static int scanEnd(MappedByteBuffer map, int pos) {
+        int limit = map.capacity();
+        CRC32C crc = new CRC32C();
+        while (pos + HEADER_BYTES <= limit) {
+            int length = map.getInt(pos);
+            if (length <= 0 || pos + HEADER_BYTES + (long) length > limit) break;
+            crc.reset();
+            crc.update(map.slice(pos + 8, 8));
+            crc.update(map.slice(pos + HEADER_BYTES, length));
+            if ((int) crc.getValue() != map.getInt(pos + 4)) break;
+            pos += HEADER_BYTES + length;
+        }
+        return pos;
+    }
+
+    private static byte[] longBytes(long value) {
+        byte[] bytes = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            bytes[i] = (byte) value;
+            value >>>= 8;
+        }
+        return bytes;
+    }
+}
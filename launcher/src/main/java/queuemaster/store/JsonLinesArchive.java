@@ -0,0 +1,98 @@
+package queuemaster.store;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import queuemaster.engine.Ticket;
+import queuemaster.engine.TicketArchive;
+import queuemaster.json.Json;
+
+/**
+ * Appends expired tickets to one JSON-lines file per day of creation
+ * ({@code tickets-2024-05-17.jsonl}), in the same shape as {@code ticket_update} payloads.
+ */
+public final class JsonLinesArchive implements TicketArchive {
+    private final Path directory;
+    private final ZoneId zone;
+
+    public JsonLinesArchive(Path directory) {
+        this(directory, ZoneId.systemDefault());
+    }
+
+    public JsonLinesArchive(Path directory, ZoneId zone) {
+        this.directory = directory;
+        this.zone = zone;
+    }
+
+    @Override
+    public synchronized void archive(List<Ticket> tickets) throws IOException {
+        if (tickets.isEmpty()) return;
+        Files.createDirectories(directory);
+        Map<LocalDate, List<Ticket>> byDay = new LinkedHashMap<>();
+        for (Ticket ticket : tickets) {
+            LocalDate day = Instant.ofEpochMilli(ticket.getCreatedAt()).atZone(zone).toLocalDate();
+            byDay.computeIfAbsent(day, d -> new ArrayList<>()).add(ticket);
+        }
+        StringBuilder line = new StringBuilder(256);
+        for (Map.Entry<LocalDate, List<Ticket>> day : byDay.entrySet()) {
+            Path file = directory.resolve("tickets-" + day.getKey() + ".jsonl");
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (Ticket ticket : day.getValue()) {
+                    line.setLength(0);
+                    Json.write(ticket.toJson(), line);
+                    out.append(line).append('\n');
+                }
+            }
+        }
+    }
+
+    @Override
+    public void replay(long since, Consumer<Ticket> action) throws IOException {
+        if (!Files.isDirectory(directory)) return;
+        LocalDate first = Instant.ofEpochMilli(since).atZone(zone).toLocalDate();
+        TreeMap<LocalDate, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "tickets-*.jsonl")) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                try {
+                    LocalDate day = LocalDate.parse(name.substring("tickets-".length(), name.length() - ".jsonl".length()));
+                    if (!day.isBefore(first)) files.put(day, file);
+                } catch (DateTimeParseException e) {
+                    // Not ours
+                }
+            }
+        }
+        for (Path file : files.values()) {
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                for (String line = in.readLine(); line != null; line = in.readLine()) {
+                    if (line.isBlank()) continue;
+                    try {
+                        action.accept(new Ticket(Json.parseObject(line)));
+                    } catch (RuntimeException e) {
+                        // A line torn by a crash mid-append; the rest of the day is still good
+                    }
+                }
+            }
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+}
@@ -0,0 +1,35 @@
+package queuemaster.store;
+
+import java.util.List;
+import java.util.Map;
+import queuemaster.engine.QueueEngine;
+import queuemaster.engine.ServiceCategory;
+import queuemaster.engine.Teller;
+import queuemaster.engine.Ticket;
+import queuemaster.engine.TicketNumberAllocator.CounterState;
+
+/**
+ * Engine contents and ticket number counters as of journal sequence number {@code seq}:
+ * replaying the journal records after {@code seq} on top of it reproduces the live state.
+ */
+public record Snapshot(long seq, long createdAt, List<Ticket> tickets, List<Teller> tellers,
+                       List<ServiceCategory> categories, List<Map<String, Object>> adminAccounts,
+                       List<CounterState> counters) {
+
+    /** Captures the engine; the caller makes sure no mutation runs concurrently. */
+    public static Snapshot of(long seq, QueueEngine engine) {
+        return of(seq, engine, List.of());
+    }
+
+    public static Snapshot of(long seq, QueueEngine engine, List<CounterState> counters) {
+        return new Snapshot(seq, System.currentTimeMillis(), engine.tickets(), engine.tellers(),
+                engine.categories(), engine.adminAccounts(), counters);
+    }
+
+    public void restoreInto(QueueEngine engine) {
+        for (ServiceCategory category : categories) engine.upsertCategory(category);
+        for (Teller teller : tellers) engine.upsertTeller(teller);
+        for (Map<String, Object> account : adminAccounts) engine.upsertAdminAccount(account);
+        for (Ticket ticket : tickets) engine.upsertTicket(ticket);
+    }
+}
@@ -0,0 +1,368 @@
+package queuemaster.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import queuemaster.engine.ServiceCategory;
+import queuemaster.engine.Teller;
+import queuemaster.engine.Ticket;
+import queuemaster.engine.TicketNumberAllocator.CounterState;
+
+/**
+ * Binary {@link Snapshot} files named after the sequence number they cover.
+ *
+ * <p>Layout (version 2): {@code int magic | int version | long seq | long createdAt}, then the
+ * tickets, tellers, categories and admin accounts, each as a varint count followed by their
+ * field maps, then the ticket number counters as a varint count of {@code prefix | varint day
+ * | varint count}, then an {@code int crc32c} of everything before it. Version 1 files (no
+ * counters) are still read. The first
+ * {@value #STRING_TABLE_LIMIT} distinct strings are written once and referenced by index
+ * afterwards, so field names, statuses and category ids cost a byte or two each; the table is
+ * capped because most later strings are unique ticket ids that would only bloat it. Files are written to a temp name and renamed, so
+ * a crash mid-write never replaces a good snapshot with a partial one.
+ */
+public final class SnapshotStore {
+    public static final int VERSION = 2;
+    public static final int DEFAULT_KEEP = 2;
+    private static final int MAGIC = 0x514D534E; // "QMSN"
+    private static final String SUFFIX = ".snapshot";
+    private static final int STRING_TABLE_LIMIT = 4096;
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte STRING = 5;
+    private static final byte MAP = 6;
+    private static final byte LIST = 7;
+
+    private final Path directory;
+    private volatile Consumer<String> logger = System.out::println;
+
+    public SnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public void setLogger(Consumer<String> logger) {
+        this.logger = logger;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /** Writes the snapshot durably and returns its file. */
+    public Path write(Snapshot snapshot) throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(String.format("%020d%s", snapshot.seq(), SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Encoder out = new Encoder(channel);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(snapshot.seq());
+            out.writeLong(snapshot.createdAt());
+            out.writeVarint(snapshot.tickets().size());
+            for (Ticket ticket : snapshot.tickets()) out.writeMap(ticket.toJson());
+            out.writeVarint(snapshot.tellers().size());
+            for (Teller teller : snapshot.tellers()) out.writeMap(teller.toJson());
+            out.writeVarint(snapshot.categories().size());
+            for (ServiceCategory category : snapshot.categories()) out.writeMap(category.toJson());
+            out.writeVarint(snapshot.adminAccounts().size());
+            for (Map<String, Object> account : snapshot.adminAccounts()) out.writeMap(account);
+            out.writeVarint(snapshot.counters().size());
+            for (CounterState counter : snapshot.counters()) {
+                out.writeString(counter.prefix());
+                out.writeVarint(counter.day());
+                out.writeVarint(counter.count());
+            }
+            out.finish();
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+
+    /** The newest snapshot that passes its checksum, or null if there is none. */
+    public Snapshot loadLatest() throws IOException {
+        List<Path> files = files();
+        for (int i = files.size() - 1; i >= 0; i--) {
+            Path file = files.get(i);
+            try {
+                return read(file);
+            } catch (IllegalStateException e) {
+                log("Skipping snapshot " + file.getFileName() + ": " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Deletes all but the newest {@code keep} snapshots and any leftover temp files. Returns the
+     * sequence number of the oldest snapshot kept (0 if none): the journal is only needed after it.
+     */
+    public long prune(int keep) throws IOException {
+        List<Path> files = files();
+        for (int i = 0; i < files.size() - keep; i++) Files.deleteIfExists(files.get(i));
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX + ".tmp")) {
+            for (Path path : stream) Files.deleteIfExists(path);
+        }
+        if (files.isEmpty() || keep <= 0) return 0;
+        String name = files.get(Math.max(0, files.size() - keep)).getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    /** Reads and verifies one snapshot file. Damaged or foreign files throw {@link IllegalStateException}. */
+    public static Snapshot read(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length < 28) throw new IllegalStateException("truncated");
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, bytes.length - 4);
+        if ((int) crc.getValue() != in.getInt(bytes.length - 4)) throw new IllegalStateException("checksum mismatch");
+        in.limit(bytes.length - 4);
+        if (in.getInt() != MAGIC) throw new IllegalStateException("not a snapshot");
+        int version = in.getInt();
+        if (version != 1 && version != VERSION) throw new IllegalStateException("unsupported version " + version);
+        try {
+            Decoder decoder = new Decoder(in);
+            long seq = in.getLong();
+            long createdAt = in.getLong();
+            int ticketCount = decoder.readCount();
+            List<Ticket> tickets = new ArrayList<>(ticketCount);
+            for (int n = ticketCount; n > 0; n--) tickets.add(new Ticket(decoder.readMap()));
+            List<Teller> tellers = new ArrayList<>();
+            for (int n = decoder.readCount(); n > 0; n--) tellers.add(new Teller(decoder.readMap()));
+            List<ServiceCategory> categories = new ArrayList<>();
+            for (int n = decoder.readCount(); n > 0; n--) categories.add(new ServiceCategory(decoder.readMap()));
+            List<Map<String, Object>> accounts = new ArrayList<>();
+            for (int n = decoder.readCount(); n > 0; n--) accounts.add(decoder.readMap());
+            List<CounterState> counters = new ArrayList<>();
+            if (version >= 2) {
+                for (int n = decoder.readCount(); n > 0; n--) {
+                    counters.add(new CounterState(decoder.readString(), decoder.readVarint(), decoder.readVarint()));
+                }
+            }
+            return new Snapshot(seq, createdAt, tickets, tellers, categories, accounts, counters);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("malformed: " + e, e);
+        }
+    }
+
+    /** Snapshot files in sequence order. */
+    private List<Path> files() throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return files;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path path : stream) files.add(path);
+        }
+        files.sort(null);
+        return files;
+    }
+
+    private void log(String message) {
+        Consumer<String> sink = logger;
+        if (sink != null) sink.accept(message);
+    }
+
+    /** Buffered writer that checksums everything it emits. */
+    private static final class Encoder {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        private final CRC32C crc = new CRC32C();
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Encoder(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void writeInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void writeLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void writeVarint(long value) throws IOException {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void writeMap(Map<?, ?> map) throws IOException {
+            writeVarint(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(String.valueOf(entry.getKey()));
+                writeValue(entry.getValue());
+            }
+        }
+
+        // 0: new string, added to the table; 1: inline string, table full; n: table entry n - 2
+        void writeString(String value) throws IOException {
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeVarint(index + 2);
+                return;
+            }
+            if (strings.size() < STRING_TABLE_LIMIT) {
+                strings.put(value, strings.size());
+                writeVarint(0);
+            } else {
+                writeVarint(1);
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length);
+            if (utf8.length > buffer.remaining()) flush();
+            if (utf8.length > buffer.capacity()) {
+                crc.update(utf8);
+                write(ByteBuffer.wrap(utf8));
+            } else {
+                buffer.put(utf8);
+            }
+        }
+
+        void writeValue(Object value) throws IOException {
+            ensure(1);
+            if (value == null) {
+                buffer.put(NULL);
+            } else if (value instanceof Boolean) {
+                buffer.put((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                buffer.put(LONG);
+                long n = ((Number) value).longValue();
+                writeVarint((n << 1) ^ (n >> 63));
+            } else if (value instanceof Number) {
+                buffer.put(DOUBLE);
+                ensure(8);
+                buffer.putDouble(((Number) value).doubleValue());
+            } else if (value instanceof Map) {
+                buffer.put(MAP);
+                writeMap((Map<?, ?>) value);
+            } else if (value instanceof List) {
+                buffer.put(LIST);
+                List<?> list = (List<?>) value;
+                writeVarint(list.size());
+                for (Object element : list) writeValue(element);
+            } else {
+                buffer.put(STRING);
+                writeString(value.toString());
+            }
+        }
+
+        void finish() throws IOException {
+            flush();
+            ByteBuffer trailer = ByteBuffer.allocate(4).putInt((int) crc.getValue());
+            trailer.flip();
+            write(trailer);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            write(buffer);
+            buffer.clear();
+        }
+
+        private void write(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) channel.write(bytes);
+        }
+    }
+
+    private static final class Decoder {
+        private final ByteBuffer in;
+        private final List<String> strings = new ArrayList<>();
+
+        Decoder(ByteBuffer in) {
+            this.in = in;
+        }
+
+        int readCount() {
+            long count = readVarint();
+            if (count < 0 || count > in.remaining()) throw new IllegalStateException("bad count " + count);
+            return (int) count;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = in.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+            throw new IllegalStateException("varint too long");
+        }
+
+        Map<String, Object> readMap() {
+            int size = readCount();
+            Map<String, Object> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+            for (int i = 0; i < size; i++) {
+                String key = readString();
+                map.put(key, readValue());
+            }
+            return map;
+        }
+
+        String readString() {
+            int ref = (int) readVarint();
+            if (ref > 1) return strings.get(ref - 2);
+            int length = readCount();
+            String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            if (ref == 0) strings.add(value);
+            return value;
+        }
+
+        Object readValue() {
+            byte tag = in.get();
+            switch (tag) {
+                case NULL: return null;
+                case FALSE: return Boolean.FALSE;
+                case TRUE: return Boolean.TRUE;
+                case LONG: {
+                    long n = readVarint();
+                    return (n >>> 1) ^ -(n & 1);
+                }
+                case DOUBLE: return in.getDouble();
+                case STRING: return readString();
+                case MAP: return readMap();
+                case LIST: {
+                    int size = readCount();
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) list.add(readValue());
+                    return list;
+                }
+                default: throw new IllegalStateException("unknown tag " + tag);
+            }
+        }
+    }
+}
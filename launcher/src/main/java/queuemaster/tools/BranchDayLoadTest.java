@@ -0,0 +1,629 @@
+package queuemaster.tools;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import queuemaster.engine.StripedQueueEngine;
+import queuemaster.engine.TicketStatus;
+import queuemaster.json.Json;
+import queuemaster.realtime.CoalescingStats;
+import queuemaster.server.EmbeddedServer;
+
+/**
+ * Replays a synthetic branch day against the realtime endpoint over the normal message
+ * protocol. Customers arrive as a Poisson process whose rate follows a morning and a lunch
+ * peak; a reception client issues their tickets ({@code issue_ticket}), N tellers call
+ * ({@code call_next}), serve and complete them with service times drawn around each
+ * category's {@code estimatedTime}, and M monitor clients watch. The day is compressed into
+ * {@code --seconds} of real time, and the same seed replays the same day.
+ *
+ * <p>Latency is measured end to end, from the request that caused a {@code ticket_update}
+ * (the issue, the call, or the teller's own update) to its receipt at each monitor. An
+ * issued ticket counts from the issue request to the first update of it a monitor receives,
+ * which may already be CALLING when the server coalesced the two. Server CPU
+ * and heap come from the platform MXBeans when the server runs in this JVM ({@code --embedded},
+ * or started from the launcher); for a server in another process pass {@code --server-pid} to
+ * get its CPU time.
+ *
+ * <pre>
+ * java -cp QueueMasterLauncher.jar queuemaster.tools.BranchDayLoadTest --embedded --tickets 600 --tellers 12 --monitors 25
+ * java -cp QueueMasterLauncher.jar queuemaster.tools.BranchDayLoadTest --port 8080 --server-pid 4242 --seconds 600
+ * </pre>
+ *
+ * {@code --coalesce-ms} sets the embedded server's coalescing window (default
+ * {@value EmbeddedServer#DEFAULT_COALESCE_WINDOW_MILLIS}); the report then includes how many
+ * updates it coalesced.
+ *
+ * Categories are given as parallel lists: {@code --service-minutes 5,8,12,4} and
+ * {@code --mix 40,25,20,15} (share of arrivals). The first simulated quarter hour warms up the
+ * JIT and is not recorded.
+ */
+public final class BranchDayLoadTest {
+    public static final double DEFAULT_OPEN_HOUR = 8.5;
+    public static final double DEFAULT_CLOSE_HOUR = 17;
+    private static final double WARM_UP_HOURS = 0.25;
+    private static final String CATEGORY_PREFIX = "load-cat-";
+    private static final String TELLER_PREFIX = "load-teller-";
+
+    private static final int ARRIVE = 0;
+    private static final int CALL = 1;
+    private static final int SERVE = 2;
+    private static final int COMPLETE = 3;
+
+    /** Something a simulated person does at a point in real time; {@code index} is the teller, or the category of an arrival. */
+    private static final class Event implements Delayed {
+        final long dueNanos;
+        final int kind;
+        final int index;
+        final Map<String, Object> ticket;
+
+        Event(long dueNanos, int kind, int index, Map<String, Object> ticket) {
+            this.dueNanos = dueNanos;
+            this.kind = kind;
+            this.index = index;
+            this.ticket = ticket;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((Event) other).dueNanos);
+        }
+    }
+
+    private static final class TellerSim {
+        final int index;
+        final String id;
+        final Map<String, Object> fields = new LinkedHashMap<>();
+        LoadClients.Client client;
+        volatile long callSentNanos;
+
+        TellerSim(int index, int categories) {
+            this.index = index;
+            this.id = TELLER_PREFIX + index;
+            fields.put("id", id);
+            fields.put("name", "Load Teller " + (index + 1));
+            fields.put("counterNumber", (long) index + 1);
+            // Skill matrix: the teller's home category and the next one
+            fields.put("assignedCategoryIds", categories > 1
+                    ? List.of(CATEGORY_PREFIX + index % categories, CATEGORY_PREFIX + (index + 1) % categories)
+                    : List.of(CATEGORY_PREFIX + 0));
+            fields.put("status", "ONLINE");
+        }
+    }
+
+    /** Per-monitor state, touched only by the load client thread. */
+    private static final class MonitorSim {
+        final Map<String, Long> firstSeenNanos = new HashMap<>();
+    }
+
+    private final String host;
+    private final int port;
+    private final boolean embedded;
+    private final boolean inProcess;
+    private final long serverPid;
+    private final int ticketsPerDay;
+    private final int tellerCount;
+    private final int monitorCount;
+    private final int seconds;
+    private final int coalesceMillis;
+    private final double openHour;
+    private final double closeHour;
+    private final int[] serviceMinutes;
+    private final double[] mix;
+    private final long seed;
+
+    private final DelayQueue<Event> events = new DelayQueue<>();
+    private final LatencyRecorder issueLatency = new LatencyRecorder();
+    private final LatencyRecorder callLatency = new LatencyRecorder();
+    private final LatencyRecorder updateLatency = new LatencyRecorder();
+    private final LatencyRecorder allLatency = new LatencyRecorder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final AtomicInteger issued = new AtomicInteger();
+    private final AtomicInteger issueResults = new AtomicInteger();
+    private final Map<String, Long> issueSentById = new ConcurrentHashMap<>();
+    private final List<MonitorSim> monitors = new ArrayList<>();
+    private final AtomicInteger called = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger emptyCalls = new AtomicInteger();
+    private final Map<String, TellerSim> tellersById = new HashMap<>();
+    private volatile Consumer<String> logger = System.out::println;
+    private volatile boolean cancelled;
+
+    private AtomicLongArray issueSentNanos;
+    private volatile long dayStartNanos;
+    private int issueRequests;
+    private Random random;
+    private LoadClients clients;
+    private LoadClients.Client reception;
+
+    /** Options as {@link ConnectionLoadTest#parseArgs} returns them; see the class comment. */
+    public BranchDayLoadTest(Map<String, String> options) {
+        host = options.getOrDefault("host", "localhost");
+        port = Integer.parseInt(options.getOrDefault("port", String.valueOf(EmbeddedServer.DEFAULT_PORT)));
+        embedded = options.containsKey("embedded");
+        inProcess = embedded || options.containsKey("in-process");
+        serverPid = Long.parseLong(options.getOrDefault("server-pid", "-1"));
+        ticketsPerDay = Integer.parseInt(options.getOrDefault("tickets", "600"));
+        tellerCount = Integer.parseInt(options.getOrDefault("tellers", "12"));
+        monitorCount = Integer.parseInt(options.getOrDefault("monitors", "25"));
+        seconds = Integer.parseInt(options.getOrDefault("seconds", "180"));
+        coalesceMillis = Integer.parseInt(options.getOrDefault("coalesce-ms", String.valueOf(EmbeddedServer.DEFAULT_COALESCE_WINDOW_MILLIS)));
+        openHour = Double.parseDouble(options.getOrDefault("open", String.valueOf(DEFAULT_OPEN_HOUR)));
+        closeHour = Double.parseDouble(options.getOrDefault("close", String.valueOf(DEFAULT_CLOSE_HOUR)));
+        String[] minutes = options.getOrDefault("service-minutes", "5,8,12,4").split(",");
+        String[] shares = options.getOrDefault("mix", "40,25,20,15").split(",");
+        if (minutes.length != shares.length) throw new IllegalArgumentException("--service-minutes and --mix need the same number of categories");
+        serviceMinutes = new int[minutes.length];
+        mix = new double[shares.length];
+        for (int i = 0; i < minutes.length; i++) {
+            serviceMinutes[i] = Integer.parseInt(minutes[i].trim());
+            mix[i] = Double.parseDouble(shares[i].trim());
+        }
+        seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        if (closeHour <= openHour || seconds < 1 || tellerCount < 1) throw new IllegalArgumentException("Empty day");
+    }
+
+    public static void main(String[] args) throws Exception {
+        new BranchDayLoadTest(ConnectionLoadTest.parseArgs(args)).run();
+    }
+
+    public void setLogger(Consumer<String> logger) {
+        this.logger = logger;
+    }
+
+    /** Stops a running day early; {@link #run} still reports what was measured. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** Replays the day and logs the report. Blocks for about {@code --seconds}. */
+    public void run() throws Exception {
+        random = new Random(seed);
+        List<double[]> arrivals = arrivals();
+        issueSentNanos = new AtomicLongArray(arrivals.size());
+        EmbeddedServer server = null;
+        if (embedded) {
+            server = new EmbeddedServer(new StripedQueueEngine(), port);
+            server.setLogger(null);
+            server.setCoalesceWindowMillis(coalesceMillis);
+            server.start();
+        }
+        CoalescingStats coalescing = null;
+        ServerSampler sampler = new ServerSampler();
+        Thread samplerThread = null;
+        try {
+            connect();
+            log(String.format("Branch day %s-%s replayed in %d s (%.0fx): %d arrivals in %d categories, %d tellers, %d monitors (seed %d)",
+                    clock(openHour), clock(closeHour), seconds, speed(), arrivals.size(), mix.length, tellerCount, monitorCount, seed));
+
+            dayStartNanos = System.nanoTime();
+            for (int k = 0; k < arrivals.size(); k++) {
+                double[] arrival = arrivals.get(k);
+                events.add(new Event(dayStartNanos + realNanos(arrival[0] - openHour), ARRIVE, (int) arrival[1], null));
+            }
+            for (TellerSim teller : tellersById.values()) {
+                // Tellers log in over the first few minutes of the day
+                events.add(new Event(dayStartNanos + realNanos(random.nextDouble() * 0.1), CALL, teller.index, null));
+            }
+            samplerThread = new Thread(sampler, "qm-load-sampler");
+            samplerThread.setDaemon(true);
+            samplerThread.start();
+            drive();
+            Thread.sleep(1000); // in-flight updates reach the monitors
+            if (server != null) coalescing = server.getCoalescingStats();
+        } finally {
+            sampler.stop();
+            if (samplerThread != null) samplerThread.join(2000);
+            if (clients != null) clients.shutdown();
+            if (server != null) server.stop();
+        }
+        report(arrivals.size(), sampler, coalescing);
+    }
+
+    /** Arrival times (simulated hours) and categories by thinning a Poisson process at the peak rate. */
+    private List<double[]> arrivals() {
+        double integral = 0;
+        double peak = 0;
+        for (double h = openHour; h < closeHour; h += 1 / 600.0) {
+            integral += shape(h) / 600.0;
+            peak = Math.max(peak, shape(h));
+        }
+        double scale = ticketsPerDay / integral;
+        double maxRate = peak * scale;
+        double mixTotal = 0;
+        for (double share : mix) mixTotal += share;
+        List<double[]> arrivals = new ArrayList<>();
+        double h = openHour;
+        for (;;) {
+            h += -Math.log(1 - random.nextDouble()) / maxRate;
+            if (h >= closeHour) return arrivals;
+            if (random.nextDouble() * maxRate > shape(h) * scale) continue;
+            double pick = random.nextDouble() * mixTotal;
+            int category = 0;
+            while (category < mix.length - 1 && (pick -= mix[category]) >= 0) category++;
+            arrivals.add(new double[]{h, category});
+        }
+    }
+
+    /** Relative arrival rate over the day: a base load, a mid-morning peak and a larger lunch peak. */
+    private static double shape(double hour) {
+        double morning = (hour - 10.0) / 0.8;
+        double lunch = (hour - 12.75) / 0.6;
+        return 0.35 + Math.exp(-0.5 * morning * morning) + 1.3 * Math.exp(-0.5 * lunch * lunch);
+    }
+
+    private void connect() throws Exception {
+        AtomicInteger opened = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        AtomicInteger setupDone = new AtomicInteger();
+        AtomicReference<String> welcome = new AtomicReference<>();
+        clients = new LoadClients(new InetSocketAddress(host, port), new LoadClients.Listener() {
+            @Override
+            public void onOpen(LoadClients.Client client) {
+                opened.incrementAndGet();
+            }
+
+            @Override
+            public void onText(LoadClients.Client client, String text, long receivedNanos) {
+                received.increment();
+                Object role = client.tag;
+                if (role instanceof MonitorSim) onMonitorText((MonitorSim) role, text, receivedNanos);
+                else if (role instanceof TellerSim) onTellerText((TellerSim) role, text);
+                else if (client == reception && text.startsWith("{\"type\":\"welcome\"")) welcome.set(text);
+                else if (client == reception && text.startsWith("{\"type\":\"pong\"")) setupDone.incrementAndGet();
+                else if (client == reception && text.startsWith("{\"type\":\"issue_ticket_result\"")) onIssued(text);
+            }
+
+            @Override
+            public void onClose(LoadClients.Client client) {
+                closed.incrementAndGet();
+            }
+        });
+
+        reception = clients.connect("/");
+        ConnectionLoadTest.waitFor(() -> opened.get() + closed.get() >= 1, 10_000);
+        if (opened.get() == 0) throw new IllegalStateException("Cannot connect to ws://" + host + ":" + port);
+        ConnectionLoadTest.waitFor(() -> welcome.get() != null, 10_000);
+        Object features = welcome.get() != null ? Json.parseObject(welcome.get()).get("features") : null;
+        if (!(features instanceof List) || !((List<?>) features).containsAll(List.of("issue_ticket", "call_next"))) {
+            throw new IllegalStateException("The server at " + host + ":" + port
+                    + " does not issue tickets or dispatch calls (the Node server); run the Java realtime server");
+        }
+        for (int c = 0; c < mix.length; c++) {
+            Map<String, Object> category = new LinkedHashMap<>();
+            category.put("id", CATEGORY_PREFIX + c);
+            category.put("name", "Load " + (char) ('A' + c));
+            // Two-letter prefixes keep load-test numbers off the branch's real counters
+            category.put("prefix", "L" + (char) ('A' + c));
+            category.put("estimatedTime", (long) serviceMinutes[c]);
+            send(reception, Map.of("type", "category_update", "category", category));
+        }
+        for (int t = 0; t < tellerCount; t++) {
+            TellerSim teller = new TellerSim(t, mix.length);
+            tellersById.put(teller.id, teller);
+            send(reception, Map.of("type", "teller_update", "teller", teller.fields));
+        }
+        // The server handles one connection's messages in order: the pong means the setup is stored
+        send(reception, Map.of("type", "ping"));
+        ConnectionLoadTest.waitFor(() -> setupDone.get() > 0, 10_000);
+
+        for (TellerSim teller : tellersById.values()) {
+            teller.client = clients.connect("/");
+            teller.client.tag = teller;
+        }
+        for (int m = 0; m < monitorCount; m++) {
+            MonitorSim monitor = new MonitorSim();
+            monitors.add(monitor);
+            clients.connect("/").tag = monitor;
+            // Keep the SYN backlog reasonable
+            int connecting = 1 + tellerCount + m + 1;
+            if (m % 250 == 249) ConnectionLoadTest.waitFor(() -> opened.get() + closed.get() > connecting - 500, 5000);
+        }
+        int expected = 1 + tellerCount + monitorCount;
+        ConnectionLoadTest.waitFor(() -> opened.get() + closed.get() >= expected, 30_000);
+        if (opened.get() < expected) log(String.format("Only %d of %d clients connected", opened.get(), expected));
+    }
+
+    /** Runs the simulated people until the day is over. */
+    private void drive() throws InterruptedException {
+        long dayEnd = dayStartNanos + TimeUnit.SECONDS.toNanos(seconds);
+        int nextHour = (int) Math.floor(openHour) + 1;
+        while (!cancelled && System.nanoTime() < dayEnd) {
+            Event event = events.poll(50, TimeUnit.MILLISECONDS);
+            if (simulatedHour() >= nextHour) {
+                log(String.format("%s  %d issued, %d called, %d completed, %d waiting", clock(nextHour),
+                        issued.get(), called.get(), completed.get(), issued.get() - called.get()));
+                nextHour++;
+            }
+            if (event == null) continue;
+            TellerSim teller = event.kind != ARRIVE ? tellerAt(event.index) : null;
+            switch (event.kind) {
+                case ARRIVE:
+                    issueSentNanos.set(issueRequests++, System.nanoTime());
+                    send(reception, Map.of("type", "issue_ticket", "categoryId", CATEGORY_PREFIX + event.index));
+                    break;
+                case CALL:
+                    teller.callSentNanos = System.nanoTime();
+                    send(teller.client, Map.of("type", "call_next", "tellerId", teller.id));
+                    break;
+                case SERVE: {
+                    Map<String, Object> ticket = update(event.ticket, TicketStatus.SERVING, "servedAt");
+                    send(teller.client, Map.of("type", "ticket_update", "ticket", ticket));
+                    int category = categoryIndex(ticket);
+                    // Service time around the category's estimate: never under half of it
+                    double minutes = serviceMinutes[category] * (0.5 + 0.5 * -Math.log(1 - random.nextDouble()));
+                    events.add(new Event(System.nanoTime() + realNanos(minutes / 60), COMPLETE, teller.index, ticket));
+                    break;
+                }
+                case COMPLETE: {
+                    Map<String, Object> ticket = update(event.ticket, TicketStatus.COMPLETED, "completedAt");
+                    send(teller.client, Map.of("type", "ticket_update", "ticket", ticket));
+                    completed.incrementAndGet();
+                    Map<String, Object> fields = new LinkedHashMap<>(teller.fields);
+                    fields.put("lastUpdated", System.currentTimeMillis());
+                    send(teller.client, Map.of("type", "teller_update", "teller", fields));
+                    events.add(new Event(System.nanoTime() + realNanos(0.5 / 60), CALL, teller.index, null));
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+        if (cancelled) log("Cancelled at " + clock(simulatedHour()));
+    }
+
+    private void onTellerText(TellerSim teller, String text) {
+        if (!text.startsWith("{\"type\":\"call_next_result\"")) return;
+        Object ticket = Json.parseObject(text).get("ticket");
+        if (!(ticket instanceof Map)) {
+            // Nothing waiting in the teller's categories: look again in a simulated minute
+            emptyCalls.incrementAndGet();
+            events.add(new Event(System.nanoTime() + realNanos(1 / 60.0), CALL, teller.index, null));
+            return;
+        }
+        called.incrementAndGet();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> calling = (Map<String, Object>) ticket;
+        // The customer walks up to the counter
+        events.add(new Event(System.nanoTime() + realNanos(0.75 / 60), SERVE, teller.index, calling));
+    }
+
+    /** One reception connection: the k-th result answers the k-th issue request. */
+    private void onIssued(String text) {
+        int k = issueResults.getAndIncrement();
+        Object ticket = Json.parseObject(text).get("ticket");
+        if (!(ticket instanceof Map)) return;
+        issued.incrementAndGet();
+        if (k < issueSentNanos.length()) issueSentById.put(String.valueOf(((Map<?, ?>) ticket).get("id")), issueSentNanos.get(k));
+    }
+
+    private void onMonitorText(MonitorSim monitor, String text, long receivedNanos) {
+        if (!text.startsWith("{\"type\":\"ticket_update\"")) return;
+        Object value = Json.parseObject(text).get("ticket");
+        if (!(value instanceof Map)) return;
+        Map<?, ?> ticket = (Map<?, ?>) value;
+        Object category = ticket.get("categoryId");
+        if (!(category instanceof String) || !((String) category).startsWith(CATEGORY_PREFIX)) return;
+        String status = String.valueOf(ticket.get("status"));
+        // Matched with the issue request in report(): the result may arrive after the update
+        monitor.firstSeenNanos.putIfAbsent(String.valueOf(ticket.get("id")), receivedNanos);
+        long origin = 0;
+        LatencyRecorder stage = null;
+        if (TicketStatus.CALLING.name().equals(status)) {
+            TellerSim teller = tellersById.get(String.valueOf(ticket.get("tellerId")));
+            if (teller != null) origin = teller.callSentNanos;
+            stage = callLatency;
+        } else if (ticket.get("loadSentNanos") instanceof Long) {
+            origin = (Long) ticket.get("loadSentNanos");
+            stage = updateLatency;
+        }
+        if (stage == null || origin == 0 || simulatedHour() < openHour + WARM_UP_HOURS) return;
+        stage.record(receivedNanos - origin);
+        allLatency.record(receivedNanos - origin);
+    }
+
+    private void report(int arrivalCount, ServerSampler sampler, CoalescingStats coalescing) {
+        long warmedUp = dayStartNanos + realNanos(WARM_UP_HOURS);
+        for (MonitorSim monitor : monitors) {
+            monitor.firstSeenNanos.forEach((id, seen) -> {
+                Long origin = issueSentById.get(id);
+                if (origin == null || seen < warmedUp) return;
+                issueLatency.record(seen - origin);
+                allLatency.record(seen - origin);
+            });
+        }
+        log("");
+        log(String.format("Tickets          : %d arrived, %d issued, %d called, %d completed, %d left waiting (%d empty calls)",
+                arrivalCount, issued.get(), called.get(), completed.get(), issued.get() - called.get(), emptyCalls.get()));
+        log("ticket_update to monitor receipt:");
+        log(String.format("  issue          : %s", issueLatency.summary()));
+        log(String.format("  call next      : %s", callLatency.summary()));
+        log(String.format("  teller update  : %s", updateLatency.summary()));
+        log(String.format("  all            : %s", allLatency.summary()));
+        double elapsed = Math.max(1e-9, (sampler.lastNanos - dayStartNanos) / 1e9);
+        log(String.format("Messages         : %,d sent (%,.0f/s), %,d received (%,.0f/s, peak %,d/s)",
+                sent.sum(), sent.sum() / elapsed, received.sum(), received.sum() / elapsed, sampler.peakReceivedPerSecond));
+        if (coalescing != null) {
+            log(String.format("Coalescing       : %,d of %,d updates (%.1f%%) within %d ms", coalescing.coalesced(),
+                    coalescing.updates(), coalescing.ratio() * 100, coalescing.windowMillis()));
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        if (sampler.cpuSource != null) {
+            log(String.format("Server CPU       : avg %.1f%% / peak %.1f%% of %d core(s) (%s)", sampler.averageCpu() * 100,
+                    sampler.peakCpu * 100, cores, sampler.cpuSource));
+        } else {
+            log("Server CPU       : not measured (server in another process; pass --server-pid)");
+        }
+        if (inProcess) {
+            log(String.format("Server heap      : peak %.0f MB used, %.0f MB live after last GC, %.0f MB committed; GC %d collections, %d ms",
+                    sampler.peakHeapUsed / 1048576.0, liveHeapAfterGc() / 1048576.0,
+                    ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getCommitted() / 1048576.0,
+                    gcCount() - sampler.startGcCount, gcMillis() - sampler.startGcMillis));
+        } else {
+            log("Server heap      : not measured (server in another process)");
+        }
+    }
+
+    /** Samples server CPU, heap and the received message rate once a second. */
+    private final class ServerSampler implements Runnable {
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final com.sun.management.OperatingSystemMXBean os = ManagementFactory.getPlatformMXBean(com.sun.management.OperatingSystemMXBean.class);
+        final String cpuSource = inProcess ? "this JVM, load client threads excluded" : serverPid > 0 ? "pid " + serverPid : null;
+        final long startGcCount = gcCount();
+        final long startGcMillis = gcMillis();
+        volatile long lastNanos = System.nanoTime();
+        volatile boolean stopped;
+        double cpuSeconds;
+        double wallSeconds;
+        double peakCpu;
+        long peakHeapUsed;
+        long peakReceivedPerSecond;
+
+        @Override
+        public void run() {
+            long cpu = serverCpuNanos();
+            long lastReceived = received.sum();
+            long last = System.nanoTime();
+            while (!stopped) {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long now = System.nanoTime();
+                long nowCpu = serverCpuNanos();
+                long nowReceived = received.sum();
+                double wall = (now - last) / 1e9;
+                if (cpu >= 0 && nowCpu >= 0) {
+                    double used = (nowCpu - cpu) / 1e9;
+                    cpuSeconds += used;
+                    wallSeconds += wall;
+                    peakCpu = Math.max(peakCpu, used / (wall * Runtime.getRuntime().availableProcessors()));
+                }
+                if (inProcess) peakHeapUsed = Math.max(peakHeapUsed, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+                peakReceivedPerSecond = Math.max(peakReceivedPerSecond, Math.round((nowReceived - lastReceived) / wall));
+                cpu = nowCpu;
+                lastReceived = nowReceived;
+                last = now;
+                lastNanos = now;
+            }
+        }
+
+        void stop() {
+            lastNanos = System.nanoTime();
+            stopped = true;
+        }
+
+        double averageCpu() {
+            return wallSeconds > 0 ? cpuSeconds / (wallSeconds * Runtime.getRuntime().availableProcessors()) : 0;
+        }
+
+        /** Server CPU time so far, or -1 when it cannot be measured from here. */
+        private long serverCpuNanos() {
+            if (inProcess) {
+                long tools = 0;
+                for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+                    if (info != null && info.getThreadName().startsWith("qm-load-")) tools += Math.max(0, threads.getThreadCpuTime(info.getThreadId()));
+                }
+                return os.getProcessCpuTime() - tools;
+            }
+            if (serverPid > 0) {
+                return ProcessHandle.of(serverPid).flatMap(p -> p.info().totalCpuDuration()).map(Duration::toNanos).orElse(-1L);
+            }
+            return -1;
+        }
+    }
+
+    private Map<String, Object> update(Map<String, Object> ticket, TicketStatus status, String stampKey) {
+        long now = System.currentTimeMillis();
+        Map<String, Object> next = new LinkedHashMap<>(ticket);
+        next.put("status", status.name());
+        next.put(stampKey, now);
+        next.put("lastUpdated", now);
+        next.put("loadSentNanos", System.nanoTime());
+        return next;
+    }
+
+    private int categoryIndex(Map<String, Object> ticket) {
+        String category = String.valueOf(ticket.get("categoryId"));
+        return Integer.parseInt(category.substring(CATEGORY_PREFIX.length()));
+    }
+
+    private TellerSim tellerAt(int index) {
+        return tellersById.get(TELLER_PREFIX + index);
+    }
+
+    private void send(LoadClients.Client client, Map<String, Object> message) {
+        clients.send(client, Json.write(message));
+        sent.increment();
+    }
+
+    private double speed() {
+        return (closeHour - openHour) * 3600 / seconds;
+    }
+
+    /** Simulated duration (hours) to real nanoseconds. */
+    private long realNanos(double simulatedHours) {
+        return (long) (simulatedHours * 3600e9 / speed());
+    }
+
+    private double simulatedHour() {
+        return openHour + (System.nanoTime() - dayStartNanos) / 1e9 * speed() / 3600;
+    }
+
+    private static String clock(double hour) {
+        int minutes = (int) Math.round(hour * 60);
+        return String.format("%02d:%02d", minutes / 60, minutes % 60);
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) count += Math.max(0, gc.getCollectionCount());
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) millis += Math.max(0, gc.getCollectionTime());
+        return millis;
+    }
+
+    private static long liveHeapAfterGc() {
+        long live = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getCollectionUsage() != null) live += pool.getCollectionUsage().getUsed();
+        }
+        return live;
+    }
+
+    private void log(String message) {
+        Consumer<String> sink = logger;
+        if (sink != null) sink.accept(message);
+    }
+}
@@ -0,0 +1,151 @@
+package queuemaster.tools;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import queuemaster.engine.IndexedQueueEngine;
+import queuemaster.json.Json;
+import queuemaster.server.EmbeddedServer;
+
+/**
+ * Opens many concurrent WebSocket connections against the realtime endpoint and measures
+ * connect time, {@code ping}/{@code pong} round trips and {@code ticket_update} fan-out latency.
+ *
+ * <pre>
+ * java -cp QueueMasterLauncher.jar queuemaster.tools.ConnectionLoadTest --embedded --connections 5000
+ * java -cp QueueMasterLauncher.jar queuemaster.tools.ConnectionLoadTest --host 192.168.1.10 --port 8080
+ * </pre>
+ *
+ * With {@code --embedded} the server runs in this JVM, so the reported thread count covers it.
+ */
+public final class ConnectionLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        String host = options.getOrDefault("host", "localhost");
+        int port = Integer.parseInt(options.getOrDefault("port", String.valueOf(EmbeddedServer.DEFAULT_PORT)));
+        int connections = Integer.parseInt(options.getOrDefault("connections", "5000"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "20"));
+        int updatesPerSecond = Integer.parseInt(options.getOrDefault("rate", "10"));
+
+        EmbeddedServer server = null;
+        if (options.containsKey("embedded")) {
+            server = new EmbeddedServer(new IndexedQueueEngine(), port);
+            server.setLogger(null);
+            server.start();
+        }
+
+        AtomicInteger opened = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        AtomicLong received = new AtomicLong();
+        LatencyRecorder fanOut = new LatencyRecorder();
+        LatencyRecorder pingRtt = new LatencyRecorder();
+
+        LoadClients clients = new LoadClients(new InetSocketAddress(host, port), new LoadClients.Listener() {
+            @Override
+            public void onOpen(LoadClients.Client client) {
+                opened.incrementAndGet();
+            }
+
+            @Override
+            public void onText(LoadClients.Client client, String text, long receivedNanos) {
+                if (text.startsWith("{\"type\":\"ticket_update\"")) {
+                    received.incrementAndGet();
+                    Map<?, ?> ticket = (Map<?, ?>) Json.parseObject(text).get("ticket");
+                    Object sent = ticket.get("loadSentNanos");
+                    if (sent instanceof Long) fanOut.record(receivedNanos - (Long) sent);
+                } else if (text.startsWith("{\"type\":\"pong\"")) {
+                    Object sent = client.tag;
+                    if (sent instanceof Long) {
+                        pingRtt.record(receivedNanos - (Long) sent);
+                        client.tag = null;
+                    }
+                }
+            }
+
+            @Override
+            public void onClose(LoadClients.Client client) {
+                closed.incrementAndGet();
+            }
+        });
+
+        System.out.printf("Opening %d connections to ws://%s:%d ...%n", connections, host, port);
+        long connectStart = System.nanoTime();
+        List<LoadClients.Client> all = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            all.add(clients.connect("/"));
+            // Keep the SYN backlog reasonable
+            if (i % 250 == 249) waitFor(() -> opened.get() + closed.get() > all.size() - 500, 5000);
+        }
+        waitFor(() -> opened.get() + closed.get() >= connections, 30_000);
+        double connectMs = (System.nanoTime() - connectStart) / 1e6;
+        System.out.printf("Connected %d/%d in %.0f ms (%d failed)%n", opened.get(), connections, connectMs, connections - opened.get());
+
+        LoadClients.Client publisher = all.get(0);
+        long end = System.currentTimeMillis() + seconds * 1000L;
+        long interval = Math.max(1, 1000 / Math.max(1, updatesPerSecond));
+        int sent = 0;
+        long nextPing = 0;
+        while (System.currentTimeMillis() < end) {
+            Map<String, Object> ticket = new LinkedHashMap<>();
+            ticket.put("id", "load-ticket-" + (sent % 50));
+            ticket.put("number", "L-" + sent);
+            ticket.put("categoryId", "load");
+            ticket.put("status", "WAITING");
+            ticket.put("createdAt", System.currentTimeMillis());
+            ticket.put("loadSentNanos", System.nanoTime());
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("type", "ticket_update");
+            message.put("ticket", ticket);
+            clients.send(publisher, Json.write(message));
+            sent++;
+            if (System.currentTimeMillis() >= nextPing) {
+                for (int i = 0; i < 100; i++) {
+                    LoadClients.Client client = all.get(ThreadLocalRandom.current().nextInt(all.size()));
+                    if (client.isOpen() && client.tag == null) {
+                        client.tag = System.nanoTime();
+                        clients.send(client, "{\"type\":\"ping\"}");
+                    }
+                }
+                nextPing = System.currentTimeMillis() + 1000;
+            }
+            Thread.sleep(interval);
+        }
+        Thread.sleep(1000);
+
+        int liveThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+        System.out.println();
+        System.out.printf("Open connections at end : %d (closed early: %d)%n", opened.get() - closed.get(), closed.get());
+        System.out.printf("Updates sent            : %d (%d/s)%n", sent, sent / Math.max(1, seconds));
+        System.out.printf("Deliveries received     : %d (%.0f msg/s)%n", received.get(), received.get() / (double) seconds);
+        System.out.printf("Fan-out latency         : %s%n", fanOut.summary());
+        System.out.printf("Ping RTT                : %s%n", pingRtt.summary());
+        System.out.printf("JVM live threads        : %d%s%n", liveThreads, server != null ? " (server + load clients)" : " (load clients only)");
+
+        clients.shutdown();
+        if (server != null) server.stop();
+    }
+
+    static void waitFor(java.util.function.BooleanSupplier condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) Thread.sleep(10);
+    }
+
+    /** {@code --name value} pairs; a flag without a value maps to {@code "true"}. Shared by every tool. */
+    public static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) continue;
+            String name = args[i].substring(2);
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) options.put(name, args[++i]);
+            else options.put(name, "true");
+        }
+        return options;
+    }
+}
@@ -0,0 +1,113 @@
+package queuemaster.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import queuemaster.engine.Dispatcher;
+import queuemaster.engine.IndexedQueueEngine;
+import queuemaster.engine.ServiceCategory;
+import queuemaster.engine.Teller;
+import queuemaster.engine.Ticket;
+import queuemaster.engine.TicketStatus;
+import queuemaster.realtime.RealtimeRelay;
+import queuemaster.realtime.WebSocketServer;
+
+/**
+ * Many tellers pressing "call next" at the same moment against {@link RealtimeRelay#callNext}:
+ * every teller thread is released by one latch and keeps calling until its categories are
+ * empty. Fails if any ticket is called twice or any waiting ticket is left uncalled.
+ *
+ * <pre>
+ * java -cp QueueMasterLauncher.jar queuemaster.tools.DispatchBenchmark --tellers 150 --tickets 50000
+ * </pre>
+ */
+public final class DispatchBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = ConnectionLoadTest.parseArgs(args);
+        int tellers = Integer.parseInt(options.getOrDefault("tellers", "150"));
+        int tickets = Integer.parseInt(options.getOrDefault("tickets", "50000"));
+        int categories = Integer.parseInt(options.getOrDefault("categories", "8"));
+
+        // Warm-up so the measured round is not dominated by JIT compilation
+        run(tellers, Math.min(tickets, 10_000), categories, false);
+        run(tellers, tickets, categories, true);
+    }
+
+    private static void run(int tellerCount, int ticketCount, int categoryCount, boolean print) throws Exception {
+        IndexedQueueEngine engine = new IndexedQueueEngine();
+        for (int c = 0; c < categoryCount; c++) {
+            // One low-volume category with priority, to show aging keeps the others moving
+            engine.upsertCategory(new ServiceCategory(Map.of("id", "cat-" + c, "name", "Service " + c,
+                    "prefix", String.valueOf((char) ('A' + c)), "priority", c == 0 ? 1L : 0L)));
+        }
+        List<Teller> tellers = new ArrayList<>();
+        for (int t = 0; t < tellerCount; t++) {
+            // Skill matrix: each teller covers its home category and the next one
+            Teller teller = new Teller(Map.of("id", "teller-" + t, "name", "Teller " + t, "counterNumber", (long) t + 1,
+                    "assignedCategoryIds", List.of("cat-" + (t % categoryCount), "cat-" + ((t + 1) % categoryCount))));
+            engine.upsertTeller(teller);
+            tellers.add(teller);
+        }
+        long start = System.currentTimeMillis() - ticketCount * 1000L;
+        for (int i = 0; i < ticketCount; i++) {
+            // Category 0 gets a tenth of the traffic of the others
+            int category = i % (categoryCount * 10) < 1 ? 0 : 1 + i % (categoryCount - 1);
+            engine.upsertTicket(Ticket.create("t-" + i, "X-" + i, "cat-" + category, start + i * 1000L));
+        }
+
+        RealtimeRelay relay = new RealtimeRelay(engine);
+        relay.setLogger(null);
+        // Never started: no connections, so only the dispatch and publish path is measured
+        relay.attach(new WebSocketServer(0, 1, relay));
+        Dispatcher dispatcher = relay.getDispatcher();
+
+        Set<String> called = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicLong slowestNanos = new AtomicLong();
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(tellerCount);
+        for (Teller teller : tellers) {
+            Thread thread = new Thread(() -> {
+                try {
+                    go.await();
+                    for (;;) {
+                        long before = System.nanoTime();
+                        Ticket ticket = relay.callNext(teller.getId(), null);
+                        slowestNanos.accumulateAndGet(System.nanoTime() - before, Math::max);
+                        if (ticket == null) break;
+                        if (!called.add(ticket.getId())) duplicates.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "bench-teller-" + teller.getCounterNumber());
+            thread.start();
+        }
+        long started = System.nanoTime();
+        go.countDown();
+        done.await();
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        int waitingLeft = 0;
+        for (int c = 0; c < categoryCount; c++) waitingLeft += engine.count("cat-" + c, TicketStatus.WAITING);
+        if (print) {
+            System.out.printf("%d tellers called %,d of %,d tickets in %.2f s = %,.0f calls/s%n",
+                    tellerCount, called.size(), ticketCount, seconds, called.size() / seconds);
+            System.out.printf("Contended claims: %,d  Slowest call: %.1f ms  Published seq: %,d%n",
+                    dispatcher.getContended(), slowestNanos.get() / 1e6, relay.getSeq());
+        }
+        if (duplicates.get() > 0 || called.size() != ticketCount || waitingLeft > 0) {
+            throw new IllegalStateException("Double calls: " + duplicates.get() + ", called " + called.size()
+                    + " of " + ticketCount + ", still waiting: " + waitingLeft);
+        }
+        if (print) System.out.println("OK: no ticket called twice, none left waiting");
+    }
+}
@@ -0,0 +1,123 @@
+package queuemaster.tools;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import queuemaster.engine.IndexedQueueEngine;
+import queuemaster.engine.Ticket;
+import queuemaster.engine.TicketStatus;
+import queuemaster.realtime.RealtimeRelay;
+import queuemaster.realtime.WebSocketServer;
+import queuemaster.store.FsyncPolicy;
+import queuemaster.store.Journal;
+
+/**
+ * Measures journaled mutation throughput through {@link RealtimeRelay#publish} under each
+ * {@link FsyncPolicy}, then the time to recover a day's log into a fresh engine.
+ *
+ * <pre>
+ * java -cp QueueMasterLauncher.jar queuemaster.tools.JournalBenchmark --dir bench-journal --events 100000 --threads 8
+ * </pre>
+ *
+ * Run it on the disk the launcher will use; a tmpfs or RAM disk makes every policy look free.
+ */
+public final class JournalBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = ConnectionLoadTest.parseArgs(args);
+        Path dir = Paths.get(options.getOrDefault("dir", "bench-journal")).toAbsolutePath();
+        int events = Integer.parseInt(options.getOrDefault("events", "100000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+        int alwaysSeconds = Integer.parseInt(options.getOrDefault("always-seconds", "3"));
+
+        System.out.printf("Journal directory: %s%n%n", dir);
+        for (FsyncPolicy policy : new FsyncPolicy[] {FsyncPolicy.OS, FsyncPolicy.BATCH}) {
+            run(dir, policy, 1, events, 0);
+            run(dir, policy, threads, events, 0);
+        }
+        // Publishers only queue; the relay's commit thread forces once for everything queued meanwhile
+        run(dir, FsyncPolicy.ALWAYS, 1, Integer.MAX_VALUE, alwaysSeconds);
+        run(dir, FsyncPolicy.ALWAYS, threads, Integer.MAX_VALUE, alwaysSeconds);
+
+        System.out.println();
+        run(dir, FsyncPolicy.BATCH, threads, events, 0);
+        IndexedQueueEngine engine = new IndexedQueueEngine();
+        RealtimeRelay relay = new RealtimeRelay(engine);
+        relay.setLogger(null);
+        long started = System.nanoTime();
+        int replayed;
+        try (Journal journal = Journal.open(dir, FsyncPolicy.BATCH, Journal.DEFAULT_SEGMENT_BYTES)) {
+            replayed = relay.recover(journal);
+        }
+        double recoverMs = (System.nanoTime() - started) / 1e6;
+        System.out.printf("Recovery                 : %d events in %.0f ms (%d tickets in engine, target < 1000 ms)%n",
+                replayed, recoverMs, engine.size());
+        deleteDirectory(dir);
+    }
+
+    private static void run(Path dir, FsyncPolicy policy, int threads, int events, int seconds) throws Exception {
+        deleteDirectory(dir);
+        RealtimeRelay relay = new RealtimeRelay(new IndexedQueueEngine());
+        relay.setLogger(null);
+        // Never started: no connections, so the broadcast step costs nothing and the journal dominates
+        relay.attach(new WebSocketServer(0, 1, relay));
+        AtomicLong published = new AtomicLong();
+        long deadline = seconds > 0 ? System.nanoTime() + seconds * 1_000_000_000L : Long.MAX_VALUE;
+        CountDownLatch done = new CountDownLatch(threads);
+        long started;
+        try (Journal journal = Journal.open(dir, policy, Journal.DEFAULT_SEGMENT_BYTES)) {
+            relay.recover(journal);
+            started = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int worker = t;
+                Thread thread = new Thread(() -> {
+                    try {
+                        for (int i = worker; i < events && System.nanoTime() < deadline; i += threads) {
+                            relay.publish(ticketUpdate(i), null);
+                            published.incrementAndGet();
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }, "bench-publisher-" + t);
+                thread.start();
+            }
+            done.await();
+            // Counted until every frame waiting for the disk has been released
+            relay.close();
+            journal.sync();
+        }
+        double elapsed = (System.nanoTime() - started) / 1e9;
+        System.out.printf("%-6s x %2d publisher(s) : %,9d events in %6.2f s = %,10.0f mutations/s%n",
+                policy.name(), threads, published.get(), elapsed, published.get() / elapsed);
+    }
+
+    private static Map<String, Object> ticketUpdate(int i) {
+        // A day's mix: most tickets are seen several times as they move through their lifecycle
+        TicketStatus[] lifecycle = {TicketStatus.WAITING, TicketStatus.CALLING, TicketStatus.SERVING, TicketStatus.COMPLETED};
+        int ticketIndex = i / lifecycle.length;
+        Ticket ticket = Ticket.create("bench-" + ticketIndex, "A-" + (ticketIndex % 1000), "cat-" + (ticketIndex % 8),
+                1_700_000_000_000L + ticketIndex * 1000L);
+        ticket = ticket.withStatus(lifecycle[i % lifecycle.length], 1_700_000_000_000L + i * 250L);
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", "ticket_update");
+        message.put("ticket", ticket.toJson());
+        return message;
+    }
+
+    private static void deleteDirectory(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package queuemaster.tools;
+
+import java.util.Arrays;
+
+/** Collects raw latency samples (nanoseconds) and reports percentiles. Thread-safe. */
+final class LatencyRecorder {
+    private long[] samples = new long[1024];
+    private int count;
+
+    synchronized void record(long nanos) {
+        if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+        samples[count++] = nanos;
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    /** e.g. "n=1200 p50=0.41ms p99=2.10ms max=5.02ms" */
+    synchronized String summary() {
+        if (count == 0) return "n=0";
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return String.format("n=%d p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms", count,
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                sorted[count - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
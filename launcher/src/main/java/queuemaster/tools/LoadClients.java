@@ -0,0 +1,266 @@
+package queuemaster.tools;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import queuemaster.realtime.Frames;
+
+/**
+ * Many WebSocket client connections driven by a single selector thread, so load tools can
+ * open thousands of sockets without a thread per client.
+ */
+final class LoadClients implements Runnable {
+
+    interface Listener {
+        void onOpen(Client client);
+
+        void onText(Client client, String text, long receivedNanos);
+
+        void onClose(Client client);
+    }
+
+    /** One simulated client. {@code tag} is free for the tool's own bookkeeping. */
+    static final class Client {
+        final int index;
+        final SocketChannel channel;
+        final String path;
+        final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+        ByteBuffer in = ByteBuffer.allocate(16 * 1024);
+        boolean open;
+        volatile boolean closed;
+        volatile Object tag;
+        SelectionKey key;
+
+        Client(int index, SocketChannel channel, String path) {
+            this.index = index;
+            this.channel = channel;
+            this.path = path;
+        }
+
+        boolean isOpen() {
+            return open && !closed;
+        }
+    }
+
+    private final InetSocketAddress address;
+    private final Listener listener;
+    private final Selector selector;
+    private final Queue<Client> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Client> writable = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private int nextIndex;
+
+    LoadClients(InetSocketAddress address, Listener listener) throws IOException {
+        this.address = address;
+        this.listener = listener;
+        this.selector = Selector.open();
+        this.thread = new Thread(this, "qm-load-clients");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    synchronized Client connect(String path) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.connect(address);
+        Client client = new Client(nextIndex++, channel, path);
+        pending.add(client);
+        selector.wakeup();
+        return client;
+    }
+
+    /** Queues a masked text frame; safe from any thread. */
+    void send(Client client, String text) {
+        byte[] mask = new byte[4];
+        ThreadLocalRandom.current().nextBytes(mask);
+        client.outbound.add(Frames.frame(Frames.OP_TEXT, text.getBytes(StandardCharsets.UTF_8), mask));
+        writable.add(client);
+        selector.wakeup();
+    }
+
+    void close(Client client) {
+        client.closed = true;
+        writable.add(client);
+        selector.wakeup();
+    }
+
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select(100);
+                Client client;
+                while ((client = pending.poll()) != null) {
+                    client.key = client.channel.register(selector, SelectionKey.OP_CONNECT, client);
+                }
+                while ((client = writable.poll()) != null) {
+                    if (client.closed) closeClient(client);
+                    else if (client.open) flush(client);
+                }
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    Client c = (Client) key.attachment();
+                    try {
+                        if (key.isConnectable()) finishConnect(c);
+                        else {
+                            if (key.isReadable()) read(c);
+                            if (key.isValid() && key.isWritable()) flush(c);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        closeClient(c);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Load client loop failed: " + e);
+        } finally {
+            for (SelectionKey key : selector.keys()) closeClient((Client) key.attachment());
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // Ignore
+            }
+        }
+    }
+
+    private void finishConnect(Client c) throws IOException {
+        if (!c.channel.finishConnect()) return;
+        byte[] nonce = new byte[16];
+        ThreadLocalRandom.current().nextBytes(nonce);
+        String request = "GET " + c.path + " HTTP/1.1\r\n"
+                + "Host: " + address.getHostString() + ":" + address.getPort() + "\r\n"
+                + "Upgrade: websocket\r\nConnection: Upgrade\r\n"
+                + "Sec-WebSocket-Key: " + Base64.getEncoder().encodeToString(nonce) + "\r\n"
+                + "Sec-WebSocket-Version: 13\r\n\r\n";
+        c.outbound.add(ByteBuffer.wrap(request.getBytes(StandardCharsets.ISO_8859_1)));
+        c.key.interestOps(SelectionKey.OP_READ);
+        flushRaw(c);
+    }
+
+    private void read(Client c) throws IOException {
+        if (!c.in.hasRemaining()) {
+            ByteBuffer bigger = ByteBuffer.allocate(c.in.capacity() * 2);
+            c.in.flip();
+            bigger.put(c.in);
+            c.in = bigger;
+        }
+        int n = c.channel.read(c.in);
+        if (n < 0) {
+            closeClient(c);
+            return;
+        }
+        long now = System.nanoTime();
+        ByteBuffer buf = c.in;
+        buf.flip();
+        try {
+            if (!c.open) {
+                int end = headEnd(buf);
+                if (end < 0) return;
+                String head = StandardCharsets.ISO_8859_1.decode(buf.slice().limit(end - buf.position())).toString();
+                buf.position(end + 4);
+                if (!head.startsWith("HTTP/1.1 101")) {
+                    closeClient(c);
+                    return;
+                }
+                c.open = true;
+                listener.onOpen(c);
+                flush(c);
+            }
+            while (buf.remaining() >= 2) {
+                int start = buf.position();
+                int opcode = buf.get(start) & 0x0F;
+                long length = buf.get(start + 1) & 0x7F;
+                int header = 2;
+                if (length == 126) {
+                    if (buf.remaining() < 4) break;
+                    length = buf.getShort(start + 2) & 0xFFFF;
+                    header = 4;
+                } else if (length == 127) {
+                    if (buf.remaining() < 10) break;
+                    length = buf.getLong(start + 2);
+                    header = 10;
+                }
+                if (buf.remaining() < header + length) {
+                    if (header + length > buf.capacity()) {
+                        ByteBuffer bigger = ByteBuffer.allocate((int) (header + length) * 2);
+                        bigger.put(buf);
+                        bigger.flip();
+                        c.in = buf = bigger;
+                    }
+                    break;
+                }
+                byte[] payload = new byte[(int) length];
+                buf.position(start + header);
+                buf.get(payload);
+                if (opcode == Frames.OP_TEXT) listener.onText(c, new String(payload, StandardCharsets.UTF_8), now);
+                else if (opcode == Frames.OP_CLOSE) {
+                    closeClient(c);
+                    return;
+                }
+            }
+        } finally {
+            if (!c.closed) buf.compact();
+        }
+    }
+
+    private void flush(Client c) throws IOException {
+        if (!c.open || c.closed) return;
+        flushRaw(c);
+    }
+
+    private void flushRaw(Client c) throws IOException {
+        ByteBuffer head;
+        while ((head = c.outbound.peek()) != null) {
+            c.channel.write(head);
+            if (head.hasRemaining()) {
+                c.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            c.outbound.poll();
+        }
+        c.key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private void closeClient(Client c) {
+        if (c == null) return;
+        boolean wasOpen = c.open;
+        c.closed = true;
+        c.open = false;
+        if (c.key != null) c.key.cancel();
+        try {
+            c.channel.close();
+        } catch (IOException ignored) {
+            // Ignore
+        }
+        if (wasOpen) listener.onClose(c);
+    }
+
+    private static int headEnd(ByteBuffer buf) {
+        for (int i = buf.position(); i + 3 < buf.limit(); i++) {
+            if (buf.get(i) == '\r' && buf.get(i + 1) == '\n' && buf.get(i + 2) == '\r' && buf.get(i + 3) == '\n') return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,94 @@
+package queuemaster.tools;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import queuemaster.engine.IndexedQueueEngine;
+import queuemaster.engine.QueueEngine;
+import queuemaster.engine.ServiceCategory;
+import queuemaster.engine.Teller;
+import queuemaster.engine.Ticket;
+import queuemaster.engine.TicketStatus;
+import queuemaster.store.Snapshot;
+import queuemaster.store.SnapshotStore;
+
+/**
+ * Writes and restores snapshots of increasingly large engines: file size, write time, load
+ * (read + checksum + decode) time and the time to rebuild the engine indexes from it.
+ *
+ * <pre>
+ * java -Xmx2g -cp QueueMasterLauncher.jar queuemaster.tools.SnapshotBenchmark --dir bench-snapshots --max 1000000
+ * </pre>
+ */
+public final class SnapshotBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = ConnectionLoadTest.parseArgs(args);
+        Path dir = Paths.get(options.getOrDefault("dir", "bench-snapshots")).toAbsolutePath();
+        int max = Integer.parseInt(options.getOrDefault("max", "1000000"));
+        SnapshotStore store = new SnapshotStore(dir);
+
+        // Warm-up pass so the first row is not dominated by JIT compilation
+        measure(store, 50_000, false);
+        System.out.printf("%10s %10s %10s %10s %10s %12s%n", "tickets", "size MB", "write ms", "load ms", "restore ms", "bytes/ticket");
+        for (int n = 10_000; n <= max; n *= 10) {
+            measure(store, n, true);
+            if (n * 5 <= max && n >= 100_000) measure(store, n * 5, true);
+        }
+        store.prune(0);
+        Files.deleteIfExists(dir);
+    }
+
+    private static void measure(SnapshotStore store, int tickets, boolean print) throws Exception {
+        QueueEngine source = populate(tickets);
+        Snapshot snapshot = Snapshot.of(tickets, source);
+        source = null;
+
+        long started = System.nanoTime();
+        Path file = store.write(snapshot);
+        long written = System.nanoTime();
+        snapshot = null;
+        Snapshot loaded = SnapshotStore.read(file);
+        long read = System.nanoTime();
+        IndexedQueueEngine target = new IndexedQueueEngine();
+        loaded.restoreInto(target);
+        long restored = System.nanoTime();
+
+        if (target.size() != tickets) throw new IllegalStateException("Restored " + target.size() + " of " + tickets);
+        long size = Files.size(file);
+        if (print) {
+            System.out.printf("%,10d %10.1f %10.0f %10.0f %10.0f %12.1f%n", tickets, size / 1048576.0,
+                    (written - started) / 1e6, (read - written) / 1e6, (restored - read) / 1e6, size / (double) tickets);
+        }
+        store.prune(0);
+    }
+
+    /** Historical day-mix: mostly completed tickets, a live tail waiting or being served. */
+    private static QueueEngine populate(int tickets) {
+        IndexedQueueEngine engine = new IndexedQueueEngine();
+        long start = 1_700_000_000_000L;
+        for (int c = 0; c < 8; c++) {
+            engine.upsertCategory(new ServiceCategory(Map.of("id", "cat-" + c, "name", "Service " + c,
+                    "prefix", String.valueOf((char) ('A' + c)), "estimatedTime", 5L)));
+        }
+        for (int t = 0; t < 20; t++) {
+            engine.upsertTeller(new Teller(Map.of("id", "teller-" + t, "name", "Teller " + t,
+                    "counterNumber", (long) t + 1, "assignedCategoryIds", List.of("cat-" + (t % 8)))));
+        }
+        for (int i = 0; i < tickets; i++) {
+            int category = i % 8;
+            long createdAt = start + i * 3_000L;
+            Ticket ticket = Ticket.create("t-" + Long.toString(createdAt, 36) + "-" + i,
+                    (char) ('A' + category) + "-" + (i % 1000), "cat-" + category, createdAt);
+            if (i < tickets - 200) {
+                ticket = ticket.withStatus(TicketStatus.CALLING, createdAt + 60_000)
+                        .withStatus(TicketStatus.SERVING, createdAt + 90_000)
+                        .withStatus(i % 20 == 0 ? TicketStatus.NOSHOW : TicketStatus.COMPLETED, createdAt + 400_000);
+            }
+            engine.upsertTicket(ticket);
+        }
+        return engine;
+    }
+}
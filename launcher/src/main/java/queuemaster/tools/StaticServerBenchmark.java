@@ -0,0 +1,110 @@
+package queuemaster.tools;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import queuemaster.server.StaticSiteServer;
+
+/**
+ * Requests per second for what a monitor loads: the page, every local script and stylesheet
+ * it references, and the announcement sound, fetched round-robin by keep-alive clients.
+ * Without {@code --url} the launcher's {@code dist/} server runs in this JVM; point it at the
+ * Vite dev server ({@code npm run ui}) to compare.
+ *
+ * <pre>
+ * java -cp QueueMasterLauncher.jar queuemaster.tools.StaticServerBenchmark --app . --seconds 10
+ * java -cp QueueMasterLauncher.jar queuemaster.tools.StaticServerBenchmark --url http://localhost:3000
+ * </pre>
+ *
+ * Requests carry {@code Accept-Encoding: gzip, br} as browsers do; bytes are as sent.
+ */
+public final class StaticServerBenchmark {
+    private static final Pattern LOCAL_REFERENCE = Pattern.compile("(?:src|href)=\"(/[^/\"][^\"]*)\"");
+    private static final String SOUND_PATH = "/sounds/Electronic%20queue%20sound%20(Sound%20effect).mp3";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = ConnectionLoadTest.parseArgs(args);
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+
+        StaticSiteServer server = null;
+        String base = options.get("url");
+        if (base == null) {
+            int port = Integer.parseInt(options.getOrDefault("port", "3100"));
+            server = new StaticSiteServer(Path.of(options.getOrDefault("app", ".")).toAbsolutePath(), port);
+            server.setLogger(null);
+            server.start();
+            base = "http://localhost:" + port;
+        }
+        base = base.replaceAll("/+$", "");
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpResponse<String> page = client.send(request(base + "/", false), HttpResponse.BodyHandlers.ofString());
+        Set<String> paths = new LinkedHashSet<>();
+        paths.add("/");
+        Matcher matcher = LOCAL_REFERENCE.matcher(page.body());
+        while (matcher.find()) paths.add(matcher.group(1));
+        paths.add(SOUND_PATH);
+        List<String> urls = new ArrayList<>();
+        for (String path : paths) urls.add(base + path);
+        System.out.printf("%s: %d paths, %d clients, %d s%n", server != null ? "dist/ server" : base, urls.size(), concurrency, seconds);
+
+        // One untimed pass so the Vite dev server has transformed every module before measuring
+        for (String url : urls) client.send(request(url, true), HttpResponse.BodyHandlers.discarding());
+
+        AtomicLong requests = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        LatencyRecorder latency = new LatencyRecorder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            int offset = i;
+            Thread worker = new Thread(() -> {
+                int next = offset;
+                while (System.nanoTime() < deadline) {
+                    String url = urls.get(next++ % urls.size());
+                    long started = System.nanoTime();
+                    try {
+                        HttpResponse<byte[]> response = client.send(request(url, true), HttpResponse.BodyHandlers.ofByteArray());
+                        latency.record(System.nanoTime() - started);
+                        if (response.statusCode() >= 400) errors.incrementAndGet();
+                        bytes.addAndGet(response.body().length);
+                        requests.incrementAndGet();
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                }
+            }, "qm-static-bench-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) worker.join();
+
+        for (String path : paths) System.out.println("  " + path);
+        System.out.printf("Requests   : %d (%.0f req/s, %d errors)%n", requests.get(), requests.get() / (double) seconds, errors.get());
+        System.out.printf("Throughput : %.1f MB/s%n", bytes.get() / (double) seconds / (1024 * 1024));
+        System.out.printf("Latency    : %s%n", latency.summary());
+        if (server != null) server.stop();
+    }
+
+    private static HttpRequest request(String url, boolean compressed) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30));
+        if (compressed) builder.header("Accept-Encoding", "gzip, br");
+        return builder.build();
+    }
+}
@@ -0,0 +1,119 @@
+package queuemaster.tools;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import queuemaster.engine.IndexedQueueEngine;
+import queuemaster.engine.QueueEngine;
+import queuemaster.engine.ServiceCategory;
+import queuemaster.engine.StripedQueueEngine;
+import queuemaster.engine.Teller;
+import queuemaster.engine.Ticket;
+import queuemaster.engine.TicketStatus;
+
+/**
+ * Contention benchmark for the engine lock layout: the single-monitor
+ * {@link IndexedQueueEngine}, then {@link StripedQueueEngine} with 1, 4 and 16 stripes, under
+ * a mixed workload from many threads at once: reception creating tickets, tellers calling
+ * and completing them, and monitors reading per-category counts and the full ticket list.
+ *
+ * <pre>
+ * java -cp QueueMasterLauncher.jar queuemaster.tools.StripeBenchmark --threads 16 --seconds 5
+ * </pre>
+ *
+ * Stripes only pay off with cores to run on; compare runs on the branch hardware, not a VM slice.
+ */
+public final class StripeBenchmark {
+    private static final int CATEGORIES = 16;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = ConnectionLoadTest.parseArgs(args);
+        int threads = Integer.parseInt(options.getOrDefault("threads", String.valueOf(Math.max(4, Runtime.getRuntime().availableProcessors() * 2))));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "5"));
+
+        System.out.printf("%d threads, %d categories, %d s per run (%d cores)%n", threads, CATEGORIES, seconds,
+                Runtime.getRuntime().availableProcessors());
+        // Warm-up so the first row is not dominated by JIT compilation
+        run("warm-up", new StripedQueueEngine(4), threads, 1, false);
+        System.out.printf("%-18s %12s %10s %10s %10s %10s%n", "engine", "ops/s", "creates", "calls", "completes", "reads");
+        run("global monitor", new IndexedQueueEngine(), threads, seconds, true);
+        for (int stripes : new int[]{1, 4, 16}) {
+            run(stripes + " stripe(s)", new StripedQueueEngine(stripes), threads, seconds, true);
+        }
+    }
+
+    private static void run(String label, QueueEngine engine, int threads, int seconds, boolean print) throws Exception {
+        for (int c = 0; c < CATEGORIES; c++) {
+            engine.upsertCategory(new ServiceCategory(Map.of("id", "cat-" + c, "name", "Service " + c,
+                    "prefix", String.valueOf((char) ('A' + c)))));
+        }
+        AtomicLong creates = new AtomicLong();
+        AtomicLong calls = new AtomicLong();
+        AtomicLong completes = new AtomicLong();
+        AtomicLong reads = new AtomicLong();
+        AtomicLong ids = new AtomicLong();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            Thread thread = new Thread(() -> {
+                Teller teller = new Teller(Map.of("id", "teller-" + worker, "counterNumber", (long) worker + 1,
+                        "assignedCategoryIds", List.of("cat-" + (worker % CATEGORIES))));
+                ArrayDeque<String> serving = new ArrayDeque<>();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    go.await();
+                    while (System.nanoTime() < deadline) {
+                        int op = random.nextInt(100);
+                        String category = "cat-" + random.nextInt(CATEGORIES);
+                        if (op < 30) {
+                            long id = ids.incrementAndGet();
+                            engine.upsertTicket(Ticket.create("t-" + id, "X-" + id, category, System.currentTimeMillis()));
+                            creates.incrementAndGet();
+                        } else if (op < 55) {
+                            // Peek-then-write is not a claim; two tellers may call the same head here,
+                            // which is fine for measuring lock traffic (the Dispatcher owns claiming)
+                            Ticket next = engine.peekNextWaiting(teller.getAssignedCategoryIds());
+                            if (next != null) {
+                                engine.upsertTicket(next.calledBy(teller, System.currentTimeMillis()));
+                                serving.add(next.getId());
+                                calls.incrementAndGet();
+                            }
+                        } else if (op < 80) {
+                            String id = serving.poll();
+                            if (id != null && engine.updateStatus(id, TicketStatus.COMPLETED, System.currentTimeMillis()) != null) {
+                                completes.incrementAndGet();
+                            }
+                        } else if (op < 99 || random.nextInt(10) != 0) {
+                            engine.count(category, TicketStatus.WAITING);
+                            engine.count(category, TicketStatus.CALLING);
+                            reads.incrementAndGet();
+                        } else {
+                            // One op in a thousand: a monitor (re)connecting, full ticket list for sync
+                            engine.tickets().size();
+                            reads.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "bench-worker-" + t);
+            thread.start();
+        }
+        long started = System.nanoTime();
+        go.countDown();
+        done.await();
+        double elapsed = (System.nanoTime() - started) / 1e9;
+        long total = creates.get() + calls.get() + completes.get() + reads.get();
+        if (print) {
+            System.out.printf("%-18s %,12.0f %,10d %,10d %,10d %,10d%n", label, total / elapsed,
+                    creates.get(), calls.get(), completes.get(), reads.get());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package queuemaster.tools;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import queuemaster.engine.TicketNumberAllocator;
+
+/**
+ * Ticket number allocation throughput from several reception threads at once, each formatting
+ * into its own reusable buffer, plus the bytes allocated per number (should be 0). Threads
+ * share a small set of prefixes, so they contend on the same counters as real desks would.
+ *
+ * <pre>
+ * java -cp QueueMasterLauncher.jar queuemaster.tools.TicketNumberBenchmark --threads 4 --seconds 5
+ * </pre>
+ */
+public final class TicketNumberBenchmark {
+    private static final String[] PREFIXES = {"A", "B", "C", "D", "VIP", "PAY"};
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = ConnectionLoadTest.parseArgs(args);
+        int threads = Integer.parseInt(options.getOrDefault("threads", "4"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "5"));
+
+        // Warm-up so the measured run is not dominated by JIT compilation
+        run(threads, 1, false);
+        run(threads, seconds, true);
+    }
+
+    private static void run(int threads, int seconds, boolean print) throws Exception {
+        TicketNumberAllocator allocator = new TicketNumberAllocator();
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        AtomicLong allocations = new AtomicLong();
+        AtomicLong allocatedBytes = new AtomicLong();
+        AtomicLong checksum = new AtomicLong();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            Thread thread = new Thread(() -> {
+                char[] buffer = new char[16];
+                long count = 0;
+                long sum = 0;
+                try {
+                    go.await();
+                    long bytesBefore = threadBean.getCurrentThreadAllocatedBytes();
+                    // Check the clock once per 1024 numbers so the loop measures the allocator
+                    while ((count & 1023) != 0 || System.nanoTime() < deadline) {
+                        int length = allocator.next(PREFIXES[(int) ((count + worker) % PREFIXES.length)], buffer);
+                        sum += buffer[length - 1];
+                        count++;
+                    }
+                    allocatedBytes.addAndGet(threadBean.getCurrentThreadAllocatedBytes() - bytesBefore);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    allocations.addAndGet(count);
+                    checksum.addAndGet(sum);
+                    done.countDown();
+                }
+            }, "bench-reception-" + t);
+            thread.start();
+        }
+        long started = System.nanoTime();
+        go.countDown();
+        done.await();
+        double elapsed = (System.nanoTime() - started) / 1e9;
+        long issued = 0;
+        for (TicketNumberAllocator.CounterState counter : allocator.counters()) issued += counter.count();
+        if (issued != allocations.get()) throw new IllegalStateException("Counters say " + issued + ", threads took " + allocations.get());
+        if (print) {
+            System.out.printf("%d threads: %,d numbers in %.2f s = %,.0f allocations/s (target 1,000,000)%n",
+                    threads, allocations.get(), elapsed, allocations.get() / elapsed);
+            System.out.printf("Allocated: %.3f bytes/number (checksum %d)%n",
+                    allocatedBytes.get() / (double) allocations.get(), checksum.get() & 0xFF);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package queuemaster.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+
+class TicketNumberAllocatorTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    private static TicketNumberAllocator allocatorOn(LocalDate date) {
+        Instant noon = date.atTime(12, 0).toInstant(ZoneOffset.UTC);
+        return new TicketNumberAllocator(Clock.fixed(noon, ZoneOffset.UTC));
+    }
+
+    @Test
+    void countsRestartEveryDay() {
+        TicketNumberAllocator allocator = allocatorOn(DAY);
+        allocator.restore(new TicketNumberAllocator.CounterState("B", DAY.minusDays(1).toEpochDay(), 14));
+
+        long first = allocator.allocateOnDay("B");
+        assertEquals(DAY.toEpochDay(), TicketNumberAllocator.dayOf(first));
+        assertEquals(1, TicketNumberAllocator.countOf(first));
+        assertEquals(2, allocator.allocate("B"));
+        assertEquals("B-003", allocator.next("B"));
+    }
+
+    @Test
+    void lateClockReadingNeverMovesTheCounterBack() {
+        // A desk still on the previous day after another rolled the counter past midnight
+        TicketNumberAllocator allocator = allocatorOn(DAY);
+        long tomorrow = DAY.plusDays(1).toEpochDay();
+        allocator.restore(new TicketNumberAllocator.CounterState("B", tomorrow, 1));
+
+        long allocated = allocator.allocateOnDay("B");
+        assertEquals(tomorrow, TicketNumberAllocator.dayOf(allocated));
+        assertEquals(2, TicketNumberAllocator.countOf(allocated));
+        assertEquals(new TicketNumberAllocator.CounterState("B", tomorrow, 2), allocator.counters().get(0));
+    }
+}
@@ -0,0 +1,101 @@
+package queuemaster.realtime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class BinaryCodecTest {
+
+    private static Map<String, Object> ticketUpdate(String ticketId, String categoryId, String status) {
+        Map<String, Object> ticket = new LinkedHashMap<>();
+        ticket.put("id", ticketId);
+        ticket.put("categoryId", categoryId);
+        ticket.put("status", status);
+        ticket.put("createdAt", 1_718_000_000_000L);
+        ticket.put("lastUpdated", 1_718_000_004_500L);
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", "ticket_update");
+        message.put("ticket", ticket);
+        return message;
+    }
+
+    /** Encodes as the relay does: the event, then a strings frame for what it added. */
+    private static byte[][] publish(BinaryCodec codec, Map<String, Object> message, long seq) {
+        int before = codec.tableSize();
+        byte[] event = codec.encode(message, seq, false);
+        return new byte[][] {codec.strings(before), event};
+    }
+
+    @Test
+    void roundTripsEveryValueType() {
+        BinaryCodec codec = new BinaryCodec();
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", "teller_update");
+        message.put("name", "Counter 3 — Zoë");
+        message.put("active", true);
+        message.put("paused", false);
+        message.put("note", null);
+        message.put("counterNumber", 3L);
+        message.put("negative", -42L);
+        message.put("ratio", 0.75);
+        message.put("assignedCategoryIds", List.of("cat-1", "cat-2"));
+        message.put("at", 1_718_000_000_000L);
+        byte[][] frames = publish(codec, message, 7);
+
+        BinaryCodec.Decoder decoder = new BinaryCodec.Decoder();
+        assertNull(decoder.decode(frames[0]));
+        Map<String, Object> expected = new LinkedHashMap<>(message);
+        expected.put("seq", 7L);
+        assertEquals(expected, decoder.decode(frames[1]));
+    }
+
+    @Test
+    void eventsDelayedBehindLaterStringsStillDecode() {
+        BinaryCodec codec = new BinaryCodec();
+        Map<String, Object> first = ticketUpdate("ticket-1", "cat-a", "WAITING");
+        Map<String, Object> second = ticketUpdate("ticket-2", "cat-b", "CALLING");
+        byte[][] e1 = publish(codec, first, 1);
+        byte[][] e2 = publish(codec, second, 2);
+
+        // Strings frames go out at once, event frames after the coalescing window
+        BinaryCodec.Decoder decoder = new BinaryCodec.Decoder();
+        assertNull(decoder.decode(e1[0]));
+        assertNull(decoder.decode(e2[0]));
+        Map<String, Object> decoded1 = decoder.decode(e1[1]);
+        Map<String, Object> decoded2 = decoder.decode(e2[1]);
+
+        assertEquals("cat-a", ((Map<?, ?>) decoded1.get("ticket")).get("categoryId"));
+        assertEquals(1L, decoded1.get("seq"));
+        assertEquals("cat-b", ((Map<?, ?>) decoded2.get("ticket")).get("categoryId"));
+        assertEquals("CALLING", ((Map<?, ?>) decoded2.get("ticket")).get("status"));
+        assertEquals(2L, decoded2.get("seq"));
+    }
+
+    @Test
+    void snapshotFrameReplacesTheWholeTable() {
+        BinaryCodec codec = new BinaryCodec();
+        publish(codec, ticketUpdate("ticket-1", "cat-a", "WAITING"), 1);
+        byte[] snapshot = codec.encode(Map.of("type", "sync", "tickets", List.of()), 1, true);
+        byte[][] next = publish(codec, ticketUpdate("ticket-2", "cat-b", "WAITING"), 2);
+
+        // A client that joins late gets the snapshot, then the events after it
+        BinaryCodec.Decoder decoder = new BinaryCodec.Decoder();
+        assertEquals("sync", decoder.decode(snapshot).get("type"));
+        assertNull(decoder.decode(next[0]));
+        assertEquals("cat-b", ((Map<?, ?>) decoder.decode(next[1]).get("ticket")).get("categoryId"));
+    }
+
+    @Test
+    void eventBeforeItsStringsAsksForASync() {
+        BinaryCodec codec = new BinaryCodec();
+        byte[][] frames = publish(codec, ticketUpdate("ticket-1", "cat-a", "WAITING"), 1);
+
+        BinaryCodec.Decoder decoder = new BinaryCodec.Decoder();
+        assertThrows(IllegalStateException.class, () -> decoder.decode(frames[1]));
+    }
+}
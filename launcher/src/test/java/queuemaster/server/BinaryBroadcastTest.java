@@ -0,0 +1,131 @@
+package queuemaster.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import queuemaster.engine.IndexedQueueEngine;
+import queuemaster.json.Json;
+import queuemaster.realtime.BinaryCodec;
+import queuemaster.store.FsyncPolicy;
+
+/**
+ * Binary clients against a running server while events wait in the coalescing window or for
+ * the journal's fsync: every ticket adds strings, and every frame must still decode.
+ */
+class BinaryBroadcastTest {
+    private static final int CATEGORIES = 20;
+
+    @TempDir
+    Path dataDirectory;
+
+    @Test
+    void decodesEveryEventWhileCoalescing() throws Exception {
+        EmbeddedServer server = new EmbeddedServer(new IndexedQueueEngine(), freePort());
+        server.setCoalesceWindowMillis(25);
+        issueAndDecode(server);
+    }
+
+    @Test
+    void decodesEveryEventWhenFramesWaitForTheDisk() throws Exception {
+        EmbeddedServer server = new EmbeddedServer(new IndexedQueueEngine(), freePort(), dataDirectory);
+        server.setFsyncPolicy(FsyncPolicy.ALWAYS);
+        server.setCoalesceWindowMillis(25);
+        issueAndDecode(server);
+    }
+
+    private static void issueAndDecode(EmbeddedServer server) throws Exception {
+        server.setLogger(null);
+        server.start();
+        try {
+            BinaryClient client = BinaryClient.connect(server.getPort());
+            client.welcome.await(5, TimeUnit.SECONDS);
+            for (int i = 0; i < CATEGORIES; i++) {
+                client.send(Map.of("type", "category_update",
+                        "category", Map.of("id", "cat-" + i, "name", "Service " + i, "prefix", "P" + i)));
+            }
+            // Each ticket interns a new category id and daily identifier
+            for (int i = 0; i < CATEGORIES; i++) client.send(Map.of("type", "issue_ticket", "categoryId", "cat-" + i));
+            client.issued.await(10, TimeUnit.SECONDS);
+            assertNull(client.failure.get());
+            assertEquals(CATEGORIES, client.waitingTickets.size());
+            client.socket.abort();
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static final class BinaryClient implements WebSocket.Listener {
+        final BinaryCodec.Decoder decoder = new BinaryCodec.Decoder();
+        final ByteArrayOutputStream partial = new ByteArrayOutputStream();
+        final CountDownLatch welcome = new CountDownLatch(1);
+        final CountDownLatch issued = new CountDownLatch(CATEGORIES);
+        final Set<Object> waitingTickets = ConcurrentHashMap.newKeySet();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        WebSocket socket;
+
+        static BinaryClient connect(int port) {
+            BinaryClient client = new BinaryClient();
+            client.socket = HttpClient.newHttpClient().newWebSocketBuilder()
+                    .buildAsync(URI.create("ws://localhost:" + port + "/?format=binary"), client).join();
+            return client;
+        }
+
+        synchronized void send(Map<String, Object> message) {
+            socket.sendText(Json.write(message), true).join();
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            if (last && data.toString().contains("\"welcome\"")) welcome.countDown();
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+            byte[] chunk = new byte[data.remaining()];
+            data.get(chunk);
+            partial.write(chunk, 0, chunk.length);
+            if (last) {
+                byte[] frame = partial.toByteArray();
+                partial.reset();
+                try {
+                    Map<String, Object> message = decoder.decode(frame);
+                    if (message != null && "ticket_update".equals(message.get("type"))) {
+                        Map<?, ?> ticket = (Map<?, ?>) message.get("ticket");
+                        if ("WAITING".equals(ticket.get("status")) && waitingTickets.add(ticket.get("id"))) issued.countDown();
+                    }
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    while (issued.getCount() > 0) issued.countDown();
+                }
+            }
+            webSocket.request(1);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
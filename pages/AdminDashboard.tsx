@@ -1,7 +1,8 @@
 
 import React, { useMemo, useState, useEffect } from 'react';
-import { Ticket, Teller, ServiceCategory, TicketStatus, AdminAccount } from '../types';
+import { Ticket, Teller, ServiceCategory, TicketStatus, AdminAccount, WaitEstimates } from '../types';
 import { BarChart, Bar, XAxis, YAxis, CartesianGrid, Tooltip, ResponsiveContainer, Cell, PieChart, Pie } from 'recharts';
+import { realtimeService, AnalyticsResponse } from '../services/RealtimeService';
 import { TrendingUp, Users, Activity, Star, Clock, Plus, Edit2, Trash2, X, Check, ListChecks, Download, Database, Key, Shield, UserPlus, Settings2, RotateCcw, Eye, EyeOff } from 'lucide-react';
 
 interface Props {
@@ -17,6 +18,7 @@ interface Props {
   onUpdateAdminAccount: (acc: AdminAccount) => void;
   onDeleteAdminAccount: (id: string) => void;
   onSystemReset: () => void;
+  waitEstimates?: WaitEstimates | null;
 }
 
 const AdminDashboard: React.FC<Props> = ({ 
@@ -31,7 +33,8 @@ const AdminDashboard: React.FC<Props> = ({
   onAddAdminAccount,
   onUpdateAdminAccount,
   onDeleteAdminAccount,
-  onSystemReset
+  onSystemReset,
+  waitEstimates
 }) => {
   const [now, setNow] = useState(new Date());
   const [isEditingTeller, setIsEditingTeller] = useState(false);
@@ -39,12 +42,41 @@ const AdminDashboard: React.FC<Props> = ({
   const [isEditingAccount, setIsEditingAccount] = useState(false);
   const [editingAccount, setEditingAccount] = useState<Partial<AdminAccount> | null>(null);
   const [showPassword, setShowPassword] = useState(false);
+  const [chartMode, setChartMode] = useState<'live' | 'daily'>('live');
+  const [dailyRollups, setDailyRollups] = useState<AnalyticsResponse | null>(null);
   
   useEffect(() => {
     const timer = setInterval(() => setNow(new Date()), 1000);
     return () => clearInterval(timer);
   }, []);
 
+  // Daily view: today's hourly rollups from the embedded server instead of the ticket list
+  useEffect(() => {
+    if (chartMode !== 'daily') return;
+    let cancelled = false;
+    const load = async () => {
+      const midnight = new Date();
+      midnight.setHours(0, 0, 0, 0);
+      const data = await realtimeService.fetchAnalytics('hour', midnight.getTime());
+      if (!cancelled) setDailyRollups(data);
+    };
+    load();
+    const timer = setInterval(load, 30000);
+    return () => {
+      cancelled = true;
+      clearInterval(timer);
+    };
+  }, [chartMode]);
+
+  const hourlyStats = useMemo(() => {
+    return (dailyRollups?.buckets || []).map(bucket => ({
+      name: new Date(bucket.start).toLocaleTimeString([], { hour: '2-digit', minute: '2-digit' }),
+      created: bucket.total.created,
+      served: bucket.total.served,
+      noShows: bucket.total.noShows,
+    }));
+  }, [dailyRollups]);
+
   const totalServed = tickets.filter(t => t.status === TicketStatus.COMPLETED).length;
   
   const categoryStats = useMemo(() => {
@@ -58,9 +90,11 @@ const AdminDashboard: React.FC<Props> = ({
   const tellerProductivity = useMemo(() => {
     return tellers.map(t => ({
       ...t,
-      servedCount: tickets.filter(tick => tick.tellerId === t.id && tick.status === TicketStatus.COMPLETED).length
+      servedCount: tickets.filter(tick => tick.tellerId === t.id && tick.status === TicketStatus.COMPLETED).length,
+      // Measured by the embedded server; absent on the Node server
+      service: waitEstimates?.tellers.find(s => s.tellerId === t.id)
     })).sort((a, b) => b.servedCount - a.servedCount);
-  }, [tickets, tellers]);
+  }, [tickets, tellers, waitEstimates]);
 
   const statusData = [
     { name: 'Served', value: tickets.filter(t => t.status === TicketStatus.COMPLETED).length, color: '#10b981' },
@@ -356,11 +390,43 @@ const AdminDashboard: React.FC<Props> = ({
             <div className="flex justify-between items-center mb-10">
               <h3 className="text-xl font-bold text-slate-800">Queue Distribution</h3>
               <div className="flex gap-2">
-                <button className="px-4 py-2 bg-slate-50 text-xs font-bold text-slate-500 rounded-xl hover:bg-slate-100">Daily</button>
-                <button className="px-4 py-2 bg-indigo-600 text-xs font-bold text-white rounded-xl shadow-lg shadow-indigo-100">Live</button>
+                <button 
+                  onClick={() => setChartMode('daily')}
+                  className={chartMode === 'daily' ? 'px-4 py-2 bg-indigo-600 text-xs font-bold text-white rounded-xl shadow-lg shadow-indigo-100' : 'px-4 py-2 bg-slate-50 text-xs font-bold text-slate-500 rounded-xl hover:bg-slate-100'}
+                >
+                  Daily
+                </button>
+                <button 
+                  onClick={() => setChartMode('live')}
+                  className={chartMode === 'live' ? 'px-4 py-2 bg-indigo-600 text-xs font-bold text-white rounded-xl shadow-lg shadow-indigo-100' : 'px-4 py-2 bg-slate-50 text-xs font-bold text-slate-500 rounded-xl hover:bg-slate-100'}
+                >
+                  Live
+                </button>
               </div>
             </div>
             <div className="h-[400px]">
+              {chartMode === 'daily' ? (
+                dailyRollups ? (
+                  <ResponsiveContainer width="100%" height="100%">
+                    <BarChart data={hourlyStats}>
+                      <CartesianGrid strokeDasharray="3 3" vertical={false} stroke="#f1f5f9" />
+                      <XAxis dataKey="name" axisLine={false} tickLine={false} tick={{fill: '#94a3b8', fontSize: 11, fontWeight: 700}} />
+                      <YAxis axisLine={false} tickLine={false} tick={{fill: '#94a3b8', fontSize: 11, fontWeight: 700}} />
+                      <Tooltip 
+                        cursor={{fill: '#f8fafc'}} 
+                        contentStyle={{ borderRadius: '20px', border: 'none', boxShadow: '0 25px 50px -12px rgb(0 0 0 / 0.15)', padding: '20px' }} 
+                      />
+                      <Bar dataKey="created" name="Issued" fill="#6366f1" radius={[8, 8, 0, 0]} />
+                      <Bar dataKey="served" name="Served" fill="#10b981" radius={[8, 8, 0, 0]} />
+                      <Bar dataKey="noShows" name="No-shows" fill="#f59e0b" radius={[8, 8, 0, 0]} />
+                    </BarChart>
+                  </ResponsiveContainer>
+                ) : (
+                  <div className="h-full flex items-center justify-center text-sm font-bold text-slate-400">
+                    Daily history needs the embedded launcher server
+                  </div>
+                )
+              ) : (
               <ResponsiveContainer width="100%" height="100%">
                 <BarChart data={categoryStats}>
                   <CartesianGrid strokeDasharray="3 3" vertical={false} stroke="#f1f5f9" />
@@ -374,6 +440,7 @@ const AdminDashboard: React.FC<Props> = ({
                   <Bar dataKey="served" name="Served" fill="#10b981" radius={[8, 8, 0, 0]} barSize={50} />
                 </BarChart>
               </ResponsiveContainer>
+              )}
             </div>
           </div>
 
@@ -440,6 +507,12 @@ const AdminDashboard: React.FC<Props> = ({
                               <div className="w-20 h-1.5 bg-slate-100 rounded-full overflow-hidden">
                                  <div className="h-full bg-indigo-500" style={{ width: `${Math.min(100, (teller.servedCount / 30) * 100)}%` }}></div>
                               </div>
+                              {teller.service && teller.service.serviceMeanMs !== null && (
+                                <span className="text-[10px] font-bold text-slate-400 uppercase tracking-tighter mt-1">
+                                  avg {(teller.service.serviceMeanMs / 60000).toFixed(1)} min
+                                  {teller.service.serviceP90Ms !== null && ` · p90 ${(teller.service.serviceP90Ms / 60000).toFixed(1)}`}
+                                </span>
+                              )}
                            </div>
                         </td>
                         <td className="px-8 py-6 text-right">
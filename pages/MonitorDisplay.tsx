@@ -1,5 +1,5 @@
 import React, { useEffect, useState, useRef, useCallback } from 'react';
-import { Ticket, TicketStatus, ServiceCategory, Teller } from '../types';
+import { Ticket, TicketStatus, ServiceCategory, Teller, WaitEstimates } from '../types';
 import { Monitor, Volume2, Info, LayoutGrid, Clock, VolumeX, ChevronRight } from 'lucide-react';
 import { announceTicket } from '../services/geminiService';
 
@@ -7,9 +7,10 @@ interface Props {
   tickets: Ticket[];
   categories: ServiceCategory[];
   tellers: Teller[];
+  waitEstimates?: WaitEstimates | null;
 }
 
-const MonitorDisplay: React.FC<Props> = ({ tickets, categories, tellers }) => {
+const MonitorDisplay: React.FC<Props> = ({ tickets, categories, tellers, waitEstimates }) => {
   const [lastAnnouncedId, setLastAnnouncedId] = useState<string | null>(null);
   const [now, setNow] = useState(new Date());
   const [isAudioEnabled, setIsAudioEnabled] = useState(false);
@@ -150,6 +151,15 @@ const MonitorDisplay: React.FC<Props> = ({ tickets, categories, tellers }) => {
   const upcomingByCategory = getUpcomingTicketsByCategory();
   const totalWaiting = Object.values(upcomingByCategory).flat().length;
 
+  // Server prediction from measured service times, averaged over categories with a queue;
+  // without one (Node server, offline) fall back to the old 4 minutes per waiting ticket
+  const measuredWaits = (waitEstimates?.categories || [])
+    .filter(e => e.waiting > 0 && e.expectedWaitMs !== null)
+    .map(e => e.expectedWaitMs as number);
+  const estimatedWaitMinutes = measuredWaits.length > 0
+    ? Math.round(measuredWaits.reduce((sum, ms) => sum + ms, 0) / measuredWaits.length / 60000)
+    : Math.min(90, totalWaiting * 4);
+
   // If no categories are loaded, show a loading state
   if (categories.length === 0) {
     return (
@@ -431,7 +441,7 @@ const MonitorDisplay: React.FC<Props> = ({ tickets, categories, tellers }) => {
                   Estimated Wait
                 </p>
                 <div className="text-3xl md:text-4xl font-black text-white tabular-nums tracking-tighter">
-                  {Math.min(90, totalWaiting * 4)}
+                  {estimatedWaitMinutes}
                   <span className="text-xl md:text-2xl ml-1 text-indigo-200">MIN</span>
                 </div>
                 <div className="mt-3 pt-3 border-t border-indigo-500/40 flex items-center gap-2 text-xs font-bold text-indigo-200 uppercase tracking-wider">
@@ -1,6 +1,6 @@
 
 import React, { useState } from 'react';
-import { Ticket, ServiceCategory, TicketStatus } from '../types';
+import { Ticket, ServiceCategory, TicketStatus, WaitEstimates } from '../types';
 import { Printer, Users, Clock, CheckCircle2, Plus, Edit2, Trash2, X, Check } from 'lucide-react';
 
 interface Props {
@@ -11,6 +11,7 @@ interface Props {
   onAddCategory: (cat: Omit<ServiceCategory, 'id'>) => void;
   onUpdateCategory: (cat: ServiceCategory) => void;
   onDeleteCategory: (id: string) => void;
+  waitEstimates?: WaitEstimates | null;
 }
 
 const ReceptionDashboard: React.FC<Props> = ({ 
@@ -20,7 +21,8 @@ const ReceptionDashboard: React.FC<Props> = ({
   lastIssuedTicket,
   onAddCategory, 
   onUpdateCategory, 
-  onDeleteCategory 
+  onDeleteCategory,
+  waitEstimates
 }) => {
   const [isEditing, setIsEditing] = useState(false);
   const [editingCat, setEditingCat] = useState<Partial<ServiceCategory> | null>(null);
@@ -163,6 +165,9 @@ const ReceptionDashboard: React.FC<Props> = ({
                 const categoryTickets = tickets.filter(t => t.categoryId === cat.id);
                 const waiting = categoryTickets.filter(t => t.status === TicketStatus.WAITING).length;
                 const serving = categoryTickets.filter(t => t.status === TicketStatus.SERVING || t.status === TicketStatus.CALLING).length;
+                // Measured average once the server has seen tickets completed, else the configured one
+                const estimate = waitEstimates?.categories.find(e => e.categoryId === cat.id);
+                const measured = estimate && estimate.samples > 0 && estimate.serviceMeanMs !== null;
                 
                 return (
                   <div 
@@ -184,7 +189,12 @@ const ReceptionDashboard: React.FC<Props> = ({
                     </div>
                     <div>
                       <h4 className="font-black text-xl text-slate-800 tracking-tight">{cat.name}</h4>
-                      <p className="text-slate-500 text-sm mt-1 font-medium">{cat.estimatedTime} min service avg.</p>
+                      <p className="text-slate-500 text-sm mt-1 font-medium">
+                        {measured ? `${Math.max(1, Math.round(estimate!.serviceMeanMs! / 60000))} min service avg. (measured)` : `${cat.estimatedTime} min service avg.`}
+                      </p>
+                      {estimate && estimate.waiting > 0 && estimate.expectedWaitMs !== null && (
+                        <p className="text-slate-400 text-xs mt-1 font-medium">~{Math.round(estimate.expectedWaitMs / 60000)} min wait for a new ticket</p>
+                      )}
                       <div className="flex gap-4 mt-3 text-xs font-bold">
                         <span className="text-blue-600">{waiting} waiting</span>
                         <span className="text-amber-600">{serving} serving</span>
@@ -0,0 +1,122 @@
+// Decoder for the embedded server's binary wire format (queuemaster.realtime.BinaryCodec),
+// used when the client connects with ?format=binary. Frames decode to the same message
+// objects as the JSON protocol.
+//
+// Frame: kind byte | varint from | varint count | count strings | (MESSAGE only) one value.
+// Strings, when a frame carries any, replace the string table from index `from` on; event
+// frames carry none and only need `from` entries, so they never shrink the table. Values
+// refer to table entries.
+
+const STRINGS = 1;
+const MESSAGE = 2;
+
+const NULL = 0;
+const FALSE = 1;
+const TRUE = 2;
+const LONG = 3;
+const DOUBLE = 4;
+const STRING = 5;
+const MAP = 6;
+const LIST = 7;
+const TIME = 8;
+
+const utf8 = new TextDecoder();
+
+export class BinaryDecoder {
+  private strings: string[] = [];
+  private view: DataView = new DataView(new ArrayBuffer(0));
+  private bytes: Uint8Array = new Uint8Array(0);
+  private position = 0;
+  private lastTime = 0;
+
+  /**
+   * The message in a frame, or null for a frame that only adds strings. Throws if the frame
+   * is damaged or refers to strings never received; the caller should then request a sync,
+   * whose frame carries the whole table.
+   */
+  decode(buffer: ArrayBuffer): any | null {
+    this.view = new DataView(buffer);
+    this.bytes = new Uint8Array(buffer);
+    this.position = 0;
+    this.lastTime = 0;
+    if (this.bytes.length === 0) throw new Error('Empty frame');
+    const kind = this.bytes[this.position++];
+    const from = this.readVarint();
+    const count = this.readVarint();
+    if (from > this.strings.length) throw new Error(`Missing strings before ${from}`);
+    // Only frames carrying strings replace entries; a plain event just needs the first `from`
+    if (count > 0) {
+      this.strings.length = from;
+      for (let i = 0; i < count; i++) this.strings.push(this.readUtf8());
+    }
+    if (kind === STRINGS) return null;
+    if (kind !== MESSAGE) throw new Error(`Unknown frame kind ${kind}`);
+    return this.readValue();
+  }
+
+  private readValue(): any {
+    const tag = this.bytes[this.position++];
+    switch (tag) {
+      case NULL: return null;
+      case FALSE: return false;
+      case TRUE: return true;
+      case LONG: return this.readZigzag();
+      case TIME: return this.lastTime += this.readZigzag();
+      case DOUBLE: {
+        const value = this.view.getFloat64(this.position);
+        this.position += 8;
+        return value;
+      }
+      case STRING: return this.readString();
+      case MAP: {
+        const size = this.readVarint();
+        const map: Record<string, any> = {};
+        for (let i = 0; i < size; i++) {
+          const key = this.readString();
+          map[key] = this.readValue();
+        }
+        return map;
+      }
+      case LIST: {
+        const size = this.readVarint();
+        const list = new Array(size);
+        for (let i = 0; i < size; i++) list[i] = this.readValue();
+        return list;
+      }
+      default: throw new Error(`Unknown tag ${tag}`);
+    }
+  }
+
+  private readString(): string {
+    const ref = this.readVarint();
+    if (ref === 0) return this.readUtf8();
+    if (ref > this.strings.length) throw new Error(`Unknown string ${ref - 1}`);
+    return this.strings[ref - 1];
+  }
+
+  private readUtf8(): string {
+    const length = this.readVarint();
+    if (this.position + length > this.bytes.length) throw new Error('Truncated frame');
+    const value = utf8.decode(this.bytes.subarray(this.position, this.position + length));
+    this.position += length;
+    return value;
+  }
+
+  // Multiplication rather than shifts: bitwise operators would truncate past 32 bits
+  private readVarint(): number {
+    let value = 0;
+    let scale = 1;
+    for (;;) {
+      if (this.position >= this.bytes.length) throw new Error('Truncated frame');
+      const b = this.bytes[this.position++];
+      value += (b & 0x7f) * scale;
+      if (b < 0x80) return value;
+      scale *= 128;
+    }
+  }
+
+  private readZigzag(): number {
+    const n = this.readVarint();
+    return n % 2 === 0 ? n / 2 : -(n + 1) / 2;
+  }
+}
@@ -1,6 +1,7 @@
+import { BinaryDecoder } from './BinaryProtocol';
 
 export interface RealtimeMessage {
-  type: 'ticket_update' | 'teller_update' | 'category_update' | 'admin_account_update' | 'announce' | 'sync' | 'welcome' | 'pong' | 'request_sync';
+  type: 'ticket_update' | 'teller_update' | 'category_update' | 'admin_account_update' | 'announce' | 'sync' | 'delta_sync' | 'welcome' | 'pong' | 'request_sync' | 'call_next' | 'call_next_result' | 'issue_ticket' | 'issue_ticket_result' | 'counter_update' | 'wait_estimates' | 'client_info';
   data?: any;
   ticket?: any;
   teller?: any;
@@ -15,6 +16,61 @@ export interface RealtimeMessage {
   categories?: any[];
   tellers?: any[];
   adminAccounts?: any[];
+  // Delta sync (embedded launcher server): entity updates, sync and welcome carry the
+  // server's sequence number; a client reconnecting with lastSeq/epoch receives only the
+  // events it missed in a delta_sync instead of a full sync.
+  seq?: number;
+  epoch?: string;
+  lastSeq?: number;
+  fromSeq?: number;
+  events?: RealtimeMessage[];
+  // Server-side dispatch (embedded launcher server): welcome lists 'call_next' in features;
+  // the teller sends call_next and gets call_next_result with the called ticket, or none.
+  features?: string[];
+  tellerId?: string;
+  error?: string;
+  // Server-side numbering: issue_ticket {categoryId} is answered with issue_ticket_result;
+  // every number issued is also broadcast as counter_update {categoryId, prefix, day, count}.
+  categoryId?: string;
+  prefix?: string;
+  day?: number;
+  count?: number;
+  // Wire format the server picked for this connection (welcome); 'binary' when requested
+  // with ?format=binary and supported. Entity updates and syncs then arrive as binary frames.
+  format?: 'json' | 'binary';
+  // client_info {role}: the app role in use, for the embedded server's clients-by-role metrics
+  role?: string | null;
+}
+
+export type WireFormat = 'json' | 'binary';
+
+const WIRE_FORMAT_KEY = 'qm_wire_format';
+
+// Per-bucket counters served by the embedded server at /api/analytics
+export interface AnalyticsCounters {
+  created: number;
+  called: number;
+  served: number;
+  noShows: number;
+  avgWaitMs: number | null;
+  avgServiceMs: number | null;
+}
+
+export interface AnalyticsRollup {
+  start: number;
+  total: AnalyticsCounters;
+  categories?: Record<string, AnalyticsCounters>;
+  tellers?: Record<string, AnalyticsCounters>;
+}
+
+export interface AnalyticsResponse {
+  granularity: 'minute' | 'hour' | 'day';
+  bucketMillis: number;
+  from: number;
+  to: number;
+  version: number;
+  buckets: AnalyticsRollup[];
+  summary: AnalyticsRollup;
 }
 
 class RealtimeService {
@@ -24,12 +80,64 @@ class RealtimeService {
   private reconnectDelay = 1000;
   private listeners: Map<string, Function[]> = new Map();
   private connectionPromise: Promise<boolean> | null = null;
+  // Position in the server's event stream, for delta sync on reconnect
+  private lastSeq: number | null = null;
+  private epoch: string | null = null;
+  private features: string[] = [];
+  private wireFormat: WireFormat = RealtimeService.preferredWireFormat();
+  private binaryDecoder = new BinaryDecoder();
+  // The app role picked on this device, reported so the server can count clients by role
+  private role: string | null = null;
 
   constructor() {
     this.connect();
   }
 
   private getWebSocketUrl(): string {
+    const base = this.getServerUrl();
+    const params = new URLSearchParams();
+    if (this.wireFormat === 'binary') params.set('format', 'binary');
+    if (this.role) params.set('role', this.role);
+    if (this.lastSeq !== null && this.epoch !== null) {
+      params.set('lastSeq', String(this.lastSeq));
+      params.set('epoch', this.epoch);
+    }
+    const query = params.toString();
+    return query ? `${base}/?${query}` : base;
+  }
+
+  /**
+   * Binary frames are opt-in per device, for monitors on slow hardware or busy Wi-Fi: open the
+   * page once with ?wire=binary (or ?wire=json to undo), or call setWireFormat.
+   */
+  private static preferredWireFormat(): WireFormat {
+    try {
+      const requested = new URLSearchParams(window.location.search).get('wire');
+      if (requested === 'binary' || requested === 'json') localStorage.setItem(WIRE_FORMAT_KEY, requested);
+      return localStorage.getItem(WIRE_FORMAT_KEY) === 'binary' ? 'binary' : 'json';
+    } catch {
+      return 'json';
+    }
+  }
+
+  /** Reports the role now in use; sent at once when connected, and on every reconnect. */
+  setRole(role: string | null): void {
+    if (role === this.role) return;
+    this.role = role;
+    this.send({ type: 'client_info', role });
+  }
+
+  /** Takes effect on the next connection. Servers without the format keep sending JSON. */
+  setWireFormat(format: WireFormat): void {
+    this.wireFormat = format;
+    try {
+      localStorage.setItem(WIRE_FORMAT_KEY, format);
+    } catch {
+      // Storage unavailable (private mode): applies to this page only
+    }
+  }
+
+  private getServerUrl(): string {
     // For local development
     if (window.location.hostname === 'localhost' || window.location.hostname === '127.0.0.1') {
       return 'ws://localhost:8080';
@@ -54,6 +162,7 @@ class RealtimeService {
         const wsUrl = this.getWebSocketUrl();
         console.log('Connecting to WebSocket:', wsUrl);
         this.ws = new WebSocket(wsUrl);
+        this.ws.binaryType = 'arraybuffer';
 
         this.ws.onopen = () => {
           console.log('WebSocket connected successfully');
@@ -68,6 +177,10 @@ class RealtimeService {
         };
 
         this.ws.onmessage = (event) => {
+          if (typeof event.data !== 'string') {
+            this.handleBinary(event.data as ArrayBuffer);
+            return;
+          }
           try {
             const message: RealtimeMessage = JSON.parse(event.data);
             this.handleMessage(message);
@@ -97,10 +210,27 @@ class RealtimeService {
     return this.connectionPromise;
   }
 
+  private handleBinary(buffer: ArrayBuffer) {
+    let message: RealtimeMessage | null;
+    try {
+      message = this.binaryDecoder.decode(buffer);
+    } catch (error) {
+      // Missed strings (a dropped frame): the sync or delta_sync answer carries the whole table
+      console.error('Failed to decode binary message:', error);
+      this.requestSync();
+      return;
+    }
+    if (message) this.handleMessage(message);
+  }
+
   private handleMessage(message: RealtimeMessage) {
+    if (typeof message.seq === 'number') this.lastSeq = message.seq;
+    if (message.epoch) this.epoch = message.epoch;
+
     switch (message.type) {
       case 'welcome':
         console.log('Server welcome:', message.message, 'Clients:', message.clientCount);
+        this.features = message.features || [];
         this.emit('welcome', message);
         break;
 
@@ -136,9 +266,31 @@ class RealtimeService {
         });
         break;
 
+      case 'delta_sync':
+        // Replay only what was missed while disconnected, through the normal handlers
+        (message.events || []).forEach(event => this.handleMessage(event));
+        this.emit('delta_sync', { fromSeq: message.fromSeq, seq: message.seq, count: (message.events || []).length });
+        break;
+
       case 'pong':
         this.emit('pong', { timestamp: message.timestamp });
         break;
+
+      case 'call_next_result':
+        this.emit('call_next_result', { tellerId: message.tellerId, ticket: message.ticket, error: message.error });
+        break;
+
+      case 'issue_ticket_result':
+        this.emit('issue_ticket_result', { categoryId: message.categoryId, ticket: message.ticket, error: message.error });
+        break;
+
+      case 'counter_update':
+        this.emit('counter_update', { categoryId: message.categoryId, count: message.count });
+        break;
+
+      case 'wait_estimates':
+        this.emit('wait_estimates', { categories: message.categories || [], tellers: message.tellers || [], timestamp: message.timestamp });
+        break;
     }
   }
 
@@ -159,7 +311,11 @@ class RealtimeService {
   }
 
   requestSync(): void {
-    this.send({ type: 'request_sync' });
+    if (this.lastSeq !== null && this.epoch !== null) {
+      this.send({ type: 'request_sync', lastSeq: this.lastSeq, epoch: this.epoch });
+    } else {
+      this.send({ type: 'request_sync' });
+    }
   }
 
   on(event: string, callback: Function): void {
@@ -222,6 +378,30 @@ class RealtimeService {
     return this.ws !== null && this.ws.readyState === WebSocket.OPEN;
   }
 
+  /** True when connected to a server that announced the feature in its welcome (server.ts announces none). */
+  supportsFeature(feature: string): boolean {
+    return this.isConnected() && this.features.includes(feature);
+  }
+
+  /**
+   * Minute/hour/day rollups from the embedded server (welcome lists 'analytics'), so the admin
+   * charts need not aggregate the ticket list; null when unsupported or the request fails.
+   */
+  async fetchAnalytics(granularity: 'minute' | 'hour' | 'day', from?: number, to?: number): Promise<AnalyticsResponse | null> {
+    if (!this.supportsFeature('analytics')) return null;
+    const params = new URLSearchParams({ granularity });
+    if (from !== undefined) params.set('from', String(from));
+    if (to !== undefined) params.set('to', String(to));
+    const url = `${this.getServerUrl().replace(/^ws/, 'http')}/api/analytics?${params}`;
+    try {
+      const response = await fetch(url);
+      return response.ok ? await response.json() : null;
+    } catch (error) {
+      console.warn('Analytics request failed:', error);
+      return null;
+    }
+  }
+
   getConnectionStatus(): string {
     if (!this.ws) return 'disconnected';
     switch (this.ws.readyState) {
@@ -20,6 +20,7 @@ export interface ServiceCategory {
   prefix: string;
   color: string;
   estimatedTime: number; // in minutes
+  priority?: number; // dispatch priority, each level worth 5 minutes of waiting (embedded server)
 }
 
 export interface Ticket {
@@ -34,6 +35,8 @@ export interface Ticket {
   tellerId?: string;
   counterNumber?: number;
   lastUpdated?: number;
+  priority?: number; // dispatch priority (embedded server)
+  estimatedWaitMs?: number; // predicted wait when issued (embedded server)
 }
 
 export interface Teller {
@@ -45,6 +48,32 @@ export interface Teller {
   assignedCategoryIds: string[];
 }
 
+// Measured service times and predicted waits, pushed by the embedded server
+export interface CategoryWaitEstimate {
+  categoryId: string;
+  waiting: number;
+  servers: number;
+  expectedWaitMs: number | null; // null while nobody serves the category
+  samples: number;
+  serviceMeanMs: number | null;
+  serviceP50Ms: number | null;
+  serviceP90Ms: number | null;
+}
+
+export interface TellerServiceStats {
+  tellerId: string;
+  samples: number;
+  serviceMeanMs: number | null;
+  serviceP50Ms: number | null;
+  serviceP90Ms: number | null;
+}
+
+export interface WaitEstimates {
+  categories: CategoryWaitEstimate[];
+  tellers: TellerServiceStats[];
+  timestamp: number;
+}
+
 export interface AdminAccount {
   id: string;
   email: string;